@@ -0,0 +1,99 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                             C l a s s i f i e r B e n c h m a r k                              //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.classifier;
+
+import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.image.ImageState;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code ClassifierBenchmark} measures the evaluation by each shape classifier of
+ * all symbol-sized glyphs of an image.
+ * <p>
+ * Glyph features (such as moments) are cached by each glyph, hence after the first
+ * invocation only the classifier itself is measured.
+ *
+ * @author Hervé Bitteur
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms512m", "-Xmx1g"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ClassifierBenchmark
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Which classifier. */
+    @Param({"basic", "deep"})
+    public String kind;
+
+    /** Classifier under test. */
+    private Classifier classifier;
+
+    /** Glyphs to evaluate. */
+    private List<Glyph> glyphs;
+
+    /** Interline value. */
+    private int interline;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //----------//
+    // evaluate //
+    //----------//
+    @Benchmark
+    public void evaluate (Blackhole hole)
+    {
+        for (Glyph glyph : glyphs) {
+            hole.consume(
+                    classifier.evaluate(glyph, interline, 1, 0.0, Classifier.NO_CONDITIONS));
+        }
+    }
+
+    //-------//
+    // setUp //
+    //-------//
+    @Setup
+    public void setUp (ImageState state)
+    {
+        classifier = kind.equals("deep") ? DeepClassifier.getInstance()
+                : BasicClassifier.getInstance();
+        glyphs = state.getSymbolGlyphs();
+        interline = state.interline;
+    }
+}
@@ -0,0 +1,74 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                         A d a p t i v e F i l t e r B e n c h m a r k                          //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code AdaptiveFilterBenchmark} measures the binarization of a whole gray image by
+ * each {@link AdaptiveFilter} implementation.
+ *
+ * @author Hervé Bitteur
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms512m", "-Xmx1g"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class AdaptiveFilterBenchmark
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Which adaptive filter implementation. */
+    @Param({"integral", "random"})
+    public String kind;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------------//
+    // filteredImage //
+    //---------------//
+    @Benchmark
+    public ByteProcessor filteredImage (ImageState state)
+    {
+        final double meanCoeff = AdaptiveFilter.getDefaultMeanCoeff();
+        final double stdDevCoeff = AdaptiveFilter.getDefaultStdDevCoeff();
+        final AdaptiveFilter filter = kind.equals("random")
+                ? new RandomFilter(state.gray, meanCoeff, stdDevCoeff)
+                : new IntegralFilter(state.gray, meanCoeff, stdDevCoeff);
+
+        return filter.filteredImage();
+    }
+}
@@ -0,0 +1,141 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               D i s t a n c e B e n c h m a r k                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.glyph.Shape;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code DistanceBenchmark} measures the distance-based matching chain used for note
+ * heads: chamfer distance transform, then template evaluation and full scan matching.
+ * <p>
+ * The distance transform is measured on the whole image, while template matching is limited
+ * to a central core of the image, since a full scan is much longer.
+ *
+ * @author Hervé Bitteur
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms512m", "-Xmx1g"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class DistanceBenchmark
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Side of image core used for matching. */
+    private static final int CORE_SIZE = 512;
+
+    /** Number of template evaluations per invocation. */
+    private static final int EVALUATIONS = 10000;
+
+    /** Maximum matching distance, as used by note heads builder. */
+    private static final double MAX_DISTANCE = 1.75;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Whole image foreground, as boolean input. */
+    private boolean[][] input;
+
+    /** Distances to foreground in image core. */
+    private DistanceTable coreTable;
+
+    /** Template for black heads. */
+    private Template template;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------//
+    // compute //
+    //---------//
+    @Benchmark
+    public DistanceTable compute ()
+    {
+        return new ChamferDistance.Short().compute(input);
+    }
+
+    //----------//
+    // evaluate //
+    //----------//
+    @Benchmark
+    @OperationsPerInvocation(EVALUATIONS)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void evaluate (Blackhole hole)
+    {
+        final int width = coreTable.getWidth() - template.getWidth();
+        final int height = coreTable.getHeight() - template.getHeight();
+
+        for (int i = 0; i < EVALUATIONS; i++) {
+            final int x = (i * 7919) % width;
+            final int y = (i * 104729) % height;
+            hole.consume(template.evaluate(x, y, null, coreTable));
+        }
+    }
+
+    //----------//
+    // matchAll //
+    //----------//
+    @Benchmark
+    public List<PixelDistance> matchAll ()
+    {
+        return new DistanceMatching(coreTable).matchAll(template, MAX_DISTANCE);
+    }
+
+    //-------//
+    // setUp //
+    //-------//
+    @Setup
+    public void setUp (ImageState state)
+    {
+        final ByteProcessor binary = state.binary;
+        final int width = binary.getWidth();
+        final int height = binary.getHeight();
+        input = new boolean[width][height];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                input[x][y] = binary.get(x, y) == 0;
+            }
+        }
+
+        coreTable = new ChamferDistance.Short().computeToFore(
+                state.binaryOf(state.getCore(CORE_SIZE)));
+        template = TemplateFactory.getInstance().getCatalog(state.interline).getTemplate(
+                Shape.NOTEHEAD_BLACK);
+    }
+}
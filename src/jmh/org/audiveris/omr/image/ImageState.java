@@ -0,0 +1,178 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                      I m a g e S t a t e                                       //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+import ij.process.ColorProcessor;
+
+import org.audiveris.omr.WellKnowns;
+import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.glyph.GlyphFactory;
+import org.audiveris.omr.run.Orientation;
+import org.audiveris.omr.run.RunTableFactory;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Class {@code ImageState} is the JMH state shared by benchmarks, that provides the gray
+ * and binary sources of an image taken from project data/examples folder.
+ * <p>
+ * Image and interline can be chosen at run time, for example:
+ * {@code gradle jmh -PjmhArgs=-p,image=carmen.png,-p,interline=22}
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Benchmark)
+public class ImageState
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Name of image file in data/examples folder. */
+    @Param({"allegretto.png", "chula.png"})
+    public String image;
+
+    /** Assumed interline value for this image, since no scale is retrieved here. */
+    @Param({"20"})
+    public int interline;
+
+    /** Gray source. */
+    public ByteProcessor gray;
+
+    /** Binarized source. */
+    public ByteProcessor binary;
+
+    /** Glyphs of symbol size, lazily built. */
+    private List<Glyph> symbolGlyphs;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------//
+    // binaryOf //
+    //---------//
+    /**
+     * Report a copy of the binary source, limited to the provided rectangle.
+     *
+     * @param rect the desired rectangle, clipped by image bounds
+     * @return the binary sub-image
+     */
+    public ByteProcessor binaryOf (Rectangle rect)
+    {
+        binary.setRoi(rect.intersection(new Rectangle(0, 0, binary.getWidth(), binary.getHeight())));
+
+        ByteProcessor sub = (ByteProcessor) binary.crop();
+        binary.resetRoi();
+
+        return sub;
+    }
+
+    //---------//
+    // getCore //
+    //---------//
+    /**
+     * Report a centered rectangle of about the provided size.
+     *
+     * @param size the desired rectangle side
+     * @return the central rectangle
+     */
+    public Rectangle getCore (int size)
+    {
+        final int width = Math.min(size, binary.getWidth());
+        final int height = Math.min(size, binary.getHeight());
+
+        return new Rectangle(
+                (binary.getWidth() - width) / 2,
+                (binary.getHeight() - height) / 2,
+                width,
+                height);
+    }
+
+    //-----------------//
+    // getSymbolGlyphs //
+    //-----------------//
+    /**
+     * Report the image glyphs whose size is typical of a music symbol, that is not larger
+     * than a few interlines and not smaller than a dot.
+     *
+     * @return the symbol glyphs, in no particular order
+     */
+    public synchronized List<Glyph> getSymbolGlyphs ()
+    {
+        if (symbolGlyphs == null) {
+            final int maxSide = 4 * interline;
+            final int minWeight = interline;
+            symbolGlyphs = new ArrayList<Glyph>();
+
+            for (Glyph glyph : GlyphFactory.buildGlyphs(
+                    new RunTableFactory(Orientation.VERTICAL).createTable(binary),
+                    null)) {
+                final Rectangle box = glyph.getBounds();
+
+                if ((box.width <= maxSide) && (box.height <= maxSide)
+                    && (glyph.getWeight() >= minWeight)) {
+                    symbolGlyphs.add(glyph);
+                }
+            }
+        }
+
+        return symbolGlyphs;
+    }
+
+    //-------//
+    // setUp //
+    //-------//
+    @Setup
+    public void setUp ()
+            throws IOException
+    {
+        WellKnowns.ensureLoaded();
+
+        // Images are read from project tree, benchmarks are run from project folder
+        final Path path = Paths.get("data", "examples", image);
+        final BufferedImage img = ImageIO.read(path.toFile());
+
+        if (img == null) {
+            throw new IOException("Cannot read image " + path);
+        }
+
+        // Same conversion as Picture does for its initial source
+        if (img.getType() != BufferedImage.TYPE_BYTE_GRAY) {
+            gray = new ColorProcessor(img).convertToByteProcessor();
+        } else {
+            gray = new ByteProcessor(img);
+        }
+
+        // Default binarization filter
+        binary = FilterDescriptor.defaultFilter.getTarget().getFilter(gray).filteredImage();
+    }
+}
@@ -0,0 +1,94 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                      B a s i c A R T E x t r a c t o r B e n c h m a r k                       //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.moments;
+
+import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.image.ImageState;
+import org.audiveris.omr.math.PointsCollector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code BasicARTExtractorBenchmark} measures the extraction of ART moments on all
+ * symbol-sized glyphs of an image.
+ * <p>
+ * Glyph points are collected beforehand, so that only the moments extraction is measured.
+ *
+ * @author Hervé Bitteur
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = {"-Xms512m", "-Xmx1g"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class BasicARTExtractorBenchmark
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Points of each glyph. */
+    private final List<PointsCollector> collectors = new ArrayList<PointsCollector>();
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------//
+    // extract //
+    //---------//
+    @Benchmark
+    public void extract (Blackhole hole)
+    {
+        final BasicARTExtractor extractor = new BasicARTExtractor();
+
+        for (PointsCollector collector : collectors) {
+            final ARTMoments moments = new BasicARTMoments();
+            extractor.setDescriptor(moments);
+            extractor.extract(collector.getXValues(), collector.getYValues(), collector.getSize());
+            hole.consume(moments);
+        }
+    }
+
+    //-------//
+    // setUp //
+    //-------//
+    @Setup
+    public void setUp (ImageState state)
+    {
+        for (Glyph glyph : state.getSymbolGlyphs()) {
+            final PointsCollector collector = new PointsCollector(null, glyph.getWeight());
+            glyph.getRunTable().cumulate(collector, glyph.getBounds().getLocation());
+            collectors.add(collector);
+        }
+    }
+}
@@ -28,9 +28,11 @@ import org.audiveris.omr.constant.ConstantManager;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.sheet.BookManager;
+import org.audiveris.omr.text.TextBuilder;
 import org.audiveris.omr.text.tesseract.TesseractOCR;
 import org.audiveris.omr.ui.MainGui;
 import org.audiveris.omr.ui.symbol.MusicFont;
+import org.audiveris.omr.util.Metrics;
 import org.audiveris.omr.util.OmrExecutors;
 
 import org.jdesktop.application.Application;
@@ -151,13 +153,23 @@ public class Main
             // Check MusicFont is loaded
             MusicFont.checkMusicFont();
 
+            // Periodic snapshots of metrics, if so desired
+            Metrics.startSnapshots();
+
             // Run the required tasks, if any (and remember if at least one task failed)
             boolean failure = runBatchTasks();
 
+            // Final dump of metrics
+            Metrics.stopSnapshots();
+            Metrics.dump();
+
             // At this point all tasks have completed (except timeout...)
             // So shutdown gracefully the executors
             boolean timeout = !OmrExecutors.shutdown();
 
+            // Release OCR engines
+            TextBuilder.getOcr().shutdown();
+
             // Save global sample repository if modified
             if (SampleRepository.hasInstance()) {
                 SampleRepository repository = SampleRepository.getGlobalInstance(false);
@@ -0,0 +1,385 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   R u n T h r o u g h p u t                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.BookManager;
+import org.audiveris.omr.sheet.SheetStub;
+import org.audiveris.omr.step.RunClass;
+import org.audiveris.omr.step.Step;
+import org.audiveris.omr.step.StepRecorder;
+import org.audiveris.omr.step.StepRecorder.Record;
+import org.audiveris.omr.util.JsonWriter;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedSet;
+
+/**
+ * Class {@code RunThroughput} is a batch benchmark, which transcribes the book sheets
+ * from scratch several times and reports the time spent per pass, per sheet and per step.
+ * <p>
+ * It is meant to be launched via the CLI on a set of inputs, for example:
+ * <pre>
+ * gradle run -PcmdLineArgs=-batch,-run,org.audiveris.omr.RunThroughput,data/examples/chula.png
+ * </pre>
+ * For each book, CSV and JSON reports (named radix-throughput.csv and radix-throughput.json)
+ * are written in book folder.
+ * The JSON report also records the JVM and parallelism settings, to allow the comparison of
+ * different runs on the same corpus.
+ * <p>
+ * Step CPU time and allocations are whole-process values ("process" scope) only when sheets are
+ * processed one at a time.
+ * When a step overlaps another one, they are measured on the step thread ("thread" scope), thus
+ * missing the work delegated to other threads, such as the parallel processing of systems.
+ *
+ * @author Hervé Bitteur
+ */
+public class RunThroughput
+        extends RunClass
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(RunThroughput.class);
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code RunThroughput} object.
+     *
+     * @param book     book to process
+     * @param sheetIds sheet IDS if any
+     */
+    public RunThroughput (Book book,
+                          SortedSet<Integer> sheetIds)
+    {
+        super(book, sheetIds);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------//
+    // process //
+    //---------//
+    @Override
+    public void process ()
+    {
+        final int passCount = constants.passes.getValue();
+        final List<Pass> passes = new ArrayList<Pass>();
+        final StepRecorder recorder = new StepRecorder();
+        StepRecorder.setActive(recorder);
+
+        try {
+            for (int p = 1; p <= passCount; p++) {
+                recorder.setPass(p);
+
+                int sheetCount = 0;
+
+                for (SheetStub stub : book.getValidStubs()) {
+                    if ((sheetIds == null) || sheetIds.contains(stub.getNumber())) {
+                        stub.reset(); // To restart from scratch
+                        sheetCount++;
+                    }
+                }
+
+                final long startCpu = StepRecorder.processCpuTime();
+                final long startWall = System.nanoTime();
+                final boolean ok = book.reachBookStep(Step.last(), false, sheetIds);
+                final Pass pass = new Pass(
+                        p,
+                        ok,
+                        sheetCount,
+                        System.nanoTime() - startWall,
+                        (startCpu < 0) ? -1 : (StepRecorder.processCpuTime() - startCpu));
+                passes.add(pass);
+                logger.info(
+                        "{} pass {}/{} {} sheets in {} ms, {} sheets/hour",
+                        book.getRadix(),
+                        p,
+                        passCount,
+                        sheetCount,
+                        String.format(Locale.US, "%.0f", pass.wallNanos / 1e6),
+                        String.format(Locale.US, "%.1f", pass.getSheetsPerHour()));
+            }
+        } finally {
+            StepRecorder.setActive(null);
+        }
+
+        final List<Record> records = recorder.getRecords();
+        logBreakdown(records, passCount);
+
+        final Path folder = BookManager.getDefaultBookFolder(book);
+
+        try {
+            Files.createDirectories(folder);
+            writeCsv(folder.resolve(book.getRadix() + "-throughput.csv"), records);
+            writeJson(folder.resolve(book.getRadix() + "-throughput.json"), passes, records);
+        } catch (IOException ex) {
+            logger.warn("Error writing throughput reports in {} {}", folder, ex.toString(), ex);
+        }
+    }
+
+    //--------------//
+    // logBreakdown //
+    //--------------//
+    /**
+     * Log the mean values per pass of each step, cumulated over all sheets.
+     * Unknown allocations are left out.
+     */
+    private void logBreakdown (List<Record> records,
+                               int passCount)
+    {
+        final Map<Step, double[]> sums = new EnumMap<Step, double[]>(Step.class);
+        int threadOnly = 0;
+
+        for (Record record : records) {
+            double[] sum = sums.get(record.step);
+
+            if (sum == null) {
+                sums.put(record.step, sum = new double[4]);
+            }
+
+            sum[0] += record.wallNanos / 1e6;
+            sum[1] += record.cpuNanos / 1e6;
+
+            if (record.allocatedBytes >= 0) {
+                sum[2] += record.allocatedBytes / 1e6;
+                sum[3]++;
+            }
+
+            if (!record.processWide) {
+                threadOnly++;
+            }
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%n%-12s %10s %10s %12s", "step", "wallMs", "cpuMs", "allocMB"));
+
+        for (Map.Entry<Step, double[]> entry : sums.entrySet()) {
+            final double[] sum = entry.getValue();
+            sb.append(
+                    String.format(
+                            Locale.US,
+                            "%n%-12s %10.0f %10.0f %12s",
+                            entry.getKey(),
+                            sum[0] / passCount,
+                            sum[1] / passCount,
+                            (sum[3] > 0) ? String.format(Locale.US, "%.1f", sum[2] / passCount)
+                                    : "n/a"));
+        }
+
+        if (threadOnly > 0) {
+            sb.append(
+                    String.format(
+                            "%n%d of %d step records overlapped other steps:"
+                            + " their CPU and allocations cover the step thread only",
+                            threadOnly,
+                            records.size()));
+        }
+
+        logger.info("{} mean per pass:{}", book.getRadix(), sb);
+    }
+
+    //-------//
+    // scope //
+    //-------//
+    /**
+     * Report the measurement scope of CPU and allocations for a record.
+     */
+    private static String scope (Record record)
+    {
+        return record.processWide ? "process" : "thread";
+    }
+
+    //----------//
+    // writeCsv //
+    //----------//
+    private void writeCsv (Path path,
+                           List<Record> records)
+            throws IOException
+    {
+        final PrintWriter out = new PrintWriter(
+                Files.newBufferedWriter(path, StandardCharsets.UTF_8));
+
+        try {
+            out.println("book,sheet,pass,step,ok,scope,wallMs,cpuMs,allocatedMB");
+
+            for (Record record : records) {
+                out.println(
+                        String.format(
+                                Locale.US,
+                                "%s,%d,%d,%s,%b,%s,%.1f,%.1f,%s",
+                                record.book,
+                                record.sheet,
+                                record.pass,
+                                record.step,
+                                record.ok,
+                                scope(record),
+                                record.wallNanos / 1e6,
+                                record.cpuNanos / 1e6,
+                                (record.allocatedBytes < 0) ? ""
+                                        : String.format(
+                                                Locale.US,
+                                                "%.1f",
+                                                record.allocatedBytes / 1e6)));
+            }
+        } finally {
+            out.close();
+        }
+
+        logger.info("Throughput CSV written to {}", path);
+    }
+
+    //-----------//
+    // writeJson //
+    //-----------//
+    private void writeJson (Path path,
+                            List<Pass> passes,
+                            List<Record> records)
+            throws IOException
+    {
+        final RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        final JsonWriter json = new JsonWriter(path);
+
+        try {
+            json.beginObject(null);
+            json.value("book", book.getRadix());
+            json.value("date", new Date().toString());
+            json.value("java", System.getProperty("java.version"));
+            json.value("vm", runtime.getVmName());
+            json.beginArray("jvmArgs");
+
+            for (String arg : runtime.getInputArguments()) {
+                json.value(null, arg);
+            }
+
+            json.endArray();
+            json.value("processors", Runtime.getRuntime().availableProcessors());
+            json.value("maxMemoryMB", Runtime.getRuntime().maxMemory() >> 20);
+            json.value("parallelism", OmrExecutors.defaultParallelism.getTarget());
+            json.beginArray("passes");
+
+            for (Pass pass : passes) {
+                json.beginObject(null);
+                json.value("pass", pass.number).value("ok", pass.ok).value("sheets", pass.sheets);
+                json.value("wallMs", pass.wallNanos / 1e6).value("cpuMs", pass.cpuNanos / 1e6);
+                json.value("sheetsPerHour", pass.getSheetsPerHour());
+                json.endObject();
+            }
+
+            json.endArray();
+            json.beginArray("steps");
+
+            for (Record record : records) {
+                json.beginObject(null);
+                json.value("sheet", record.sheet).value("pass", record.pass);
+                json.value("step", record.step.name()).value("ok", record.ok);
+                json.value("scope", scope(record));
+                json.value("wallMs", record.wallNanos / 1e6).value("cpuMs", record.cpuNanos / 1e6);
+                json.value(
+                        "allocatedMB",
+                        (record.allocatedBytes < 0) ? Double.NaN : (record.allocatedBytes / 1e6));
+                json.endObject();
+            }
+
+            json.endArray();
+            json.endObject();
+        } finally {
+            json.close();
+        }
+
+        logger.info("Throughput JSON written to {}", path);
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer passes = new Constant.Integer(
+                "count",
+                3,
+                "Number of transcription passes per book");
+    }
+
+    //------//
+    // Pass //
+    //------//
+    /**
+     * Measurement of one transcription pass on the book.
+     */
+    private static class Pass
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final int number;
+
+        final boolean ok;
+
+        final int sheets;
+
+        final long wallNanos;
+
+        final long cpuNanos;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Pass (int number,
+                     boolean ok,
+                     int sheets,
+                     long wallNanos,
+                     long cpuNanos)
+        {
+            this.number = number;
+            this.ok = ok;
+            this.sheets = sheets;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        public double getSheetsPerHour ()
+        {
+            return (sheets * 3600e9) / wallNanos;
+        }
+    }
+}
@@ -27,10 +27,12 @@ import org.audiveris.omr.WellKnowns;
 import static org.audiveris.omr.classifier.Classifier.SHAPE_COUNT;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.glyph.GlyphSignature;
 import org.audiveris.omr.glyph.Shape;
 import org.audiveris.omr.glyph.ShapeChecker;
 import org.audiveris.omr.sheet.Scale;
 import org.audiveris.omr.sheet.SystemInfo;
+import org.audiveris.omr.util.Metrics;
 import org.audiveris.omr.util.UriUtil;
 import org.audiveris.omr.util.ZipFileSystem;
 
@@ -56,6 +58,7 @@ import static java.nio.file.StandardOpenOption.CREATE;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 
@@ -115,6 +118,9 @@ public abstract class AbstractClassifier<M extends Object>
     /** The glyph checker for additional specific checks. */
     protected ShapeChecker glyphChecker = ShapeChecker.getInstance();
 
+    /** Generation of model, incremented whenever model is modified. */
+    private volatile int modelGeneration;
+
     //~ Methods ------------------------------------------------------------------------------------
     //----------//
     // evaluate //
@@ -144,6 +150,34 @@ public abstract class AbstractClassifier<M extends Object>
         return evaluate(glyph, null, count, minGrade, conditions, interline);
     }
 
+    //----------//
+    // evaluate //
+    //----------//
+    @Override
+    public List<Evaluation[]> evaluate (List<? extends Glyph> glyphs,
+                                        SystemInfo system,
+                                        int count,
+                                        double minGrade,
+                                        EnumSet<Condition> conditions)
+    {
+        final int interline = system.getSheet().getInterline();
+
+        return evaluate(glyphs, system, count, minGrade, conditions, interline);
+    }
+
+    //----------//
+    // evaluate //
+    //----------//
+    @Override
+    public List<Evaluation[]> evaluate (List<? extends Glyph> glyphs,
+                                        int interline,
+                                        int count,
+                                        double minGrade,
+                                        EnumSet<Condition> conditions)
+    {
+        return evaluate(glyphs, null, count, minGrade, conditions, interline);
+    }
+
     //---------------//
     // getDescriptor //
     //---------------//
@@ -188,6 +222,27 @@ public abstract class AbstractClassifier<M extends Object>
         return new DataSet(features, labels, null, null);
     }
 
+    //-----------------------//
+    // getNaturalEvaluations //
+    //-----------------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This default implementation simply evaluates glyphs one after the other.
+     */
+    @Override
+    public List<Evaluation[]> getNaturalEvaluations (List<? extends Glyph> glyphs,
+                                                     int interline)
+    {
+        final List<Evaluation[]> list = new ArrayList<Evaluation[]>(glyphs.size());
+
+        for (Glyph glyph : glyphs) {
+            list.add(getNaturalEvaluations(glyph, interline));
+        }
+
+        return list;
+    }
+
     //-------------//
     // isBigEnough //
     //-------------//
@@ -356,6 +411,18 @@ public abstract class AbstractClassifier<M extends Object>
     protected abstract M loadModel (Path root)
             throws Exception;
 
+    //--------------//
+    // modelChanged //
+    //--------------//
+    /**
+     * Notify that the model (or its norms) has been modified, thus invalidating any
+     * evaluation cached so far.
+     */
+    protected void modelChanged ()
+    {
+        modelGeneration++;
+    }
+
     //------------//
     // storeModel //
     //------------//
@@ -434,6 +501,7 @@ public abstract class AbstractClassifier<M extends Object>
             storeNorms(root);
 
             root.getFileSystem().close();
+            modelChanged();
 
             logger.info("{} data stored to {}", getName(), path);
         } catch (Exception ex) {
@@ -481,9 +549,144 @@ public abstract class AbstractClassifier<M extends Object>
                                    double minGrade,
                                    EnumSet<Classifier.Condition> conditions,
                                    int interline)
+    {
+        final long start = System.nanoTime();
+        final EvaluationCache cache = (system != null) ? system.getSheet().getEvaluationCache()
+                : null;
+        final Evaluation[] evals;
+
+        if ((cache == null) || !isBigEnough(glyph, interline)) {
+            evals = getSortedEvaluations(glyph, interline);
+        } else {
+            final EvaluationCache.Key key = getKey(glyph, interline);
+            final Evaluation[] cached = cache.get(key);
+
+            if (cached != null) {
+                evals = cached;
+
+                if (Metrics.isEnabled()) {
+                    Metrics.increment("classifier/" + getName() + "/cached");
+                }
+            } else {
+                evals = getSortedEvaluations(glyph, interline);
+                cache.put(key, evals);
+            }
+        }
+
+        final Evaluation[] selected = select(glyph, system, evals, count, minGrade, conditions);
+        if (Metrics.isEnabled()) {
+            Metrics.record("classifier/" + getName(), start);
+        }
+
+        return selected;
+    }
+
+    //----------//
+    // evaluate //
+    //----------//
+    private List<Evaluation[]> evaluate (List<? extends Glyph> glyphs,
+                                         SystemInfo system,
+                                         int count,
+                                         double minGrade,
+                                         EnumSet<Classifier.Condition> conditions,
+                                         int interline)
+    {
+        final long start = System.nanoTime();
+        final EvaluationCache cache = (system != null) ? system.getSheet().getEvaluationCache()
+                : null;
+
+        // Sorted evaluations per glyph, either noise or cached ones
+        final Evaluation[][] sorted = new Evaluation[glyphs.size()][];
+        final EvaluationCache.Key[] keys = new EvaluationCache.Key[glyphs.size()];
+
+        // Other big enough glyphs are submitted to the classifier, in a single batch
+        final List<Glyph> bigs = new ArrayList<Glyph>(glyphs.size());
+        int cachedCount = 0;
+
+        for (int i = 0; i < sorted.length; i++) {
+            final Glyph glyph = glyphs.get(i);
+
+            if (!isBigEnough(glyph, interline)) {
+                sorted[i] = noiseEvaluations;
+            } else {
+                if (cache != null) {
+                    keys[i] = getKey(glyph, interline);
+                    sorted[i] = cache.get(keys[i]);
+                }
+
+                if (sorted[i] == null) {
+                    bigs.add(glyph);
+                } else {
+                    cachedCount++;
+                }
+            }
+        }
+
+        final List<Evaluation[]> naturals = bigs.isEmpty() ? Collections.<Evaluation[]>emptyList()
+                : getNaturalEvaluations(bigs, interline);
+        final List<Evaluation[]> results = new ArrayList<Evaluation[]>(glyphs.size());
+        int ib = 0;
+
+        for (int i = 0; i < sorted.length; i++) {
+            final Glyph glyph = glyphs.get(i);
+            Evaluation[] evals = sorted[i];
+
+            if (evals == null) {
+                evals = naturals.get(ib++);
+                Arrays.sort(evals); // Order the evals from best to worst
+
+                if (cache != null) {
+                    cache.put(keys[i], evals);
+                }
+            }
+
+            results.add(select(glyph, system, evals, count, minGrade, conditions));
+        }
+
+        if (Metrics.isEnabled()) {
+            Metrics.increment("classifier/" + getName() + "/batchGlyphs", glyphs.size());
+            Metrics.increment("classifier/" + getName() + "/cached", cachedCount);
+            Metrics.record("classifier/" + getName() + "/batch", start);
+        }
+
+        return results;
+    }
+
+    //--------//
+    // getKey //
+    //--------//
+    private EvaluationCache.Key getKey (Glyph glyph,
+                                        int interline)
+    {
+        return new EvaluationCache.Key(
+                this,
+                modelGeneration,
+                new GlyphSignature(glyph, interline),
+                interline);
+    }
+
+    //--------//
+    // select //
+    //--------//
+    /**
+     * Select the acceptable evaluations among the sorted evaluations of a glyph.
+     *
+     * @param glyph      the evaluated glyph
+     * @param system     the containing system, if any
+     * @param evals      the sorted evaluations
+     * @param count      the desired maximum sequence length
+     * @param minGrade   the minimum evaluation grade to be acceptable
+     * @param conditions optional conditions, perhaps null or empty
+     * @return the selected evaluations
+     */
+    private Evaluation[] select (Glyph glyph,
+                                 SystemInfo system,
+                                 Evaluation[] evals,
+                                 int count,
+                                 double minGrade,
+                                 EnumSet<Classifier.Condition> conditions)
     {
         List<Evaluation> bests = new ArrayList<Evaluation>();
-        Evaluation[] evals = getSortedEvaluations(glyph, interline);
 
         EvalsLoop:
         for (Evaluation eval : evals) {
@@ -534,6 +737,12 @@ public abstract class AbstractClassifier<M extends Object>
         /** Features standard deviations. */
         final INDArray stds;
 
+        /** Plain copy of means, lazily built. */
+        private volatile double[] plainMeans;
+
+        /** Plain copy of standard deviations, lazily built. */
+        private volatile double[] plainStds;
+
         //~ Constructors ---------------------------------------------------------------------------
         public Norms (INDArray means,
                       INDArray stds)
@@ -541,6 +750,46 @@ public abstract class AbstractClassifier<M extends Object>
             this.means = means;
             this.stds = stds;
         }
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Report the features means as a plain array.
+         *
+         * @return plain means, not to be modified
+         */
+        public double[] getPlainMeans ()
+        {
+            if (plainMeans == null) {
+                plainMeans = toDoubles(means);
+            }
+
+            return plainMeans;
+        }
+
+        /**
+         * Report the features standard deviations as a plain array.
+         *
+         * @return plain standard deviations, not to be modified
+         */
+        public double[] getPlainStds ()
+        {
+            if (plainStds == null) {
+                plainStds = toDoubles(stds);
+            }
+
+            return plainStds;
+        }
+
+        private static double[] toDoubles (INDArray array)
+        {
+            final double[] doubles = new double[array.length()];
+
+            for (int i = 0; i < doubles.length; i++) {
+                doubles[i] = array.getDouble(i);
+            }
+
+            return doubles;
+        }
     }
 
     //-----------//
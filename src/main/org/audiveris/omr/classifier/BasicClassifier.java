@@ -163,19 +163,22 @@ public class BasicClassifier
     public Evaluation[] getNaturalEvaluations (Glyph glyph,
                                                int interline)
     {
-        double[] ins = descriptor.getFeatures(glyph, interline);
-        final INDArray features = Nd4j.create(ins);
-        normalize(features);
+        final double[] ins = descriptor.getFeatures(glyph, interline);
 
-        Shape[] values = Shape.values();
-        Evaluation[] evals = new Evaluation[SHAPE_COUNT];
+        // Normalize in situ, with no ND4J allocation
+        final Norms theNorms = norms;
+        final double[] means = theNorms.getPlainMeans();
+        final double[] stds = theNorms.getPlainStds();
 
         for (int i = 0; i < ins.length; i++) {
-            ins[i] = features.getDouble(i);
+            ins[i] = (ins[i] - means[i]) / stds[i];
         }
 
-        double[] outs = new double[SHAPE_COUNT];
-        model.run(ins, null, outs);
+        // Lock-free, thread-confined inference
+        final double[] outs = model.evaluate(ins, new double[SHAPE_COUNT]);
+
+        final Shape[] values = Shape.values();
+        final Evaluation[] evals = new Evaluation[SHAPE_COUNT];
 
         for (int s = 0; s < SHAPE_COUNT; s++) {
             evals[s] = new Evaluation(values[s], outs[s]);
@@ -197,6 +200,7 @@ public class BasicClassifier
     public void reset ()
     {
         model = createNetwork();
+        modelChanged();
     }
 
     //--------------//
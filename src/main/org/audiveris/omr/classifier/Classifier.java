@@ -29,6 +29,7 @@ import org.deeplearning4j.optimize.api.IterationListener;
 
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.List;
 
 /**
  * Interface {@code Classifier} defines the features of a glyph shape classifier.
@@ -101,6 +102,43 @@ public interface Classifier
                            double minGrade,
                            EnumSet<Condition> conditions);
 
+    /**
+     * Report, for each of the provided glyphs, the sorted sequence of best evaluation(s)
+     * found by the classifier.
+     * <p>
+     * This is equivalent to calling {@link #evaluate(Glyph, SystemInfo, int, double, EnumSet)} on
+     * each glyph, but allows the classifier to process all glyphs at once.
+     *
+     * @param glyphs     the glyphs to evaluate
+     * @param system     the system containing the glyphs to evaluate
+     * @param count      the desired maximum sequence length, min 1 and max SHAPE_COUNT
+     * @param minGrade   the minimum evaluation grade to be acceptable
+     * @param conditions optional conditions, perhaps null or empty
+     * @return the sequences of evaluations, one per glyph in glyphs order
+     */
+    List<Evaluation[]> evaluate (List<? extends Glyph> glyphs,
+                                 SystemInfo system,
+                                 int count,
+                                 double minGrade,
+                                 EnumSet<Condition> conditions);
+
+    /**
+     * Report, for each of the provided glyphs, the sorted sequence of best evaluation(s)
+     * found by the classifier, with no system but an interline value.
+     *
+     * @param glyphs     the glyphs to evaluate
+     * @param interline  the relevant scaling information
+     * @param count      the desired maximum sequence length, min 1 and max SHAPE_COUNT
+     * @param minGrade   the minimum evaluation grade to be acceptable
+     * @param conditions optional conditions, perhaps null or empty
+     * @return the sequences of evaluations, one per glyph in glyphs order
+     */
+    List<Evaluation[]> evaluate (List<? extends Glyph> glyphs,
+                                 int interline,
+                                 int count,
+                                 double minGrade,
+                                 EnumSet<Condition> conditions);
+
     /**
      * Report the underlying glyph descriptor
      *
@@ -133,6 +171,17 @@ public interface Classifier
     Evaluation[] getNaturalEvaluations (Glyph glyph,
                                         int interline);
 
+    /**
+     * Run the classifier on all the specified glyphs, and return for each glyph the
+     * natural sequence of all interpretations (ordered by Shape ordinal) with no additional check.
+     *
+     * @param glyphs    the glyphs to be examined
+     * @param interline the relevant scaling interline
+     * @return for each glyph, all shape-ordered evaluations
+     */
+    List<Evaluation[]> getNaturalEvaluations (List<? extends Glyph> glyphs,
+                                              int interline);
+
     /**
      * Use a threshold on glyph weight, to tell if the provided glyph is just {@link
      * Shape#NOISE} or a real glyph.
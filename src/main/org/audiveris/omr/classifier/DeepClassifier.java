@@ -1,536 +1,885 @@
-//------------------------------------------------------------------------------------------------//
-//                                                                                                //
-//                                   D e e p C l a s s i f i e r                                  //
-//                                                                                                //
-//------------------------------------------------------------------------------------------------//
-// <editor-fold defaultstate="collapsed" desc="hdr">
-//
-//  Copyright © Audiveris 2017. All rights reserved.
-//
-//  This program is free software: you can redistribute it and/or modify it under the terms of the
-//  GNU Affero General Public License as published by the Free Software Foundation, either version
-//  3 of the License, or (at your option) any later version.
-//
-//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
-//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
-//  See the GNU Affero General Public License for more details.
-//
-//  You should have received a copy of the GNU Affero General Public License along with this
-//  program.  If not, see <http://www.gnu.org/licenses/>.
-//------------------------------------------------------------------------------------------------//
-// </editor-fold>
-package org.audiveris.omr.classifier;
-
-import static org.audiveris.omr.classifier.Classifier.SHAPE_COUNT;
-import org.audiveris.omr.constant.Constant;
-import org.audiveris.omr.constant.ConstantSet;
-import org.audiveris.omr.glyph.Glyph;
-import org.audiveris.omr.glyph.Shape;
-import org.audiveris.omr.glyph.ShapeSet;
-import org.audiveris.omr.math.Population;
-
-import org.deeplearning4j.nn.api.OptimizationAlgorithm;
-import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
-import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
-import org.deeplearning4j.nn.conf.Updater;
-import org.deeplearning4j.nn.conf.inputs.InputType;
-import org.deeplearning4j.nn.conf.layers.ConvolutionLayer;
-import org.deeplearning4j.nn.conf.layers.DenseLayer;
-import org.deeplearning4j.nn.conf.layers.OutputLayer;
-import org.deeplearning4j.nn.conf.layers.SubsamplingLayer;
-import org.deeplearning4j.nn.layers.BaseLayer;
-import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
-import org.deeplearning4j.nn.weights.WeightInit;
-import org.deeplearning4j.optimize.api.IterationListener;
-
-import org.nd4j.linalg.activations.Activation;
-import org.nd4j.linalg.api.ndarray.INDArray;
-import org.nd4j.linalg.dataset.DataSet;
-import org.nd4j.linalg.factory.Nd4j;
-import org.nd4j.linalg.lossfunctions.LossFunctions;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.io.IOException;
-import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
-
-/**
- * Class {@code DeepClassifier} is a shape classifier implemented by a deep
- * convolutional network operating on {@link ImgGlyphDescriptor}.
- *
- * @author Hervé Bitteur
- */
-public class DeepClassifier
-        extends AbstractClassifier<MultiLayerNetwork>
-{
-    //~ Static fields/initializers -----------------------------------------------------------------
-
-    private static final Constants constants = new Constants();
-
-    private static final Logger logger = LoggerFactory.getLogger(DeepClassifier.class);
-
-    /** The singleton. */
-    private static volatile DeepClassifier INSTANCE;
-
-    /** Classifier file name. */
-    public static final String FILE_NAME = "deep-classifier.zip";
-
-    //~ Instance fields ----------------------------------------------------------------------------
-    //
-    /** The underlying convolutional neural network. */
-    private MultiLayerNetwork model;
-
-    /** Boolean to trigger stopping. */
-    protected volatile boolean stopping = false;
-
-    //~ Constructors -------------------------------------------------------------------------------
-    private DeepClassifier ()
-    {
-        descriptor = new ImgGlyphDescriptor();
-
-        // Unmarshal from user or default data, if compatible
-        model = load(FILE_NAME);
-
-        if (model == null) {
-            model = createNetwork();
-        }
-    }
-
-    //~ Methods ------------------------------------------------------------------------------------
-    //-------------//
-    // getInstance //
-    //-------------//
-    /**
-     * Report the single instance of NeuralClassifier in the application.
-     *
-     * @return the instance
-     */
-    public static DeepClassifier getInstance ()
-    {
-        if (INSTANCE == null) {
-            synchronized (DeepClassifier.class) {
-                if (INSTANCE == null) {
-                    INSTANCE = new DeepClassifier();
-                }
-            }
-        }
-
-        return INSTANCE;
-    }
-
-    //--------------//
-    // getMaxEpochs //
-    //--------------//
-    /**
-     * Selector on the maximum number of training epochs.
-     *
-     * @return the upper limit on epochs counter
-     */
-    @Override
-    public int getMaxEpochs ()
-    {
-        return constants.maxEpochs.getValue();
-    }
-
-    //----------//
-    // getModel //
-    //----------//
-    /**
-     * @return the model
-     */
-    public MultiLayerNetwork getModel ()
-    {
-        return model;
-    }
-
-    //---------//
-    // getName //
-    //---------//
-    @Override
-    public final String getName ()
-    {
-        return "Deep Classifier";
-    }
-
-    //-------------//
-    // addListener //
-    //-------------//
-    @Override
-    public void addListener (IterationListener listener)
-    {
-        if (listener != null) {
-            Collection<IterationListener> listeners = model.getListeners();
-
-            if (!listeners.contains(listener)) {
-                listeners.add(listener);
-                model.setListeners(listeners);
-            }
-        }
-    }
-
-    //-----------------------//
-    // getNaturalEvaluations //
-    //-----------------------//
-    @Override
-    public Evaluation[] getNaturalEvaluations (Glyph glyph,
-                                               int interline)
-    {
-        final double[] doubles = descriptor.getFeatures(glyph, interline);
-        final INDArray features = Nd4j.create(doubles);
-        normalize(features);
-
-        final INDArray preOutput;
-
-        synchronized (this) {
-            INDArray output = model.output(features, false);
-            BaseLayer outputLayer = (BaseLayer) model.getOutputLayer();
-            preOutput = outputLayer.preOutput(false);
-        }
-
-        Evaluation[] evals = new Evaluation[SHAPE_COUNT];
-        Shape[] values = Shape.values();
-
-        for (int s = 0; s < SHAPE_COUNT; s++) {
-            double grade = sigmoid(preOutput.getDouble(s)); // Rather than normalized output
-            evals[s] = new Evaluation(values[s], grade);
-        }
-
-        return evals;
-    }
-
-    //-----------//
-    // normalize //
-    //-----------//
-    /**
-     * Apply the known norms on the provided (raw) features.
-     *
-     * @param features raw features, to be normalized in situ
-     */
-    public void normalize (INDArray features)
-    {
-        features.subi(norms.means.getDouble(0));
-        features.divi(norms.stds.getDouble(0));
-    }
-
-    //----------------//
-    // removeListener //
-    //----------------//
-    @Override
-    public void removeListener (IterationListener listener)
-    {
-        if (listener != null) {
-            Collection<IterationListener> listeners = model.getListeners();
-
-            if (listeners.contains(listener)) {
-                listeners.remove(listener);
-                model.setListeners(listeners);
-            }
-        }
-    }
-
-    //-------//
-    // reset //
-    //-------//
-    @Override
-    public void reset ()
-    {
-        // Create a new model and transfer listeners from previous model
-        Collection<IterationListener> listeners = model.getListeners();
-        model = createNetwork();
-        model.setListeners(listeners);
-    }
-
-    //--------------//
-    // setMaxEpochs //
-    //--------------//
-    @Override
-    public void setMaxEpochs (int maxEpochs)
-    {
-        constants.maxEpochs.setValue(maxEpochs);
-    }
-
-    //------//
-    // stop //
-    //------//
-    @Override
-    public void stop ()
-    {
-        stopping = true;
-    }
-
-    //-------//
-    // train //
-    //-------//
-    @SuppressWarnings("unchecked")
-    @Override
-    public void train (Collection<Sample> samples)
-    {
-        stopping = false;
-
-        if (samples.isEmpty()) {
-            logger.warn("No sample to retrain neural classifier");
-
-            return;
-        }
-
-        // Shuffle the collection of samples
-        final List<Sample> newSamples = new ArrayList<Sample>(samples);
-        Collections.shuffle(newSamples);
-
-        // Build raw dataset
-        final DataSet dataSet = getRawDataSet(newSamples);
-
-        // Record mean and standard deviation for *ALL* pixels
-        final INDArray features = dataSet.getFeatures();
-        logger.info("features rows:{} cols:{}", features.rows(), features.columns());
-
-        Population pop = new Population();
-        final int rows = features.rows();
-        final int cols = features.columns();
-
-        for (int r = 0; r < rows; r++) {
-            INDArray row = features.getRow(r);
-
-            for (int c = 0; c < cols; c++) {
-                pop.includeValue(row.getDouble(c));
-            }
-        }
-
-        logger.info("pop: {}", pop);
-
-        INDArray mean = Nd4j.create(new double[]{pop.getMeanValue()});
-        INDArray std = Nd4j.create(
-                new double[]{pop.getStandardDeviation() + Nd4j.EPS_THRESHOLD});
-        norms = new Norms(mean, std);
-
-        logger.info("norms.means: {}", norms.means);
-        logger.info("norms.stds: {}", norms.stds);
-
-        // Normalize
-        ///dataSet.normalizeZeroMeanZeroUnitVariance();
-        normalize(features);
-
-        logger.info("Training network...");
-
-        final int epochs = getMaxEpochs();
-
-        for (int epoch = 1; epoch <= epochs; epoch++) {
-            epochStarted(epoch);
-
-            model.fit(dataSet);
-
-            // Evaluate
-            logger.info("Epoch:{} evaluating on training set...", epoch);
-
-            final List<String> names = Arrays.asList(
-                    ShapeSet.getPhysicalShapeNames());
-            org.deeplearning4j.eval.Evaluation eval = new org.deeplearning4j.eval.Evaluation(names);
-            INDArray guesses = model.output(dataSet.getFeatureMatrix());
-            eval.eval(dataSet.getLabels(), guesses);
-            logger.info(eval.stats(true));
-
-            // Store
-            store(FILE_NAME);
-
-            if (stopping) {
-                logger.info("Stopping.");
-
-                break;
-            }
-        }
-
-        stopping = false;
-    }
-
-    //--------------//
-    // isCompatible //
-    //--------------//
-    @Override
-    protected boolean isCompatible (MultiLayerNetwork model,
-                                    Norms norms)
-    {
-        // Check input numbers for norms
-        final int normsIn = norms.means.columns();
-
-        if (normsIn != 1) {
-            logger.warn("Incompatible norms count:{} expected:{}", normsIn, 1);
-
-            return false;
-        }
-
-        // Check input numbers for model
-        final org.deeplearning4j.nn.layers.convolution.ConvolutionLayer inputLayer = (org.deeplearning4j.nn.layers.convolution.ConvolutionLayer) model.getLayer(
-                0);
-        final org.deeplearning4j.nn.conf.layers.ConvolutionLayer confInputLayer = (org.deeplearning4j.nn.conf.layers.ConvolutionLayer) inputLayer.conf()
-                .getLayer();
-        final int modelIn = confInputLayer.getNIn();
-
-        if (modelIn != 1) {
-            logger.warn("Incompatible features count:{} expected:{}", modelIn, 1);
-
-            return false;
-        }
-
-        // Check output numbers for model
-        final org.deeplearning4j.nn.layers.OutputLayer outputLayer = (org.deeplearning4j.nn.layers.OutputLayer) model.getOutputLayer();
-        final org.deeplearning4j.nn.conf.layers.OutputLayer confOutputLayer = (org.deeplearning4j.nn.conf.layers.OutputLayer) outputLayer.conf()
-                .getLayer();
-        final int modelOut = confOutputLayer.getNOut();
-
-        if (modelOut != SHAPE_COUNT) {
-            logger.warn("Incompatible shape count model:{} expected:{}", modelOut, SHAPE_COUNT);
-
-            return false;
-        }
-
-        return true;
-    }
-
-    //-----------//
-    // loadModel //
-    //-----------//
-    @Override
-    protected MultiLayerNetwork loadModel (Path root)
-            throws IOException
-    {
-        return ModelSystemSerializer.restoreMultiLayerNetwork(root, false);
-    }
-
-    //------------//
-    // storeModel //
-    //------------//
-    @Override
-    protected void storeModel (Path root)
-            throws IOException
-    {
-        ModelSystemSerializer.writeModel(model, root, false);
-    }
-
-    //---------//
-    // sigmoid //
-    //---------//
-    /**
-     * Simple sigmoid function, with a step around 0 abscissa.
-     * It is used here simply to squash raw values into the [0..1] range
-     *
-     * @param val abscissa
-     * @return the related function value
-     */
-    private static double sigmoid (double val)
-    {
-        // Lambda chosen to avoid too many values near 0.9999
-        return 1.0 / (1.0 + Math.exp(-val / 20));
-    }
-
-    //---------------//
-    // createNetwork //
-    //---------------//
-    private MultiLayerNetwork createNetwork ()
-    {
-        logger.info("Creating a brand new {}", getName());
-
-        final long seed = 6;
-        final double learningRate = constants.learningRate.getValue();
-        final int iterations = constants.iterations.getValue();
-
-        MultiLayerConfiguration.Builder builder = new NeuralNetConfiguration.Builder() //
-                .seed(seed) //
-                .iterations(iterations) //
-                .regularization(true) //
-                .l2(0.0005) //
-                .learningRate(learningRate) // was .01 in original MNIST example
-                //.biasLearningRate(0.02)
-                //.learningRateDecayPolicy(LearningRatePolicy.Inverse).lrPolicyDecayRate(0.001).lrPolicyPower(0.75)
-                .weightInit(WeightInit.XAVIER) //
-                .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT) //
-                .updater(Updater.NESTEROVS).momentum(0.9) //
-                .list() //
-                .layer(
-                        0,
-                        new ConvolutionLayer.Builder(5, 5) //
-                                .nIn(1) //
-                                .stride(1, 1) //
-                                .nOut(20) //
-                                .activation(Activation.IDENTITY) //
-                                .build()) //
-                .layer(
-                        1,
-                        new SubsamplingLayer.Builder(SubsamplingLayer.PoolingType.MAX) //
-                                .kernelSize(2, 2) //
-                                .stride(2, 2) //
-                                .build()) //
-                .layer(
-                        2,
-                        new ConvolutionLayer.Builder(5, 5) //
-                                .stride(1, 1) //
-                                .nOut(50) //
-                                .activation(Activation.IDENTITY) //
-                                .build()) //
-                .layer(
-                        3,
-                        new SubsamplingLayer.Builder(SubsamplingLayer.PoolingType.MAX) //
-                                .kernelSize(2, 2) //
-                                .stride(2, 2) //
-                                .build()) //
-                .layer(
-                        4,
-                        new DenseLayer.Builder() //
-                                .nOut(500) //
-                                .activation(Activation.RELU) //
-                                .build()) //
-                .layer(
-                        5,
-                        new OutputLayer.Builder(LossFunctions.LossFunction.NEGATIVELOGLIKELIHOOD) //
-                                .nOut(SHAPE_COUNT) //
-                                .activation(Activation.SOFTMAX) //
-                                .build()) //
-                .setInputType(InputType.convolutionalFlat(ScaledBuffer.HEIGHT, ScaledBuffer.WIDTH, 1));
-
-        MultiLayerConfiguration conf = builder.build();
-        model = new MultiLayerNetwork(conf);
-        model.init();
-
-        return model;
-    }
-
-    //--------------//
-    // epochStarted //
-    //--------------//
-    private void epochStarted (int epoch)
-    {
-        for (IterationListener listener : model.getListeners()) {
-            if (listener instanceof TrainingMonitor) {
-                TrainingMonitor monitor = (TrainingMonitor) listener;
-                monitor.epochStarted(epoch);
-            }
-        }
-    }
-
-    //~ Inner Classes ------------------------------------------------------------------------------
-    //-----------//
-    // Constants //
-    //-----------//
-    private static final class Constants
-            extends ConstantSet
-    {
-        //~ Instance fields ------------------------------------------------------------------------
-
-        private final Constant.Ratio learningRate = new Constant.Ratio(0.002, "Learning Rate");
-
-        private final Constant.Integer maxEpochs = new Constant.Integer(
-                "Epochs",
-                30,
-                "Maximum number of epochs in training");
-
-        private final Constant.Integer iterations = new Constant.Integer(
-                "Iterations",
-                2,
-                "Number of iterations on each minibatch");
-    }
-}
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   D e e p C l a s s i f i e r                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.classifier;
+
+import static org.audiveris.omr.classifier.Classifier.SHAPE_COUNT;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.glyph.ShapeSet;
+import org.audiveris.omr.math.Population;
+import org.audiveris.omr.step.ProcessingCancellationException;
+
+import org.deeplearning4j.nn.api.OptimizationAlgorithm;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.Updater;
+import org.deeplearning4j.nn.conf.inputs.InputType;
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.conf.layers.SubsamplingLayer;
+import org.deeplearning4j.nn.layers.BaseLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.deeplearning4j.optimize.api.IterationListener;
+
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code DeepClassifier} is a shape classifier implemented by a deep
+ * convolutional network operating on {@link ImgGlyphDescriptor}.
+ * <p>
+ * Since a forward pass through the network is expensive and cannot be run concurrently on the same
+ * model, glyphs are evaluated in batches: explicitly via {@link #getNaturalEvaluations(List, int)},
+ * or implicitly by merging concurrent single-glyph requests (see {@link Batcher}).
+ * Each batch is submitted to a single forward pass.
+ *
+ * @author Hervé Bitteur
+ */
+public class DeepClassifier
+        extends AbstractClassifier<MultiLayerNetwork>
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(DeepClassifier.class);
+
+    /** The singleton. */
+    private static volatile DeepClassifier INSTANCE;
+
+    /** Classifier file name. */
+    public static final String FILE_NAME = "deep-classifier.zip";
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    //
+    /** The underlying convolutional neural network. */
+    private MultiLayerNetwork model;
+
+    /** Boolean to trigger stopping. */
+    protected volatile boolean stopping = false;
+
+    /** To merge concurrent single-glyph evaluations. */
+    private final Batcher batcher = new Batcher();
+
+    //~ Constructors -------------------------------------------------------------------------------
+    private DeepClassifier ()
+    {
+        descriptor = new ImgGlyphDescriptor();
+
+        // Unmarshal from user or default data, if compatible
+        model = load(FILE_NAME);
+
+        if (model == null) {
+            model = createNetwork();
+        }
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------------//
+    // getInstance //
+    //-------------//
+    /**
+     * Report the single instance of NeuralClassifier in the application.
+     *
+     * @return the instance
+     */
+    public static DeepClassifier getInstance ()
+    {
+        if (INSTANCE == null) {
+            synchronized (DeepClassifier.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new DeepClassifier();
+                }
+            }
+        }
+
+        return INSTANCE;
+    }
+
+    //--------------//
+    // getMaxEpochs //
+    //--------------//
+    /**
+     * Selector on the maximum number of training epochs.
+     *
+     * @return the upper limit on epochs counter
+     */
+    @Override
+    public int getMaxEpochs ()
+    {
+        return constants.maxEpochs.getValue();
+    }
+
+    //----------//
+    // getModel //
+    //----------//
+    /**
+     * @return the model
+     */
+    public MultiLayerNetwork getModel ()
+    {
+        return model;
+    }
+
+    //---------//
+    // getName //
+    //---------//
+    @Override
+    public final String getName ()
+    {
+        return "Deep Classifier";
+    }
+
+    //-------------//
+    // addListener //
+    //-------------//
+    @Override
+    public void addListener (IterationListener listener)
+    {
+        if (listener != null) {
+            Collection<IterationListener> listeners = model.getListeners();
+
+            if (!listeners.contains(listener)) {
+                listeners.add(listener);
+                model.setListeners(listeners);
+            }
+        }
+    }
+
+    //-----------------------//
+    // getNaturalEvaluations //
+    //-----------------------//
+    @Override
+    public Evaluation[] getNaturalEvaluations (Glyph glyph,
+                                               int interline)
+    {
+        final double[] doubles = descriptor.getFeatures(glyph, interline);
+
+        if (constants.useBatcher.isSet()) {
+            return batcher.evaluate(doubles);
+        }
+
+        return runBatch(new double[][]{doubles}).get(0);
+    }
+
+    //-----------------------//
+    // getNaturalEvaluations //
+    //-----------------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The features of all glyphs are stacked into matrices of at most maxBatchSize rows, each
+     * submitted to a single forward pass.
+     */
+    @Override
+    public List<Evaluation[]> getNaturalEvaluations (List<? extends Glyph> glyphs,
+                                                     int interline)
+    {
+        final List<Evaluation[]> list = new ArrayList<Evaluation[]>(glyphs.size());
+        final int maxSize = Math.max(1, constants.maxBatchSize.getValue());
+
+        for (int i = 0; i < glyphs.size(); i += maxSize) {
+            final int n = Math.min(maxSize, glyphs.size() - i);
+            final double[][] inputs = new double[n][];
+
+            for (int k = 0; k < n; k++) {
+                inputs[k] = descriptor.getFeatures(glyphs.get(i + k), interline);
+            }
+
+            list.addAll(runBatch(inputs));
+        }
+
+        return list;
+    }
+
+    //-----------//
+    // normalize //
+    //-----------//
+    /**
+     * Apply the known norms on the provided (raw) features.
+     *
+     * @param features raw features, to be normalized in situ
+     */
+    public void normalize (INDArray features)
+    {
+        features.subi(norms.means.getDouble(0));
+        features.divi(norms.stds.getDouble(0));
+    }
+
+    //----------------//
+    // removeListener //
+    //----------------//
+    @Override
+    public void removeListener (IterationListener listener)
+    {
+        if (listener != null) {
+            Collection<IterationListener> listeners = model.getListeners();
+
+            if (listeners.contains(listener)) {
+                listeners.remove(listener);
+                model.setListeners(listeners);
+            }
+        }
+    }
+
+    //-------//
+    // reset //
+    //-------//
+    @Override
+    public void reset ()
+    {
+        // Create a new model and transfer listeners from previous model
+        Collection<IterationListener> listeners = model.getListeners();
+        model = createNetwork();
+        model.setListeners(listeners);
+        modelChanged();
+    }
+
+    //--------------//
+    // setMaxEpochs //
+    //--------------//
+    @Override
+    public void setMaxEpochs (int maxEpochs)
+    {
+        constants.maxEpochs.setValue(maxEpochs);
+    }
+
+    //------//
+    // stop //
+    //------//
+    @Override
+    public void stop ()
+    {
+        stopping = true;
+    }
+
+    //-------//
+    // train //
+    //-------//
+    @SuppressWarnings("unchecked")
+    @Override
+    public void train (Collection<Sample> samples)
+    {
+        stopping = false;
+
+        if (samples.isEmpty()) {
+            logger.warn("No sample to retrain neural classifier");
+
+            return;
+        }
+
+        // Shuffle the collection of samples
+        final List<Sample> newSamples = new ArrayList<Sample>(samples);
+        Collections.shuffle(newSamples);
+
+        // Build raw dataset
+        final DataSet dataSet = getRawDataSet(newSamples);
+
+        // Record mean and standard deviation for *ALL* pixels
+        final INDArray features = dataSet.getFeatures();
+        logger.info("features rows:{} cols:{}", features.rows(), features.columns());
+
+        Population pop = new Population();
+        final int rows = features.rows();
+        final int cols = features.columns();
+
+        for (int r = 0; r < rows; r++) {
+            INDArray row = features.getRow(r);
+
+            for (int c = 0; c < cols; c++) {
+                pop.includeValue(row.getDouble(c));
+            }
+        }
+
+        logger.info("pop: {}", pop);
+
+        INDArray mean = Nd4j.create(new double[]{pop.getMeanValue()});
+        INDArray std = Nd4j.create(
+                new double[]{pop.getStandardDeviation() + Nd4j.EPS_THRESHOLD});
+        norms = new Norms(mean, std);
+
+        logger.info("norms.means: {}", norms.means);
+        logger.info("norms.stds: {}", norms.stds);
+
+        // Normalize
+        ///dataSet.normalizeZeroMeanZeroUnitVariance();
+        normalize(features);
+
+        logger.info("Training network...");
+
+        final int epochs = getMaxEpochs();
+
+        for (int epoch = 1; epoch <= epochs; epoch++) {
+            epochStarted(epoch);
+
+            model.fit(dataSet);
+
+            // Evaluate
+            logger.info("Epoch:{} evaluating on training set...", epoch);
+
+            final List<String> names = Arrays.asList(
+                    ShapeSet.getPhysicalShapeNames());
+            org.deeplearning4j.eval.Evaluation eval = new org.deeplearning4j.eval.Evaluation(names);
+            INDArray guesses = model.output(dataSet.getFeatureMatrix());
+            eval.eval(dataSet.getLabels(), guesses);
+            logger.info(eval.stats(true));
+
+            // Store
+            store(FILE_NAME);
+
+            if (stopping) {
+                logger.info("Stopping.");
+
+                break;
+            }
+        }
+
+        stopping = false;
+    }
+
+    //--------------//
+    // isCompatible //
+    //--------------//
+    @Override
+    protected boolean isCompatible (MultiLayerNetwork model,
+                                    Norms norms)
+    {
+        // Check input numbers for norms
+        final int normsIn = norms.means.columns();
+
+        if (normsIn != 1) {
+            logger.warn("Incompatible norms count:{} expected:{}", normsIn, 1);
+
+            return false;
+        }
+
+        // Check input numbers for model
+        final org.deeplearning4j.nn.layers.convolution.ConvolutionLayer inputLayer = (org.deeplearning4j.nn.layers.convolution.ConvolutionLayer) model.getLayer(
+                0);
+        final org.deeplearning4j.nn.conf.layers.ConvolutionLayer confInputLayer = (org.deeplearning4j.nn.conf.layers.ConvolutionLayer) inputLayer.conf()
+                .getLayer();
+        final int modelIn = confInputLayer.getNIn();
+
+        if (modelIn != 1) {
+            logger.warn("Incompatible features count:{} expected:{}", modelIn, 1);
+
+            return false;
+        }
+
+        // Check output numbers for model
+        final org.deeplearning4j.nn.layers.OutputLayer outputLayer = (org.deeplearning4j.nn.layers.OutputLayer) model.getOutputLayer();
+        final org.deeplearning4j.nn.conf.layers.OutputLayer confOutputLayer = (org.deeplearning4j.nn.conf.layers.OutputLayer) outputLayer.conf()
+                .getLayer();
+        final int modelOut = confOutputLayer.getNOut();
+
+        if (modelOut != SHAPE_COUNT) {
+            logger.warn("Incompatible shape count model:{} expected:{}", modelOut, SHAPE_COUNT);
+
+            return false;
+        }
+
+        return true;
+    }
+
+    //-----------//
+    // loadModel //
+    //-----------//
+    @Override
+    protected MultiLayerNetwork loadModel (Path root)
+            throws IOException
+    {
+        return ModelSystemSerializer.restoreMultiLayerNetwork(root, false);
+    }
+
+    //------------//
+    // storeModel //
+    //------------//
+    @Override
+    protected void storeModel (Path root)
+            throws IOException
+    {
+        ModelSystemSerializer.writeModel(model, root, false);
+    }
+
+    //---------//
+    // sigmoid //
+    //---------//
+    /**
+     * Simple sigmoid function, with a step around 0 abscissa.
+     * It is used here simply to squash raw values into the [0..1] range
+     *
+     * @param val abscissa
+     * @return the related function value
+     */
+    private static double sigmoid (double val)
+    {
+        // Lambda chosen to avoid too many values near 0.9999
+        return 1.0 / (1.0 + Math.exp(-val / 20));
+    }
+
+    //----------//
+    // runBatch //
+    //----------//
+    /**
+     * Run the network on a batch of raw features, one row per glyph.
+     *
+     * @param inputs the raw features of each glyph
+     * @return the natural evaluations of each glyph, in inputs order
+     */
+    private List<Evaluation[]> runBatch (double[][] inputs)
+    {
+        final INDArray features = Nd4j.create(inputs);
+        normalize(features);
+
+        final INDArray preOutput;
+
+        synchronized (this) {
+            model.output(features, false);
+
+            BaseLayer outputLayer = (BaseLayer) model.getOutputLayer();
+            preOutput = outputLayer.preOutput(false);
+        }
+
+        final List<Evaluation[]> list = new ArrayList<Evaluation[]>(inputs.length);
+        final Shape[] values = Shape.values();
+
+        for (int r = 0; r < inputs.length; r++) {
+            final Evaluation[] evals = new Evaluation[SHAPE_COUNT];
+
+            for (int s = 0; s < SHAPE_COUNT; s++) {
+                // Rather than normalized output
+                double grade = sigmoid(preOutput.getDouble(r, s));
+                evals[s] = new Evaluation(values[s], grade);
+            }
+
+            list.add(evals);
+        }
+
+        return list;
+    }
+
+    //---------------//
+    // createNetwork //
+    //---------------//
+    private MultiLayerNetwork createNetwork ()
+    {
+        logger.info("Creating a brand new {}", getName());
+
+        final long seed = 6;
+        final double learningRate = constants.learningRate.getValue();
+        final int iterations = constants.iterations.getValue();
+
+        MultiLayerConfiguration.Builder builder = new NeuralNetConfiguration.Builder() //
+                .seed(seed) //
+                .iterations(iterations) //
+                .regularization(true) //
+                .l2(0.0005) //
+                .learningRate(learningRate) // was .01 in original MNIST example
+                //.biasLearningRate(0.02)
+                //.learningRateDecayPolicy(LearningRatePolicy.Inverse).lrPolicyDecayRate(0.001).lrPolicyPower(0.75)
+                .weightInit(WeightInit.XAVIER) //
+                .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT) //
+                .updater(Updater.NESTEROVS).momentum(0.9) //
+                .list() //
+                .layer(
+                        0,
+                        new ConvolutionLayer.Builder(5, 5) //
+                                .nIn(1) //
+                                .stride(1, 1) //
+                                .nOut(20) //
+                                .activation(Activation.IDENTITY) //
+                                .build()) //
+                .layer(
+                        1,
+                        new SubsamplingLayer.Builder(SubsamplingLayer.PoolingType.MAX) //
+                                .kernelSize(2, 2) //
+                                .stride(2, 2) //
+                                .build()) //
+                .layer(
+                        2,
+                        new ConvolutionLayer.Builder(5, 5) //
+                                .stride(1, 1) //
+                                .nOut(50) //
+                                .activation(Activation.IDENTITY) //
+                                .build()) //
+                .layer(
+                        3,
+                        new SubsamplingLayer.Builder(SubsamplingLayer.PoolingType.MAX) //
+                                .kernelSize(2, 2) //
+                                .stride(2, 2) //
+                                .build()) //
+                .layer(
+                        4,
+                        new DenseLayer.Builder() //
+                                .nOut(500) //
+                                .activation(Activation.RELU) //
+                                .build()) //
+                .layer(
+                        5,
+                        new OutputLayer.Builder(LossFunctions.LossFunction.NEGATIVELOGLIKELIHOOD) //
+                                .nOut(SHAPE_COUNT) //
+                                .activation(Activation.SOFTMAX) //
+                                .build()) //
+                .setInputType(InputType.convolutionalFlat(ScaledBuffer.HEIGHT, ScaledBuffer.WIDTH, 1));
+
+        MultiLayerConfiguration conf = builder.build();
+        model = new MultiLayerNetwork(conf);
+        model.init();
+
+        return model;
+    }
+
+    //--------------//
+    // epochStarted //
+    //--------------//
+    private void epochStarted (int epoch)
+    {
+        for (IterationListener listener : model.getListeners()) {
+            if (listener instanceof TrainingMonitor) {
+                TrainingMonitor monitor = (TrainingMonitor) listener;
+                monitor.epochStarted(epoch);
+            }
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //---------//
+    // Batcher //
+    //---------//
+    /**
+     * Merges concurrent single-glyph requests into network batches.
+     * <p>
+     * At most one batch is collected or run at a time, by the thread of its leader request.
+     * Requests arriving meanwhile are queued, so they are merged into the next batch.
+     * The leader collects pending requests until the batch is full or the collection window has
+     * elapsed, then runs the batch and hands results to all its requests.
+     * The window is used only when callers are concurrent, so that a lone caller is not delayed.
+     * Finally, the leader hands leadership over to the oldest request still pending, if any.
+     * <p>
+     * Whatever happens in the batch run, every request of the batch gets completed, either with
+     * its evaluations or with the failure.
+     */
+    private class Batcher
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Requests waiting to be collected into a batch, oldest first. */
+        private final List<Request> pending = new ArrayList<Request>();
+
+        /** True while a leader is collecting or running a batch. */
+        private boolean busy;
+
+        /** Size of the last collected batch. */
+        private int lastSize;
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Evaluate one glyph, via a batch shared with concurrent requests.
+         *
+         * @param features raw glyph features
+         * @return the glyph natural evaluations
+         */
+        public Evaluation[] evaluate (double[] features)
+        {
+            final Request request = new Request(features);
+            boolean leader;
+
+            synchronized (this) {
+                pending.add(request);
+                leader = !busy;
+
+                if (leader) {
+                    busy = true;
+                } else if (pending.size() >= getMaxSize()) {
+                    notifyAll(); // Batch is full, wake up the collecting leader
+                }
+            }
+
+            if (!leader) {
+                leader = request.awaitLead();
+            }
+
+            if (leader) {
+                try {
+                    process(collect());
+                } finally {
+                    handOver();
+                }
+            }
+
+            return request.getResult();
+        }
+
+        //---------//
+        // collect //
+        //---------//
+        /**
+         * Collect the pending requests into a batch.
+         * <p>
+         * If concurrent callers are detected, we wait for more requests until the batch is full
+         * or the collection window has elapsed.
+         *
+         * @return the batch of requests, oldest first
+         */
+        private synchronized List<Request> collect ()
+        {
+            final int maxSize = getMaxSize();
+
+            try {
+                final long window = TimeUnit.MICROSECONDS.toNanos(
+                        constants.batchWindow.getValue());
+                final long deadline = System.nanoTime() + window;
+
+                while ((pending.size() < maxSize) && ((lastSize > 1) || (pending.size() > 1))) {
+                    final long remaining = deadline - System.nanoTime();
+
+                    if (remaining <= 0) {
+                        break;
+                    }
+
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt(); // Batch is run anyway, for all requests
+            }
+
+            final List<Request> head = pending.subList(0, Math.min(maxSize, pending.size()));
+            final List<Request> batch = new ArrayList<Request>(head);
+            head.clear();
+            lastSize = batch.size();
+
+            return batch;
+        }
+
+        //------------//
+        // getMaxSize //
+        //------------//
+        private int getMaxSize ()
+        {
+            return Math.max(1, constants.maxBatchSize.getValue());
+        }
+
+        //----------//
+        // handOver //
+        //----------//
+        /**
+         * Hand leadership over to the oldest pending request, if any.
+         */
+        private synchronized void handOver ()
+        {
+            if (pending.isEmpty()) {
+                busy = false;
+            } else {
+                pending.get(0).promote();
+            }
+        }
+
+        //---------//
+        // process //
+        //---------//
+        private void process (List<Request> batch)
+        {
+            Throwable failure = null;
+
+            try {
+                final double[][] inputs = new double[batch.size()][];
+
+                for (int i = 0; i < inputs.length; i++) {
+                    inputs[i] = batch.get(i).features;
+                }
+
+                final List<Evaluation[]> results = runBatch(inputs);
+
+                for (int i = 0; i < inputs.length; i++) {
+                    batch.get(i).setResult(results.get(i), null);
+                }
+            } catch (Throwable ex) {
+                failure = ex; // Including Error, such as OutOfMemoryError from native code
+            } finally {
+                // No request must be left waiting
+                for (Request request : batch) {
+                    if (!request.isDone()) {
+                        request.setResult(
+                                null,
+                                (failure != null) ? failure
+                                        : new IllegalStateException("Glyph not evaluated"));
+                    }
+                }
+            }
+        }
+    }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Ratio learningRate = new Constant.Ratio(0.002, "Learning Rate");
+
+        private final Constant.Integer maxEpochs = new Constant.Integer(
+                "Epochs",
+                30,
+                "Maximum number of epochs in training");
+
+        private final Constant.Integer iterations = new Constant.Integer(
+                "Iterations",
+                2,
+                "Number of iterations on each minibatch");
+
+        private final Constant.Boolean useBatcher = new Constant.Boolean(
+                true,
+                "Should we merge concurrent glyph evaluations into batches?");
+
+        private final Constant.Integer maxBatchSize = new Constant.Integer(
+                "glyphs",
+                64,
+                "Maximum number of glyphs evaluated in one network batch");
+
+        private final Constant.Integer batchWindow = new Constant.Integer(
+                "microseconds",
+                500,
+                "Maximum delay to collect concurrent glyph evaluations into a batch");
+    }
+
+    //---------//
+    // Request //
+    //---------//
+    /**
+     * A single-glyph evaluation request, waiting for its batch to be run.
+     */
+    private static class Request
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Raw glyph features. */
+        final double[] features;
+
+        /** Resulting evaluations. */
+        private Evaluation[] result;
+
+        /** Failure, if any. */
+        private Throwable failure;
+
+        /** Set when batch has been run. */
+        private boolean done;
+
+        /** Set when request is promoted to batch leader. */
+        private boolean leading;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Request (double[] features)
+        {
+            this.features = features;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Wait until this request is either completed or promoted to batch leader.
+         * <p>
+         * This wait is not interruptible, since a promoted request must lead its batch for the
+         * sake of all other requests. The interrupt status is restored on exit.
+         *
+         * @return true if promoted
+         */
+        public synchronized boolean awaitLead ()
+        {
+            boolean interrupted = false;
+
+            while (!done && !leading) {
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+
+            return leading;
+        }
+
+        public synchronized Evaluation[] getResult ()
+        {
+            try {
+                while (!done) {
+                    wait();
+                }
+            } catch (InterruptedException ex) {
+                throw new ProcessingCancellationException(ex);
+            }
+
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw new RuntimeException(failure);
+            }
+
+            return result;
+        }
+
+        public synchronized boolean isDone ()
+        {
+            return done;
+        }
+
+        public synchronized void promote ()
+        {
+            leading = true;
+            notifyAll();
+        }
+
+        public synchronized void setResult (Evaluation[] result,
+                                            Throwable failure)
+        {
+            this.result = result;
+            this.failure = failure;
+            done = true;
+            notifyAll();
+        }
+    }
+}
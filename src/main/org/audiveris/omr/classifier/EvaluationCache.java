@@ -0,0 +1,343 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 E v a l u a t i o n C a c h e                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.classifier;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.glyph.GlyphSignature;
+import org.audiveris.omr.glyph.Shape;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class {@code EvaluationCache} memorizes, within a sheet, the evaluations
+ * computed by a classifier on glyphs.
+ * <p>
+ * The same physical glyph is often submitted several times to a classifier (by different
+ * classifiers, by overlapping compounds, by step re-runs...).
+ * An entry is keyed by glyph signature, interline, classifier and classifier model generation.
+ * Only the raw classifier output is cached, the conditions (such as specific checks) being applied
+ * on top of it by the caller for each evaluation.
+ * <p>
+ * To keep the memory footprint low, an entry is just an array of grades indexed by shape ordinal,
+ * the sorted evaluations being rebuilt on each successful lookup.
+ * <p>
+ * The cache is bounded in size, the least recently used entry being evicted first.
+ *
+ * @author Hervé Bitteur
+ */
+public class EvaluationCache
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(EvaluationCache.class);
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Cached grades (indexed by shape ordinal, NaN for no evaluation), in access order. */
+    private final Map<Key, double[]> map;
+
+    /** Number of successful lookups. */
+    private final AtomicInteger hits = new AtomicInteger();
+
+    /** Number of failed lookups. */
+    private final AtomicInteger misses = new AtomicInteger();
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code EvaluationCache} object, bounded by the maxEntries constant.
+     */
+    public EvaluationCache ()
+    {
+        this(constants.maxEntries.getValue());
+    }
+
+    /**
+     * Creates a new {@code EvaluationCache} object with the specified bound.
+     *
+     * @param maxEntries maximum number of entries kept
+     */
+    public EvaluationCache (final int maxEntries)
+    {
+        map = new LinkedHashMap<Key, double[]>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry (Map.Entry<Key, double[]> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------//
+    // clear //
+    //-------//
+    /**
+     * Remove all entries.
+     */
+    public synchronized void clear ()
+    {
+        map.clear();
+    }
+
+    //-----//
+    // get //
+    //-----//
+    /**
+     * Report the cached evaluations for the provided key.
+     *
+     * @param key the evaluation key
+     * @return fresh evaluations sorted from best to worst, or null if not found
+     */
+    public Evaluation[] get (Key key)
+    {
+        final double[] grades;
+
+        synchronized (this) {
+            grades = map.get(key);
+        }
+
+        if (grades == null) {
+            misses.incrementAndGet();
+
+            return null;
+        }
+
+        hits.incrementAndGet();
+
+        return toEvaluations(grades);
+    }
+
+    //---------//
+    // getHits //
+    //---------//
+    /**
+     * @return the number of successful lookups so far
+     */
+    public int getHits ()
+    {
+        return hits.get();
+    }
+
+    //-----------//
+    // getMisses //
+    //-----------//
+    /**
+     * @return the number of failed lookups so far
+     */
+    public int getMisses ()
+    {
+        return misses.get();
+    }
+
+    //-----//
+    // put //
+    //-----//
+    /**
+     * Cache the grades of the provided evaluations.
+     *
+     * @param key   the evaluation key
+     * @param evals the evaluations to cache (only shapes and grades are kept, so caller can modify
+     *              them later)
+     */
+    public void put (Key key,
+                     Evaluation[] evals)
+    {
+        final double[] grades = toGrades(evals);
+
+        synchronized (this) {
+            map.put(key, grades);
+        }
+    }
+
+    //------//
+    // size //
+    //------//
+    /**
+     * @return the current number of entries
+     */
+    public synchronized int size ()
+    {
+        return map.size();
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        return new StringBuilder(getClass().getSimpleName()).append("{size:").append(size())
+                .append(" hits:").append(hits.get()).append(" misses:").append(misses.get())
+                .append("}").toString();
+    }
+
+    //---------------//
+    // toEvaluations //
+    //---------------//
+    /**
+     * Rebuild the sorted evaluations from cached grades.
+     * Since grades are indexed by shape ordinal and sort is stable, equal grades come out in the
+     * same order as in the classifier sorted output.
+     */
+    private static Evaluation[] toEvaluations (double[] grades)
+    {
+        final Shape[] shapes = Shape.values();
+        int count = 0;
+
+        for (double grade : grades) {
+            if (!Double.isNaN(grade)) {
+                count++;
+            }
+        }
+
+        final Evaluation[] evals = new Evaluation[count];
+        int n = 0;
+
+        for (int i = 0; i < grades.length; i++) {
+            if (!Double.isNaN(grades[i])) {
+                evals[n++] = new Evaluation(shapes[i], grades[i]);
+            }
+        }
+
+        Arrays.sort(evals);
+
+        return evals;
+    }
+
+    //----------//
+    // toGrades //
+    //----------//
+    private static double[] toGrades (Evaluation[] evals)
+    {
+        int length = 0;
+
+        for (Evaluation eval : evals) {
+            length = Math.max(length, eval.shape.ordinal() + 1);
+        }
+
+        final double[] grades = new double[length];
+        Arrays.fill(grades, Double.NaN);
+
+        for (Evaluation eval : evals) {
+            grades[eval.shape.ordinal()] = eval.grade;
+        }
+
+        return grades;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----//
+    // Key //
+    //-----//
+    /**
+     * Identification of a glyph evaluation.
+     */
+    public static class Key
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** The classifier used. */
+        private final Classifier classifier;
+
+        /** Generation of classifier model. */
+        private final int generation;
+
+        /** Physical glyph identification. */
+        private final GlyphSignature signature;
+
+        /** Scaling interline. */
+        private final int interline;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        /**
+         * Creates a new {@code Key} object.
+         *
+         * @param classifier the classifier used
+         * @param generation generation of classifier model
+         * @param signature  glyph signature
+         * @param interline  scaling interline
+         */
+        public Key (Classifier classifier,
+                    int generation,
+                    GlyphSignature signature,
+                    int interline)
+        {
+            this.classifier = classifier;
+            this.generation = generation;
+            this.signature = signature;
+            this.interline = interline;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public boolean equals (Object obj)
+        {
+            if (obj == this) {
+                return true;
+            }
+
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            final Key that = (Key) obj;
+
+            return (classifier == that.classifier) && (generation == that.generation)
+                   && (interline == that.interline) && signature.equals(that.signature);
+        }
+
+        @Override
+        public int hashCode ()
+        {
+            int hash = 3;
+            hash = (53 * hash) + System.identityHashCode(classifier);
+            hash = (53 * hash) + generation;
+            hash = (53 * hash) + interline;
+            hash = (53 * hash) + signature.hashCode();
+
+            return hash;
+        }
+    }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer maxEntries = new Constant.Integer(
+                "entries",
+                5000,
+                "Maximum number of glyph evaluations cached per sheet");
+    }
+}
@@ -30,8 +30,13 @@ import org.audiveris.omr.util.Jaxb;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
 
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlRootElement;
@@ -206,6 +211,32 @@ public class Sample
         }
     }
 
+    //------------------//
+    // groupByInterline //
+    //------------------//
+    /**
+     * Group the provided samples by their interline value, for batch evaluation.
+     *
+     * @param samples the samples to group
+     * @return the samples per interline, in increasing interline order
+     */
+    public static Map<Integer, List<Sample>> groupByInterline (Collection<Sample> samples)
+    {
+        final Map<Integer, List<Sample>> map = new TreeMap<Integer, List<Sample>>();
+
+        for (Sample sample : samples) {
+            List<Sample> list = map.get(sample.getInterline());
+
+            if (list == null) {
+                map.put(sample.getInterline(), list = new ArrayList<Sample>());
+            }
+
+            list.add(sample);
+        }
+
+        return map;
+    }
+
     /**
      * We need equality strictly based on reference.
      *
@@ -31,6 +31,7 @@ import org.audiveris.omr.glyph.Shape;
 import org.audiveris.omr.glyph.ShapeSet;
 import org.audiveris.omr.glyph.SymbolSample;
 import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableCodec;
 import org.audiveris.omr.sheet.Book;
 import org.audiveris.omr.sheet.BookManager;
 import org.audiveris.omr.sheet.Picture;
@@ -455,7 +456,7 @@ public class SampleRepository
                     return false;
                 }
 
-                Path imagePath = folderPath.resolve(SampleSheet.IMAGE_FILE_NAME);
+                Path imagePath = SampleSheet.getImagePath(folderPath);
 
                 return Files.exists(imagePath);
             } finally {
@@ -542,8 +543,8 @@ public class SampleRepository
                         final Path root = ZipFileSystem.open(imagesFile);
 
                         for (Descriptor desc : descs) {
-                            final Path file = root.resolve(desc.getName()).resolve(
-                                    SampleSheet.IMAGE_FILE_NAME);
+                            final Path file = SampleSheet.getImagePath(
+                                    root.resolve(desc.getName()));
                             final RunTable rt = RunTable.unmarshal(file);
 
                             if ((rt != null) && rt.equals(image)) {
@@ -1110,7 +1111,7 @@ public class SampleRepository
                     return null;
                 }
 
-                Path file = folderPath.resolve(SampleSheet.IMAGE_FILE_NAME);
+                Path file = SampleSheet.getImagePath(folderPath);
                 runTable = RunTable.unmarshal(file);
 
                 if (runTable != null) {
@@ -1560,7 +1561,7 @@ public class SampleRepository
                 {
                     final String fileName = file.getFileName().toString();
 
-                    if (fileName.equals(SampleSheet.IMAGE_FILE_NAME)) {
+                    if (RunTableCodec.isTableFile(fileName, SampleSheet.IMAGE_RADIX)) {
                         RunTable runTable = RunTable.unmarshal(file);
 
                         if (runTable != null) {
@@ -25,6 +25,7 @@ import org.audiveris.omr.classifier.SheetContainer.Descriptor;
 import org.audiveris.omr.glyph.BasicGlyph;
 import org.audiveris.omr.glyph.Shape;
 import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableCodec;
 import org.audiveris.omr.util.FileUtil;
 import org.audiveris.omr.util.Jaxb;
 
@@ -74,8 +75,8 @@ public class SampleSheet
     /** File name for sheet tribes: {@value}. */
     public static final String TRIBES_FILE_NAME = "tribes.xml";
 
-    /** File name for sheet image: {@value}. */
-    public static final String IMAGE_FILE_NAME = "image.xml";
+    /** File name radix for sheet image: {@value}. */
+    public static final String IMAGE_RADIX = "image";
 
     /** Un/marshalling context for use with JAXB. */
     private static volatile JAXBContext jaxbContext;
@@ -274,6 +275,21 @@ public class SampleSheet
         return image;
     }
 
+    //--------------//
+    // getImagePath //
+    //--------------//
+    /**
+     * Report the path to the image file within the provided sheet folder.
+     * An image file still in former XML format is returned if no binary file is found.
+     *
+     * @param folderPath the sheet folder
+     * @return the image path (which may not exist)
+     */
+    public static Path getImagePath (Path folderPath)
+    {
+        return RunTableCodec.locate(folderPath.resolve(RunTableCodec.getFileName(IMAGE_RADIX)));
+    }
+
     /**
      * Report current image status for this sheet.
      *
@@ -434,8 +450,8 @@ public class SampleSheet
                 final Path folderPath = imagesRoot.resolve(descriptor.getName());
                 Files.createDirectories(folderPath);
 
-                final Path imagePath = folderPath.resolve(IMAGE_FILE_NAME);
-                Jaxb.marshal(image, imagePath, getJaxbContext());
+                final Path imagePath = folderPath.resolve(RunTableCodec.getFileName(IMAGE_RADIX));
+                RunTableCodec.store(image, imagePath);
                 imageSaved = true;
                 logger.info("Stored {}", imagePath);
             }
@@ -349,18 +349,27 @@ public class SampleBrowser
                     final int iline = head.getInterline();
                     final int ord = head.getShape().ordinal();
 
-                    final Evaluation[] bestEvals = classifier.getNaturalEvaluations(head, iline);
-                    final Evaluation bestEval = bestEvals[ord];
+                    // Evaluate the whole tribe in one batch: head, goods, members
+                    final List<Sample> goods = tribe.getGoods();
+                    final List<Sample> members = tribe.getMembers();
+                    final List<Sample> all = new ArrayList<Sample>();
+                    all.add(head);
+                    all.addAll(goods);
+                    all.addAll(members);
+
+                    final List<Evaluation[]> allEvals = classifier.getNaturalEvaluations(
+                            all,
+                            iline);
+                    int index = 0;
+                    final Evaluation bestEval = allEvals.get(index++)[ord];
                     logger.info("   Tribe head: {} {}", bestEval, head);
 
-                    for (Sample good : tribe.getGoods()) {
-                        Evaluation[] evals = classifier.getNaturalEvaluations(good, iline);
-                        logger.info("         good: {} {}", evals[ord], good);
+                    for (Sample good : goods) {
+                        logger.info("         good: {} {}", allEvals.get(index++)[ord], good);
                     }
 
-                    for (Sample member : tribe.getMembers()) {
-                        Evaluation[] evals = classifier.getNaturalEvaluations(member, iline);
-                        final Evaluation eval = evals[ord];
+                    for (Sample member : members) {
+                        final Evaluation eval = allEvals.get(index++)[ord];
 
                         if (eval.grade >= bestEval.grade) {
                             logger.warn("       member: {} {} ABNORMAL", eval, member);
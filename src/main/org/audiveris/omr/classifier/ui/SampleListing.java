@@ -52,6 +52,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.Map.Entry;
 
 import javax.swing.AbstractAction;
 import javax.swing.BorderFactory;
@@ -764,13 +765,24 @@ class SampleListing
 
             logger.info("Computing grades...");
 
+            final List<Sample> samples = new ArrayList<Sample>();
+
             for (Enumeration<Sample> en = shapePane.model.elements(); en.hasMoreElements();) {
-                Sample sample = en.nextElement();
-                Evaluation[] evals = classifier.getNaturalEvaluations(
-                        sample,
-                        sample.getInterline());
-                double grade = evals[sample.getShape().ordinal()].grade;
-                list.add(new GradedSample(grade, sample));
+                samples.add(en.nextElement());
+            }
+
+            // Samples are evaluated in batches, one per interline value
+            for (Entry<Integer, List<Sample>> entry : Sample.groupByInterline(samples).entrySet()) {
+                final List<Sample> group = entry.getValue();
+                final List<Evaluation[]> groupEvals = classifier.getNaturalEvaluations(
+                        group,
+                        entry.getKey());
+
+                for (int i = 0; i < group.size(); i++) {
+                    final Sample sample = group.get(i);
+                    double grade = groupEvals.get(i)[sample.getShape().ordinal()].grade;
+                    list.add(new GradedSample(grade, sample));
+                }
             }
 
             logger.info("All grades computed.");
@@ -51,6 +51,7 @@ import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map.Entry;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.concurrent.ExecutorService;
@@ -304,30 +305,36 @@ public class ValidationPanel
 
         int index = 0;
 
-        for (Sample sample : samples) {
-            Evaluation[] evals = task.classifier.evaluate(
-                    sample,
-                    sample.getInterline(),
+        // Samples are evaluated in batches, one per interline value
+        for (Entry<Integer, List<Sample>> entry : Sample.groupByInterline(samples).entrySet()) {
+            final List<Sample> group = entry.getValue();
+            final List<Evaluation[]> groupEvals = task.classifier.evaluate(
+                    group,
+                    entry.getKey(),
                     1,
                     0,
                     Classifier.NO_CONDITIONS);
-            Evaluation eval = evals[0];
 
-            if (eval.shape.getPhysicalShape() == sample.getShape().getPhysicalShape()) {
-                if (eval.grade >= Grades.validationMinGrade) {
-                    positives++;
-                } else {
-                    weakPositives.add(sample);
-                }
-            } else {
-                if (eval.grade >= Grades.validationMinGrade) {
-                    falsePositives.add(sample);
+            for (int i = 0; i < group.size(); i++) {
+                final Sample sample = group.get(i);
+                final Evaluation eval = groupEvals.get(i)[0];
+
+                if (eval.shape.getPhysicalShape() == sample.getShape().getPhysicalShape()) {
+                    if (eval.grade >= Grades.validationMinGrade) {
+                        positives++;
+                    } else {
+                        weakPositives.add(sample);
+                    }
                 } else {
-                    weakNegatives.add(sample);
+                    if (eval.grade >= Grades.validationMinGrade) {
+                        falsePositives.add(sample);
+                    } else {
+                        weakNegatives.add(sample);
+                    }
                 }
-            }
 
-            progressBar.setValue(++index); // Update progress bar
+                progressBar.setValue(++index); // Update progress bar
+            }
         }
 
         int total = samples.size();
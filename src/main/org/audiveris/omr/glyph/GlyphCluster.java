@@ -30,23 +30,33 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.awt.Rectangle;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Class {@code GlyphCluster} handles a cluster of connected glyphs, to retrieve all
  * acceptable compounds built on subsets of these glyphs.
  * <p>
+ * Cluster vertices are indexed, so that any subset is represented by a {@link BitSet}.
+ * Subsets are processed iteratively, using an explicit stack, and each subset is processed at most
+ * once, thanks to a set of visited subsets.
+ * <p>
  * The processing of any given subset consists in the following:<ol>
  * <li>Build the compound of chosen vertices, and record acceptable evaluations.</li>
  * <li>Build the set of new reachable vertices.</li>
- * <li>For each reachable vertex, recursively process the new set composed of current set + the
- * reachable vertex.</li></ol>
- * TODO: implement a non-recursive version for better efficiency?
+ * <li>For each reachable vertex, push the new subset composed of current subset + the reachable
+ * vertex.</li></ol>
  *
  * @author Hervé Bitteur
  */
@@ -63,6 +73,9 @@ public class GlyphCluster
     /** Group, if any, to be assigned to created glyphs. */
     private final Group group;
 
+    /** Counters on processed subsets. */
+    private final Statistics stats = new Statistics();
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new Cluster object, with an adapter to the environment.
@@ -128,104 +141,141 @@ public class GlyphCluster
      */
     public void decompose ()
     {
-        final Set<Glyph> considered = new LinkedHashSet<Glyph>(); // Parts considered so far
-
         //TODO: we could truncate this list by discarding the smallest items
         // since a too large list would result in explosion of combinations
         final List<Glyph> seeds = adapter.getParts();
         Collections.sort(seeds, Glyphs.byReverseWeight);
 
         ///logger.debug("Decomposing {}", Glyphs.ids("cluster", seeds));
-        for (Glyph seed : seeds) {
-            considered.add(seed);
-            process(Collections.singleton(seed), considered);
+        final Vertices vertices = new Vertices(seeds);
+        final Set<BitSet> visited = new HashSet<BitSet>();
+        final Deque<Subset> stack = new ArrayDeque<Subset>();
+
+        for (int i = 0; i < seeds.size(); i++) {
+            // Vertices considered so far: this seed and the previous ones
+            final BitSet seen = new BitSet(seeds.size());
+            seen.set(0, i + 1);
+
+            final BitSet members = new BitSet(seeds.size());
+            members.set(i);
+            stack.push(
+                    new Subset(members, seen, vertices.weights[i], vertices.boxes[i]));
+
+            while (!stack.isEmpty()) {
+                process(stack.pop(), vertices, visited, stack);
+            }
         }
     }
 
+    //---------------//
+    // getStatistics //
+    //---------------//
     /**
-     * Retrieve all parts at acceptable distance from at least one member of the
-     * provided set.
+     * Report the counters of subsets processed so far.
      *
-     * @param set the provided set
-     * @return all the parts reachable from the set
+     * @return the statistics
      */
-    private Set<Glyph> getOutliers (Set<Glyph> set)
+    public Statistics getStatistics ()
     {
-        Set<Glyph> outliers = new LinkedHashSet<Glyph>();
-
-        for (Glyph part : set) {
-            outliers.addAll(adapter.getNeighbors(part));
-        }
-
-        outliers.removeAll(set);
-
-        return outliers;
+        return stats;
     }
 
     /**
-     * Process the provided set of parts.
+     * Process the provided subset of parts.
+     * <p>
+     * The subset is evaluated (unless already visited) and the subsets that can be grown from it
+     * are pushed on the stack.
      *
-     * @param parts (read only) the set of current parts
-     * @param seen  (read only) all parts considered so far (current parts plus discarded ones)
+     * @param subset   the subset to process
+     * @param vertices the cluster vertices
+     * @param visited  the subsets visited so far
+     * @param stack    the stack of subsets still to process
      */
-    private void process (Set<Glyph> parts,
-                          Set<Glyph> seen)
+    private void process (Subset subset,
+                          Vertices vertices,
+                          Set<BitSet> visited,
+                          Deque<Subset> stack)
     {
-        ///logger.debug(" {} {} {}", set.size(), Glyphs.ids("set", set), Glyphs.ids("seen", seen));
+        if (!visited.add(subset.members)) {
+            stats.duplicates++;
 
-        // Check what we have got
-        final int weight = Glyphs.weightOf(parts);
+            return;
+        }
+
+        stats.visited++;
 
-        if (adapter.isTooHeavy(weight)) {
-            logger.debug("Too high weight {} for {}", weight, parts);
+        // Check what we have got
+        if (adapter.isTooHeavy(subset.weight)) {
+            logger.debug("Too high weight {} for {}", subset.weight, subset.members);
+            stats.prunedByWeight++;
 
             return;
         }
 
-        Rectangle box = Glyphs.getBounds(parts);
-
-        if (adapter.isTooLarge(box)) {
-            logger.debug("Too large  {} for {}", box, parts);
+        if (adapter.isTooLarge(subset.box)) {
+            logger.debug("Too large  {} for {}", subset.box, subset.members);
+            stats.prunedBySize++;
 
             return;
         }
 
-        if (!adapter.isTooLight(weight)) {
+        if (!adapter.isTooLight(subset.weight)) {
             // Build compound and get acceptable evaluations for the compound
+            final Set<Glyph> parts = vertices.getGlyphs(subset.members);
             Glyph compound = (parts.size() > 1) ? GlyphFactory.buildGlyph(parts)
                     : parts.iterator().next();
             compound.addGroup(group);
 
             // Create all acceptable inters, if any, for the compound
             adapter.evaluateGlyph(compound, parts);
+            stats.evaluated++;
         } else {
-            logger.debug("Too low weight {} for {}", weight, parts);
+            logger.debug("Too low weight {} for {}", subset.weight, subset.members);
         }
 
         // Then, identify all outliers immediately reachable from the compound
-        Set<Glyph> outliers = getOutliers(parts);
-        outliers.removeAll(seen);
+        final BitSet outliers = new BitSet(vertices.glyphs.length);
+
+        for (int i = subset.members.nextSetBit(0); i >= 0;
+                i = subset.members.nextSetBit(i + 1)) {
+            outliers.or(vertices.neighbors[i]);
+        }
+
+        outliers.andNot(subset.members);
+        outliers.andNot(subset.seen);
 
         if (outliers.isEmpty()) {
             return; // No further growth is possible
         }
 
-        ///logger.debug("      {}", Glyphs.ids("outliers", outliers));
-        Rectangle setBox = Glyphs.getBounds(parts);
-        Set<Glyph> newConsidered = new LinkedHashSet<Glyph>(seen);
+        final BitSet newSeen = (BitSet) subset.seen.clone();
+        final List<Subset> largerSets = new ArrayList<Subset>();
 
-        for (Glyph outlier : outliers) {
-            newConsidered.add(outlier);
+        for (int o = outliers.nextSetBit(0); o >= 0; o = outliers.nextSetBit(o + 1)) {
+            newSeen.set(o);
 
             // Check appending this atom does not make the resulting symbol too wide or too high
-            Rectangle symBox = outlier.getBounds().union(setBox);
+            Rectangle symBox = vertices.boxes[o].union(subset.box);
 
             if (!adapter.isTooLarge(symBox)) {
-                Set<Glyph> largerSet = new LinkedHashSet<Glyph>(parts);
-                largerSet.add(outlier);
-                process(largerSet, newConsidered);
+                BitSet larger = (BitSet) subset.members.clone();
+                larger.set(o);
+                largerSets.add(
+                        new Subset(
+                                larger,
+                                (BitSet) newSeen.clone(),
+                                subset.weight + vertices.weights[o],
+                                symBox));
+            } else {
+                stats.prunedBySize++;
             }
         }
+
+        // Push in reverse order, so that subsets are processed in depth-first order
+        for (ListIterator<Subset> it = largerSets.listIterator(largerSets.size());
+                it.hasPrevious();) {
+            stack.push(it.previous());
+        }
     }
 
     //~ Inner Interfaces ---------------------------------------------------------------------------
@@ -373,4 +423,183 @@ public class GlyphCluster
             return false;
         }
     }
+
+    //------------//
+    // Statistics //
+    //------------//
+    /**
+     * Counters on subsets processed by one or several clusters.
+     */
+    public static class Statistics
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Number of distinct subsets visited. */
+        private int visited;
+
+        /** Number of subsets reached again through another growth order. */
+        private int duplicates;
+
+        /** Number of subsets discarded for too high weight. */
+        private int prunedByWeight;
+
+        /** Number of subsets discarded for too large bounds. */
+        private int prunedBySize;
+
+        /** Number of compounds evaluated. */
+        private int evaluated;
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Report the number of compounds evaluated.
+         *
+         * @return evaluated count
+         */
+        public synchronized int getEvaluated ()
+        {
+            return evaluated;
+        }
+
+        /**
+         * Report the number of distinct subsets visited.
+         *
+         * @return visited count
+         */
+        public synchronized int getVisited ()
+        {
+            return visited;
+        }
+
+        /**
+         * Add the counters of another statistics instance.
+         *
+         * @param that the other statistics
+         */
+        public synchronized void include (Statistics that)
+        {
+            visited += that.visited;
+            duplicates += that.duplicates;
+            prunedByWeight += that.prunedByWeight;
+            prunedBySize += that.prunedBySize;
+            evaluated += that.evaluated;
+        }
+
+        @Override
+        public synchronized String toString ()
+        {
+            return String.format(
+                    "visited:%d duplicates:%d prunedByWeight:%d prunedBySize:%d evaluated:%d",
+                    visited,
+                    duplicates,
+                    prunedByWeight,
+                    prunedBySize,
+                    evaluated);
+        }
+    }
+
+    //--------//
+    // Subset //
+    //--------//
+    /**
+     * A subset of cluster vertices, with its cumulated weight and bounds.
+     */
+    private static class Subset
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Indices of member vertices. */
+        final BitSet members;
+
+        /** Indices of vertices considered so far (members plus discarded ones). */
+        final BitSet seen;
+
+        /** Cumulated weight of members. */
+        final int weight;
+
+        /** Union of members bounds. */
+        final Rectangle box;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Subset (BitSet members,
+                       BitSet seen,
+                       int weight,
+                       Rectangle box)
+        {
+            this.members = members;
+            this.seen = seen;
+            this.weight = weight;
+            this.box = box;
+        }
+    }
+
+    //----------//
+    // Vertices //
+    //----------//
+    /**
+     * Indexed view on cluster vertices.
+     */
+    private class Vertices
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Vertices, by index. */
+        final Glyph[] glyphs;
+
+        /** Weight of each vertex. */
+        final int[] weights;
+
+        /** Bounds of each vertex. */
+        final Rectangle[] boxes;
+
+        /** Indices of neighbors of each vertex. */
+        final BitSet[] neighbors;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Vertices (List<Glyph> list)
+        {
+            final int count = list.size();
+            glyphs = list.toArray(new Glyph[count]);
+            weights = new int[count];
+            boxes = new Rectangle[count];
+            neighbors = new BitSet[count];
+
+            final Map<Glyph, Integer> indices = new HashMap<Glyph, Integer>();
+
+            for (int i = 0; i < count; i++) {
+                indices.put(glyphs[i], i);
+                weights[i] = glyphs[i].getWeight();
+                boxes[i] = glyphs[i].getBounds();
+            }
+
+            for (int i = 0; i < count; i++) {
+                neighbors[i] = new BitSet(count);
+
+                for (Glyph neighbor : adapter.getNeighbors(glyphs[i])) {
+                    Integer index = indices.get(neighbor);
+
+                    if (index != null) {
+                        neighbors[i].set(index);
+                    }
+                }
+            }
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Report the glyphs that correspond to the provided indices.
+         *
+         * @param members the provided indices
+         * @return the corresponding glyphs
+         */
+        public Set<Glyph> getGlyphs (BitSet members)
+        {
+            final Set<Glyph> set = new LinkedHashSet<Glyph>();
+
+            for (int i = members.nextSetBit(0); i >= 0; i = members.nextSetBit(i + 1)) {
+                set.add(glyphs[i]);
+            }
+
+            return set;
+        }
+    }
 }
@@ -26,7 +26,7 @@ import ij.process.ByteProcessor;
 import org.audiveris.omr.glyph.Symbol.Group;
 import org.audiveris.omr.run.MarkedRun;
 import static org.audiveris.omr.run.Orientation.VERTICAL;
-import org.audiveris.omr.run.Run;
+import org.audiveris.omr.run.RunCursor;
 import org.audiveris.omr.run.RunTable;
 import org.audiveris.omr.run.RunTableFactory;
 import org.audiveris.omr.util.ByteUtil;
@@ -39,7 +39,6 @@ import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -338,6 +337,8 @@ public class GlyphFactory
      */
     private void scanTable ()
     {
+        final RunCursor cursor = new RunCursor(runTable);
+
         // Scan each pair of consecutive sequences
         for (int iSeq = 0, size = runTable.getSize(); iSeq < size; iSeq++) {
             final List<MarkedRun> prevSeq = (iSeq > 0) ? markedTable.get(iSeq - 1) : null;
@@ -345,12 +346,11 @@ public class GlyphFactory
             final int maxPIdx = (iSeq > 0) ? (prevSeq.size() - 1) : (-1);
             int pIdxActive = 0; // Active run index in prev sequence
 
-            for (Iterator<Run> it = runTable.iterator(iSeq); it.hasNext();) {
-                // Allocate the MarkedRun that corresponds to current Run
-                final Run run = it.next();
-                final int nextStart = run.getStart();
-                final int nextStop = run.getStop();
-                final MarkedRun nextRun = new MarkedRun(nextStart, run.getLength(), 0);
+            for (cursor.reset(iSeq); cursor.next();) {
+                // Allocate the MarkedRun that corresponds to current run
+                final int nextStart = cursor.getStart();
+                final int nextStop = cursor.getStop();
+                final MarkedRun nextRun = new MarkedRun(nextStart, cursor.getLength(), 0);
                 nextSeq.add(nextRun);
 
                 // Browse marked runs from previous sequence
@@ -26,6 +26,7 @@ import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Symbol.Group;
 import org.audiveris.omr.glyph.ui.GlyphService;
+import org.audiveris.omr.math.GridIndex;
 import org.audiveris.omr.sheet.Sheet;
 import org.audiveris.omr.ui.selection.EntityListEvent;
 import org.audiveris.omr.ui.selection.EntityService;
@@ -41,9 +42,12 @@ import org.slf4j.LoggerFactory;
 
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -60,6 +64,10 @@ import javax.xml.bind.annotation.XmlRootElement;
 /**
  * Class {@code GlyphIndex} implements an index of (weak references to) Glyph instances.
  * <p>
+ * Beside the index by ID, glyphs are spatially indexed, so that the cost of a lookup by
+ * rectangle or point depends on the number of glyphs found rather than on the index size.
+ * Weak references to collected glyphs are purged from the spatial index as they get enqueued.
+ * <p>
  * TODO: investigate whether the notion of Group could be dropped.
  *
  * @author Hervé Bitteur
@@ -157,9 +165,7 @@ public class GlyphIndex
     {
         Set<Glyph> set = new LinkedHashSet<Glyph>();
 
-        for (Iterator<Glyph> it = iterator(); it.hasNext();) {
-            Glyph glyph = it.next();
-
+        for (Glyph glyph : weakIndex.getCandidates(rect)) {
             if (glyph.hasGroup(group) && rect.contains(glyph.getBounds())) {
                 set.add(glyph);
             }
@@ -282,9 +288,7 @@ public class GlyphIndex
     {
         Set<Glyph> set = new LinkedHashSet<Glyph>();
 
-        for (Iterator<Glyph> it = iterator(); it.hasNext();) {
-            Glyph glyph = it.next();
-
+        for (Glyph glyph : weakIndex.getCandidates(rect)) {
             if (glyph.hasGroup(group) && rect.intersects(glyph.getBounds())) {
                 set.add(glyph);
             }
@@ -322,9 +326,7 @@ public class GlyphIndex
      */
     public Glyph lookupVirtualGlyph (Point point)
     {
-        for (Iterator<Glyph> it = iterator(); it.hasNext();) {
-            Glyph glyph = it.next();
-
+        for (Glyph glyph : weakIndex.getCandidates(new Rectangle(point.x, point.y, 1, 1))) {
             if (glyph.hasGroup(Group.DROP) && glyph.getBounds().contains(point)) {
                 return glyph;
             }
@@ -431,7 +433,7 @@ public class GlyphIndex
     public void setEntities (ArrayList<Glyph> glyphs)
     {
         for (Glyph glyph : glyphs) {
-            WeakGlyph weak = new WeakGlyph(glyph);
+            WeakGlyph weak = weakIndex.newWeak(glyph);
             weakIndex.insert(weak);
             originals.putIfAbsent(weak, weak);
         }
@@ -471,7 +473,7 @@ public class GlyphIndex
         int id = glyph.getId();
 
         if (id == 0) {
-            WeakGlyph weak = new WeakGlyph(glyph);
+            WeakGlyph weak = weakIndex.newWeak(glyph);
 
             // Register in index
             id = weakIndex.register(weak);
@@ -494,20 +496,77 @@ public class GlyphIndex
         private final Constant.String vipGlyphs = new Constant.String(
                 "",
                 "(Debug) Comma-separated values of VIP glyphs IDs");
+
+        private final Constant.Integer gridCellSize = new Constant.Integer(
+                "Pixels",
+                64,
+                "Side of cells in glyph spatial index");
     }
 
     //----------------//
     // WeakGlyphIndex //
     //----------------//
+    /**
+     * Index of weak glyphs, by ID and by location.
+     * <p>
+     * The spatial index refers to the very WeakGlyph instances stored by ID, all created via
+     * {@link #newWeak(Glyph)} so that they get enqueued when their glyph is collected.
+     */
     private static class WeakGlyphIndex
             extends BasicIndex<WeakGlyph>
     {
-        //~ Methods --------------------------------------------------------------------------------
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Spatial index of weak glyphs. */
+        private final GridIndex<WeakGlyph> grid = new GridIndex<WeakGlyph>(
+                constants.gridCellSize.getValue());
 
+        /** Queue of weak glyphs whose glyph has been collected. */
+        private final ReferenceQueue<Glyph> queue = new ReferenceQueue<Glyph>();
+
+        //~ Methods --------------------------------------------------------------------------------
         @Override
         public void insert (WeakGlyph weak)
         {
+            final WeakGlyph old = getEntity(weak.getId());
+
+            if ((old != null) && (old != weak)) {
+                grid.remove(old);
+            }
+
             super.insert(weak);
+            grid.insert(weak, weak.getBounds());
+            expunge();
+        }
+
+        @Override
+        public int register (WeakGlyph weak)
+        {
+            final int id = super.register(weak);
+            grid.insert(weak, weak.getBounds());
+            expunge();
+
+            return id;
+        }
+
+        @Override
+        public void remove (WeakGlyph weak)
+        {
+            // The provided weak may be just a facade, look for the registered instance
+            final WeakGlyph registered = getEntity(weak.getId());
+            super.remove(weak);
+
+            if (registered != null) {
+                grid.remove(registered);
+            }
+        }
+
+        @Override
+        public void reset ()
+        {
+            super.reset();
+            grid.clear();
+            expunge(); // Just to drain the queue
         }
 
         @Override
@@ -516,10 +575,60 @@ public class GlyphIndex
             return (weak != null) && (weak.get() != null);
         }
 
+        /**
+         * Report the live glyphs whose bounds intersect the provided rectangle.
+         *
+         * @param rect the provided rectangle
+         * @return the candidate glyphs, sorted by ID
+         */
+        List<Glyph> getCandidates (Rectangle rect)
+        {
+            expunge();
+
+            final List<Glyph> glyphs = new ArrayList<Glyph>();
+
+            for (WeakGlyph weak : grid.getCandidates(rect)) {
+                final Glyph glyph = weak.get();
+
+                if (glyph != null) {
+                    glyphs.add(glyph);
+                } else {
+                    grid.remove(weak); // Collected but not yet enqueued
+                }
+            }
+
+            Collections.sort(glyphs, Glyphs.byId);
+
+            return glyphs;
+        }
+
+        /**
+         * Create a weak reference to the provided glyph, bound to the index queue.
+         *
+         * @param glyph the glyph to refer to
+         * @return the weak reference
+         */
+        WeakGlyph newWeak (Glyph glyph)
+        {
+            return new WeakGlyph(glyph, queue);
+        }
+
         void setIdGenerator (AtomicInteger lastId)
         {
             this.lastId = lastId;
         }
+
+        /**
+         * Purge the spatial index from the weak glyphs whose glyph has been collected.
+         */
+        private void expunge ()
+        {
+            Reference<? extends Glyph> ref;
+
+            while ((ref = queue.poll()) != null) {
+                grid.remove((WeakGlyph) ref);
+            }
+        }
     }
 
     //------------------//
@@ -23,6 +23,8 @@ package org.audiveris.omr.glyph;
 
 import org.audiveris.omr.moments.GeometricMoments;
 
+import java.util.Arrays;
+
 /**
  * Class {@code GlyphSignature} is used to implement a map of glyphs,
  * based only on their physical properties.
@@ -81,8 +83,12 @@ public class GlyphSignature
             return 1;
         }
 
-        final double[] values = moments.getValues();
-        final double[] otherValues = other.moments.getValues();
+        final double[] values = getValues();
+        final double[] otherValues = other.getValues();
+
+        if (values.length != otherValues.length) {
+            return Integer.compare(values.length, otherValues.length);
+        }
 
         for (int i = 0; i < values.length; i++) {
             int cmp = Double.compare(values[i], otherValues[i]);
@@ -128,6 +134,7 @@ public class GlyphSignature
     {
         int hash = 7;
         hash = (41 * hash) + this.weight;
+        hash = (41 * hash) + Arrays.hashCode(getValues());
 
         return hash;
     }
@@ -147,4 +154,15 @@ public class GlyphSignature
 
         return sb.toString();
     }
+
+    //-----------//
+    // getValues //
+    //-----------//
+    /**
+     * Report moments values, an empty array for an instance created by JAXB without moments.
+     */
+    private double[] getValues ()
+    {
+        return (moments != null) ? moments.getValues() : new double[0];
+    }
 }
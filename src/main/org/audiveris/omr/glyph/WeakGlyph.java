@@ -25,6 +25,7 @@ import org.audiveris.omr.util.Entity;
 
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 
 /**
@@ -48,6 +49,18 @@ public class WeakGlyph
         super(referent);
     }
 
+    /**
+     * Creates a new {@code WeakGlyph} object, registered with a reference queue.
+     *
+     * @param referent the actual glyph, which may no longer exist
+     * @param queue    the queue to be notified when the glyph gets collected
+     */
+    public WeakGlyph (Glyph referent,
+                      ReferenceQueue<? super Glyph> queue)
+    {
+        super(referent, queue);
+    }
+
     //~ Methods ------------------------------------------------------------------------------------
     @Override
     public int compareTo (WeakGlyph that)
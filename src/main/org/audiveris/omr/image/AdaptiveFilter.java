@@ -26,6 +26,9 @@ import ij.process.ByteProcessor;
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.math.Population;
+import static org.audiveris.omr.run.Orientation.VERTICAL;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableFactory;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -177,6 +180,15 @@ public abstract class AdaptiveFilter
         return ip;
     }
 
+    //--------------//
+    // filteredRuns //
+    //--------------//
+    @Override
+    public RunTable filteredRuns ()
+    {
+        return new RunTableFactory(VERTICAL).createTable(this);
+    }
+
     //------------//
     // getContext //
     //------------//
@@ -253,8 +265,8 @@ public abstract class AdaptiveFilter
     //--------------//
     // getThreshold //
     //--------------//
-    private double getThreshold (double mean,
-                                 double stdDev)
+    protected double getThreshold (double mean,
+                                   double stdDev)
     {
         // This is the key formula
         return (MEAN_COEFF * mean) + (STD_DEV_COEFF * stdDev);
@@ -23,6 +23,10 @@ package org.audiveris.omr.image;
 
 import ij.process.ByteProcessor;
 
+import static org.audiveris.omr.run.Orientation.VERTICAL;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableFactory;
+
 /**
  * Class {@code DistanceFilter} implements a {@link PixelFilter} on top of a distance
  * image.
@@ -55,6 +59,12 @@ public class DistanceFilter
         throw new UnsupportedOperationException("Not supported yet.");
     }
 
+    @Override
+    public RunTable filteredRuns ()
+    {
+        return new RunTableFactory(VERTICAL).createTable(this);
+    }
+
     @Override
     public int get (int x,
                     int y)
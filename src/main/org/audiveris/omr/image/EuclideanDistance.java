@@ -0,0 +1,384 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               E u c l i d e a n D i s t a n c e                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Class {@code EuclideanDistance} computes an exact Euclidean distance transform,
+ * using the separable algorithm of Felzenszwalb and Huttenlocher.
+ * <p>
+ * A first pass, column by column, computes the vertical distance to the nearest reference pixel
+ * in the same column.
+ * A second pass, row by row, computes the lower envelope of the parabolas rooted at each pixel
+ * of the row, which gives the squared Euclidean distance to the nearest reference pixel.
+ * <p>
+ * Both passes process independent columns (resp. rows), hence they are split into bands
+ * processed in parallel.
+ * <p>
+ * Distances are stored as integers, multiplied by the normalizer and rounded.
+ * A pixel which has no reference pixel in the whole image is left as {@link #VALUE_UNKNOWN}.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class EuclideanDistance
+        implements ChamferDistance
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(EuclideanDistance.class);
+
+    /** Default normalizer, to get distances with a 0.1 pixel precision. */
+    public static final int DEFAULT_NORMALIZER = 10;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Distance normalizer. */
+    private final int normalizer;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new EuclideanDistance object, with default normalizer.
+     */
+    public EuclideanDistance ()
+    {
+        this(DEFAULT_NORMALIZER);
+    }
+
+    /**
+     * Creates a new EuclideanDistance object, with provided normalizer.
+     *
+     * @param normalizer the factor applied on every distance
+     */
+    public EuclideanDistance (int normalizer)
+    {
+        this.normalizer = normalizer;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------//
+    // compute //
+    //---------//
+    @Override
+    public DistanceTable compute (boolean[][] input)
+    {
+        final int width = input.length;
+        final int height = input[0].length;
+        DistanceTable output = allocateOutput(width, height, normalizer);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                output.setValue(x, y, input[x][y] ? VALUE_TARGET : VALUE_UNKNOWN);
+            }
+        }
+
+        process(output);
+
+        return output;
+    }
+
+    //---------------//
+    // computeToBack //
+    //---------------//
+    @Override
+    public DistanceTable computeToBack (ByteProcessor input)
+    {
+        DistanceTable output = allocateOutput(input.getWidth(), input.getHeight(), normalizer);
+
+        for (int i = (input.getWidth() * input.getHeight()) - 1; i >= 0; i--) {
+            output.setValue(i, (input.get(i) == 0) ? VALUE_UNKNOWN : VALUE_TARGET);
+        }
+
+        process(output);
+
+        return output;
+    }
+
+    //---------------//
+    // computeToFore //
+    //---------------//
+    @Override
+    public DistanceTable computeToFore (ByteProcessor input)
+    {
+        DistanceTable output = allocateOutput(input.getWidth(), input.getHeight(), normalizer);
+
+        for (int i = (input.getWidth() * input.getHeight()) - 1; i >= 0; i--) {
+            output.setValue(i, (input.get(i) == 0) ? VALUE_TARGET : VALUE_UNKNOWN);
+        }
+
+        process(output);
+
+        return output;
+    }
+
+    //---------//
+    // process //
+    //---------//
+    /**
+     * Run the column pass and then the row pass.
+     *
+     * @param output the output data to process, where reference pixels are set to VALUE_TARGET and
+     *               all other pixels to VALUE_UNKNOWN
+     */
+    public void process (final DistanceTable output)
+    {
+        final int width = output.getWidth();
+        final int height = output.getHeight();
+        final int maxValue = getMaxValue();
+
+        // Vertical distance, kept in output (VALUE_UNKNOWN for no reference in column)
+        OmrExecutors.processBands(
+                width,
+                new OmrExecutors.BandProcessor<Void>()
+        {
+            @Override
+            public void process (int start,
+                                 int stop,
+                                 Void buffer)
+            {
+                processColumns(output, start, stop);
+            }
+        });
+
+        // Euclidean distance
+        OmrExecutors.processBands(
+                height,
+                new OmrExecutors.BandProcessor<Void>()
+        {
+            @Override
+            public void process (int start,
+                                 int stop,
+                                 Void buffer)
+            {
+                processRows(output, start, stop, maxValue);
+            }
+        });
+    }
+
+    /**
+     * To get a Table instance of proper type and size.
+     *
+     * @param width      desired width
+     * @param height     desired height
+     * @param normalizer distance normalizer
+     * @return the table of proper type and dimension
+     */
+    protected abstract DistanceTable allocateOutput (int width,
+                                                     int height,
+                                                     int normalizer);
+
+    /**
+     * Report the maximum value the table can hold.
+     *
+     * @return maximum value
+     */
+    protected abstract int getMaxValue ();
+
+    //----------------//
+    // processColumns //
+    //----------------//
+    /**
+     * Compute the vertical distance to nearest reference pixel, for a band of columns.
+     * Columns are browsed in parallel, row after row, for better memory locality.
+     *
+     * @param output the table to update
+     * @param start  first column
+     * @param stop   column past the band
+     */
+    private void processColumns (DistanceTable output,
+                                 int start,
+                                 int stop)
+    {
+        final int height = output.getHeight();
+
+        // Downwards: distance to nearest reference above
+        for (int y = 1; y < height; y++) {
+            for (int x = start; x < stop; x++) {
+                if (output.getValue(x, y) != VALUE_TARGET) {
+                    final int above = output.getValue(x, y - 1);
+
+                    if (above != VALUE_UNKNOWN) {
+                        output.setValue(x, y, above + 1);
+                    }
+                }
+            }
+        }
+
+        // Upwards: distance to nearest reference below, if closer
+        for (int y = height - 2; y >= 0; y--) {
+            for (int x = start; x < stop; x++) {
+                final int below = output.getValue(x, y + 1);
+
+                if (below != VALUE_UNKNOWN) {
+                    final int v = output.getValue(x, y);
+
+                    if ((v == VALUE_UNKNOWN) || (v > (below + 1))) {
+                        output.setValue(x, y, below + 1);
+                    }
+                }
+            }
+        }
+    }
+
+    //-------------//
+    // processRows //
+    //-------------//
+    /**
+     * Compute the Euclidean distance to nearest reference pixel, for a band of rows.
+     *
+     * @param output   the table to update, containing vertical distances
+     * @param start    first row
+     * @param stop     row past the band
+     * @param maxValue maximum value for table
+     */
+    private void processRows (DistanceTable output,
+                              int start,
+                              int stop,
+                              int maxValue)
+    {
+        final int width = output.getWidth();
+        final long[] f = new long[width]; // Squared vertical distance per column
+        final int[] v = new int[width]; // Columns of parabolas in lower envelope
+        final double[] z = new double[width + 1]; // Boundaries between envelope parabolas
+
+        for (int y = start; y < stop; y++) {
+            // Compute lower envelope
+            int k = -1;
+
+            for (int q = 0; q < width; q++) {
+                final int dy = output.getValue(q, y);
+
+                if (dy == VALUE_UNKNOWN) {
+                    continue;
+                }
+
+                f[q] = (long) dy * dy;
+
+                double s = Double.NEGATIVE_INFINITY;
+
+                while (k >= 0) {
+                    final int p = v[k];
+                    s = (((f[q] + ((long) q * q)) - (f[p] + ((long) p * p))) / (2.0 * (q - p)));
+
+                    if (s > z[k]) {
+                        break;
+                    }
+
+                    k--;
+                }
+
+                k++;
+                v[k] = q;
+                z[k] = (k == 0) ? Double.NEGATIVE_INFINITY : s;
+                z[k + 1] = Double.POSITIVE_INFINITY;
+            }
+
+            if (k < 0) {
+                continue; // No reference pixel in image, row is left as VALUE_UNKNOWN
+            }
+
+            // Read distances from lower envelope
+            k = 0;
+
+            for (int x = 0; x < width; x++) {
+                while (z[k + 1] < x) {
+                    k++;
+                }
+
+                final long dx = x - v[k];
+                final double dist = Math.sqrt((dx * dx) + f[v[k]]);
+                output.setValue(x, y, (int) Math.min(maxValue, Math.rint(normalizer * dist)));
+            }
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //---------//
+    // Integer //
+    //---------//
+    public static class Integer
+            extends EuclideanDistance
+    {
+        //~ Constructors ---------------------------------------------------------------------------
+
+        public Integer ()
+        {
+        }
+
+        public Integer (int normalizer)
+        {
+            super(normalizer);
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        protected DistanceTable allocateOutput (int width,
+                                                int height,
+                                                int normalizer)
+        {
+            return new DistanceTable.Integer(width, height, normalizer);
+        }
+
+        @Override
+        protected int getMaxValue ()
+        {
+            return java.lang.Integer.MAX_VALUE;
+        }
+    }
+
+    //-------//
+    // Short //
+    //-------//
+    public static class Short
+            extends EuclideanDistance
+    {
+        //~ Constructors ---------------------------------------------------------------------------
+
+        public Short ()
+        {
+        }
+
+        public Short (int normalizer)
+        {
+            super(normalizer);
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        protected DistanceTable allocateOutput (int width,
+                                                int height,
+                                                int normalizer)
+        {
+            return new DistanceTable.Short(width, height, normalizer);
+        }
+
+        @Override
+        protected int getMaxValue ()
+        {
+            return java.lang.Short.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,442 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                             F a s t M o r p h o P r o c e s s o r                              //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class {@code FastMorphoProcessor} performs flat gray-level morphology with an
+ * arbitrary structure element, with the same results as {@link MorphoProcessor}.
+ * <p>
+ * The structure element is decomposed into horizontal segments, one or several per row of the
+ * element.
+ * For each distinct segment, the running maximum (or minimum) along image rows is computed with
+ * van Herk / Gil-Werman algorithm, in constant time per pixel whatever the segment length.
+ * The result for a pixel is then the maximum (or minimum) of the segment results on the related
+ * image rows.
+ * <p>
+ * Pixels outside the image are ignored, as in {@link MorphoProcessor}.
+ * Erosion is performed as a dilation on inverted values.
+ * <p>
+ * Image rows are split into bands, which are independent and thus processed in parallel.
+ *
+ * @author Hervé Bitteur
+ */
+public class FastMorphoProcessor
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(FastMorphoProcessor.class);
+
+    /** Value flip for dilation. */
+    private static final int DILATION = 0;
+
+    /** Value flip for erosion. */
+    private static final int EROSION = 0xFF;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Distinct horizontal segments, as pairs (dx min, dx max). */
+    private final int[][] segments;
+
+    /** Element row segments, as pairs (dy, segment index). */
+    private final int[][] runs;
+
+    /** Minimum dy. */
+    private final int dyMin;
+
+    /** Maximum dy. */
+    private final int dyMax;
+
+    /** Maximum segment length. */
+    private final int maxLength;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code FastMorphoProcessor} object.
+     *
+     * @param se the structure element
+     */
+    public FastMorphoProcessor (StructureElement se)
+    {
+        final int[][] vect = se.getVect();
+        final List<int[]> segs = new ArrayList<int[]>();
+        final List<int[]> rns = new ArrayList<int[]>();
+        int yMin = Integer.MAX_VALUE;
+        int yMax = Integer.MIN_VALUE;
+        int length = 1;
+
+        for (int[] v : vect) {
+            yMin = Math.min(yMin, v[0]);
+            yMax = Math.max(yMax, v[0]);
+        }
+
+        for (int dy = yMin; dy <= yMax; dy++) {
+            // Sorted dx values for this row of the element
+            final int[] dxs = new int[vect.length];
+            int count = 0;
+
+            for (int[] v : vect) {
+                if (v[0] == dy) {
+                    dxs[count++] = v[1];
+                }
+            }
+
+            Arrays.sort(dxs, 0, count);
+
+            // Split into contiguous segments
+            for (int i = 0; i < count;) {
+                int j = i;
+
+                while (((j + 1) < count) && (dxs[j + 1] <= (dxs[j] + 1))) {
+                    j++;
+                }
+
+                final int[] seg = new int[]{dxs[i], dxs[j]};
+                int index = indexOf(segs, seg);
+
+                if (index == -1) {
+                    index = segs.size();
+                    segs.add(seg);
+                    length = Math.max(length, (seg[1] - seg[0]) + 1);
+                }
+
+                rns.add(new int[]{dy, index});
+                i = j + 1;
+            }
+        }
+
+        segments = segs.toArray(new int[segs.size()][]);
+        runs = rns.toArray(new int[rns.size()][]);
+        dyMin = runs.length > 0 ? yMin : 0;
+        dyMax = runs.length > 0 ? yMax : 0;
+        maxLength = length;
+        logger.debug("FastMorphoProcessor segments:{} runs:{}", segments.length, runs.length);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------//
+    // close //
+    //-------//
+    /**
+     * Performs gray-level dilation followed by gray-level erosion.
+     *
+     * @param ip the image to process in place
+     */
+    public void close (ByteProcessor ip)
+    {
+        final byte[] pixels = (byte[]) ip.getPixels();
+        final byte[] dilated = new byte[pixels.length];
+        process(pixels, dilated, ip.getWidth(), ip.getHeight(), DILATION);
+        process(dilated, pixels, ip.getWidth(), ip.getHeight(), EROSION);
+    }
+
+    //--------//
+    // dilate //
+    //--------//
+    /**
+     * Performs gray-level dilation.
+     *
+     * @param ip the image to process in place
+     */
+    public void dilate (ByteProcessor ip)
+    {
+        final byte[] pixels = (byte[]) ip.getPixels();
+        final byte[] source = pixels.clone();
+        process(source, pixels, ip.getWidth(), ip.getHeight(), DILATION);
+    }
+
+    //-------//
+    // erode //
+    //-------//
+    /**
+     * Performs gray-level erosion.
+     *
+     * @param ip the image to process in place
+     */
+    public void erode (ByteProcessor ip)
+    {
+        final byte[] pixels = (byte[]) ip.getPixels();
+        final byte[] source = pixels.clone();
+        process(source, pixels, ip.getWidth(), ip.getHeight(), EROSION);
+    }
+
+    //------//
+    // open //
+    //------//
+    /**
+     * Performs gray-level erosion followed by gray-level dilation.
+     *
+     * @param ip the image to process in place
+     */
+    public void open (ByteProcessor ip)
+    {
+        final byte[] pixels = (byte[]) ip.getPixels();
+        final byte[] eroded = new byte[pixels.length];
+        process(pixels, eroded, ip.getWidth(), ip.getHeight(), EROSION);
+        process(eroded, pixels, ip.getWidth(), ip.getHeight(), DILATION);
+    }
+
+    //------------//
+    // filterRows //
+    //------------//
+    /**
+     * Process the provided band of rows.
+     *
+     * @param src    source pixels
+     * @param dst    destination pixels
+     * @param width  image width
+     * @param height image height
+     * @param yMin   first row of the band
+     * @param yMax   row past the band
+     * @param flip   DILATION or EROSION
+     * @param buffer buffer available for the band
+     */
+    private void filterRows (byte[] src,
+                             byte[] dst,
+                             int width,
+                             int height,
+                             int yMin,
+                             int yMax,
+                             int flip,
+                             Buffer buffer)
+    {
+        // Source rows used by the band
+        final int rMin = Math.max(0, yMin + dyMin);
+        final int rMax = Math.min(height, yMax + dyMax);
+
+        // Running maximum for each segment on each source row
+        for (int s = 0; s < segments.length; s++) {
+            final byte[] seg = buffer.rows[s];
+
+            for (int y = rMin; y < rMax; y++) {
+                runRow(src, y * width, width, segments[s][0], segments[s][1], flip, buffer);
+
+                final int offset = (y - rMin) * width;
+
+                for (int x = 0; x < width; x++) {
+                    seg[offset + x] = (byte) buffer.result[x];
+                }
+            }
+        }
+
+        // Maximum of segment results
+        final int[] acc = buffer.result;
+
+        for (int y = yMin; y < yMax; y++) {
+            Arrays.fill(acc, 0, width, 0);
+
+            for (int[] run : runs) {
+                final int yy = y + run[0];
+
+                if ((yy < 0) || (yy >= height)) {
+                    continue; // Outside image
+                }
+
+                final byte[] seg = buffer.rows[run[1]];
+                final int offset = (yy - rMin) * width;
+
+                for (int x = 0; x < width; x++) {
+                    final int val = seg[offset + x] & 0xFF;
+
+                    if (val > acc[x]) {
+                        acc[x] = val;
+                    }
+                }
+            }
+
+            final int offset = y * width;
+
+            for (int x = 0; x < width; x++) {
+                dst[offset + x] = (byte) (acc[x] ^ flip);
+            }
+        }
+    }
+
+    //---------//
+    // indexOf //
+    //---------//
+    private static int indexOf (List<int[]> segs,
+                                int[] seg)
+    {
+        for (int i = 0; i < segs.size(); i++) {
+            if (Arrays.equals(segs.get(i), seg)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    //---------//
+    // process //
+    //---------//
+    /**
+     * Split the image rows into bands and process them, in parallel if so allowed.
+     *
+     * @param src    source pixels
+     * @param dst    destination pixels
+     * @param width  image width
+     * @param height image height
+     * @param flip   DILATION or EROSION
+     */
+    private void process (final byte[] src,
+                          final byte[] dst,
+                          final int width,
+                          final int height,
+                          final int flip)
+    {
+        if (runs.length == 0) {
+            // Empty element: all pixels outside, hence neutral value
+            Arrays.fill(dst, (byte) flip);
+
+            return;
+        }
+
+        OmrExecutors.processBands(
+                height,
+                new OmrExecutors.BandProcessor<Buffer>()
+        {
+            @Override
+            public Buffer createBuffer (int bandSize)
+            {
+                return new Buffer(width, bandSize);
+            }
+
+            @Override
+            public void process (int yMin,
+                                 int yMax,
+                                 Buffer buffer)
+            {
+                filterRows(src, dst, width, height, yMin, yMax, flip, buffer);
+            }
+        });
+    }
+
+    //--------//
+    // runRow //
+    //--------//
+    /**
+     * Compute, for each x of a row, the maximum of (flipped) values in [x + dx1, x + dx2].
+     * Results are stored in buffer.result.
+     *
+     * @param src    source pixels
+     * @param offset offset of row in source
+     * @param width  image width
+     * @param dx1    segment start
+     * @param dx2    segment stop (inclusive)
+     * @param flip   DILATION or EROSION
+     * @param buffer buffer for the band
+     */
+    private void runRow (byte[] src,
+                         int offset,
+                         int width,
+                         int dx1,
+                         int dx2,
+                         int flip,
+                         Buffer buffer)
+    {
+        final int length = (dx2 - dx1) + 1;
+        final int[] result = buffer.result;
+
+        if (length == 1) {
+            for (int x = 0; x < width; x++) {
+                final int i = x + dx1;
+                result[x] = ((i >= 0) && (i < width)) ? ((src[offset + i] & 0xFF) ^ flip) : 0;
+            }
+
+            return;
+        }
+
+        // Extended row, from x = dx1 to x = width - 1 + dx2, with 0 outside image
+        final int n = (width + length) - 1;
+        final int[] g = buffer.forward;
+        final int[] h = buffer.backward;
+
+        // Forward maxima within each block of length values
+        for (int k = 0, pos = 0; k < n; k++, pos++) {
+            final int i = k + dx1;
+            final int val = ((i >= 0) && (i < width)) ? ((src[offset + i] & 0xFF) ^ flip) : 0;
+
+            if (pos == length) {
+                pos = 0;
+            }
+
+            g[k] = (pos == 0) ? val : Math.max(g[k - 1], val);
+            h[k] = val;
+        }
+
+        // Backward maxima within each block of length values
+        for (int start = 0; start < n; start += length) {
+            for (int k = Math.min(start + length, n) - 2; k >= start; k--) {
+                h[k] = Math.max(h[k], h[k + 1]);
+            }
+        }
+
+        for (int x = 0; x < width; x++) {
+            result[x] = Math.max(h[x], g[(x + length) - 1]);
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //--------//
+    // Buffer //
+    //--------//
+    /**
+     * Working buffers for a band of rows.
+     */
+    private class Buffer
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** For each segment, the running maxima of band source rows. */
+        final byte[][] rows;
+
+        /** Forward running maxima. */
+        final int[] forward;
+
+        /** Backward running maxima. */
+        final int[] backward;
+
+        /** Results for a row. */
+        final int[] result;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Buffer (int width,
+                       int bandSize)
+        {
+            final int rowCount = (bandSize + dyMax) - dyMin;
+            rows = new byte[segments.length][rowCount * width];
+            forward = new int[(width + maxLength) - 1];
+            backward = new int[(width + maxLength) - 1];
+            result = new int[width];
+        }
+    }
+}
@@ -55,7 +55,8 @@ public abstract class FilterDescriptor
     @Override
     public boolean equals (Object obj)
     {
-        return (obj instanceof FilterDescriptor);
+        return (obj instanceof FilterDescriptor)
+               && (((FilterDescriptor) obj).getKind() == getKind());
     }
 
     //-----------//
@@ -145,7 +146,7 @@ public abstract class FilterDescriptor
 
         private final FilterKind.Constant defaultKind = new FilterKind.Constant(
                 FilterKind.ADAPTIVE,
-                "Default kind of PixelFilter (GLOBAL or ADAPTIVE)");
+                "Default kind of PixelFilter (GLOBAL, ADAPTIVE or INTEGRAL)");
     }
 
     //---------//
@@ -199,6 +200,7 @@ public abstract class FilterDescriptor
                     break;
 
                 case ADAPTIVE:
+                case INTEGRAL:
 
                     if (specific instanceof AdaptiveDescriptor) {
                         AdaptiveDescriptor aDesc = (AdaptiveDescriptor) specific;
@@ -27,6 +27,9 @@ import net.jcip.annotations.ThreadSafe;
 
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
+import static org.audiveris.omr.run.Orientation.VERTICAL;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableFactory;
 
 /**
  * Class {@code GlobalFilter} implements Interface {@code PixelFilter} by using a
@@ -83,6 +86,20 @@ public class GlobalFilter
         return ip;
     }
 
+    //--------------//
+    // filteredRuns //
+    //--------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The filter being stateless, columns are processed by bands in parallel.
+     */
+    @Override
+    public RunTable filteredRuns ()
+    {
+        return new RunTableFactory(VERTICAL).createParallelTable(this);
+    }
+
     //------------//
     // getContext //
     //------------//
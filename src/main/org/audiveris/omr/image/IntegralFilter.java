@@ -0,0 +1,336 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                  I n t e g r a l F i l t e r                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import net.jcip.annotations.ThreadSafe;
+
+import static org.audiveris.omr.run.Orientation.VERTICAL;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * Class {@code IntegralFilter} is a specialization of {@link AdaptiveFilter} which
+ * computes mean and standard deviation values out of integral images of plain and squared
+ * pixel values.
+ * <p>
+ * Rather than browsing the image column by column with a sliding tile, the image is processed
+ * by bands, which are independent and thus processed in parallel.
+ * For a band, the integrals of plain and squared values are computed row-major in a single
+ * {@code long[]} allocation, covering the band augmented by the window margins.
+ * Mean and standard deviation are then obtained in constant time for each pixel of the band.
+ * <ul>
+ * <li>{@link #filteredImage()} uses bands of rows.</li>
+ * <li>{@link #filteredRuns()} uses bands of columns, so that each column of the band is directly
+ * encoded as a sequence of vertical runs.</li>
+ * </ul>
+ * <p>
+ * Results are identical to the ones of {@link VerticalFilter}, since the same integral values
+ * and the same threshold formula are used.
+ * <p>
+ * Single pixel queries via {@link #isFore(int, int)} are answered from the filtered image, which
+ * is computed once on first need.
+ *
+ * @author Hervé Bitteur
+ */
+@ThreadSafe
+public class IntegralFilter
+        extends AdaptiveFilter
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(IntegralFilter.class);
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    //
+    /** Filtered image, lazily computed for single pixel queries. */
+    private ByteProcessor filtered;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Create an integral-based adaptive wrapper on a raw pixel source.
+     *
+     * @param source      the underlying source of raw pixels
+     * @param meanCoeff   the coefficient for mean value
+     * @param stdDevCoeff the coefficient for standard deviation value
+     */
+    public IntegralFilter (ByteProcessor source,
+                           double meanCoeff,
+                           double stdDevCoeff)
+    {
+        super(source, meanCoeff, stdDevCoeff);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //
+    //---------------//
+    // filteredImage //
+    //---------------//
+    @Override
+    public ByteProcessor filteredImage ()
+    {
+        final int width = source.getWidth();
+        final int height = source.getHeight();
+        final ByteProcessor ip = new ByteProcessor(width, height);
+        final byte[] out = (byte[]) ip.getPixels();
+
+        OmrExecutors.processBands(
+                height,
+                new BandProcessor()
+        {
+            @Override
+            public void process (int yStart,
+                                 int yStop,
+                                 Integrals integrals)
+            {
+                integrals.populate(
+                        0,
+                        width - 1,
+                        Math.max(0, yStart - HALF_WINDOW_SIZE),
+                        Math.min(height - 1, (yStop - 1) + HALF_WINDOW_SIZE));
+
+                for (int y = yStart; y < yStop; y++) {
+                    for (int x = 0, p = y * width; x < width; x++, p++) {
+                        out[p] = (byte) (integrals.isFore(x, y) ? FOREGROUND : BACKGROUND);
+                    }
+                }
+            }
+        });
+
+        return ip;
+    }
+
+    //--------------//
+    // filteredRuns //
+    //--------------//
+    @Override
+    public RunTable filteredRuns ()
+    {
+        final int width = source.getWidth();
+        final int height = source.getHeight();
+        final RunTable table = new RunTable(VERTICAL, width, height);
+
+        OmrExecutors.processBands(
+                width,
+                new BandProcessor()
+        {
+            @Override
+            public void process (int xStart,
+                                 int xStop,
+                                 Integrals integrals)
+            {
+                final RunTable.Builder builder = new RunTable.Builder();
+                integrals.populate(
+                        Math.max(0, xStart - HALF_WINDOW_SIZE),
+                        Math.min(width - 1, (xStop - 1) + HALF_WINDOW_SIZE),
+                        0,
+                        height - 1);
+
+                for (int x = xStart; x < xStop; x++) {
+                    int start = -1; // Start of foreground run in progress, if any
+
+                    for (int y = 0; y < height; y++) {
+                        if (integrals.isFore(x, y)) {
+                            if (start == -1) {
+                                start = y;
+                            }
+                        } else if (start != -1) {
+                            builder.append(start, y - start);
+                            start = -1;
+                        }
+                    }
+
+                    if (start != -1) {
+                        builder.append(start, height - start);
+                    }
+
+                    table.setSequence(x, builder);
+                }
+            }
+        });
+
+        return table;
+    }
+
+    //----------------------//
+    // getDefaultDescriptor //
+    //----------------------//
+    public static FilterDescriptor getDefaultDescriptor ()
+    {
+        return IntegralDescriptor.getDefault();
+    }
+
+    //--------//
+    // isFore //
+    //--------//
+    @Override
+    public boolean isFore (int x,
+                           int y)
+    {
+        return getFiltered().get(x, y) == FOREGROUND;
+    }
+
+    //-------------//
+    // getFiltered //
+    //-------------//
+    private synchronized ByteProcessor getFiltered ()
+    {
+        if (filtered == null) {
+            filtered = filteredImage();
+        }
+
+        return filtered;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //---------------//
+    // BandProcessor //
+    //---------------//
+    /**
+     * Processing of bands of positions, each task using its own integrals buffer.
+     */
+    private abstract class BandProcessor
+            extends OmrExecutors.BandProcessor<Integrals>
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        @Override
+        public Integrals createBuffer (int bandSize)
+        {
+            return new Integrals();
+        }
+    }
+
+    //-----------//
+    // Integrals //
+    //-----------//
+    /**
+     * Integrals of plain and squared pixel values over a rectangular area of the image.
+     * <p>
+     * They are stored row-major, plain and squared values being interleaved, with an initial
+     * row and an initial column of zeros.
+     * Row 0 corresponds to ordinate (yMin - 1) and column 0 to abscissa (xMin - 1).
+     * The buffer is reallocated only when a larger area is needed.
+     */
+    private class Integrals
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Interleaved integrals of plain and squared values. */
+        private long[] data = new long[0];
+
+        /** Abscissa of first integrated column. */
+        private int xMin;
+
+        /** Ordinate of first integrated row. */
+        private int yMin;
+
+        /** Number of cells per row. */
+        private int stride;
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Check whether the provided pixel is foreground.
+         * The window around (x,y) must lie within the populated area.
+         *
+         * @param x pixel abscissa
+         * @param y pixel ordinate
+         * @return true if foreground
+         */
+        public boolean isFore (int x,
+                               int y)
+        {
+            final int x1 = Math.max(-1, x - HALF_WINDOW_SIZE - 1);
+            final int x2 = Math.min(source.getWidth() - 1, x + HALF_WINDOW_SIZE);
+            final int y1 = Math.max(-1, y - HALF_WINDOW_SIZE - 1);
+            final int y2 = Math.min(source.getHeight() - 1, y + HALF_WINDOW_SIZE);
+            final int top = ((y1 - yMin) + 1) * stride;
+            final int bottom = ((y2 - yMin) + 1) * stride;
+            final int left = 2 * ((x1 - xMin) + 1);
+            final int right = 2 * ((x2 - xMin) + 1);
+            final int area = (y2 - y1) * (x2 - x1);
+
+            final double sum = (data[top + left] + data[bottom + right]) - data[top + right]
+                               - data[bottom + left];
+            final double sqr = (data[top + left + 1] + data[bottom + right + 1])
+                               - data[top + right + 1] - data[bottom + left + 1];
+            final double mean = sum / area;
+            final double sqrMean = sqr / area;
+            final double var = Math.abs(sqrMean - (mean * mean));
+            final double stdDev = Math.sqrt(var);
+            final double threshold = getThreshold(mean, stdDev);
+
+            return source.get(x, y) <= threshold;
+        }
+
+        /**
+         * Compute the integrals over the provided area.
+         *
+         * @param xMin first abscissa
+         * @param xMax last abscissa
+         * @param yMin first ordinate
+         * @param yMax last ordinate
+         */
+        public void populate (int xMin,
+                              int xMax,
+                              int yMin,
+                              int yMax)
+        {
+            final byte[] pixels = (byte[]) source.getPixels();
+            final int width = source.getWidth();
+            this.xMin = xMin;
+            this.yMin = yMin;
+            stride = 2 * ((xMax - xMin) + 2);
+
+            final int size = stride * ((yMax - yMin) + 2);
+
+            if (data.length < size) {
+                data = new long[size];
+            }
+
+            Arrays.fill(data, 0, stride, 0L);
+
+            for (int y = yMin; y <= yMax; y++) {
+                final int row = ((y - yMin) + 1) * stride;
+                long rowSum = 0;
+                long rowSqr = 0;
+                data[row] = 0;
+                data[row + 1] = 0;
+
+                for (int x = xMin, p = (y * width) + xMin, i = row + 2; x <= xMax;
+                        x++, p++, i += 2) {
+                    final long pix = pixels[p] & 0xFF;
+                    rowSum += pix;
+                    rowSqr += (pix * pix);
+                    data[i] = data[i - stride] + rowSum;
+                    data[i + 1] = data[(i + 1) - stride] + rowSqr;
+                }
+            }
+        }
+    }
+}
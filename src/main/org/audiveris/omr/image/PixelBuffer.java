@@ -25,6 +25,9 @@ import ij.process.ByteProcessor;
 
 import net.jcip.annotations.ThreadSafe;
 import static org.audiveris.omr.image.PixelSource.BACKGROUND;
+import static org.audiveris.omr.run.Orientation.VERTICAL;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableFactory;
 import org.audiveris.omr.util.StopWatch;
 
 import org.slf4j.Logger;
@@ -130,6 +133,15 @@ public class PixelBuffer
         throw new UnsupportedOperationException("Not supported yet.");
     }
 
+    //--------------//
+    // filteredRuns //
+    //--------------//
+    @Override
+    public RunTable filteredRuns ()
+    {
+        return new RunTableFactory(VERTICAL).createTable(this);
+    }
+
     @Override
     public int get (int x,
                     int y)
@@ -23,6 +23,8 @@ package org.audiveris.omr.image;
 
 import ij.process.ByteProcessor;
 
+import org.audiveris.omr.run.RunTable;
+
 /**
  * Interface {@code PixelFilter} reports the foreground pixels of a {@link PixelSource}.
  *
@@ -40,6 +42,14 @@ public interface PixelFilter
      */
     ByteProcessor filteredImage ();
 
+    /**
+     * Run the filter on source image and report the vertical runs of foreground pixels,
+     * without materializing the filtered image.
+     *
+     * @return the table of vertical runs
+     */
+    RunTable filteredRuns ();
+
     /**
      * Report the source context at provided location.
      * This is meant for administration and display purposes, it does not need
@@ -0,0 +1,410 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               P r e f e t c h i n g L o a d e r                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Class {@code PrefetchingLoader} wraps an {@link ImageLoading.Loader} so that it can be
+ * kept open and shared for a whole book, while images are rendered ahead of their consumers.
+ * <p>
+ * Access to the underlying loader (such as a PDF document or an image reader, none of them being
+ * thread-safe) is serialized.
+ * Each time an image is requested, the following expected images (up to {@code prefetchCount}
+ * of them) are loaded by a low-priority background task, as long as the total size of prefetched
+ * images remains below {@code maxPrefetchMemory}.
+ * A prefetched image is handed over (and forgotten) when requested.
+ * Images are expected to be requested mostly in increasing id order, so a prefetched image which
+ * gets behind the highest requested id is evicted, as well as any image no longer expected.
+ * <p>
+ * {@link #dispose()} stops any prefetching, releases the prefetched images and the underlying
+ * loader.
+ *
+ * @author Hervé Bitteur
+ */
+@ThreadSafe
+public class PrefetchingLoader
+        implements ImageLoading.Loader
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(PrefetchingLoader.class);
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** The underlying loader, to be accessed under its own lock. */
+    private final ImageLoading.Loader loader;
+
+    /** Ids of the images expected to be requested, in increasing order. */
+    private List<Integer> expectedIds;
+
+    /** Prefetched images, not yet requested. */
+    private final Map<Integer, BufferedImage> ready = new HashMap<Integer, BufferedImage>();
+
+    /** Ids already requested by consumers. */
+    private final Set<Integer> requested = new HashSet<Integer>();
+
+    /** Total size in bytes of prefetched images. */
+    private long readyBytes;
+
+    /** Id being prefetched, if any. */
+    private Integer inProgress;
+
+    /** Highest id requested so far. */
+    private int lastRequested;
+
+    /** Is the background task running?. */
+    private boolean running;
+
+    /** Has this loader been disposed of?. */
+    private boolean disposed;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code PrefetchingLoader} object.
+     *
+     * @param loader      the underlying loader, to be disposed of by this instance
+     * @param expectedIds the ids of the images likely to be requested
+     */
+    public PrefetchingLoader (ImageLoading.Loader loader,
+                              Collection<Integer> expectedIds)
+    {
+        this.loader = loader;
+        this.expectedIds = sorted(expectedIds);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------//
+    // dispose //
+    //---------//
+    @Override
+    public void dispose ()
+    {
+        synchronized (this) {
+            if (disposed) {
+                return;
+            }
+
+            disposed = true;
+            ready.clear();
+            readyBytes = 0;
+            notifyAll();
+        }
+
+        synchronized (loader) {
+            loader.dispose();
+        }
+
+        logger.debug("PrefetchingLoader disposed");
+    }
+
+    //------------//
+    // evictStale //
+    //------------//
+    /**
+     * Evict the prefetched images that are behind the highest requested id or no longer
+     * expected.
+     * Must be called while holding this instance lock.
+     */
+    private void evictStale ()
+    {
+        for (Iterator<Map.Entry<Integer, BufferedImage>> it = ready.entrySet().iterator();
+                it.hasNext();) {
+            final Map.Entry<Integer, BufferedImage> entry = it.next();
+
+            if (isStale(entry.getKey())) {
+                readyBytes -= sizeOf(entry.getValue());
+                it.remove();
+                logger.debug("Prefetched image {} evicted", entry.getKey());
+            }
+        }
+    }
+
+    //----------//
+    // getImage //
+    //----------//
+    @Override
+    public BufferedImage getImage (int id)
+            throws IOException
+    {
+        BufferedImage img;
+
+        synchronized (this) {
+            if (disposed) {
+                throw new IOException("PrefetchingLoader already disposed");
+            }
+
+            requested.add(id);
+            lastRequested = Math.max(lastRequested, id);
+
+            try {
+                // Let a running prefetch on this very id complete
+                while (Integer.valueOf(id).equals(inProgress)) {
+                    wait();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+
+            img = ready.remove(id);
+
+            if (img != null) {
+                readyBytes -= sizeOf(img);
+                logger.debug("Prefetched image {} handed over", id);
+            }
+
+            evictStale();
+            launchPrefetch();
+        }
+
+        if (img == null) {
+            img = load(id);
+        }
+
+        return img;
+    }
+
+    //---------------//
+    // getImageCount //
+    //---------------//
+    @Override
+    public int getImageCount ()
+    {
+        synchronized (loader) {
+            return loader.getImageCount();
+        }
+    }
+
+    //---------//
+    // isStale //
+    //---------//
+    private boolean isStale (int id)
+    {
+        return (id < lastRequested) || !expectedIds.contains(id);
+    }
+
+    //----------------//
+    // launchPrefetch //
+    //----------------//
+    /**
+     * Launch the background prefetch task, if needed and not already running.
+     * Must be called while holding this instance lock.
+     */
+    private void launchPrefetch ()
+    {
+        if (running || (constants.prefetchCount.getValue() <= 0) || (nextId() == null)) {
+            return;
+        }
+
+        running = true;
+        OmrExecutors.getCachedLowExecutor().execute(
+                new Runnable()
+        {
+            @Override
+            public void run ()
+            {
+                prefetch();
+            }
+        });
+    }
+
+    //------//
+    // load //
+    //------//
+    private BufferedImage load (int id)
+            throws IOException
+    {
+        synchronized (loader) {
+            synchronized (this) {
+                if (disposed) {
+                    throw new IOException("PrefetchingLoader already disposed");
+                }
+            }
+
+            return loader.getImage(id);
+        }
+    }
+
+    //--------//
+    // nextId //
+    //--------//
+    /**
+     * Report the next id to prefetch, if any.
+     * Must be called while holding this instance lock.
+     *
+     * @return next id to prefetch, or null
+     */
+    private Integer nextId ()
+    {
+        if (disposed) {
+            return null;
+        }
+
+        final long maxBytes = constants.maxPrefetchMemory.getValue() * 1024L * 1024L;
+
+        if (readyBytes >= maxBytes) {
+            return null;
+        }
+
+        int ahead = 0;
+
+        for (Integer id : expectedIds) {
+            if (id <= lastRequested) {
+                continue;
+            }
+
+            if (++ahead > constants.prefetchCount.getValue()) {
+                return null;
+            }
+
+            if (!requested.contains(id) && !ready.containsKey(id)) {
+                return id;
+            }
+        }
+
+        return null;
+    }
+
+    //----------//
+    // prefetch //
+    //----------//
+    /**
+     * Background task: load expected images one after the other, until there is nothing more
+     * to prefetch for the time being.
+     */
+    private void prefetch ()
+    {
+        while (true) {
+            final Integer id;
+
+            synchronized (this) {
+                id = nextId();
+
+                if (id == null) {
+                    running = false;
+
+                    return;
+                }
+
+                inProgress = id;
+            }
+
+            BufferedImage img = null;
+
+            try {
+                img = load(id);
+                logger.debug("Prefetched image {}", id);
+            } catch (Throwable ex) {
+                logger.debug("Could not prefetch image {} {}", id, ex.toString());
+            }
+
+            synchronized (this) {
+                inProgress = null;
+
+                if ((img != null) && !disposed && !isStale(id)) {
+                    ready.put(id, img);
+                    readyBytes += sizeOf(img);
+                }
+
+                notifyAll();
+            }
+        }
+    }
+
+    //----------------//
+    // setExpectedIds //
+    //----------------//
+    /**
+     * Define the images expected to be requested from now on, typically at the start of a new
+     * processing run on a subset of sheets.
+     * Request history is reset and prefetched images no longer expected are evicted.
+     *
+     * @param ids the ids of the images likely to be requested
+     */
+    public synchronized void setExpectedIds (Collection<Integer> ids)
+    {
+        expectedIds = sorted(ids);
+        requested.clear();
+        lastRequested = 0;
+        evictStale();
+    }
+
+    //--------//
+    // sizeOf //
+    //--------//
+    private static long sizeOf (BufferedImage img)
+    {
+        final DataBuffer buffer = img.getRaster().getDataBuffer();
+
+        return ((long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(
+                buffer.getDataType())) / 8;
+    }
+
+    //--------//
+    // sorted //
+    //--------//
+    private static List<Integer> sorted (Collection<Integer> ids)
+    {
+        return new ArrayList<Integer>(new TreeSet<Integer>(ids));
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer prefetchCount = new Constant.Integer(
+                "images",
+                2,
+                "Maximum number of images loaded ahead of their request");
+
+        private final Constant.Integer maxPrefetchMemory = new Constant.Integer(
+                "MB",
+                256,
+                "Maximum memory used by images loaded ahead of their request");
+    }
+}
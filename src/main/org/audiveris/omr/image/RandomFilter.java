@@ -23,6 +23,10 @@ package org.audiveris.omr.image;
 
 import ij.process.ByteProcessor;
 
+import static org.audiveris.omr.run.Orientation.VERTICAL;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableFactory;
+
 import net.jcip.annotations.ThreadSafe;
 
 import org.slf4j.Logger;
@@ -68,6 +72,21 @@ public class RandomFilter
                 true);
     }
 
+    //~ Methods ------------------------------------------------------------------------------------
+    //--------------//
+    // filteredRuns //
+    //--------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The tables of integrals being fully populated, columns are processed by bands in parallel.
+     */
+    @Override
+    public RunTable filteredRuns ()
+    {
+        return new RunTableFactory(VERTICAL).createParallelTable(this);
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //
     //--------//
@@ -291,7 +291,7 @@ public class ShapeDescriptor
         }
 
         // Compute template distance transform
-        final DistanceTable distances = new ChamferDistance.Short().compute(fore);
+        final DistanceTable distances = Template.getDistanceTransform().compute(fore);
 
         if (logger.isDebugEnabled()) {
             distances.dump(shape + "  distances");
@@ -0,0 +1,351 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    S k e l e t o n i z e r                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class {@code Skeletonizer} thins the foreground (black) shapes of a binary image down
+ * to single-pixel-wide skeletons, with the same results as ImageJ {@code skeletonize()}.
+ * <p>
+ * It uses the same table-driven thinning (a Zhang-Suen variant): each pass decides the removal of
+ * every pixel from a snapshot of its 3x3 neighborhood, pixels being removed from right and bottom
+ * edges on even passes and from left and top edges on odd passes, until no pixel is removed.
+ * A final series of passes with a second table removes remaining "stuck" pixels.
+ * <p>
+ * Since decisions within a pass only depend on the snapshot, the image is split into tiles
+ * processed in parallel.
+ * A tile is processed only if some pixel was removed in the tile or in its neighbor tiles during
+ * the two previous passes (same parity), since otherwise the tile cannot change.
+ *
+ * @author Hervé Bitteur
+ */
+public class Skeletonizer
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(Skeletonizer.class);
+
+    private static final byte BACKGROUND = (byte) 255;
+
+    /**
+     * Removal code per neighborhood configuration, for main passes.
+     * 1: remove on even pass, 2: remove on odd pass, 3: remove on any pass.
+     * Configuration bits: NW=1, N=2, NE=4, E=8, SE=16, S=32, SW=64, W=128.
+     */
+    private static final int[] TABLE = {
+        0, 0, 0, 0, 0, 0, 1, 3, 0, 0, 3, 1, 1, 0, 1, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 0, 3, 0, 3, 3,
+        0, 0, 0, 0, 0, 0, 0, 0, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 0, 0, 0, 3, 0, 2, 2,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        2, 0, 0, 0, 0, 0, 0, 0, 2, 0, 0, 0, 2, 0, 0, 0, 3, 0, 0, 0, 0, 0, 0, 0, 3, 0, 0, 0, 3, 0, 2, 0,
+        0, 0, 3, 1, 0, 0, 1, 3, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1,
+        3, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        2, 3, 1, 3, 0, 0, 1, 3, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        2, 3, 0, 1, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 3, 3, 0, 1, 0, 0, 0, 0, 2, 2, 0, 0, 2, 0, 0, 0
+    };
+
+    /** Removal code per neighborhood configuration, for final passes. */
+    private static final int[] TABLE2 = {
+        0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 0, 2, 2, 0, 0, 0, 0,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 0, 2, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 0, 0, 0, 0, 0,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 0, 0, 0, 0, 0,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 0, 0, 0, 0, 0, 0, 0,
+        0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+        0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Image width. */
+    private final int width;
+
+    /** Image height. */
+    private final int height;
+
+    /** Image pixels, modified in place. */
+    private final byte[] pixels;
+
+    /** Pixels as they were at beginning of current pass. */
+    private final byte[] snapshot;
+
+    /** Tile side, in pixels. */
+    private final int tileSize;
+
+    /** Number of tile columns. */
+    private final int tileCols;
+
+    /** Number of tile rows. */
+    private final int tileRows;
+
+    /** Removals per tile, in last pass. */
+    private final int[] lastRemovals;
+
+    /** Removals per tile, in pass before last pass. */
+    private final int[] prevRemovals;
+
+    /** Removals per tile, in current pass. */
+    private final int[] removals;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code Skeletonizer} object on the provided binary image.
+     *
+     * @param ip the image to skeletonize in place (foreground: 0, background: 255)
+     */
+    public Skeletonizer (ByteProcessor ip)
+    {
+        width = ip.getWidth();
+        height = ip.getHeight();
+        pixels = (byte[]) ip.getPixels();
+        snapshot = new byte[pixels.length];
+        tileSize = constants.tileSize.getValue();
+        tileCols = ((width + tileSize) - 1) / tileSize;
+        tileRows = ((height + tileSize) - 1) / tileSize;
+        lastRemovals = new int[tileCols * tileRows];
+        prevRemovals = new int[tileCols * tileRows];
+        removals = new int[tileCols * tileRows];
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------------//
+    // skeletonize //
+    //-------------//
+    /**
+     * Skeletonize the image in place.
+     */
+    public void skeletonize ()
+    {
+        // Image frame is set to background
+        Arrays.fill(pixels, 0, width, BACKGROUND);
+        Arrays.fill(pixels, (height - 1) * width, height * width, BACKGROUND);
+
+        for (int y = 0; y < height; y++) {
+            pixels[y * width] = BACKGROUND;
+            pixels[((y + 1) * width) - 1] = BACKGROUND;
+        }
+
+        int pass = 0;
+        int passes = 0;
+
+        for (int[] table : new int[][]{TABLE, TABLE2}) {
+            // All tiles are potentially active for the first two passes with a table
+            Arrays.fill(lastRemovals, 1);
+            Arrays.fill(prevRemovals, 1);
+
+            int removed;
+
+            do {
+                removed = thin(pass++, table);
+                removed += thin(pass++, table);
+                passes += 2;
+            } while (removed > 0);
+        }
+
+        logger.debug("Skeletonized {}x{} in {} passes", width, height, passes);
+    }
+
+    //----------//
+    // isActive //
+    //----------//
+    /**
+     * Tell whether the tile may change in current pass, because some pixel was removed
+     * in the tile or its neighbors during the two previous passes.
+     */
+    private boolean isActive (int col,
+                              int row)
+    {
+        for (int r = Math.max(0, row - 1); r <= Math.min(tileRows - 1, row + 1); r++) {
+            for (int c = Math.max(0, col - 1); c <= Math.min(tileCols - 1, col + 1); c++) {
+                final int t = (r * tileCols) + c;
+
+                if ((lastRemovals[t] > 0) || (prevRemovals[t] > 0)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    //------//
+    // thin //
+    //------//
+    /**
+     * Perform one thinning pass on all active tiles, in parallel if so allowed.
+     *
+     * @param pass  pass number
+     * @param table the removal table
+     * @return the number of pixels removed
+     */
+    private int thin (final int pass,
+                      final int[] table)
+    {
+        System.arraycopy(pixels, 0, snapshot, 0, pixels.length);
+        Arrays.fill(removals, 0);
+
+        // Select active tiles
+        final List<Integer> actives = new ArrayList<Integer>();
+
+        for (int row = 0; row < tileRows; row++) {
+            for (int col = 0; col < tileCols; col++) {
+                if (isActive(col, row)) {
+                    actives.add((row * tileCols) + col);
+                }
+            }
+        }
+
+        // One tile per band
+        OmrExecutors.processBands(
+                actives.size(),
+                1,
+                new OmrExecutors.BandProcessor<Void>()
+        {
+            @Override
+            public void process (int start,
+                                 int stop,
+                                 Void buffer)
+            {
+                for (int i = start; i < stop; i++) {
+                    final int tile = actives.get(i);
+                    removals[tile] = thinTile(tile, pass, table);
+                }
+            }
+        });
+
+        // Shift removal history
+        System.arraycopy(lastRemovals, 0, prevRemovals, 0, removals.length);
+        System.arraycopy(removals, 0, lastRemovals, 0, removals.length);
+
+        int removed = 0;
+
+        for (int r : removals) {
+            removed += r;
+        }
+
+        return removed;
+    }
+
+    //----------//
+    // thinTile //
+    //----------//
+    /**
+     * Perform one thinning pass on the provided tile.
+     * Image frame pixels are never processed.
+     *
+     * @param tile  tile index
+     * @param pass  pass number
+     * @param table the removal table
+     * @return the number of pixels removed in tile
+     */
+    private int thinTile (int tile,
+                          int pass,
+                          int[] table)
+    {
+        final int xMin = Math.max(1, (tile % tileCols) * tileSize);
+        final int xMax = Math.min(width - 1, ((tile % tileCols) + 1) * tileSize);
+        final int yMin = Math.max(1, (tile / tileCols) * tileSize);
+        final int yMax = Math.min(height - 1, ((tile / tileCols) + 1) * tileSize);
+        final int code1 = ((pass & 1) == 1) ? 2 : 1; // Code for this pass, beside 3
+        final int w = width;
+        int removed = 0;
+
+        for (int y = yMin; y < yMax; y++) {
+            for (int x = xMin, p = (y * w) + xMin; x < xMax; x++, p++) {
+                if (snapshot[p] == BACKGROUND) {
+                    continue;
+                }
+
+                int index = 0;
+
+                if (snapshot[p - w - 1] != BACKGROUND) {
+                    index |= 1;
+                }
+
+                if (snapshot[p - w] != BACKGROUND) {
+                    index |= 2;
+                }
+
+                if (snapshot[(p - w) + 1] != BACKGROUND) {
+                    index |= 4;
+                }
+
+                if (snapshot[p + 1] != BACKGROUND) {
+                    index |= 8;
+                }
+
+                if (snapshot[p + w + 1] != BACKGROUND) {
+                    index |= 16;
+                }
+
+                if (snapshot[p + w] != BACKGROUND) {
+                    index |= 32;
+                }
+
+                if (snapshot[(p + w) - 1] != BACKGROUND) {
+                    index |= 64;
+                }
+
+                if (snapshot[p - 1] != BACKGROUND) {
+                    index |= 128;
+                }
+
+                final int code = table[index];
+
+                if ((code == code1) || (code == 3)) {
+                    pixels[p] = BACKGROUND;
+                    removed++;
+                }
+            }
+        }
+
+        return removed;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer tileSize = new Constant.Integer(
+                "pixels",
+                128,
+                "Side of square tiles");
+    }
+}
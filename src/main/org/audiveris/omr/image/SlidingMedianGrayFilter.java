@@ -0,0 +1,349 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                         S l i d i n g M e d i a n G r a y F i l t e r                          //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * Class {@code SlidingMedianGrayFilter} is a median filter in constant time per pixel,
+ * whatever the filter radius, following Perreault and Hébert algorithm.
+ * <p>
+ * For each image column, a histogram of the column pixels within the window is kept up to date
+ * while moving down one row.
+ * Along a row, the window histogram is updated by adding the entering column histogram and
+ * subtracting the leaving column histogram.
+ * Histograms are split in 16 coarse bins and 256 fine bins, so that only the coarse bins are
+ * updated for every pixel, and only the fine segment containing the median is brought up to date.
+ * <p>
+ * Rows are split into bands, which are independent and thus processed in parallel.
+ * <p>
+ * Results are identical to the ones of {@link MedianGrayFilter}, including at image boundaries
+ * where the window radius is reduced so as to stay within the image.
+ *
+ * @author Hervé Bitteur
+ */
+public class SlidingMedianGrayFilter
+        extends AbstractGrayFilter
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(SlidingMedianGrayFilter.class);
+
+    /** Number of coarse bins. */
+    private static final int COARSE = 16;
+
+    /** Number of fine bins. */
+    private static final int FINE = 256;
+
+    /** Shift from fine value to coarse bin. */
+    private static final int SHIFT = 4;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Desired radius for the filter. */
+    private final int radius;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new SlidingMedianGrayFilter object.
+     *
+     * @param radius desired radius for the filter (1 for 3x3 filter, 2 for 5x5, etc)
+     */
+    public SlidingMedianGrayFilter (int radius)
+    {
+        this.radius = radius;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //--------//
+    // filter //
+    //--------//
+    @Override
+    public void filter (final ByteProcessor input,
+                        final ByteProcessor output)
+    {
+        final int width = input.getWidth();
+        final int height = input.getHeight();
+        final byte[] in = (byte[]) input.getPixels();
+        final byte[] out = (byte[]) output.getPixels();
+
+        // Pixels close to image boundaries use a reduced window
+        filterBorder(in, out, width, height);
+
+        // Other pixels use the full window
+        if (width > (2 * radius)) {
+            final int count = height - (2 * radius);
+
+            if (count > 0) {
+                OmrExecutors.processBands(
+                        count,
+                        new OmrExecutors.BandProcessor<Histograms>()
+                {
+                    @Override
+                    public Histograms createBuffer (int bandSize)
+                    {
+                        return new Histograms(width);
+                    }
+
+                    @Override
+                    public void process (int start,
+                                         int stop,
+                                         Histograms histograms)
+                    {
+                        filterRows(in, out, width, radius + start, radius + stop, histograms);
+                    }
+                });
+            }
+        }
+    }
+
+    //-----//
+    // add //
+    //-----//
+    private static void add (int[] src,
+                             int srcPos,
+                             int[] dst,
+                             int dstPos,
+                             int length)
+    {
+        for (int i = 0; i < length; i++) {
+            dst[dstPos + i] += src[srcPos + i];
+        }
+    }
+
+    //--------------//
+    // filterBorder //
+    //--------------//
+    /**
+     * Process the pixels closer than radius to an image boundary.
+     * The window radius is reduced for them, exactly as in {@link MedianGrayFilter}.
+     */
+    private void filterBorder (byte[] in,
+                               byte[] out,
+                               int width,
+                               int height)
+    {
+        final int[] histogram = new int[FINE];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int rad = Math.min(
+                        Math.min(radius, Math.min(x, y)),
+                        Math.min(width - 1 - x, height - 1 - y));
+
+                if (rad == radius) {
+                    continue; // Pixel handled with full window
+                }
+
+                Arrays.fill(histogram, 0);
+
+                for (int j = y - rad; j <= (y + rad); j++) {
+                    final int offset = j * width;
+
+                    for (int i = x - rad; i <= (x + rad); i++) {
+                        histogram[in[offset + i] & 0xff]++;
+                    }
+                }
+
+                final int side = (2 * rad) + 1;
+                final int medianCount = ((side * side) + 1) / 2;
+                int median = 0;
+                int sum = histogram[0];
+
+                while (sum < medianCount) {
+                    sum += histogram[++median];
+                }
+
+                out[(y * width) + x] = (byte) median;
+            }
+        }
+    }
+
+    //------------//
+    // filterRows //
+    //------------//
+    /**
+     * Process the full-window pixels of the provided range of rows.
+     * <p>
+     * If the column histograms were left by the previous range on the row just above, they are
+     * simply moved down, otherwise they are built from scratch.
+     *
+     * @param in         input pixels
+     * @param out        output pixels
+     * @param width      image width
+     * @param yMin       first row of the range
+     * @param yMax       row past the range
+     * @param histograms column histograms of the processing task
+     */
+    private void filterRows (byte[] in,
+                             byte[] out,
+                             int width,
+                             int yMin,
+                             int yMax,
+                             Histograms histograms)
+    {
+        final int side = (2 * radius) + 1;
+        final int medianCount = ((side * side) + 1) / 2;
+
+        // Column histograms, for rows [y - radius, y + radius]
+        final int[] colCoarse = histograms.colCoarse;
+        final int[] colFine = histograms.colFine;
+
+        // Window histograms
+        final int[] coarse = new int[COARSE];
+        final int[] fine = new int[FINE];
+
+        // For each coarse bin, the column past the last one accounted for in fine bins
+        final int[] nextCol = new int[COARSE];
+
+        for (int y = yMin; y < yMax; y++) {
+            if (histograms.row != (y - 1)) {
+                Arrays.fill(colCoarse, 0);
+                Arrays.fill(colFine, 0);
+
+                for (int j = y - radius; j <= (y + radius); j++) {
+                    final int offset = j * width;
+
+                    for (int x = 0; x < width; x++) {
+                        final int val = in[offset + x] & 0xff;
+                        colCoarse[(x * COARSE) + (val >> SHIFT)]++;
+                        colFine[(x * FINE) + val]++;
+                    }
+                }
+            } else {
+                // Move column histograms one row down
+                final int outOffset = (y - radius - 1) * width;
+                final int inOffset = (y + radius) * width;
+
+                for (int x = 0; x < width; x++) {
+                    final int oldVal = in[outOffset + x] & 0xff;
+                    final int newVal = in[inOffset + x] & 0xff;
+                    colCoarse[(x * COARSE) + (oldVal >> SHIFT)]--;
+                    colFine[(x * FINE) + oldVal]--;
+                    colCoarse[(x * COARSE) + (newVal >> SHIFT)]++;
+                    colFine[(x * FINE) + newVal]++;
+                }
+            }
+
+            histograms.row = y;
+
+            Arrays.fill(coarse, 0);
+            Arrays.fill(nextCol, 0);
+
+            for (int c = 0; c < side; c++) {
+                add(colCoarse, c * COARSE, coarse, 0, COARSE);
+            }
+
+            final int offset = y * width;
+
+            for (int x = radius; x < (width - radius); x++) {
+                if (x > radius) {
+                    add(colCoarse, (x + radius) * COARSE, coarse, 0, COARSE);
+                    subtract(colCoarse, (x - radius - 1) * COARSE, coarse, 0, COARSE);
+                }
+
+                // Coarse bin containing the median, browsed from bright values
+                int k = COARSE - 1;
+                int sum = 0;
+
+                while ((sum + coarse[k]) < medianCount) {
+                    sum += coarse[k--];
+                }
+
+                // Bring the related fine segment up to date
+                final int base = k << SHIFT;
+
+                if (nextCol[k] <= (x - radius)) {
+                    Arrays.fill(fine, base, base + COARSE, 0);
+
+                    for (int c = x - radius; c <= (x + radius); c++) {
+                        add(colFine, (c * FINE) + base, fine, base, COARSE);
+                    }
+                } else {
+                    for (int c = nextCol[k]; c <= (x + radius); c++) {
+                        add(colFine, (c * FINE) + base, fine, base, COARSE);
+                        subtract(colFine, ((c - side) * FINE) + base, fine, base, COARSE);
+                    }
+                }
+
+                nextCol[k] = x + radius + 1;
+
+                // Median within fine segment
+                int median = (base + COARSE) - 1;
+
+                while ((sum + fine[median]) < medianCount) {
+                    sum += fine[median--];
+                }
+
+                out[offset + x] = (byte) median;
+            }
+        }
+    }
+
+    //----------//
+    // subtract //
+    //----------//
+    private static void subtract (int[] src,
+                                  int srcPos,
+                                  int[] dst,
+                                  int dstPos,
+                                  int length)
+    {
+        for (int i = 0; i < length; i++) {
+            dst[dstPos + i] -= src[srcPos + i];
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //------------//
+    // Histograms //
+    //------------//
+    /**
+     * Column histograms kept by a processing task from one range of rows to the next.
+     */
+    private static class Histograms
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Coarse bins, per column. */
+        final int[] colCoarse;
+
+        /** Fine bins, per column. */
+        final int[] colFine;
+
+        /** Row histograms are centered on, -1 if none yet. */
+        int row = -1;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Histograms (int width)
+        {
+            colCoarse = new int[width * COARSE];
+            colFine = new int[width * FINE];
+        }
+    }
+}
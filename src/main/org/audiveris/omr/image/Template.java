@@ -271,6 +271,24 @@ public class Template
         return new Rectangle(x - offset.x, y - offset.y, width, height);
     }
 
+    //----------------------//
+    // getDistanceTransform //
+    //----------------------//
+    /**
+     * Report the distance transform to use for both templates and sheet distance tables,
+     * since template matching compares raw distances from both sides.
+     *
+     * @return exact Euclidean distance transform or chamfer distance transform
+     */
+    public static ChamferDistance getDistanceTransform ()
+    {
+        if (constants.useEuclideanDistance.isSet()) {
+            return new EuclideanDistance.Short();
+        } else {
+            return new ChamferDistance.Short();
+        }
+    }
+
     //---------------------//
     // getForegroundPixels //
     //---------------------//
@@ -548,5 +566,9 @@ public class Template
         private final Scale.Fraction dilation = new Scale.Fraction(
                 0.15,
                 "Dilation applied on a note head to be erased");
+
+        private final Constant.Boolean useEuclideanDistance = new Constant.Boolean(
+                true,
+                "Should we use exact Euclidean distances (rather than chamfer distances)?");
     }
 }
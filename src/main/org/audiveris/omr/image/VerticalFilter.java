@@ -23,11 +23,17 @@ package org.audiveris.omr.image;
 
 import ij.process.ByteProcessor;
 
+import static org.audiveris.omr.run.Orientation.VERTICAL;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.util.OmrExecutors;
+
 import net.jcip.annotations.NotThreadSafe;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+
 /**
  * Class {@code VerticalFilter} is a specialization of
  * {@link AdaptiveFilter} which computes mean and standard
@@ -64,6 +70,8 @@ import org.slf4j.LoggerFactory;
  * <p>
  * Drawback: the implementation of the tile as a circular buffer makes an instance of this class
  * usable by only one thread at a time.
+ * Hence, {@link #filteredRuns()} processes bands of columns in parallel, each task using its own
+ * filter instance, whose tiles start at the task first band.
  *
  * @author ryo/twitter &#64;xiaot_Tag
  * @author Hervé Bitteur
@@ -99,6 +107,60 @@ public class VerticalFilter
 
     //~ Methods ------------------------------------------------------------------------------------
     //
+    //--------------//
+    // filteredRuns //
+    //--------------//
+    @Override
+    public RunTable filteredRuns ()
+    {
+        final int width = source.getWidth();
+        final int height = source.getHeight();
+        final RunTable table = new RunTable(VERTICAL, width, height);
+
+        OmrExecutors.processBands(
+                width,
+                new OmrExecutors.BandProcessor<VerticalFilter>()
+        {
+            @Override
+            public VerticalFilter createBuffer (int bandSize)
+            {
+                return new VerticalFilter(source, MEAN_COEFF, STD_DEV_COEFF);
+            }
+
+            @Override
+            public void process (int xStart,
+                                 int xStop,
+                                 VerticalFilter filter)
+            {
+                final RunTable.Builder builder = new RunTable.Builder();
+                filter.skipTo(xStart);
+
+                for (int x = xStart; x < xStop; x++) {
+                    int start = -1; // Start of foreground run in progress, if any
+
+                    for (int y = 0; y < height; y++) {
+                        if (filter.isFore(x, y)) {
+                            if (start == -1) {
+                                start = y;
+                            }
+                        } else if (start != -1) {
+                            builder.append(start, y - start);
+                            start = -1;
+                        }
+                    }
+
+                    if (start != -1) {
+                        builder.append(start, height - start);
+                    }
+
+                    table.setSequence(x, builder);
+                }
+            }
+        });
+
+        return table;
+    }
+
     //----------------------//
     // getDefaultDescriptor //
     //----------------------//
@@ -107,6 +169,21 @@ public class VerticalFilter
         return AdaptiveDescriptor.getDefault();
     }
 
+    //--------//
+    // skipTo //
+    //--------//
+    /**
+     * Make the tiles skip directly to the provided abscissa, without populating the
+     * columns on the left of its window.
+     *
+     * @param x the abscissa of the next pixel to be queried
+     */
+    void skipTo (int x)
+    {
+        ((MyTile) tile).skipTo(x);
+        ((MyTile) sqrTile).skipTo(x);
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //
     //--------//
@@ -141,5 +218,24 @@ public class VerticalFilter
                 populateColumn(xRight);
             }
         }
+
+        /**
+         * Skip to the window of the provided abscissa, if beyond the current tile.
+         * <p>
+         * The column just before the window is set to zero and used as origin of integrals.
+         * Since only differences of integrals are used, the mean values are the same as with
+         * integrals computed from the image left side.
+         *
+         * @param x the abscissa of the next pixel to be queried
+         */
+        void skipTo (int x)
+        {
+            final int origin = x - HALF_WINDOW_SIZE - 1;
+
+            if (origin > xRight) {
+                xRight = origin;
+                Arrays.fill(sums[origin % TILE_WIDTH], 0);
+            }
+        }
     }
 }
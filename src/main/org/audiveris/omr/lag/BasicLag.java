@@ -21,22 +21,36 @@
 // </editor-fold>
 package org.audiveris.omr.lag;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.math.GridIndex;
 import org.audiveris.omr.run.Orientation;
 import org.audiveris.omr.run.Run;
 import org.audiveris.omr.run.RunTable;
 import org.audiveris.omr.ui.selection.SelectionService;
 import org.audiveris.omr.util.BasicIndex;
+import org.audiveris.omr.util.Entities;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.awt.Rectangle;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Class {@code BasicLag} is a basic implementation of {@link Lag} interface.
+ * <p>
+ * Sections are spatially indexed, so that {@link #intersectedSections(Rectangle)} cost depends
+ * on the number of sections found rather than on the lag size.
+ * Since a section still grows while being built by a {@link SectionFactory}, a newly registered
+ * section is only pending, and gets actually indexed with its final bounds at the next lookup.
  *
  * @author Hervé Bitteur
  */
@@ -46,6 +60,8 @@ public class BasicLag
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(BasicLag.class);
 
     //~ Instance fields ----------------------------------------------------------------------------
@@ -58,6 +74,17 @@ public class BasicLag
     /** Lag name. */
     private final String name;
 
+    /** Spatial index of sections, lazily allocated. */
+    private GridIndex<Section> grid;
+
+    /**
+     * Sections registered but not yet spatially indexed. Also used as lock.
+     * Compared by identity, since section equality and hash code depend on section content,
+     * which is still growing when the section gets registered.
+     */
+    private final Set<Section> pendings = Collections.newSetFromMap(
+            new IdentityHashMap<Section, Boolean>());
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Constructor with specified orientation
@@ -142,7 +169,27 @@ public class BasicLag
     @Override
     public Set<Section> intersectedSections (Rectangle rect)
     {
-        return Sections.intersectedSections(rect, getEntities());
+        final List<Section> found = new ArrayList<Section>();
+
+        for (Section section : getGrid().getCandidates(rect)) {
+            if (section.intersects(rect)) {
+                found.add(section);
+            }
+        }
+
+        Collections.sort(found, Entities.byId);
+
+        return new LinkedHashSet<Section>(found);
+    }
+
+    //--------//
+    // insert //
+    //--------//
+    @Override
+    public void insert (Section section)
+    {
+        super.insert(section);
+        addPending(section);
     }
 
     //------------//
@@ -158,6 +205,18 @@ public class BasicLag
         return orientation.isVertical();
     }
 
+    //----------//
+    // register //
+    //----------//
+    @Override
+    public int register (Section section)
+    {
+        final int id = super.register(section);
+        addPending(section);
+
+        return id;
+    }
+
     //--------//
     // remove //
     //--------//
@@ -165,6 +224,14 @@ public class BasicLag
     public void remove (Section section)
     {
         super.remove(section); // Removal from index
+
+        synchronized (pendings) {
+            pendings.remove(section);
+
+            if (grid != null) {
+                grid.remove(section);
+            }
+        }
     }
 
     //----------------//
@@ -198,6 +265,11 @@ public class BasicLag
     {
         super.reset(); // To clear sections & last ID
         runTable = null;
+
+        synchronized (pendings) {
+            pendings.clear();
+            grid = null;
+        }
     }
 
     //---------//
@@ -229,4 +301,58 @@ public class BasicLag
 
         return sb.toString();
     }
+
+    //------------//
+    // addPending //
+    //------------//
+    private void addPending (Section section)
+    {
+        synchronized (pendings) {
+            if (grid != null) {
+                pendings.add(section);
+            }
+        }
+    }
+
+    //---------//
+    // getGrid //
+    //---------//
+    /**
+     * Report the spatial index, after pending sections have been indexed.
+     * The index is allocated with all current sections on first call.
+     *
+     * @return the up-to-date spatial index
+     */
+    private GridIndex<Section> getGrid ()
+    {
+        synchronized (pendings) {
+            if (grid == null) {
+                grid = new GridIndex<Section>(constants.gridCellSize.getValue());
+                pendings.addAll(entities.values());
+            }
+
+            for (Section section : pendings) {
+                grid.insert(section, section.getBounds());
+            }
+
+            pendings.clear();
+
+            return grid;
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer gridCellSize = new Constant.Integer(
+                "Pixels",
+                64,
+                "Side of cells in sections spatial index");
+    }
 }
@@ -70,7 +70,24 @@ public class DynamicSection
      */
     public void append (Run run)
     {
-        run = new Run(run);
+        append(run.getStart(), run.getLength());
+    }
+
+    //--------//
+    // append //
+    //--------//
+    /**
+     * Extend a section with a run defined by its start and length.
+     * This new run is assumed to be contiguous to the current last run of the section,
+     * no check is performed.
+     *
+     * @param start  start of the new last run
+     * @param length length of the new last run
+     */
+    public void append (int start,
+                        int length)
+    {
+        final Run run = new Run(start, length);
         runs.add(run);
         addRun(run);
 
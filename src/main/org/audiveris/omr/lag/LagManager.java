@@ -175,7 +175,7 @@ public class LagManager
         },
                 vertTable);
         RunTableFactory runFactory = new RunTableFactory(HORIZONTAL);
-        RunTable horiTable = runFactory.createTable(shortVertTable.getBuffer());
+        RunTable horiTable = runFactory.createParallelTable(shortVertTable.getBuffer());
 
         return horiTable;
     }
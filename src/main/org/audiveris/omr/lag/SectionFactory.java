@@ -27,6 +27,7 @@ import net.jcip.annotations.NotThreadSafe;
 
 import org.audiveris.omr.run.Orientation;
 import org.audiveris.omr.run.Run;
+import org.audiveris.omr.run.RunCursor;
 import org.audiveris.omr.run.RunTable;
 import org.audiveris.omr.run.RunTableFactory;
 
@@ -36,7 +37,6 @@ import org.slf4j.LoggerFactory;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -271,9 +271,11 @@ public class SectionFactory
         public List<DynamicSection> buildSections (RunTable runTable,
                                                    boolean include)
         {
+            final RunCursor cursor = new RunCursor(runTable);
+
             // All runs (if any) in first sequence start each their own dynamicSection
-            for (Iterator<Run> it = runTable.iterator(0); it.hasNext();) {
-                nextActives.add(createSection(0, it.next()));
+            for (cursor.reset(0); cursor.next();) {
+                nextActives.add(createSection(0, cursor.getStart(), cursor.getLength()));
             }
 
             // Now scan each pair of sequences, starting at 2nd sequence
@@ -290,14 +292,14 @@ public class SectionFactory
                     logger.debug("Prev sequence");
 
                     for (DynamicSection dynSection : prevActives) {
-                        processPrevSide(dynSection, runTable, col);
+                        processPrevSide(dynSection, cursor, col);
                     }
 
                     // Process all runs of next sequence
                     logger.debug("Next sequence");
 
-                    for (Iterator<Run> it = runTable.iterator(col); it.hasNext();) {
-                        processNextSide(col, it.next());
+                    for (cursor.reset(col); cursor.next();) {
+                        processNextSide(col, cursor.getStart(), cursor.getLength());
                     }
                 } else {
                     nextActives.clear();
@@ -316,11 +318,12 @@ public class SectionFactory
         // continueSection //
         //-----------------//
         private void continueSection (DynamicSection dynSection,
-                                      Run run)
+                                      int start,
+                                      int length)
         {
-            logger.debug("Continuing section {} with {}", dynSection, run);
+            logger.debug("Continuing section {} with run {}/{}", dynSection, start, length);
 
-            dynSection.append(run);
+            dynSection.append(start, length);
             nextActives.add(dynSection);
         }
 
@@ -330,17 +333,15 @@ public class SectionFactory
         /**
          * Create a section.
          *
-         * @param firstPos the starting position of the section
-         * @param firstRun the very first run of the section
+         * @param firstPos    the starting position of the section
+         * @param firstStart  the start of the very first run of the section
+         * @param firstLength the length of the very first run of the section
          * @return the created section
          */
         private DynamicSection createSection (int firstPos,
-                                              Run firstRun)
+                                              int firstStart,
+                                              int firstLength)
         {
-            if (firstRun == null) {
-                throw new IllegalArgumentException("null first run");
-            }
-
             final DynamicSection dynSection = new DynamicSection(orientation);
 
             if (lag != null) {
@@ -350,7 +351,7 @@ public class SectionFactory
             }
 
             dynSection.setFirstPos(firstPos);
-            dynSection.append(firstRun);
+            dynSection.append(firstStart, firstLength);
 
             created.add(dynSection);
 
@@ -365,12 +366,12 @@ public class SectionFactory
          * checking among the prevActives Sections which overlap this run.
          */
         private void processNextSide (int col,
-                                      Run run)
+                                      int nextStart,
+                                      int nextLength)
         {
-            logger.debug("processNextSide for run {}", run);
+            logger.debug("processNextSide for run {}/{}", nextStart, nextLength);
 
-            int nextStart = run.getStart();
-            int nextStop = run.getStop();
+            final int nextStop = (nextStart + nextLength) - 1;
 
             // Check if overlap with a section run in previous sequence
             // All such sections are then stored in overlappingSections
@@ -384,7 +385,7 @@ public class SectionFactory
                 }
 
                 if (lastRun.getStop() >= nextStart) {
-                    logger.debug("Overlap from {} to {}", lastRun, run);
+                    logger.debug("Overlap from {} to run {}/{}", lastRun, nextStart, nextLength);
                     overlappingSections.add(dynSection);
                 }
             }
@@ -394,7 +395,7 @@ public class SectionFactory
 
             switch (overlappingSections.size()) {
             case 0: // Begin a brand new section
-                nextActives.add(createSection(col, run));
+                nextActives.add(createSection(col, nextStart, nextLength));
 
                 break;
 
@@ -403,19 +404,19 @@ public class SectionFactory
                 DynamicSection prevSection = overlappingSections.get(0);
 
                 if (!isProcessed(prevSection)) {
-                    continueSection(prevSection, run);
+                    continueSection(prevSection, nextStart, nextLength);
                 } else {
                     // Create a new section, linked by a junction
-                    DynamicSection newSection = createSection(col, run);
+                    DynamicSection newSection = createSection(col, nextStart, nextLength);
                     nextActives.add(newSection);
                 }
 
                 break;
 
             default: // Converging sections, end them, start a new one
-                logger.debug("Converging at {}", run);
+                logger.debug("Converging at run {}/{}", nextStart, nextLength);
 
-                DynamicSection newSection = createSection(col, run);
+                DynamicSection newSection = createSection(col, nextStart, nextLength);
                 nextActives.add(newSection);
             }
         }
@@ -428,11 +429,11 @@ public class SectionFactory
          * checking links to the next sequence runs that overlap this run.
          *
          * @param dynSection the section at hand
-         * @param runTable   the table of runs
+         * @param cursor     a (reusable) cursor on the table of runs
          * @param nextCol    column for the next sequence
          */
         private void processPrevSide (DynamicSection dynSection,
-                                      RunTable runTable,
+                                      RunCursor cursor,
                                       int nextCol)
         {
             Run lastRun = dynSection.getLastRun();
@@ -442,19 +443,19 @@ public class SectionFactory
 
             // Check if overlap with a run in next sequence
             int overlapNb = 0;
-            Run overlapRun = null;
+            int overlapStart = -1;
+            int overlapLength = -1;
 
-            for (Iterator<Run> it = runTable.iterator(nextCol); it.hasNext();) {
-                Run run = it.next();
-
-                if (run.getStart() > prevStop) {
+            for (cursor.reset(nextCol); cursor.next();) {
+                if (cursor.getStart() > prevStop) {
                     break;
                 }
 
-                if (run.getStop() >= prevStart) {
-                    logger.debug("Overlap from {} to {}", lastRun, run);
+                if (cursor.getStop() >= prevStart) {
+                    logger.debug("Overlap from {} to {}", lastRun, cursor);
                     overlapNb++;
-                    overlapRun = new Run(run);
+                    overlapStart = cursor.getStart();
+                    overlapLength = cursor.getLength();
                 }
             }
 
@@ -469,6 +470,8 @@ public class SectionFactory
 
             case 1: // Continue if consistent
 
+                final Run overlapRun = new Run(overlapStart, overlapLength);
+
                 if (junctionPolicy.consistentRun(overlapRun, dynSection)) {
                     logger.debug(
                             "Perhaps extending section {} with run {}",
@@ -0,0 +1,394 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                       G r i d I n d e x                                        //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.math;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class {@code GridIndex} is a spatial index of items, based on a uniform grid of square
+ * cells.
+ * <p>
+ * Each item is registered with a bounding box, and is referenced by all the cells this box
+ * intersects. Items are compared by identity.
+ * An item registered with no bounding box is considered as unbounded and is reported by any
+ * lookup.
+ * <p>
+ * Lookups report <i>candidates</i>, that is items whose <b>registered</b> box intersects the
+ * provided rectangle. It is up to the caller to check candidates against their <b>current</b>
+ * bounds, which may have shrunk since registration.
+ * Candidates are reported in registration order, so that results are not affected by the
+ * cell layout.
+ *
+ * @param <E> item type
+ *
+ * @author Hervé Bitteur
+ */
+@ThreadSafe
+public class GridIndex<E>
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Side of a square cell, in pixels. */
+    private final int cellSize;
+
+    /** Entry per item. */
+    private final Map<E, Entry<E>> entries = new IdentityHashMap<E, Entry<E>>();
+
+    /** Entries per cell. */
+    private final Map<Long, List<Entry<E>>> cells = new HashMap<Long, List<Entry<E>>>();
+
+    /** Entries with no box. */
+    private final Set<Entry<E>> unbounded = new LinkedHashSet<Entry<E>>();
+
+    /** Registration counter. */
+    private long rankCount;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code GridIndex} object.
+     *
+     * @param cellSize side of a square cell, in pixels
+     */
+    public GridIndex (int cellSize)
+    {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Illegal cell size " + cellSize);
+        }
+
+        this.cellSize = cellSize;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------//
+    // clear //
+    //-------//
+    /**
+     * Remove all items.
+     */
+    public synchronized void clear ()
+    {
+        entries.clear();
+        cells.clear();
+        unbounded.clear();
+    }
+
+    //----------//
+    // contains //
+    //----------//
+    /**
+     * Tell whether the provided item is registered.
+     *
+     * @param item the item to check
+     * @return true if registered
+     */
+    public synchronized boolean contains (E item)
+    {
+        return entries.containsKey(item);
+    }
+
+    //---------------//
+    // getCandidates //
+    //---------------//
+    /**
+     * Report the items whose registered box contains the provided point.
+     *
+     * @param point the provided point
+     * @return the candidates, in registration order
+     */
+    public List<E> getCandidates (Point point)
+    {
+        return getCandidates(new Rectangle(point.x, point.y, 1, 1));
+    }
+
+    //---------------//
+    // getCandidates //
+    //---------------//
+    /**
+     * Report the items whose registered box intersects the provided rectangle.
+     *
+     * @param rect the provided rectangle
+     * @return the candidates, in registration order
+     */
+    public synchronized List<E> getCandidates (Rectangle rect)
+    {
+        final Set<Entry<E>> found = new LinkedHashSet<Entry<E>>(unbounded);
+
+        if (!rect.isEmpty()) {
+            final int x0 = cellOf(rect.x);
+            final int y0 = cellOf(rect.y);
+            final int x1 = cellOf((rect.x + rect.width) - 1);
+            final int y1 = cellOf((rect.y + rect.height) - 1);
+
+            if ((((long) (x1 - x0 + 1)) * (y1 - y0 + 1)) > cells.size()) {
+                // Large rectangle, browse the occupied cells only
+                for (List<Entry<E>> list : cells.values()) {
+                    collect(list, rect, found);
+                }
+            } else {
+                for (int y = y0; y <= y1; y++) {
+                    for (int x = x0; x <= x1; x++) {
+                        List<Entry<E>> list = cells.get(keyOf(x, y));
+
+                        if (list != null) {
+                            collect(list, rect, found);
+                        }
+                    }
+                }
+            }
+        }
+
+        final List<Entry<E>> sorted = new ArrayList<Entry<E>>(found);
+        Collections.sort(sorted); // By registration rank
+
+        final List<E> items = new ArrayList<E>(sorted.size());
+
+        for (Entry<E> entry : sorted) {
+            items.add(entry.item);
+        }
+
+        return items;
+    }
+
+    //--------//
+    // insert //
+    //--------//
+    /**
+     * Register an item, with its bounding box.
+     * If the item was already registered, it is simply moved as {@link #update} would do.
+     *
+     * @param item the item to register
+     * @param box  the item bounding box, or null for an unbounded item
+     */
+    public synchronized void insert (E item,
+                                     Rectangle box)
+    {
+        Entry<E> entry = entries.get(item);
+
+        if (entry != null) {
+            unlink(entry);
+            entry.box = copyOf(box);
+        } else {
+            entries.put(item, entry = new Entry<E>(item, copyOf(box), rankCount++));
+        }
+
+        link(entry);
+    }
+
+    //--------//
+    // remove //
+    //--------//
+    /**
+     * Unregister an item.
+     *
+     * @param item the item to remove
+     * @return true if the item was actually registered
+     */
+    public synchronized boolean remove (E item)
+    {
+        final Entry<E> entry = entries.remove(item);
+
+        if (entry == null) {
+            return false;
+        }
+
+        unlink(entry);
+
+        return true;
+    }
+
+    //------//
+    // size //
+    //------//
+    /**
+     * Report the number of registered items.
+     *
+     * @return items count
+     */
+    public synchronized int size ()
+    {
+        return entries.size();
+    }
+
+    //--------//
+    // update //
+    //--------//
+    /**
+     * Update the bounding box of an already registered item.
+     * Nothing is done if the item is not registered.
+     *
+     * @param item the registered item
+     * @param box  the new bounding box, or null for an unbounded item
+     */
+    public synchronized void update (E item,
+                                     Rectangle box)
+    {
+        final Entry<E> entry = entries.get(item);
+
+        if (entry != null) {
+            unlink(entry);
+            entry.box = copyOf(box);
+            link(entry);
+        }
+    }
+
+    //--------//
+    // cellOf //
+    //--------//
+    private int cellOf (int coord)
+    {
+        // Floor division, since coordinates may be negative
+        return (coord >= 0) ? (coord / cellSize) : (((coord + 1) / cellSize) - 1);
+    }
+
+    //---------//
+    // collect //
+    //---------//
+    private void collect (List<Entry<E>> list,
+                          Rectangle rect,
+                          Set<Entry<E>> found)
+    {
+        for (Entry<E> entry : list) {
+            if (entry.box.intersects(rect)) {
+                found.add(entry);
+            }
+        }
+    }
+
+    //--------//
+    // copyOf //
+    //--------//
+    private static Rectangle copyOf (Rectangle box)
+    {
+        return ((box == null) || box.isEmpty()) ? null : new Rectangle(box);
+    }
+
+    //-------//
+    // keyOf //
+    //-------//
+    private static Long keyOf (int x,
+                               int y)
+    {
+        return (((long) x) << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    //------//
+    // link //
+    //------//
+    private void link (Entry<E> entry)
+    {
+        if (entry.box == null) {
+            unbounded.add(entry);
+
+            return;
+        }
+
+        final Rectangle box = entry.box;
+
+        for (int y = cellOf(box.y), y1 = cellOf((box.y + box.height) - 1); y <= y1; y++) {
+            for (int x = cellOf(box.x), x1 = cellOf((box.x + box.width) - 1); x <= x1; x++) {
+                final Long key = keyOf(x, y);
+                List<Entry<E>> list = cells.get(key);
+
+                if (list == null) {
+                    cells.put(key, list = new ArrayList<Entry<E>>());
+                }
+
+                list.add(entry);
+            }
+        }
+    }
+
+    //--------//
+    // unlink //
+    //--------//
+    private void unlink (Entry<E> entry)
+    {
+        if (entry.box == null) {
+            unbounded.remove(entry);
+
+            return;
+        }
+
+        final Rectangle box = entry.box;
+
+        for (int y = cellOf(box.y), y1 = cellOf((box.y + box.height) - 1); y <= y1; y++) {
+            for (int x = cellOf(box.x), x1 = cellOf((box.x + box.width) - 1); x <= x1; x++) {
+                final Long key = keyOf(x, y);
+                final List<Entry<E>> list = cells.get(key);
+
+                if (list != null) {
+                    list.remove(entry);
+
+                    if (list.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-------//
+    // Entry //
+    //-------//
+    private static class Entry<E>
+            implements Comparable<Entry<?>>
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Registered item. */
+        final E item;
+
+        /** Registration rank. */
+        final long rank;
+
+        /** Registered box, if any. */
+        Rectangle box;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Entry (E item,
+                      Rectangle box,
+                      long rank)
+        {
+            this.item = item;
+            this.box = box;
+            this.rank = rank;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public int compareTo (Entry<?> that)
+        {
+            return Long.compare(rank, that.rank);
+        }
+    }
+}
@@ -116,6 +116,16 @@ public class NeuralNetwork
     /** To trigger training stop. */
     private transient volatile boolean stopping = false;
 
+    /** Per-thread buffer for hidden values, used by {@link #evaluate}. */
+    private final transient ThreadLocal<double[]> hiddenBuffer = new ThreadLocal<double[]>()
+    {
+        @Override
+        protected double[] initialValue ()
+        {
+            return new double[hiddenWeights.length];
+        }
+    };
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Create a neural network, with specified number of cells in each
@@ -256,6 +266,28 @@ public class NeuralNetwork
         logger.info(sb.toString());
     }
 
+    //----------//
+    // evaluate //
+    //----------//
+    /**
+     * Run the neural network on an array of input values, using a thread-confined buffer
+     * for hidden values.
+     * <p>
+     * This is a re-entrant variant of {@link #run}, which computes the very same output values.
+     * It can be called concurrently from several threads without any locking, and allocates no
+     * memory (except the first time in a given thread).
+     *
+     * @param inputs  the provided input values
+     * @param outputs preallocated array for the computed output values, or null if not already
+     *                allocated
+     * @return the computed output values
+     */
+    public double[] evaluate (double[] inputs,
+                              double[] outputs)
+    {
+        return run(inputs, hiddenBuffer.get(), outputs);
+    }
+
     //---------------//
     // getHiddenSize //
     //---------------//
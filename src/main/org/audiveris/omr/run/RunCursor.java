@@ -0,0 +1,195 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                       R u n C u r s o r                                        //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.run;
+
+import org.audiveris.omr.run.RunTable.RunSequence;
+
+/**
+ * Class {@code RunCursor} is a reusable, allocation-free, cursor over the foreground runs
+ * of a {@link RunTable} sequence.
+ * <p>
+ * Unlike {@link RunTable#iterator(int)}, no object is allocated when moving from one sequence to
+ * another, which makes it the preferred way to browse a whole table.
+ * Typical use:
+ * <pre>
+ * final RunCursor cursor = new RunCursor(table);
+ *
+ * for (int iSeq = 0, size = table.getSize(); iSeq &lt; size; iSeq++) {
+ *     for (cursor.reset(iSeq); cursor.next();) {
+ *         int start = cursor.getStart();
+ *         int length = cursor.getLength();
+ *         ...
+ *     }
+ * }
+ * </pre>
+ * The underlying table must not be modified while it is browsed by a cursor.
+ *
+ * @author Hervé Bitteur
+ */
+public class RunCursor
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** The table being browsed. */
+    private final RunTable table;
+
+    /** RLE of current sequence, perhaps null. */
+    private short[] rle;
+
+    /** Position in rle of the next foreground length to read. */
+    private int cursor;
+
+    /** Start location of the next foreground run. */
+    private int loc;
+
+    /** Start of current run. */
+    private int start = -1;
+
+    /** Length of current run. */
+    private int length = -1;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code RunCursor} object on the provided table.
+     * The cursor must be {@link #reset(int)} to a sequence before use.
+     *
+     * @param table the table to browse
+     */
+    public RunCursor (RunTable table)
+    {
+        this.table = table;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-----------//
+    // getLength //
+    //-----------//
+    /**
+     * Report the length of current run.
+     *
+     * @return current run length
+     */
+    public final int getLength ()
+    {
+        return length;
+    }
+
+    //----------//
+    // getStart //
+    //----------//
+    /**
+     * Report the starting coordinate of current run.
+     *
+     * @return current run start
+     */
+    public final int getStart ()
+    {
+        return start;
+    }
+
+    //---------//
+    // getStop //
+    //---------//
+    /**
+     * Report the coordinate of the last pixel of current run.
+     *
+     * @return current run stop
+     */
+    public final int getStop ()
+    {
+        return (start + length) - 1;
+    }
+
+    //------//
+    // next //
+    //------//
+    /**
+     * Move to the next foreground run in current sequence.
+     *
+     * @return true if a run is available, false if the sequence is exhausted
+     */
+    public final boolean next ()
+    {
+        if ((rle == null) || (cursor >= rle.length)) {
+            return false;
+        }
+
+        // ...v.. cursor before next()
+        // ...FBF
+        // .....^ cursor after next()
+        start = loc;
+        length = rle[cursor++] & 0xFFFF;
+        loc += length;
+
+        if (cursor < rle.length) {
+            loc += (rle[cursor] & 0xFFFF);
+        }
+
+        cursor++;
+
+        return true;
+    }
+
+    //-------//
+    // reset //
+    //-------//
+    /**
+     * Position the cursor just before the first run of the sequence at provided index.
+     *
+     * @param index index of sequence in table
+     * @return this cursor, to allow chaining
+     */
+    public final RunCursor reset (int index)
+    {
+        final RunSequence seq = table.getSequence(index);
+        rle = (seq != null) ? seq.getRle() : null;
+        cursor = 0;
+        loc = 0;
+        start = -1;
+        length = -1;
+
+        // Check the case of an initial background run
+        if ((rle != null) && (rle.length > 0) && (rle[0] == 0)) {
+            if (rle.length > 1) {
+                loc = rle[1] & 0xFFFF;
+            }
+
+            cursor = 2;
+        }
+
+        return this;
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        StringBuilder sb = new StringBuilder(getClass().getSimpleName());
+        sb.append("{");
+        sb.append(start).append("/").append(length);
+        sb.append("}");
+
+        return sb.toString();
+    }
+}
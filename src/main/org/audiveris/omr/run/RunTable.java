@@ -44,17 +44,13 @@ import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
-import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
@@ -101,8 +97,6 @@ public class RunTable
     private static final Logger logger = LoggerFactory.getLogger(
             RunTable.class);
 
-    private static JAXBContext jaxbContext;
-
     //~ Instance fields ----------------------------------------------------------------------------
     // Persistent data
     //----------------
@@ -437,15 +431,16 @@ public class RunTable
     public void cumulate (PointsCollector collector,
                           Point offset)
     {
+        final RunCursor cursor = new RunCursor(this);
+
         final Rectangle roi = collector.getRoi();
 
         if (roi == null) {
             for (int p = 0, iBreak = getSize(); p < iBreak; p++) {
-                for (Iterator<Run> it = iterator(p); it.hasNext();) {
-                    Run run = it.next();
-                    int start = run.getStart();
+                for (cursor.reset(p); cursor.next();) {
+                    int start = cursor.getStart();
 
-                    for (int ic = run.getLength() - 1; ic >= 0; ic--) {
+                    for (int ic = cursor.getLength() - 1; ic >= 0; ic--) {
                         if (orientation == HORIZONTAL) {
                             collector.include(start + ic, p);
                         } else {
@@ -463,10 +458,9 @@ public class RunTable
             final int cMax = (oRoi.x + oRoi.width) - 1;
 
             for (int p = pMin; p <= pMax; p++) {
-                for (Iterator<Run> it = iterator(p); it.hasNext();) {
-                    final Run run = it.next();
-                    final int roiStart = Math.max(run.getStart(), cMin);
-                    final int roiStop = Math.min(run.getStop(), cMax);
+                for (cursor.reset(p); cursor.next();) {
+                    final int roiStart = Math.max(cursor.getStart(), cMin);
+                    final int roiStop = Math.min(cursor.getStop(), cMax);
                     final int length = roiStop - roiStart + 1;
 
                     if (length > 0) {
@@ -602,6 +596,8 @@ public class RunTable
                            Point offset,
                            boolean fat)
     {
+        final RunCursor cursor = new RunCursor(this);
+
         table.fill(255); // All white
 
         if (tableOrigin == null) {
@@ -626,10 +622,9 @@ public class RunTable
             final int cMax = -1 + Math.min(width, dx + tableWidth);
 
             for (int p = pMin; p <= pMax; p++) {
-                for (Iterator<Run> it = iterator(p); it.hasNext();) {
-                    final Run run = it.next();
-                    final int roiStart = Math.max(run.getStart(), cMin);
-                    final int roiStop = Math.min(run.getStop(), cMax);
+                for (cursor.reset(p); cursor.next();) {
+                    final int roiStart = Math.max(cursor.getStart(), cMin);
+                    final int roiStop = Math.min(cursor.getStop(), cMax);
                     final int length = roiStop - roiStart + 1;
 
                     if (length > 0) {
@@ -678,10 +673,9 @@ public class RunTable
             final int cMax = -1 + Math.min(height, dy + tableHeight);
 
             for (int p = pMin; p <= pMax; p++) {
-                for (Iterator<Run> it = iterator(p); it.hasNext();) {
-                    final Run run = it.next();
-                    final int roiStart = Math.max(run.getStart(), cMin);
-                    final int roiStop = Math.min(run.getStop(), cMax);
+                for (cursor.reset(p); cursor.next();) {
+                    final int roiStart = Math.max(cursor.getStart(), cMin);
+                    final int roiStop = Math.min(cursor.getStop(), cMax);
                     final int length = roiStop - roiStart + 1;
 
                     if (length > 0) {
@@ -760,15 +754,17 @@ public class RunTable
      */
     public ByteProcessor getBuffer ()
     {
+        final RunCursor cursor = new RunCursor(this);
+
         // Determine the bounding box
         final ByteProcessor buffer = new ByteProcessor(width, height);
         ByteUtil.raz(buffer); // buffer.invert();
 
         for (int iSeq = 0, size = getSize(); iSeq < size; iSeq++) {
-            for (Itr it = new Itr(iSeq); it.hasNext();) {
-                final Run run = it.next();
+            for (cursor.reset(iSeq); cursor.next();) {
+                final int stop = cursor.getStop();
 
-                for (int coord = run.getStart(), stop = run.getStop(); coord <= stop; coord++) {
+                for (int coord = cursor.getStart(); coord <= stop; coord++) {
                     if (orientation == HORIZONTAL) {
                         buffer.set(coord, iSeq, 0);
                     } else {
@@ -939,13 +935,16 @@ public class RunTable
     public int getWeight ()
     {
         if (weight == null) {
-            weight = 0;
+            int w = 0;
+            final RunCursor cursor = new RunCursor(this);
 
             for (int iSeq = 0, iBreak = getSize(); iSeq < iBreak; iSeq++) {
-                for (Iterator<Run> it = iterator(iSeq); it.hasNext();) {
-                    weight += it.next().getLength();
+                for (cursor.reset(iSeq); cursor.next();) {
+                    w += cursor.getLength();
                 }
             }
+
+            weight = w;
         }
 
         return weight;
@@ -954,20 +953,19 @@ public class RunTable
     //-----------//
     // unmarshal //
     //-----------//
+    /**
+     * Load a table from disk, whatever its format (binary or former XML).
+     *
+     * @param path path to table file
+     * @return the loaded table, or null if loading failed
+     * @see RunTableCodec#load(Path)
+     */
     public static RunTable unmarshal (Path path)
     {
         logger.debug("RunTable unmarshalling {}", path);
 
         try {
-            InputStream is = Files.newInputStream(path, StandardOpenOption.READ);
-
-            if (jaxbContext == null) {
-                jaxbContext = JAXBContext.newInstance(RunTable.class);
-            }
-
-            Unmarshaller um = jaxbContext.createUnmarshaller();
-            RunTable runTable = (RunTable) um.unmarshal(is);
-            is.close();
+            RunTable runTable = RunTableCodec.load(path);
             logger.debug("Unmarshalled {}", runTable);
 
             return runTable;
@@ -1062,6 +1060,8 @@ public class RunTable
                                Point tableOrigin,
                                Point offset)
     {
+        final RunCursor cursor = new RunCursor(this);
+
         if (tableOrigin == null) {
             tableOrigin = new Point(0, 0);
         }
@@ -1080,10 +1080,9 @@ public class RunTable
             final int cMax = -1 + Math.min(width, dx + table.getWidth());
 
             for (int p = pMin; p <= pMax; p++) {
-                for (Iterator<Run> it = iterator(p); it.hasNext();) {
-                    final Run run = it.next();
-                    final int roiStart = Math.max(run.getStart(), cMin);
-                    final int roiStop = Math.min(run.getStop(), cMax);
+                for (cursor.reset(p); cursor.next();) {
+                    final int roiStart = Math.max(cursor.getStart(), cMin);
+                    final int roiStop = Math.min(cursor.getStop(), cMax);
                     final int length = roiStop - roiStart + 1;
 
                     if (length > 0) {
@@ -1102,10 +1101,9 @@ public class RunTable
             final int cMax = -1 + Math.min(height, dy + table.getHeight());
 
             for (int p = pMin; p <= pMax; p++) {
-                for (Iterator<Run> it = iterator(p); it.hasNext();) {
-                    final Run run = it.next();
-                    final int roiStart = Math.max(run.getStart(), cMin);
-                    final int roiStop = Math.min(run.getStop(), cMax);
+                for (cursor.reset(p); cursor.next();) {
+                    final int roiStart = Math.max(cursor.getStart(), cMin);
+                    final int roiStop = Math.min(cursor.getStop(), cMax);
                     final int length = roiStop - roiStart + 1;
 
                     if (length > 0) {
@@ -1141,6 +1139,8 @@ public class RunTable
     //----------//
     /**
      * Returns an iterator over the sequence of runs at provided index.
+     * <p>
+     * For bulk browsing of the table, a {@link RunCursor} is more efficient.
      *
      * @param index index of sequence in table
      * @return the run iterator
@@ -1210,18 +1210,43 @@ public class RunTable
             }
         }
 
+        // Each impacted sequence is rebuilt in one pass, rather than removed run by run
+        final Builder kept = new Builder();
+        final Builder purged = (removed != null) ? new Builder() : null;
+        final RunCursor cursor = new RunCursor(this);
+        final Run run = new Run(-1, -1);
+
         for (int i = 0, size = getSize(); i < size; i++) {
-            for (Itr it = new Itr(i); it.hasNext();) {
-                Run run = it.next();
+            final boolean freshRemoved = (removed != null) && removed.isSequenceEmpty(i);
+            boolean modified = false;
+            cursor.reset(i);
+
+            while (cursor.next()) {
+                run.start = cursor.getStart();
+                run.length = cursor.getLength();
 
                 if (predicate.check(run)) {
-                    it.remove();
+                    modified = true;
 
-                    if (removed != null) {
+                    if (freshRemoved) {
+                        purged.append(run.start, run.length);
+                    } else if (removed != null) {
                         removed.addRun(i, run);
                     }
+                } else {
+                    kept.append(run.start, run.length);
                 }
             }
+
+            if (modified) {
+                setSequence(i, kept);
+
+                if (freshRemoved) {
+                    removed.setSequence(i, purged);
+                }
+            } else {
+                kept.clear();
+            }
         }
 
         return this;
@@ -1273,6 +1298,8 @@ public class RunTable
     {
         Objects.requireNonNull(offset, "Cannot render a RunTable at a null offset");
 
+        final RunCursor cursor = new RunCursor(this);
+
         // Potential clipping area (perhaps null)
         final Rectangle clip = g.getClipBounds();
         final Rectangle bounds = new Rectangle(offset.x, offset.y, width, height);
@@ -1288,9 +1315,12 @@ public class RunTable
                     : (height - 1);
 
             for (int iSeq = minSeq; iSeq <= maxSeq; iSeq++) {
-                for (Itr it = new Itr(iSeq); it.hasNext();) {
-                    final Run run = it.next();
-                    g.fillRect(offset.x + run.getStart(), offset.y + iSeq, run.getLength(), 1);
+                for (cursor.reset(iSeq); cursor.next();) {
+                    g.fillRect(
+                            offset.x + cursor.getStart(),
+                            offset.y + iSeq,
+                            cursor.getLength(),
+                            1);
                 }
             }
         } else {
@@ -1300,9 +1330,12 @@ public class RunTable
                                                                                  - 1);
 
             for (int iSeq = minSeq; iSeq <= maxSeq; iSeq++) {
-                for (Itr it = new Itr(iSeq); it.hasNext();) {
-                    final Run run = it.next();
-                    g.fillRect(offset.x + iSeq, offset.y + run.getStart(), 1, run.getLength());
+                for (cursor.reset(iSeq); cursor.next();) {
+                    g.fillRect(
+                            offset.x + iSeq,
+                            offset.y + cursor.getStart(),
+                            1,
+                            cursor.getLength());
                 }
             }
         }
@@ -1325,15 +1358,18 @@ public class RunTable
     {
         Objects.requireNonNull(offset, "Cannot render a RunTable at a null offset");
 
+        final RunCursor cursor = new RunCursor(this);
+
         if (orientation == HORIZONTAL) {
             final int maxSeq = height - 1;
 
             for (int iSeq = 0; iSeq <= maxSeq; iSeq++) {
-                for (Itr it = new Itr(iSeq); it.hasNext();) {
-                    final Run run = it.next();
+                for (cursor.reset(iSeq); cursor.next();) {
                     final int y = offset.y + iSeq;
 
-                    for (int x = offset.x + run.getStart(); x <= (offset.x + run.getStop()); x++) {
+                    final int xStop = offset.x + cursor.getStop();
+
+                    for (int x = offset.x + cursor.getStart(); x <= xStop; x++) {
                         table.setValue(x, y, val);
                     }
                 }
@@ -1342,11 +1378,12 @@ public class RunTable
             final int maxSeq = width - 1;
 
             for (int iSeq = 0; iSeq <= maxSeq; iSeq++) {
-                for (Itr it = new Itr(iSeq); it.hasNext();) {
-                    final Run run = it.next();
+                for (cursor.reset(iSeq); cursor.next();) {
                     final int x = offset.x + iSeq;
 
-                    for (int y = offset.y + run.getStart(); y <= (offset.y + run.getStop()); y++) {
+                    final int yStop = offset.y + cursor.getStop();
+
+                    for (int y = offset.y + cursor.getStart(); y <= yStop; y++) {
                         table.setValue(x, y, val);
                     }
                 }
@@ -1382,6 +1419,27 @@ public class RunTable
         sequences[index] = encode(list);
     }
 
+    //-------------//
+    // setSequence //
+    //-------------//
+    /**
+     * Set a whole run sequence, out of the runs accumulated by the provided builder.
+     * <p>
+     * The sequence RLE is allocated once, with its exact size, and the builder is cleared so
+     * that it can be reused for the next sequence.
+     *
+     * @param index   position in sequences list
+     * @param builder the builder populated with the sequence runs
+     */
+    public void setSequence (int index,
+                             Builder builder)
+    {
+        sequences[index] = builder.isEmpty() ? null
+                : new RunSequence(Arrays.copyOf(builder.rle, builder.size));
+        builder.clear();
+        weight = null;
+    }
+
     //----------//
     // toString //
     //----------//
@@ -1415,6 +1473,8 @@ public class RunTable
      */
     public RunTable trim (Point offset)
     {
+        final RunCursor cursor = new RunCursor(this);
+
         // Determine smallest bounding box
         int iSeqMin = 0;
         int iSeqMax = getSize();
@@ -1440,10 +1500,9 @@ public class RunTable
         int coordMax = 0;
 
         for (int iSeq = iSeqMin; iSeq <= iSeqMax; iSeq++) {
-            for (Iterator<Run> it = iterator(iSeq); it.hasNext();) {
-                final Run run = it.next();
-                coordMin = Math.min(coordMin, run.getStart());
-                coordMax = Math.max(coordMax, run.getStop());
+            for (cursor.reset(iSeq); cursor.next();) {
+                coordMin = Math.min(coordMin, cursor.getStart());
+                coordMax = Math.max(coordMax, cursor.getStop());
             }
         }
 
@@ -1511,13 +1570,15 @@ public class RunTable
                        int xOffset,
                        int yOffset)
     {
+        final RunCursor cursor = new RunCursor(this);
+
         final boolean isVertical = orientation == Orientation.VERTICAL;
 
         for (int iSeq = 0, size = getSize(); iSeq < size; iSeq++) {
-            for (Iterator<Run> it = iterator(iSeq); it.hasNext();) {
-                final Run run = it.next();
+            for (cursor.reset(iSeq); cursor.next();) {
+                final int stop = cursor.getStop();
 
-                for (int coord = run.getStart(), stop = run.getStop(); coord <= stop; coord++) {
+                for (int coord = cursor.getStart(); coord <= stop; coord++) {
                     if (isVertical) {
                         buffer.set(xOffset + iSeq, yOffset + coord, 0);
                     } else {
@@ -1660,6 +1721,112 @@ public class RunTable
     }
 
     //~ Inner Classes ------------------------------------------------------------------------------
+    //---------//
+    // Builder //
+    //---------//
+    /**
+     * Class {@code Builder} accumulates the runs of one sequence directly in RLE form,
+     * within a growable buffer, so that a whole sequence can be set in one pass.
+     * <p>
+     * Runs must be appended in increasing start order and must not overlap.
+     * A run which touches the previous one is merged with it.
+     * <p>
+     * Once populated, the builder is handed to {@link RunTable#setSequence(int, Builder)} which
+     * clears it, so that a single builder can be reused for all sequences of a table.
+     * A builder is not thread-safe.
+     */
+    public static final class Builder
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Growable RLE buffer. */
+        private short[] rle = new short[64];
+
+        /** Number of RLE cells currently used. */
+        private int size;
+
+        /** Coordinate just past the end of last run appended. */
+        private int end;
+
+        //~ Methods --------------------------------------------------------------------------------
+        //--------//
+        // append //
+        //--------//
+        /**
+         * Append a foreground run.
+         *
+         * @param start  starting coordinate of the run
+         * @param length length of the run (strictly positive)
+         */
+        public void append (int start,
+                            int length)
+        {
+            if (length <= 0) {
+                throw new IllegalArgumentException("Non-positive run length " + length);
+            }
+
+            if (start < end) {
+                throw new IllegalArgumentException(
+                        "Run at " + start + " overlaps or precedes previous run ending at " + end);
+            }
+
+            if (size == 0) {
+                if (start > 0) {
+                    // Empty initial foreground, followed by initial background
+                    push(0);
+                    push(start);
+                }
+
+                push(length);
+            } else if (start == end) {
+                // Merge with previous foreground
+                rle[size - 1] = (short) ((rle[size - 1] & 0xFFFF) + length);
+            } else {
+                push(start - end);
+                push(length);
+            }
+
+            end = start + length;
+        }
+
+        //-------//
+        // clear //
+        //-------//
+        /**
+         * Discard all runs, keeping the buffer for reuse.
+         */
+        public void clear ()
+        {
+            size = 0;
+            end = 0;
+        }
+
+        //---------//
+        // isEmpty //
+        //---------//
+        /**
+         * Report whether no run has been appended since last clear.
+         *
+         * @return true if empty
+         */
+        public boolean isEmpty ()
+        {
+            return size == 0;
+        }
+
+        //------//
+        // push //
+        //------//
+        private void push (int value)
+        {
+            if (size == rle.length) {
+                rle = Arrays.copyOf(rle, 2 * size);
+            }
+
+            rle[size++] = (short) value;
+        }
+    }
+
     //-------------//
     // RunSequence //
     //-------------//
@@ -1734,6 +1901,16 @@ public class RunTable
         {
             return Arrays.toString(rle);
         }
+
+        /**
+         * (package private) Report the underlying RLE array.
+         *
+         * @return the MODIFIABLE rle array, perhaps null
+         */
+        final short[] getRle ()
+        {
+            return rle;
+        }
     }
 
     //-----//
@@ -0,0 +1,479 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   R u n T a b l e C o d e c                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.run;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.run.RunTable.RunSequence;
+import org.audiveris.omr.util.Jaxb;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Class {@code RunTableCodec} handles the persistence of a {@link RunTable}, using a
+ * compact binary format by default, while still being able to read (and write) the former
+ * JAXB-based XML format.
+ * <p>
+ * The binary format (version 1) is organized as follows, where 'varint' stands for an unsigned
+ * integer written 7 bits at a time, least significant group first:
+ * <pre>
+ * magic       4 bytes  'R' 'T' 'B' 'L'
+ * version     1 byte
+ * flags       1 byte   (bit 0: the remaining body is deflated)
+ * orientation varint   (ordinal of {@link Orientation})
+ * width       varint
+ * height      varint
+ * then, for each sequence of the table:
+ *   count     varint   (number of RLE cells, 0 for an empty sequence)
+ *   cells     varint * count
+ * </pre>
+ * When reading, the format is detected from the file content, regardless of the file name.
+ * When writing, the format is chosen according to the file extension.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class RunTableCodec
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(RunTableCodec.class);
+
+    /** File extension for binary format: {@value}. */
+    public static final String BINARY_EXTENSION = ".bin";
+
+    /** File extension for XML format: {@value}. */
+    public static final String XML_EXTENSION = ".xml";
+
+    /** Magic bytes at the beginning of any binary table. */
+    private static final byte[] MAGIC = new byte[]{'R', 'T', 'B', 'L'};
+
+    /** Current version of binary format. */
+    private static final int VERSION = 1;
+
+    /** Flag for a deflated body. */
+    private static final int DEFLATED = 0x01;
+
+    /** Un/marshalling context for use with JAXB. */
+    private static volatile JAXBContext jaxbContext;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------------//
+    // getFileName //
+    //-------------//
+    /**
+     * Report the file name to be used for a table, according to preferred format.
+     *
+     * @param radix file name without extension
+     * @return the file name, with proper extension
+     */
+    public static String getFileName (String radix)
+    {
+        return radix + (constants.useBinaryFormat.isSet() ? BINARY_EXTENSION : XML_EXTENSION);
+    }
+
+    //-------------//
+    // isTableFile //
+    //-------------//
+    /**
+     * Report whether the provided file name is a table file name for the provided radix,
+     * whatever its format.
+     *
+     * @param fileName the file name to check
+     * @param radix    the expected file name radix
+     * @return true if so
+     */
+    public static boolean isTableFile (String fileName,
+                                       String radix)
+    {
+        return fileName.equals(radix + BINARY_EXTENSION) || fileName.equals(radix + XML_EXTENSION);
+    }
+
+    //------//
+    // load //
+    //------//
+    /**
+     * Load a table from the provided file, whatever its format (binary or XML).
+     *
+     * @param path path to table file
+     * @return the loaded table
+     * @throws IOException   if file cannot be read
+     * @throws JAXBException if XML content cannot be unmarshalled
+     */
+    public static RunTable load (Path path)
+            throws IOException, JAXBException
+    {
+        try (InputStream is = new BufferedInputStream(
+                Files.newInputStream(path, StandardOpenOption.READ))) {
+            return read(is);
+        }
+    }
+
+    //--------//
+    // locate //
+    //--------//
+    /**
+     * Locate the table file on disk, trying the other format if the provided file does
+     * not exist.
+     * This allows to transparently access table files written in the former XML format.
+     *
+     * @param path the preferred table path
+     * @return the existing table path, or the provided path if none exists
+     */
+    public static Path locate (Path path)
+    {
+        if (Files.exists(path)) {
+            return path;
+        }
+
+        final Path otherPath = getOtherPath(path);
+
+        return ((otherPath != null) && Files.exists(otherPath)) ? otherPath : path;
+    }
+
+    //------//
+    // read //
+    //------//
+    /**
+     * Read a table from the provided input stream, whatever its format (binary or XML).
+     *
+     * @param is the input stream, which must support mark/reset
+     * @return the table read
+     * @throws IOException   if stream cannot be read
+     * @throws JAXBException if XML content cannot be unmarshalled
+     */
+    public static RunTable read (InputStream is)
+            throws IOException, JAXBException
+    {
+        if (!is.markSupported()) {
+            throw new IllegalArgumentException("RunTableCodec.read needs mark/reset support");
+        }
+
+        // Check for the binary magic bytes
+        is.mark(MAGIC.length);
+
+        boolean binary = true;
+
+        for (byte b : MAGIC) {
+            if (is.read() != (b & 0xFF)) {
+                binary = false;
+
+                break;
+            }
+        }
+
+        if (binary) {
+            return readBinary(is);
+        }
+
+        // Former XML format
+        is.reset();
+
+        Unmarshaller um = getJaxbContext().createUnmarshaller();
+
+        return (RunTable) um.unmarshal(is);
+    }
+
+    //-------//
+    // store //
+    //-------//
+    /**
+     * Store the provided table to disk, using the format implied by the file extension.
+     * Any existing file is replaced.
+     * Once the table is stored, any table file of the same radix in the other format is deleted,
+     * so that {@link #locate(Path)} can never pick up an obsolete table.
+     *
+     * @param table the table to store
+     * @param path  the target path
+     * @throws IOException        if file cannot be written
+     * @throws JAXBException      if XML marshalling failed
+     * @throws XMLStreamException if XML writing failed
+     */
+    public static void store (RunTable table,
+                              Path path)
+            throws IOException, JAXBException, XMLStreamException
+    {
+        Files.deleteIfExists(path);
+
+        if (path.getFileName().toString().endsWith(XML_EXTENSION)) {
+            Jaxb.marshal(table, path, getJaxbContext());
+        } else {
+            try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(path))) {
+                write(table, os, constants.deflateBinary.isSet());
+            }
+        }
+
+        final Path otherPath = getOtherPath(path);
+
+        if (otherPath != null) {
+            Files.deleteIfExists(otherPath);
+        }
+
+        logger.debug("Stored {} as {}", table, path);
+    }
+
+    //-------//
+    // write //
+    //-------//
+    /**
+     * Write the provided table to the output stream, using binary format.
+     * The output stream is not closed.
+     *
+     * @param table   the table to write
+     * @param os      the output stream
+     * @param deflate true for a deflated body
+     * @throws IOException if stream cannot be written
+     */
+    public static void write (RunTable table,
+                              OutputStream os,
+                              boolean deflate)
+            throws IOException
+    {
+        os.write(MAGIC);
+        os.write(VERSION);
+        os.write(deflate ? DEFLATED : 0);
+
+        if (deflate) {
+            DeflaterOutputStream dos = new DeflaterOutputStream(
+                    os,
+                    new Deflater(Deflater.BEST_SPEED));
+            writeBody(table, dos);
+            dos.finish();
+        } else {
+            writeBody(table, os);
+        }
+
+        os.flush();
+    }
+
+    //----------------//
+    // getJaxbContext //
+    //----------------//
+    private static JAXBContext getJaxbContext ()
+            throws JAXBException
+    {
+        // Lazy creation
+        if (jaxbContext == null) {
+            jaxbContext = JAXBContext.newInstance(RunTable.class);
+        }
+
+        return jaxbContext;
+    }
+
+    //--------------//
+    // getOtherPath //
+    //--------------//
+    /**
+     * Report the path of the same table in the other format.
+     *
+     * @param path the table path
+     * @return the path with the other extension, or null if extension is not a table one
+     */
+    private static Path getOtherPath (Path path)
+    {
+        final String name = path.getFileName().toString();
+        final String other;
+
+        if (name.endsWith(BINARY_EXTENSION)) {
+            other = name.substring(0, name.length() - BINARY_EXTENSION.length()) + XML_EXTENSION;
+        } else if (name.endsWith(XML_EXTENSION)) {
+            other = name.substring(0, name.length() - XML_EXTENSION.length()) + BINARY_EXTENSION;
+        } else {
+            return null;
+        }
+
+        return path.resolveSibling(other);
+    }
+
+    //------------//
+    // readBinary //
+    //------------//
+    private static RunTable readBinary (InputStream is)
+            throws IOException
+    {
+        final int version = is.read();
+
+        if (version != VERSION) {
+            throw new IOException("Unsupported RunTable binary version " + version);
+        }
+
+        final int flags = is.read();
+
+        if (flags < 0) {
+            throw new EOFException();
+        }
+
+        final InputStream in = ((flags & DEFLATED) != 0)
+                ? new BufferedInputStream(new InflaterInputStream(is)) : is;
+
+        final int ordinal = readVarint(in);
+
+        if ((ordinal < 0) || (ordinal >= Orientation.values().length)) {
+            throw new IOException("Illegal orientation " + ordinal + " in RunTable binary data");
+        }
+
+        final Orientation orientation = Orientation.values()[ordinal];
+        final int width = readVarint(in);
+        final int height = readVarint(in);
+
+        if ((width < 0) || (height < 0)) {
+            throw new IOException(
+                    "Illegal dimension " + width + "x" + height + " in RunTable binary data");
+        }
+
+        final RunTable table = new RunTable(orientation, width, height);
+
+        // A sequence cannot have more cells than twice the run-direction dimension, plus one
+        final int maxCount = (2 * (orientation.isVertical() ? height : width)) + 1;
+
+        for (int i = 0, size = table.getSize(); i < size; i++) {
+            final int count = readVarint(in);
+
+            if ((count < 0) || (count > maxCount)) {
+                throw new IOException("Illegal count " + count + " in RunTable binary data");
+            }
+
+            if (count > 0) {
+                final short[] rle = new short[count];
+
+                for (int c = 0; c < count; c++) {
+                    final int cell = readVarint(in);
+
+                    if ((cell < 0) || (cell > 0xFFFF)) {
+                        throw new IOException("Illegal cell " + cell + " in RunTable binary data");
+                    }
+
+                    rle[c] = (short) cell;
+                }
+
+                table.setSequence(i, new RunSequence(rle));
+            }
+        }
+
+        return table;
+    }
+
+    //------------//
+    // readVarint //
+    //------------//
+    private static int readVarint (InputStream in)
+            throws IOException
+    {
+        int value = 0;
+
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = in.read();
+
+            if (b < 0) {
+                throw new EOFException("Truncated RunTable binary data");
+            }
+
+            value |= ((b & 0x7F) << shift);
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Malformed varint in RunTable binary data");
+    }
+
+    //-----------//
+    // writeBody //
+    //-----------//
+    private static void writeBody (RunTable table,
+                                   OutputStream os)
+            throws IOException
+    {
+        writeVarint(os, table.getOrientation().ordinal());
+        writeVarint(os, table.getWidth());
+        writeVarint(os, table.getHeight());
+
+        for (int i = 0, size = table.getSize(); i < size; i++) {
+            final RunSequence seq = table.getSequence(i);
+            final short[] rle = (seq != null) ? seq.getRle() : null;
+
+            if (rle == null) {
+                writeVarint(os, 0);
+            } else {
+                writeVarint(os, rle.length);
+
+                for (short cell : rle) {
+                    writeVarint(os, cell & 0xFFFF);
+                }
+            }
+        }
+    }
+
+    //-------------//
+    // writeVarint //
+    //-------------//
+    private static void writeVarint (OutputStream os,
+                                     int value)
+            throws IOException
+    {
+        while ((value & ~0x7F) != 0) {
+            os.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        os.write(value);
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean useBinaryFormat = new Constant.Boolean(
+                true,
+                "Should we store run tables in binary format rather than XML?");
+
+        private final Constant.Boolean deflateBinary = new Constant.Boolean(
+                true,
+                "Should we deflate the binary format of run tables?");
+    }
+}
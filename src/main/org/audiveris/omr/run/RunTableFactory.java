@@ -23,6 +23,9 @@ package org.audiveris.omr.run;
 
 import ij.process.ByteProcessor;
 
+import org.audiveris.omr.image.PixelFilter;
+import org.audiveris.omr.util.OmrExecutors;
+
 import net.jcip.annotations.NotThreadSafe;
 import net.jcip.annotations.ThreadSafe;
 
@@ -31,7 +34,6 @@ import org.slf4j.LoggerFactory;
 
 import java.awt.Point;
 import java.awt.Rectangle;
-import java.util.List;
 
 /**
  * Class {@code RunTableFactory} retrieves the runs structure out of a given pixel
@@ -82,6 +84,87 @@ public class RunTableFactory
 
     //~ Methods ------------------------------------------------------------------------------------
     //
+    // --------------------//
+    // createParallelTable //
+    // --------------------//
+    /**
+     * Report the RunTable created with the runs retrieved from the provided source,
+     * processing the source by bands in parallel.
+     * <p>
+     * This is meant for large sources, like a whole sheet image.
+     * Each band of positions (columns for vertical runs, rows for horizontal runs) is scanned
+     * via {@link OmrExecutors#processBands}, and since each sequence depends only on its own
+     * position, the resulting sequences are simply stored side by side.
+     *
+     * @param source the source to read runs from.
+     * @return a populated RunTable
+     */
+    public RunTable createParallelTable (final ByteProcessor source)
+    {
+        final Rectangle roi = new Rectangle(0, 0, source.getWidth(), source.getHeight());
+        final RunTable table = new RunTable(orientation, roi.width, roi.height);
+
+        if (source.getClass() != ByteProcessor.class) {
+            // Any parallelism is left to the runs retriever
+            retrieveRuns(source, roi, table);
+
+            return table;
+        }
+
+        final int posCount = orientation.isVertical() ? roi.width : roi.height;
+
+        OmrExecutors.processBands(
+                posCount,
+                new OmrExecutors.BandProcessor<Void>()
+        {
+            @Override
+            public void process (int start,
+                                 int stop,
+                                 Void buffer)
+            {
+                scanPixels(source, roi, table, start, stop);
+            }
+        });
+
+        return table;
+    }
+
+    // --------------------//
+    // createParallelTable //
+    // --------------------//
+    /**
+     * Report the RunTable created with the foreground runs of the provided pixel filter,
+     * processing the filter by bands in parallel.
+     * <p>
+     * The filter is shared by all bands, hence it must be thread-safe, like a global filter.
+     * A filter which keeps a sliding state must rather provide its own parallel
+     * {@link PixelFilter#filteredRuns()}, with one filter context per band.
+     *
+     * @param pixelFilter the thread-safe filter to read foreground pixels from
+     * @return a populated RunTable
+     */
+    public RunTable createParallelTable (final PixelFilter pixelFilter)
+    {
+        final Rectangle roi = new Rectangle(0, 0, pixelFilter.getWidth(), pixelFilter.getHeight());
+        final RunTable table = new RunTable(orientation, roi.width, roi.height);
+        final int posCount = orientation.isVertical() ? roi.width : roi.height;
+
+        OmrExecutors.processBands(
+                posCount,
+                new OmrExecutors.BandProcessor<Void>()
+        {
+            @Override
+            public void process (int start,
+                                 int stop,
+                                 Void buffer)
+            {
+                scanFilter(pixelFilter, roi, table, start, stop);
+            }
+        });
+
+        return table;
+    }
+
     // ------------//
     // createTable //
     // ------------//
@@ -114,13 +197,193 @@ public class RunTableFactory
                                  Rectangle roi)
     {
         RunTable table = new RunTable(orientation, roi.width, roi.height);
+
+        if (source.getClass() == ByteProcessor.class) {
+            // Plain pixel buffer, its scanlines can be read directly
+            final int posCount = orientation.isVertical() ? roi.width : roi.height;
+            scanPixels(source, roi, table, 0, posCount);
+        } else {
+            retrieveRuns(source, roi, table);
+        }
+
+        return table;
+    }
+
+    // ------------//
+    // createTable //
+    // ------------//
+    /**
+     * Report the RunTable created with the foreground runs of the provided pixel filter,
+     * processed sequentially.
+     * <p>
+     * Pixels are browsed position after position (column after column for vertical runs) and
+     * each sequence is encoded on the fly, so that no filtered image is ever materialized.
+     *
+     * @param pixelFilter the filter to read foreground pixels from
+     * @return a populated RunTable
+     */
+    public RunTable createTable (PixelFilter pixelFilter)
+    {
+        final Rectangle roi = new Rectangle(0, 0, pixelFilter.getWidth(), pixelFilter.getHeight());
+        final RunTable table = new RunTable(orientation, roi.width, roi.height);
+        final int posCount = orientation.isVertical() ? roi.width : roi.height;
+        scanFilter(pixelFilter, roi, table, 0, posCount);
+
+        return table;
+    }
+
+    //-----------//
+    // appendRun //
+    //-----------//
+    /**
+     * Append a run candidate to the builder, provided it passes the filter if any.
+     *
+     * @param builder the sequence builder
+     * @param pos     position relative to roi
+     * @param start   run start relative to roi
+     * @param length  run length
+     * @param roi     region of interest
+     */
+    private void appendRun (RunTable.Builder builder,
+                            int pos,
+                            int start,
+                            int length,
+                            Rectangle roi)
+    {
+        if (filter != null) {
+            final boolean ok = orientation.isVertical()
+                    ? filter.check(roi.x + pos, roi.y + start, length)
+                    : filter.check(roi.x + start, roi.y + pos, length);
+
+            if (!ok) {
+                return;
+            }
+        }
+
+        builder.append(start, length);
+    }
+
+    //--------------//
+    // retrieveRuns //
+    //--------------//
+    /**
+     * Populate the table via a runs retriever, for sources which compute their pixels.
+     *
+     * @param source the source to read runs from
+     * @param roi    region of interest (its coordinates are relative to the source)
+     * @param table  the table to populate
+     */
+    private void retrieveRuns (ByteProcessor source,
+                               Rectangle roi,
+                               RunTable table)
+    {
         RunsRetriever retriever = new RunsRetriever(
                 orientation,
                 orientation.isVertical() ? new VerticalAdapter(source, table, roi.getLocation())
                         : new HorizontalAdapter(source, table, roi.getLocation()));
         retriever.retrieveRuns(roi);
+    }
 
-        return table;
+    //------------//
+    // scanFilter //
+    //------------//
+    /**
+     * Populate a band of table sequences with the foreground runs of a pixel filter.
+     * <p>
+     * Pixels are browsed position after position (column after column for vertical runs) and
+     * each sequence is encoded on the fly, so that no filtered image is ever materialized.
+     * This browsing order suits the filters based on a sliding vertical tile.
+     *
+     * @param pixelFilter the filter to read foreground pixels from
+     * @param roi         region of interest (its coordinates are relative to the filter)
+     * @param table       the table to populate
+     * @param pStart      first position of the band, relative to roi
+     * @param pStop       position past the band, relative to roi
+     */
+    private void scanFilter (PixelFilter pixelFilter,
+                             Rectangle roi,
+                             RunTable table,
+                             int pStart,
+                             int pStop)
+    {
+        final boolean vertical = orientation.isVertical();
+        final int coordCount = vertical ? roi.height : roi.width;
+        final RunTable.Builder builder = new RunTable.Builder();
+
+        for (int p = pStart; p < pStop; p++) {
+            int start = -1; // Start of foreground run in progress, if any
+
+            for (int c = 0; c < coordCount; c++) {
+                if (vertical ? pixelFilter.isFore(roi.x + p, roi.y + c)
+                        : pixelFilter.isFore(roi.x + c, roi.y + p)) {
+                    if (start == -1) {
+                        start = c;
+                    }
+                } else if (start != -1) {
+                    appendRun(builder, p, start, c - start, roi);
+                    start = -1;
+                }
+            }
+
+            if (start != -1) {
+                appendRun(builder, p, start, coordCount - start, roi);
+            }
+
+            table.setSequence(p, builder);
+        }
+    }
+
+    //------------//
+    // scanPixels //
+    //------------//
+    /**
+     * Populate a band of table sequences by reading the pixels array of a plain ByteProcessor.
+     * <p>
+     * Each sequence is encoded in one pass into a reusable builder, and then set into the table
+     * with a single allocation.
+     * Distinct bands can be processed concurrently, since they write distinct sequences.
+     *
+     * @param source the plain source to read pixels from
+     * @param roi    region of interest (its coordinates are relative to the source)
+     * @param table  the table to populate
+     * @param pStart first position of the band, relative to roi
+     * @param pStop  position past the band, relative to roi
+     */
+    private void scanPixels (ByteProcessor source,
+                             Rectangle roi,
+                             RunTable table,
+                             int pStart,
+                             int pStop)
+    {
+        final byte[] pixels = (byte[]) source.getPixels();
+        final int stride = source.getWidth();
+        final boolean vertical = orientation.isVertical();
+        final int coordCount = vertical ? roi.height : roi.width;
+        final int coordStep = vertical ? stride : 1;
+        final int posStep = vertical ? 1 : stride;
+        final RunTable.Builder builder = new RunTable.Builder();
+        int first = (roi.y * stride) + roi.x + (pStart * posStep); // First pixel of position
+
+        for (int p = pStart; p < pStop; p++, first += posStep) {
+            int start = -1; // Start of foreground run in progress, if any
+
+            for (int c = 0, i = first; c < coordCount; c++, i += coordStep) {
+                if (pixels[i] == 0) {
+                    if (start == -1) {
+                        start = c;
+                    }
+                } else if (start != -1) {
+                    appendRun(builder, p, start, c - start, roi);
+                    start = -1;
+                }
+            }
+
+            if (start != -1) {
+                appendRun(builder, p, start, coordCount - start, roi);
+            }
+
+            table.setSequence(p, builder);
+        }
     }
 
     //~ Inner Interfaces ---------------------------------------------------------------------------
@@ -282,9 +545,9 @@ public class RunTableFactory
         //~ Methods --------------------------------------------------------------------------------
         @Override
         public void endPosition (int pos,
-                                 List<Run> runs)
+                                 RunTable.Builder builder)
         {
-            table.setSequence(pos - tableOffset.y, RunTable.encode(runs));
+            table.setSequence(pos - tableOffset.y, builder);
         }
 
         @Override
@@ -324,9 +587,9 @@ public class RunTableFactory
         //~ Methods --------------------------------------------------------------------------------
         @Override
         public void endPosition (int pos,
-                                 List<Run> runs)
+                                 RunTable.Builder builder)
         {
-            table.setSequence(pos - tableOffset.x, RunTable.encode(runs));
+            table.setSequence(pos - tableOffset.x, builder);
         }
 
         @Override
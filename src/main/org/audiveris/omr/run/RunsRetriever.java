@@ -97,17 +97,16 @@ public class RunsRetriever
     /**
      * Process the pixels in position 'p' between coordinates 'cMin' and 'cMax'
      *
-     * @param pos  the position in the pixels array (x for vertical)
-     * @param cMin the starting coordinate (y for vertical)
-     * @param cMax the ending coordinate
+     * @param pos     the position in the pixels array (x for vertical)
+     * @param cMin    the starting coordinate (y for vertical)
+     * @param cMax    the ending coordinate
+     * @param builder (empty) buffer of runs for current position
      */
     private void processPosition (int pos,
                                   int cMin,
-                                  int cMax)
+                                  int cMax,
+                                  RunTable.Builder builder)
     {
-        /** Buffer of runs for current position. */
-        final List<Run> posRuns = new ArrayList<Run>();
-
         // Current run is FOREGROUND or BACKGROUND
         boolean isFore = false;
 
@@ -133,7 +132,7 @@ public class RunsRetriever
                     // End the previous foreground run
                     if (adapter.foreRun(c, pos, length)) {
                         // Bufferize the runs
-                        posRuns.add(new Run(c - cMin - length, length));
+                        builder.append(c - cMin - length, length);
                     }
 
                     // Initialize values for the starting background run
@@ -150,12 +149,12 @@ public class RunsRetriever
         if (isFore) {
             if (adapter.foreRun((cMax + 1) - cMin, pos, length)) {
                 // Bufferize the runs
-                posRuns.add(new Run((cMax + 1) - cMin - length, length));
+                builder.append((cMax + 1) - cMin - length, length);
             }
         }
 
         // Forward the buffer of runs
-        adapter.endPosition(pos, posRuns);
+        adapter.endPosition(pos, builder);
     }
 
     //-------------------//
@@ -172,9 +171,11 @@ public class RunsRetriever
                                     final int cMax)
     {
         if ((OmrExecutors.defaultParallelism.getSpecific() == false) || !adapter.isThreadSafe()) {
-            // Sequential
+            // Sequential, with one builder reused for all positions
+            final RunTable.Builder builder = new RunTable.Builder();
+
             for (int p = pMin; p <= pMax; p++) {
-                processPosition(p, cMin, cMax);
+                processPosition(p, cMin, cMax, builder);
             }
         } else {
             // Parallel (TODO: should use Java 7 fork/join someday...)
@@ -191,7 +192,7 @@ public class RunsRetriever
                         public Void call ()
                                 throws Exception
                         {
-                            processPosition(pp, cMin, cMax);
+                            processPosition(pp, cMin, cMax, new RunTable.Builder());
 
                             return null;
                         }
@@ -228,11 +229,11 @@ public class RunsRetriever
         /**
          * Called at end of position.
          *
-         * @param pos  position value
-         * @param runs sequence of runs for this position
+         * @param pos     position value
+         * @param builder sequence of runs for this position, to be consumed by the adapter
          */
         void endPosition (int pos,
-                          List<Run> runs);
+                          RunTable.Builder builder);
 
         /**
          * Called at end of a foreground run.
@@ -183,6 +183,7 @@ import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -268,21 +269,33 @@ public class PartwiseBuilder
     /** Factory for ProxyMusic entities. */
     private final ObjectFactory factory = new ObjectFactory();
 
+    /** Optional sink for measures, when streaming. */
+    private final MeasureSink sink;
+
+    /** Per part, the synthetic measure that summarizes already flushed measures. */
+    private final Map<ScorePartwise.Part, ScorePartwise.Part.Measure> histories = new HashMap<ScorePartwise.Part, ScorePartwise.Part.Measure>();
+
+    /** First exception raised by sink, if any. */
+    private Exception sinkException;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Create a new PartwiseBuilder object, on a related score instance.
      *
      * @param score the underlying score
+     * @param sink  the measure sink, if any
      * @throws InterruptedException
      * @throws ExecutionException
      */
-    private PartwiseBuilder (Score score)
+    private PartwiseBuilder (Score score,
+                             MeasureSink sink)
             throws InterruptedException, ExecutionException
     {
         // Make sure the JAXB context is ready
         loading.get();
 
         this.score = score;
+        this.sink = sink;
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -299,13 +312,48 @@ public class PartwiseBuilder
      */
     public static ScorePartwise build (Score score)
             throws InterruptedException, ExecutionException
+    {
+        return build(score, null);
+    }
+
+    //-------//
+    // build //
+    //-------//
+    /**
+     * Visit the whole score tree and build the corresponding ScorePartwise, while
+     * handing measures over to the provided sink, stub after stub.
+     * <p>
+     * With a non-null sink, the returned ScorePartwise contains header, credits and parts but
+     * no measure at all, since all measures have been passed to the sink.
+     * Header data (for example source information) is complete only once all stubs have been
+     * processed.
+     *
+     * @param score the score to export (cannot be null)
+     * @param sink  the measure sink, or null to keep all measures in returned ScorePartwise
+     * @return the populated ScorePartwise
+     * @throws InterruptedException
+     * @throws ExecutionException   if sink failed
+     */
+    public static ScorePartwise build (Score score,
+                                      MeasureSink sink)
+            throws InterruptedException, ExecutionException
     {
         Objects.requireNonNull(score, "Trying to export a null score");
 
-        final PartwiseBuilder builder = new PartwiseBuilder(score);
+        final PartwiseBuilder builder = new PartwiseBuilder(score, sink);
 
         builder.processScore();
 
+        // Remove synthetic measures, if any
+        for (Entry<ScorePartwise.Part, ScorePartwise.Part.Measure> entry : builder.histories
+                .entrySet()) {
+            entry.getKey().getMeasure().remove(entry.getValue());
+        }
+
+        if (builder.sinkException != null) {
+            throw new ExecutionException(builder.sinkException);
+        }
+
         return builder.scorePartwise;
     }
 
@@ -581,6 +629,78 @@ public class PartwiseBuilder
         return articulations;
     }
 
+    //-----------//
+    // flushStub //
+    //-----------//
+    /**
+     * Hand the measures just built for the provided stub over to the sink, and replace
+     * them by a synthetic history measure.
+     * <p>
+     * The history measure only keeps the last key and the last clef per staff, which is all that
+     * {@link #getCurrentKey()} and {@link #isNewClef(Clef)} need to look at in previous measures.
+     *
+     * @param stub    the stub just processed
+     * @param pmParts the parts being populated
+     * @throws Exception if sink failed
+     */
+    private void flushStub (SheetStub stub,
+                            Collection<ScorePartwise.Part> pmParts)
+            throws Exception
+    {
+        for (ScorePartwise.Part pmPart : pmParts) {
+            final List<ScorePartwise.Part.Measure> measures = pmPart.getMeasure();
+            final ScorePartwise.Part.Measure oldHistory = histories.get(pmPart);
+            final int first = (oldHistory != null) ? 1 : 0;
+            sink.measuresBuilt(
+                    pmPart,
+                    new ArrayList<ScorePartwise.Part.Measure>(
+                            measures.subList(first, measures.size())));
+
+            // Summarize key and clefs
+            Key key = null;
+            final Map<BigInteger, Clef> clefs = new LinkedHashMap<BigInteger, Clef>();
+
+            for (ScorePartwise.Part.Measure pmMeasure : measures) {
+                Key measureKey = null;
+
+                for (Object obj : pmMeasure.getNoteOrBackupOrForward()) {
+                    if (obj instanceof Attributes) {
+                        Attributes attributes = (Attributes) obj;
+                        List<Key> keys = attributes.getKey();
+
+                        if ((measureKey == null) && !keys.isEmpty()) {
+                            measureKey = keys.get(keys.size() - 1);
+                        }
+
+                        for (Clef clef : attributes.getClef()) {
+                            clefs.put(clef.getNumber(), clef);
+                        }
+                    }
+                }
+
+                if (measureKey != null) {
+                    key = measureKey;
+                }
+            }
+
+            final Attributes attributes = factory.createAttributes();
+
+            if (key != null) {
+                attributes.getKey().add(key);
+            }
+
+            attributes.getClef().addAll(clefs.values());
+
+            final ScorePartwise.Part.Measure history = factory.createScorePartwisePartMeasure();
+            history.getNoteOrBackupOrForward().add(attributes);
+            measures.clear();
+            measures.add(history);
+            histories.put(pmPart, history);
+        }
+
+        sink.stubDone(stub);
+    }
+
     //---------------//
     // getAttributes //
     //---------------//
@@ -2015,6 +2135,16 @@ public class PartwiseBuilder
         // Then, stub by stub, populate all ScorePartwise.Part instances in parallel
         for (SheetStub stub : score.getStubs()) {
             processStub(stub, partMap);
+
+            if (sink != null) {
+                try {
+                    flushStub(stub, partMap.values());
+                } catch (Exception ex) {
+                    sinkException = ex;
+
+                    return;
+                }
+            }
         }
     }
 
@@ -2771,6 +2901,39 @@ public class PartwiseBuilder
         return toTenths(staffTopY - point.getY());
     }
 
+    //~ Inner Interfaces ---------------------------------------------------------------------------
+    //-------------//
+    // MeasureSink //
+    //-------------//
+    /**
+     * Receiver of measures, to allow writing them out while the score is being built.
+     */
+    public static interface MeasureSink
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        /**
+         * Notify the measures just built for a part, from the same sheet stub.
+         * Sink must not modify these measures.
+         *
+         * @param pmPart   the part being populated
+         * @param measures the sequence of new measures in part
+         * @throws Exception if anything went wrong
+         */
+        void measuresBuilt (ScorePartwise.Part pmPart,
+                            List<ScorePartwise.Part.Measure> measures)
+                throws Exception;
+
+        /**
+         * Notify that all measures from the provided stub have been handed over.
+         *
+         * @param stub the stub just processed
+         * @throws Exception if anything went wrong
+         */
+        void stubDone (SheetStub stub)
+                throws Exception;
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //-----------//
     // Constants //
@@ -186,6 +186,18 @@ public class Score
         return book;
     }
 
+    //-------------//
+    // forgetPages //
+    //-------------//
+    /**
+     * Forget the cached collection of pages, so that swapped sheets can be reclaimed.
+     * Pages will be de-referenced again on next {@link #getPages()} call.
+     */
+    void forgetPages ()
+    {
+        pages = null;
+    }
+
     //--------------//
     // getFirstPage //
     //--------------//
@@ -22,6 +22,11 @@
 package org.audiveris.omr.score;
 
 import org.audiveris.omr.OMR;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.sheet.SheetStub;
+import org.audiveris.omr.util.IndentingXMLStreamWriter;
+import org.audiveris.proxymusic.ScorePart;
 import org.audiveris.proxymusic.ScorePartwise;
 import org.audiveris.proxymusic.mxl.Mxl;
 import org.audiveris.proxymusic.mxl.RootFile;
@@ -32,14 +37,39 @@ import org.slf4j.LoggerFactory;
 
 import org.w3c.dom.Node;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
 /**
  * Class {@code ScoreExporter} exports the provided score to a MusicXML file, stream or
  * DOM.
+ * <p>
+ * Export to a file or a stream can be performed in streaming mode (see constant
+ * {@code useStreaming}): measures are then marshalled stub after stub into temporary part
+ * buffers, so that each sheet can be swapped out (in batch mode) as soon as its measures have been
+ * written, instead of keeping the whole score in memory.
  *
  * @author Hervé Bitteur
  */
@@ -47,8 +77,19 @@ public class ScoreExporter
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(ScoreExporter.class);
 
+    /** Name of root element in temporary part buffers. */
+    private static final String BUFFER_ROOT = "measures";
+
+    /** Namespace of xlink attributes. */
+    private static final String XLINK_NAMESPACE_URI = "http://www.w3.org/1999/xlink";
+
+    /** Prefix of xlink attributes, as fixed by MusicXML DTD. */
+    private static final String XLINK_PREFIX = "xlink";
+
     //~ Instance fields ----------------------------------------------------------------------------
     /** The related score. */
     private final Score score;
@@ -113,26 +154,17 @@ public class ScoreExporter
     {
         Objects.requireNonNull(os, "Trying to export a score to a null output stream");
 
+        if (constants.useStreaming.isSet()) {
+            exportStreaming(os, signed, scoreName, compressed);
+
+            return;
+        }
+
         // Build the ScorePartwise proxy
         ScorePartwise scorePartwise = PartwiseBuilder.build(score);
 
         // Marshal the proxy
-        if (compressed) {
-            Mxl.Output mof = new Mxl.Output(os);
-            OutputStream zos = mof.getOutputStream();
-
-            if (scoreName == null) {
-                scoreName = "score"; // Fall-back value
-            }
-
-            mof.addEntry(
-                    new RootFile(scoreName + OMR.SCORE_EXTENSION, RootFile.MUSICXML_MEDIA_TYPE));
-            Marshalling.marshal(scorePartwise, zos, signed, 2);
-            mof.close();
-        } else {
-            Marshalling.marshal(scorePartwise, os, signed, 2);
-            os.close();
-        }
+        write(scorePartwise, null, os, signed, scoreName, compressed);
     }
 
     //--------//
@@ -160,4 +192,398 @@ public class ScoreExporter
         // Marshal the proxy
         Marshalling.marshal(scorePartwise, node, signed);
     }
+
+    //-----------------//
+    // exportStreaming //
+    //-----------------//
+    /**
+     * Export the score to an output stream, with measures streamed stub after stub.
+     * <p>
+     * Since the score header is complete only once all stubs have been processed, measures are
+     * first buffered per part into temporary files, then the header and parts are written
+     * together, using StAX, to the final output.
+     *
+     * @param os         the output stream where XML data is written
+     * @param signed     should we inject ProxyMusic signature?
+     * @param scoreName  (for compressed only) simple score name, without extension
+     * @param compressed true for compressed output
+     * @throws Exception
+     */
+    private void exportStreaming (OutputStream os,
+                                  boolean signed,
+                                  String scoreName,
+                                  boolean compressed)
+            throws Exception
+    {
+        final MeasureStreamer streamer = new MeasureStreamer(score);
+
+        try {
+            // Build the ScorePartwise skeleton, while measures are buffered per part
+            final ScorePartwise skeleton = PartwiseBuilder.build(score, streamer);
+            streamer.finish();
+            write(skeleton, streamer, os, signed, scoreName, compressed);
+        } finally {
+            streamer.dispose();
+        }
+    }
+
+    //-------//
+    // write //
+    //-------//
+    /**
+     * Write a ScorePartwise to the output stream, either as a whole or as a skeleton
+     * completed by streamed measures.
+     *
+     * @param scorePartwise the whole ScorePartwise, or just its skeleton if streamer is not null
+     * @param streamer      the streamer of buffered measures, if any
+     * @param os            the output stream where XML data is written
+     * @param signed        should we inject ProxyMusic signature?
+     * @param scoreName     (for compressed only) simple score name, without extension
+     * @param compressed    true for compressed output
+     * @throws Exception
+     */
+    static void write (ScorePartwise scorePartwise,
+                       MeasureStreamer streamer,
+                       OutputStream os,
+                       boolean signed,
+                       String scoreName,
+                       boolean compressed)
+            throws Exception
+    {
+        if (compressed) {
+            Mxl.Output mof = new Mxl.Output(os);
+            OutputStream zos = mof.getOutputStream();
+
+            if (scoreName == null) {
+                scoreName = "score"; // Fall-back value
+            }
+
+            mof.addEntry(
+                    new RootFile(scoreName + OMR.SCORE_EXTENSION, RootFile.MUSICXML_MEDIA_TYPE));
+
+            if (streamer != null) {
+                streamer.write(scorePartwise, zos, signed);
+            } else {
+                Marshalling.marshal(scorePartwise, zos, signed, 2);
+            }
+
+            mof.close();
+        } else {
+            if (streamer != null) {
+                streamer.write(scorePartwise, os, signed);
+            } else {
+                Marshalling.marshal(scorePartwise, os, signed, 2);
+            }
+
+            os.close();
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean useStreaming = new Constant.Boolean(
+                true,
+                "Should we stream measures sheet by sheet when exporting to MusicXML?");
+    }
+
+    //----------------//
+    // MeasureStreamer //
+    //----------------//
+    /**
+     * Measure sink which marshals measures into a temporary buffer per part, and swaps
+     * each sheet out once its measures have been written (in batch mode only).
+     */
+    static class MeasureStreamer
+            implements PartwiseBuilder.MeasureSink
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** The score being exported, null if no sheet is to be swapped. */
+        private final Score score;
+
+        /** Name of measure element. */
+        private final QName measureName = new QName("measure");
+
+        /** Buffers, per part ID. */
+        private final Map<String, PartBuffer> buffers = new HashMap<String, PartBuffer>();
+
+        private final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+
+        private final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+
+        private final Marshaller marshaller;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        /**
+         * Create a MeasureStreamer.
+         *
+         * @param score the score being exported, or null if sheets are not to be swapped
+         * @throws JAXBException
+         */
+        public MeasureStreamer (Score score)
+                throws JAXBException
+        {
+            this.score = score;
+            marshaller = Marshalling.getContext(ScorePartwise.class).createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+
+            inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public void measuresBuilt (ScorePartwise.Part pmPart,
+                                   List<ScorePartwise.Part.Measure> measures)
+                throws Exception
+        {
+            final String id = ((ScorePart) pmPart.getId()).getId();
+            PartBuffer buffer = buffers.get(id);
+
+            if (buffer == null) {
+                buffers.put(id, buffer = new PartBuffer());
+            }
+
+            for (ScorePartwise.Part.Measure pmMeasure : measures) {
+                marshaller.marshal(
+                        new JAXBElement<ScorePartwise.Part.Measure>(
+                                measureName,
+                                ScorePartwise.Part.Measure.class,
+                                pmMeasure),
+                        buffer.writer);
+            }
+
+            buffer.writer.flush();
+        }
+
+        @Override
+        public void stubDone (SheetStub stub)
+                throws Exception
+        {
+            if ((score != null) && (OMR.gui == null)) {
+                score.forgetPages();
+                stub.swapSheet();
+            }
+        }
+
+        /**
+         * Delete all temporary buffers.
+         */
+        public void dispose ()
+        {
+            for (PartBuffer buffer : buffers.values()) {
+                buffer.dispose();
+            }
+
+            buffers.clear();
+        }
+
+        /**
+         * Close all part buffers for writing.
+         *
+         * @throws IOException
+         * @throws XMLStreamException
+         */
+        public void finish ()
+                throws IOException, XMLStreamException
+        {
+            for (PartBuffer buffer : buffers.values()) {
+                buffer.finish();
+            }
+        }
+
+        /**
+         * Write the whole score, skeleton and buffered measures, to the provided output.
+         *
+         * @param skeleton the ScorePartwise with parts but no measures
+         * @param os       the final output
+         * @param signed   should we inject ProxyMusic signature?
+         * @throws Exception
+         */
+        public void write (ScorePartwise skeleton,
+                           OutputStream os,
+                           boolean signed)
+                throws Exception
+        {
+            // Header and empty parts are marshalled by ProxyMusic itself, without indentation
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            Marshalling.marshal(skeleton, bos, signed, null);
+
+            final XMLStreamWriter writer = new IndentingXMLStreamWriter(
+                    outputFactory.createXMLStreamWriter(os, "UTF-8"),
+                    "  ");
+            final XMLStreamReader reader = inputFactory.createXMLStreamReader(
+                    new ByteArrayInputStream(bos.toByteArray()),
+                    "UTF-8");
+
+            writer.writeStartDocument("UTF-8", "1.0");
+            copy(reader, writer, false);
+            reader.close();
+            writer.writeEndDocument();
+            writer.flush();
+        }
+
+        /**
+         * Copy XML events from reader to writer.
+         * <p>
+         * Within the score skeleton, the buffered measures of each part are inserted right after
+         * the part start element.
+         *
+         * @param reader   the events source
+         * @param writer   the events destination
+         * @param isBuffer true for reading a part buffer (whose root element is skipped), false
+         *                 for reading the score skeleton
+         * @throws Exception
+         */
+        private void copy (XMLStreamReader reader,
+                           XMLStreamWriter writer,
+                           boolean isBuffer)
+                throws Exception
+        {
+            int depth = 0;
+
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+
+                    if (isBuffer && (depth == 1)) {
+                        break;
+                    }
+
+                    // MusicXML uses no namespace, except the xlink prefix fixed by the DTD
+                    writer.writeStartElement(reader.getLocalName());
+
+                    if (!isBuffer && (depth == 1)) {
+                        // Declared once for all on root element
+                        writer.writeNamespace(XLINK_PREFIX, XLINK_NAMESPACE_URI);
+                    }
+
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        final String name = reader.getAttributeLocalName(i);
+
+                        if (XLINK_NAMESPACE_URI.equals(reader.getAttributeNamespace(i))) {
+                            writer.writeAttribute(
+                                    XLINK_PREFIX,
+                                    XLINK_NAMESPACE_URI,
+                                    name,
+                                    reader.getAttributeValue(i));
+                        } else {
+                            writer.writeAttribute(name, reader.getAttributeValue(i));
+                        }
+                    }
+
+                    if (!isBuffer && (depth == 2) && "part".equals(reader.getLocalName())) {
+                        PartBuffer buffer = buffers.get(reader.getAttributeValue(null, "id"));
+
+                        if (buffer != null) {
+                            buffer.copyTo(writer);
+                        }
+                    }
+
+                    break;
+
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+
+                    if (isBuffer && (depth == 0)) {
+                        break;
+                    }
+
+                    writer.writeEndElement();
+
+                    break;
+
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+
+                    if (depth > (isBuffer ? 1 : 0)) {
+                        writer.writeCharacters(reader.getText());
+                    }
+
+                    break;
+
+                case XMLStreamConstants.COMMENT:
+                    writer.writeComment(reader.getText());
+
+                    break;
+
+                case XMLStreamConstants.DTD:
+                    writer.writeDTD(reader.getText() + "\n");
+
+                    break;
+
+                default:
+                }
+            }
+        }
+
+        //~ Inner Classes --------------------------------------------------------------------------
+        /**
+         * Temporary file where the measures of one part are buffered.
+         */
+        private class PartBuffer
+        {
+            //~ Instance fields --------------------------------------------------------------------
+
+            private final Path path;
+
+            private final OutputStream os;
+
+            private final XMLStreamWriter writer;
+
+            //~ Constructors -----------------------------------------------------------------------
+            public PartBuffer ()
+                    throws IOException, XMLStreamException
+            {
+                path = Files.createTempFile("audiveris-part-", ".xml");
+                os = Files.newOutputStream(path);
+                writer = outputFactory.createXMLStreamWriter(os, "UTF-8");
+                writer.writeStartDocument("UTF-8", "1.0");
+                writer.writeStartElement(BUFFER_ROOT);
+            }
+
+            //~ Methods ----------------------------------------------------------------------------
+            public void copyTo (XMLStreamWriter out)
+                    throws Exception
+            {
+                final InputStream is = Files.newInputStream(path);
+
+                try {
+                    XMLStreamReader reader = inputFactory.createXMLStreamReader(is, "UTF-8");
+                    copy(reader, out, true);
+                    reader.close();
+                } finally {
+                    is.close();
+                }
+            }
+
+            public void dispose ()
+            {
+                try {
+                    os.close();
+                    Files.deleteIfExists(path);
+                } catch (IOException ex) {
+                    logger.warn("Could not delete {} {}", path, ex.toString());
+                }
+            }
+
+            public void finish ()
+                    throws IOException, XMLStreamException
+            {
+                writer.writeEndElement();
+                writer.writeEndDocument();
+                writer.close();
+                os.close();
+            }
+        }
+    }
 }
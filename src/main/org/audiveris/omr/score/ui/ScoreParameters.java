@@ -29,6 +29,7 @@ import org.audiveris.omr.image.AdaptiveDescriptor;
 import org.audiveris.omr.image.FilterDescriptor;
 import org.audiveris.omr.image.FilterKind;
 import org.audiveris.omr.image.GlobalDescriptor;
+import org.audiveris.omr.image.IntegralDescriptor;
 import org.audiveris.omr.plugin.PluginManager;
 import org.audiveris.omr.score.LogicalPart;
 import org.audiveris.omr.score.MidiAbstractions;
@@ -800,6 +801,16 @@ public class ScoreParameters
 
                     break;
 
+                case INTEGRAL:
+                    globalData.setVisible(false);
+                    localDataMean.setVisible(true);
+                    localDataDev.setVisible(true);
+
+                    // Use proper integral data
+                    display(IntegralDescriptor.getDefault());
+
+                    break;
+
                 default:
                 }
             } else {
@@ -853,6 +864,7 @@ public class ScoreParameters
                 break;
 
             case ADAPTIVE:
+            case INTEGRAL:
 
                 AdaptiveDescriptor localDesc = (AdaptiveDescriptor) desc;
                 localDataMean.spinner.setValue(localDesc.meanCoeff);
@@ -869,11 +881,20 @@ public class ScoreParameters
         {
             commitSpinners();
 
-            return (readKind() == FilterKind.GLOBAL)
-                    ? new GlobalDescriptor((int) globalData.spinner.getValue())
-                    : new AdaptiveDescriptor(
-                            (double) localDataMean.spinner.getValue(),
-                            (double) localDataDev.spinner.getValue());
+            switch (readKind()) {
+            case GLOBAL:
+                return new GlobalDescriptor((int) globalData.spinner.getValue());
+
+            case INTEGRAL:
+                return new IntegralDescriptor(
+                        (double) localDataMean.spinner.getValue(),
+                        (double) localDataDev.spinner.getValue());
+
+            default:
+                return new AdaptiveDescriptor(
+                        (double) localDataMean.spinner.getValue(),
+                        (double) localDataDev.spinner.getValue());
+            }
         }
 
         @Override
@@ -897,6 +918,7 @@ public class ScoreParameters
                     break;
 
                 case ADAPTIVE:
+                case INTEGRAL:
                     localDataMean.spinner.commitEdit();
                     localDataDev.spinner.commitEdit();
 
@@ -28,6 +28,7 @@ import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.image.FilterDescriptor;
 import org.audiveris.omr.image.ImageLoading;
+import org.audiveris.omr.image.PrefetchingLoader;
 import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.run.RunTable;
 import org.audiveris.omr.score.OpusExporter;
@@ -48,6 +49,7 @@ import org.audiveris.omr.text.Language;
 import org.audiveris.omr.util.FileUtil;
 import org.audiveris.omr.util.Jaxb;
 import org.audiveris.omr.util.Memory;
+import org.audiveris.omr.util.Metrics;
 import org.audiveris.omr.util.OmrExecutors;
 import org.audiveris.omr.util.Param;
 import org.audiveris.omr.util.StopWatch;
@@ -74,6 +76,8 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -188,6 +192,15 @@ public class BasicBook
     /** Book-level sample repository. */
     private SampleRepository repository;
 
+    /** Shared loader of sheet images, if any. */
+    private PrefetchingLoader imageLoader;
+
+    /** Ids of sheet images expected by current processing, null for all valid sheets. */
+    private List<Integer> expectedImageIds;
+
+    /** Lock on image loader, distinct from book lock. */
+    private final Object imageLoaderLock = new Object();
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Create a Book with a path to an input images file.
@@ -271,6 +284,9 @@ public class BasicBook
             bookBrowser.close();
         }
 
+        // Release image loader if any
+        disposeImageLoader();
+
         // Remove from OMR instances
         OMR.engine.removeBook(this);
 
@@ -338,6 +354,7 @@ public class BasicBook
     public static Book loadBook (Path bookPath)
     {
         StopWatch watch = new StopWatch("loadBook " + bookPath);
+        final long start = System.nanoTime();
         BasicBook book = null;
 
         try {
@@ -371,6 +388,8 @@ public class BasicBook
                 watch.print();
             }
 
+            Metrics.record("io/bookLoad", start);
+
             if (book != null) {
                 book.getLock().unlock();
             }
@@ -901,7 +920,7 @@ public class BasicBook
     public BufferedImage loadSheetImage (int id)
     {
         try {
-            final ImageLoading.Loader loader = ImageLoading.getLoader(path);
+            final ImageLoading.Loader loader = getImageLoader();
 
             if (loader == null) {
                 return null;
@@ -910,8 +929,6 @@ public class BasicBook
             BufferedImage img = loader.getImage(id);
             logger.info("Loaded image {} {}x{} from {}", id, img.getWidth(), img.getHeight(), path);
 
-            loader.dispose();
-
             return img;
         } catch (IOException ex) {
             logger.warn("Error in book.loadSheetImage", ex);
@@ -981,6 +998,7 @@ public class BasicBook
         try {
             final List<SheetStub> concernedStubs = getConcernedStubs(sheetIds);
             logger.debug("reachStep {} force:{} sheetIds:{}", target, force, sheetIds);
+            expectImages(concernedStubs);
 
             if (!force) {
                 // Check against the least advanced step performed across all sheets concerned
@@ -1006,52 +1024,75 @@ public class BasicBook
                 if (isMultiSheet()
                     && constants.processAllStubsInParallel.isSet()
                     && (OmrExecutors.defaultParallelism.getTarget() == true)) {
-                    // Process all stubs in parallel
-                    List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
-
-                    for (final SheetStub stub : concernedStubs) {
-                        tasks.add(
-                                new Callable<Boolean>()
-                        {
-                            @Override
-                            public Boolean call ()
-                                    throws StepException
-                            {
-                                LogUtil.start(stub);
-
-                                try {
-                                    boolean ok = stub.reachStep(target, force);
-
-                                    if (ok && (OMR.gui == null)) {
-                                        stub.swapSheet(); // Save sheet & global book info to disk
-                                    }
-
-                                    return ok;
-                                } finally {
-                                    LogUtil.stopStub();
-                                }
-                            }
-                        });
-                    }
+                    // Process all stubs in parallel, as long as memory allows
+                    final SheetAdmission admission = new SheetAdmission(
+                            OmrExecutors.getMaxInFlightSheets());
+                    final List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
 
                     try {
-                        List<Future<Boolean>> futures = OmrExecutors.getCachedLowExecutor()
-                                .invokeAll(tasks);
+                        // Sheet tasks run on the shared fork-join pool, like the computing
+                        // sub-tasks of their steps
+                        for (final SheetStub stub : concernedStubs) {
+                            final long footprint = admission.acquire();
+                            futures.add(
+                                    OmrExecutors.submit(
+                                            new Callable<Boolean>()
+                                    {
+                                        @Override
+                                        public Boolean call ()
+                                                throws StepException
+                                        {
+                                            LogUtil.start(stub);
+
+                                            long pixels = 0;
+
+                                            try {
+                                                boolean ok = stub.reachStep(target, force);
+
+                                                if (ok && stub.hasSheet()) {
+                                                    Sheet sheet = stub.getSheet();
+                                                    pixels = (long) sheet.getWidth()
+                                                             * sheet.getHeight();
+                                                }
+
+                                                return ok;
+                                            } finally {
+                                                if (OMR.gui == null) {
+                                                    // Eagerly save sheet & book info to disk
+                                                    stub.swapSheet();
+                                                }
+
+                                                LogUtil.stopStub();
+                                                admission.release(footprint, pixels);
+                                            }
+                                        }
+                                    }));
+                        }
 
                         for (Future<Boolean> future : futures) {
                             try {
                                 if (!future.get()) {
                                     someFailure = true;
                                 }
-                            } catch (Exception ex) {
-                                logger.warn("Future exception", ex);
+                            } catch (ExecutionException ex) {
+                                logger.warn("Future exception", ex.getCause());
+                                someFailure = true;
+                            } catch (CancellationException ex) {
+                                logger.warn("Future cancelled", ex);
                                 someFailure = true;
                             }
                         }
 
                         return !someFailure;
                     } catch (InterruptedException ex) {
-                        logger.warn("Error in parallel reachBookStep", ex);
+                        // Don't leave sheet tasks running (nor starting) behind us
+                        logger.warn("Parallel reachBookStep interrupted, cancelling sheet tasks");
+
+                        for (Future<Boolean> future : futures) {
+                            future.cancel(true);
+                        }
+
+                        Thread.currentThread().interrupt(); // Preserve interrupt status
                         someFailure = true;
                     }
                 } else {
@@ -1276,6 +1317,7 @@ public class BasicBook
     {
         Memory.gc(); // Launch garbage collection, to save on weak glyph references ...
 
+        final long start = System.nanoTime();
         boolean diskWritten = false; // Has disk actually been written?
 
         // Backup existing book file?
@@ -1365,6 +1407,7 @@ public class BasicBook
             }
 
             getLock().unlock();
+            Metrics.record("io/bookStore", start);
         }
     }
 
@@ -1691,6 +1734,54 @@ public class BasicBook
         logger.debug("Created scores:{}", scores);
     }
 
+    //--------------------//
+    // disposeImageLoader //
+    //--------------------//
+    /**
+     * Release the shared image loader, if any.
+     */
+    private void disposeImageLoader ()
+    {
+        final PrefetchingLoader loader;
+
+        synchronized (imageLoaderLock) {
+            loader = imageLoader;
+            imageLoader = null;
+        }
+
+        if (loader != null) {
+            loader.dispose();
+        }
+    }
+
+    //--------------//
+    // expectImages //
+    //--------------//
+    /**
+     * Tell the image loader which sheet images are about to be loaded, that is the images of
+     * the provided stubs which have not been loaded yet.
+     *
+     * @param stubs the stubs concerned by current processing
+     */
+    private void expectImages (List<SheetStub> stubs)
+    {
+        final List<Integer> ids = new ArrayList<Integer>();
+
+        for (SheetStub stub : stubs) {
+            if (!stub.isDone(Step.LOAD)) {
+                ids.add(stub.getNumber());
+            }
+        }
+
+        synchronized (imageLoaderLock) {
+            expectedImageIds = ids;
+
+            if (imageLoader != null) {
+                imageLoader.setExpectedIds(ids);
+            }
+        }
+    }
+
     //-------------------//
     // getConcernedStubs //
     //-------------------//
@@ -1748,6 +1839,46 @@ public class BasicBook
         return least;
     }
 
+    //----------------//
+    // getImageLoader //
+    //----------------//
+    /**
+     * Report the image loader shared by all sheets of this book, opening it if needed.
+     * <p>
+     * The loader remains open until book is closed, and prefetches images of the sheets expected
+     * by current processing (by default, all valid sheets).
+     *
+     * @return the shared loader, or null if input file could not be opened
+     */
+    private ImageLoading.Loader getImageLoader ()
+    {
+        synchronized (imageLoaderLock) {
+            if (imageLoader == null) {
+                final ImageLoading.Loader loader = ImageLoading.getLoader(path);
+
+                if (loader == null) {
+                    return null;
+                }
+
+                final List<Integer> ids;
+
+                if (expectedImageIds != null) {
+                    ids = expectedImageIds;
+                } else {
+                    ids = new ArrayList<Integer>();
+
+                    for (SheetStub stub : getValidStubs()) {
+                        ids.add(stub.getNumber());
+                    }
+                }
+
+                imageLoader = new PrefetchingLoader(loader, ids);
+            }
+
+            return imageLoader;
+        }
+    }
+
     //----------//
     // getScore //
     //----------//
@@ -22,6 +22,7 @@
 package org.audiveris.omr.sheet;
 
 import org.audiveris.omr.OMR;
+import org.audiveris.omr.classifier.EvaluationCache;
 import org.audiveris.omr.classifier.SampleRepository;
 import org.audiveris.omr.classifier.SampleSheet;
 import org.audiveris.omr.glyph.Glyph;
@@ -181,6 +182,9 @@ public class BasicSheet
     /** Dictionary of sheet lags. */
     private LagManager lagManager;
 
+    /** Cache of glyph evaluations. */
+    private final EvaluationCache evaluationCache = new EvaluationCache();
+
     //-- UI ----------------------------------------------------------------------------------------
     //
     /** Selections for this sheet. (SheetLocation, PixelLevel) */
@@ -542,6 +546,15 @@ public class BasicSheet
         return errorsEditor;
     }
 
+    //--------------------//
+    // getEvaluationCache //
+    //--------------------//
+    @Override
+    public EvaluationCache getEvaluationCache ()
+    {
+        return evaluationCache;
+    }
+
     //------------------//
     // getFilamentIndex //
     //------------------//
@@ -24,6 +24,7 @@ package org.audiveris.omr.sheet;
 import org.audiveris.omr.Main;
 import org.audiveris.omr.OMR;
 import static org.audiveris.omr.WellKnowns.LINE_SEPARATOR;
+import org.audiveris.omr.classifier.EvaluationCache;
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.image.FilterDescriptor;
@@ -37,11 +38,13 @@ import org.audiveris.omr.sheet.ui.StubsController;
 import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.step.Step;
 import org.audiveris.omr.step.StepException;
+import org.audiveris.omr.step.StepRecorder;
 import org.audiveris.omr.step.ui.StepMonitoring;
 import org.audiveris.omr.ui.Colors;
 import org.audiveris.omr.util.Jaxb;
 import org.audiveris.omr.util.LiveParam;
 import org.audiveris.omr.util.Memory;
+import org.audiveris.omr.util.Metrics;
 import org.audiveris.omr.util.Navigable;
 import org.audiveris.omr.util.OmrExecutors;
 import org.audiveris.omr.util.StopWatch;
@@ -420,6 +423,7 @@ public class BasicStub
                     } else {
                         // LOAD already performed: load from book file
                         StopWatch watch = new StopWatch("Load Sheet " + this);
+                        final long start = System.nanoTime();
 
                         try {
                             Path sheetFile = null;
@@ -455,6 +459,8 @@ public class BasicStub
                             if (constants.printWatch.isSet()) {
                                 watch.print();
                             }
+
+                            Metrics.record("io/sheetLoad", start);
                         }
                     }
                 }
@@ -564,6 +570,12 @@ public class BasicStub
                 doOneStep(step);
             }
 
+            final EvaluationCache cache = getSheet().getEvaluationCache();
+
+            if ((cache.getHits() + cache.getMisses()) > 0) {
+                logger.info("Sheet#{} {}", number, cache);
+            }
+
             ok = true;
         } catch (ProcessingCancellationException pce) {
             throw pce;
@@ -690,6 +702,7 @@ public class BasicStub
             throws Exception
     {
         if (modified) {
+            final long start = System.nanoTime();
             book.getLock().lock();
 
             Path bookPath = BookManager.getDefaultSavePath(book);
@@ -703,6 +716,7 @@ public class BasicStub
                 root.getFileSystem().close();
             } finally {
                 book.getLock().unlock();
+                Metrics.record("io/sheetStore", start);
             }
         }
     }
@@ -806,6 +820,9 @@ public class BasicStub
                 {
                     LogUtil.start(BasicStub.this);
 
+                    final StepRecorder.Probe probe = StepRecorder.start(BasicStub.this, step);
+                    boolean completed = false;
+
                     try {
                         setCurrentStep(step);
                         StepMonitoring.notifyStep(BasicStub.this, step); // Start monitoring
@@ -813,7 +830,9 @@ public class BasicStub
                         sheet.reset(step); // Reset sheet relevant data
                         step.doit(sheet); // Standard processing on an existing sheet
                         done(step); // Full completion
+                        completed = true;
                     } finally {
+                        StepRecorder.stop(probe, completed);
                         LogUtil.stopStub();
                     }
 
@@ -821,7 +840,7 @@ public class BasicStub
                 }
             });
 
-            future.get(timeout, TimeUnit.SECONDS);
+            OmrExecutors.await(future, timeout, TimeUnit.SECONDS);
 
             // At end of each step, save sheet to disk?
             if ((OMR.gui == null) && Main.saveSheetOnEveryStep()) {
@@ -27,6 +27,7 @@ import ij.process.ColorProcessor;
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.image.AbstractGrayFilter;
 import org.audiveris.omr.image.FilterDescriptor;
 import org.audiveris.omr.image.GaussianGrayFilter;
 import org.audiveris.omr.image.ImageFormatException;
@@ -34,15 +35,17 @@ import org.audiveris.omr.image.ImageUtil;
 import org.audiveris.omr.image.MedianGrayFilter;
 import org.audiveris.omr.image.PixelFilter;
 import org.audiveris.omr.image.PixelSource;
+import org.audiveris.omr.image.SlidingMedianGrayFilter;
 import static org.audiveris.omr.run.Orientation.VERTICAL;
 import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableCodec;
 import org.audiveris.omr.run.RunTableFactory;
 import org.audiveris.omr.sheet.grid.LineInfo;
+import org.audiveris.omr.step.Step;
 import org.audiveris.omr.ui.selection.LocationEvent;
 import org.audiveris.omr.ui.selection.MouseMovement;
 import org.audiveris.omr.ui.selection.PixelEvent;
 import org.audiveris.omr.ui.selection.SelectionService;
-import org.audiveris.omr.util.Jaxb;
 import org.audiveris.omr.util.Navigable;
 import org.audiveris.omr.util.StopWatch;
 
@@ -59,15 +62,14 @@ import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
 import java.awt.image.SampleModel;
 import java.io.IOException;
-import java.lang.ref.WeakReference;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.EnumMap;
-import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
 
 import javax.media.jai.JAI;
-import javax.xml.bind.JAXBContext;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -85,6 +87,8 @@ import javax.xml.bind.annotation.XmlRootElement;
  * Besides the INITIAL source, this class handles a collection of sources, all of the same
  * dimension, with the ability to retrieve them on demand or dispose them, via {@link #getSource}
  * and {@link #disposeSource} methods.
+ * These sources are kept in a {@link SourceCache}, bounded in size, where the sources needed by
+ * the running step are pinned.
  * <p>
  * Any instance of this class is registered on the related Sheet location service, so that each time
  * a location event is received, the corresponding pixel gray value of the INITIAL sources is
@@ -164,8 +168,9 @@ public class Picture
     // Transient data
     //---------------
     //
-    /** Map of all handled sources. */
-    private final ConcurrentSkipListMap<SourceKey, WeakReference<ByteProcessor>> sources = new ConcurrentSkipListMap<SourceKey, WeakReference<ByteProcessor>>();
+    /** Cache of all handled sources. */
+    private final SourceCache sources = new SourceCache(
+            constants.sourceBudget.getValue() * 1024L * 1024L);
 
     /** Related sheet. */
     @Navigable(false)
@@ -288,9 +293,7 @@ public class Picture
     // For debug only
     public void checkSources ()
     {
-        for (SourceKey key : SourceKey.values()) {
-            logger.info(String.format("%15s ref:%s", key, getStrongRef(key)));
-        }
+        logger.info("{}", sources);
     }
 
     //---------------//
@@ -514,14 +517,14 @@ public class Picture
     //-----------//
     /**
      * Report the desired source.
-     * If the source is not yet cached, build the source and store it in cache via weak reference.
+     * If the source is not yet cached, build the source and store it in cache.
      *
      * @param key the key of desired source
      * @return the source ready to use
      */
     public ByteProcessor getSource (SourceKey key)
     {
-        ByteProcessor src = getStrongRef(key);
+        ByteProcessor src = sources.get(key, getPinnedKeys());
 
         if (src == null) {
             switch (key) {
@@ -569,7 +572,7 @@ public class Picture
 
             if (src != null) {
                 // Store in cache
-                sources.put(key, new WeakReference<ByteProcessor>(src));
+                sources.put(key, src, getPinnedKeys());
                 logger.debug("{} source built as {}", key, src);
             }
         }
@@ -659,7 +662,8 @@ public class Picture
             final int radius = constants.medianRadius.getValue();
             logger.debug("Image filtered with median kernel radius: {}", radius);
 
-            MedianGrayFilter medianFilter = new MedianGrayFilter(radius);
+            AbstractGrayFilter medianFilter = constants.useSlidingMedian.isSet()
+                    ? new SlidingMedianGrayFilter(radius) : new MedianGrayFilter(radius);
 
             return medianFilter.filter(src);
         } finally {
@@ -760,30 +764,34 @@ public class Picture
                        Path oldSheetPath)
     {
         // Each handled table
-        for (Entry<TableKey, RunTableHolder> entry : tables.entrySet()) {
-            final TableKey key = entry.getKey();
+        for (Map.Entry<TableKey, RunTableHolder> entry : tables.entrySet()) {
             final RunTableHolder holder = entry.getValue();
-            final Path tablepath = sheetPath.resolve(key + ".xml");
 
             if (!holder.hasData()) {
                 if (oldSheetPath != null) {
                     try {
-                        // Copy from old book file to new
-                        Path oldTablePath = oldSheetPath.resolve(key + ".xml");
-                        Files.copy(oldTablePath, tablepath);
-                        logger.info("Copied {}", tablepath);
+                        // Copy from old book file to new (keeping the file format as is)
+                        final Path source = RunTableCodec.locate(
+                                oldSheetPath.resolve(holder.getPathString()));
+                        final String fileName = source.getFileName().toString();
+                        final Path target = sheetPath.resolve(fileName);
+                        Files.copy(source, target);
+                        holder.setPathString(fileName);
+                        logger.info("Copied {} to {}", source, target);
                     } catch (IOException ex) {
                         logger.warn("Error in picture.store " + ex, ex);
                     }
                 }
             } else if (holder.isModified()) {
                 try {
-                    Files.deleteIfExists(tablepath);
-
+                    // Persisted name may refer to the former format, hence re-derive it
+                    final String fileName = RunTableCodec.getFileName(entry.getKey().toString());
+                    final Path target = sheetPath.resolve(fileName);
                     RunTable table = holder.getData(sheet.getStub());
-                    Jaxb.marshal(table, tablepath, JAXBContext.newInstance(RunTable.class));
+                    RunTableCodec.store(table, target);
+                    holder.setPathString(fileName);
                     holder.setModified(false);
-                    logger.info("Stored {}", tablepath);
+                    logger.info("Stored {}", target);
                 } catch (Exception ex) {
                     logger.warn("Error in picture.store " + ex, ex);
                 }
@@ -937,26 +945,23 @@ public class Picture
         return img;
     }
 
-    //--------------//
-    // getStrongRef //
-    //--------------//
+    //---------------//
+    // getPinnedKeys //
+    //---------------//
     /**
-     * Report the actual (strong) reference, if any, of a weak source reference.
+     * Report the keys of sources needed by the step currently running on the sheet.
      *
-     * @param key the source key
-     * @return the strong reference, if any
+     * @return the pinned keys, perhaps empty
      */
-    private ByteProcessor getStrongRef (SourceKey key)
+    private Set<SourceKey> getPinnedKeys ()
     {
-        // Check if key is referenced
-        WeakReference<ByteProcessor> ref = sources.get(key);
+        final Step step = (sheet != null) ? sheet.getStub().getCurrentStep() : null;
 
-        if (ref != null) {
-            // Actual reference may be null or not (depending on garbage collection)
-            return ref.get();
+        if (step == null) {
+            return EnumSet.noneOf(SourceKey.class);
         }
 
-        return null;
+        return step.getNeededSources();
     }
 
     //~ Inner Classes ------------------------------------------------------------------------------
@@ -981,5 +986,14 @@ public class Picture
                 "pixels",
                 1,
                 "Radius of Median filtering kernel (1 for 3x3, 2 for 5x5)");
+
+        private final Constant.Boolean useSlidingMedian = new Constant.Boolean(
+                true,
+                "Should we use the sliding-histogram median filter rather than the brute force one?");
+
+        private final Constant.Integer sourceBudget = new Constant.Integer(
+                "MB",
+                64,
+                "Maximum size of sources kept in cache for a sheet");
     }
 }
@@ -22,18 +22,14 @@
 package org.audiveris.omr.sheet;
 
 import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableCodec;
 import org.audiveris.omr.sheet.Picture.TableKey;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -58,7 +54,7 @@ public class RunTableHolder
 
     /** Path to data on disk. */
     @XmlAttribute(name = "path")
-    private final String pathString;
+    private String pathString;
 
     /** To avoid useless marshalling to disk. */
     private boolean modified = false;
@@ -71,7 +67,7 @@ public class RunTableHolder
      */
     public RunTableHolder (TableKey key)
     {
-        pathString = key + ".xml";
+        pathString = RunTableCodec.getFileName(key.toString());
     }
 
     /** No-arg constructor needed for JAXB. */
@@ -97,17 +93,12 @@ public class RunTableHolder
                 stub.getBook().getLock().lock();
 
                 if (data == null) {
-                    JAXBContext jaxbContext = JAXBContext.newInstance(RunTable.class);
-                    Unmarshaller um = jaxbContext.createUnmarshaller();
-
-                    // Open book file system
-                    Path dataFile = stub.getBook().openSheetFolder(stub.getNumber())
-                            .resolve(pathString);
+                    // Open book file system (table may still be in former XML format)
+                    Path dataFile = RunTableCodec.locate(
+                            stub.getBook().openSheetFolder(stub.getNumber()).resolve(pathString));
                     logger.debug("path: {}", dataFile);
 
-                    InputStream is = Files.newInputStream(dataFile, StandardOpenOption.READ);
-                    data = (RunTable) um.unmarshal(is);
-                    is.close();
+                    data = RunTableCodec.load(dataFile);
 
                     dataFile.getFileSystem().close(); // Close book file system
                     modified = false;
@@ -123,6 +114,19 @@ public class RunTableHolder
         return data;
     }
 
+    //---------------//
+    // getPathString //
+    //---------------//
+    /**
+     * Report the path to data, relative to sheet folder.
+     *
+     * @return the relative path string
+     */
+    public String getPathString ()
+    {
+        return pathString;
+    }
+
     //---------//
     // hasData //
     //---------//
@@ -156,4 +160,17 @@ public class RunTableHolder
     {
         modified = bool;
     }
+
+    //---------------//
+    // setPathString //
+    //---------------//
+    /**
+     * Set the path to data, relative to sheet folder.
+     *
+     * @param pathString the relative path string of data file on disk
+     */
+    public void setPathString (String pathString)
+    {
+        this.pathString = pathString;
+    }
 }
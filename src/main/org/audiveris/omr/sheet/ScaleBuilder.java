@@ -27,7 +27,7 @@ import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.math.HiLoPeakFinder;
 import org.audiveris.omr.math.IntegerFunction;
 import org.audiveris.omr.math.Range;
-import org.audiveris.omr.run.Run;
+import org.audiveris.omr.run.RunCursor;
 import org.audiveris.omr.run.RunTable;
 import org.audiveris.omr.sheet.Scale.BeamScale;
 import org.audiveris.omr.sheet.Scale.InterlineScale;
@@ -40,7 +40,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.awt.Point;
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -384,9 +383,11 @@ public class ScaleBuilder
          */
         public void buildBlacks ()
         {
+            final RunCursor cursor = new RunCursor(binary);
+
             for (int x = 0, width = binary.getWidth(); x < width; x++) {
-                for (Iterator<Run> it = binary.iterator(x); it.hasNext();) {
-                    int black = it.next().getLength();
+                for (cursor.reset(x); cursor.next();) {
+                    int black = cursor.getLength();
 
                     if (black <= maxBlack) {
                         blackFunction.addValue(black, 1);
@@ -407,14 +408,15 @@ public class ScaleBuilder
          */
         public void buildCombos ()
         {
+            final RunCursor cursor = new RunCursor(binary);
+
             for (int x = 0, width = binary.getWidth(); x < width; x++) {
                 int yLast = 0; // Ordinate of first pixel not yet processed
                 int lastBlack = 0; // Length of last valid black run
 
-                for (Iterator<Run> it = binary.iterator(x); it.hasNext();) {
-                    Run run = it.next();
-                    final int y = run.getStart();
-                    final int black = run.getLength();
+                for (cursor.reset(x); cursor.next();) {
+                    final int y = cursor.getStart();
+                    final int black = cursor.getLength();
 
                     if ((black < blackPeak.min) || (black > blackPeak.max)) {
                         lastBlack = 0;
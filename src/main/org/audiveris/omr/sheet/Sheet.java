@@ -21,6 +21,7 @@
 // </editor-fold>
 package org.audiveris.omr.sheet;
 
+import org.audiveris.omr.classifier.EvaluationCache;
 import org.audiveris.omr.glyph.GlyphIndex;
 import org.audiveris.omr.glyph.dynamic.FilamentIndex;
 import org.audiveris.omr.glyph.ui.GlyphsController;
@@ -172,6 +173,13 @@ public interface Sheet
      */
     ErrorsEditor getErrorsEditor ();
 
+    /**
+     * Report the cache of glyph evaluations for this sheet.
+     *
+     * @return the evaluation cache (never null)
+     */
+    EvaluationCache getEvaluationCache ();
+
     /**
      * Report the global index for filaments of this sheet, or null
      *
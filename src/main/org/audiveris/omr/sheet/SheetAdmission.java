@@ -0,0 +1,279 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                  S h e e t A d m i s s i o n                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.util.Memory;
+import org.audiveris.omr.util.Metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Class {@code SheetAdmission} controls the starting of sheet tasks processed in
+ * parallel, so that the sheets in flight fit in the available heap.
+ * <p>
+ * Each sheet footprint is estimated from the largest image dimensions seen so far in the book
+ * (or a default value before any sheet has been processed).
+ * A new sheet is admitted only if both the sum of footprints reserved by sheets in flight and
+ * the currently occupied memory leave room for it.
+ * At least one sheet is always admitted, so that processing can progress.
+ *
+ * @author Hervé Bitteur
+ */
+public class SheetAdmission
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(SheetAdmission.class);
+
+    private static final long MB = 1024L * 1024L;
+
+    /** Probe on actual JVM memory. */
+    private static final MemoryProbe JVM_PROBE = new MemoryProbe()
+    {
+        @Override
+        public void gc ()
+        {
+            Memory.gc();
+        }
+
+        @Override
+        public long max ()
+        {
+            return Memory.max();
+        }
+
+        @Override
+        public long occupied ()
+        {
+            return Memory.occupied();
+        }
+    };
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** To read memory status. */
+    private final MemoryProbe memory;
+
+    /** Maximum number of sheets in flight. */
+    private final int maxSheets;
+
+    /** Part of max heap never allocated to sheets, in bytes. */
+    private final long margin;
+
+    /** Memory budget for sheets in flight, in bytes. */
+    private final long budget;
+
+    /** Current number of sheets in flight. */
+    private int inFlight;
+
+    /** Sum of footprints reserved by sheets in flight, in bytes. */
+    private long reserved;
+
+    /** Largest image size seen so far, in pixels. */
+    private long maxPixels;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code SheetAdmission} object.
+     * The memory occupied at creation time is considered as the baseline, not available to sheets.
+     *
+     * @param maxSheets maximum number of sheets in flight
+     */
+    public SheetAdmission (int maxSheets)
+    {
+        this(maxSheets, JVM_PROBE);
+    }
+
+    /**
+     * Creates a new {@code SheetAdmission} object, with a specific memory probe.
+     *
+     * @param maxSheets maximum number of sheets in flight
+     * @param memory    the memory probe to use
+     */
+    SheetAdmission (int maxSheets,
+                    MemoryProbe memory)
+    {
+        this.maxSheets = Math.max(1, maxSheets);
+        this.memory = memory;
+
+        final long max = memory.max();
+        margin = (long) (max * constants.memoryMargin.getValue());
+        budget = max - margin - memory.occupied();
+        logger.debug("SheetAdmission maxSheets:{} budget:{} MB", this.maxSheets, budget / MB);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------//
+    // acquire //
+    //---------//
+    /**
+     * Wait until a new sheet can be started, and reserve its estimated footprint.
+     *
+     * @return the reserved footprint, to be given back via {@link #release}
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized long acquire ()
+            throws InterruptedException
+    {
+        long footprint = getEstimate();
+        boolean gcDone = false;
+
+        while (!canAdmit(footprint)) {
+            if (!gcDone && (inFlight < maxSheets)) {
+                // Occupied memory may contain garbage from swapped sheets, give GC a chance
+                memory.gc();
+                gcDone = true;
+
+                continue;
+            }
+
+            logger.debug("Waiting admission inFlight:{} reserved:{} MB", inFlight, reserved / MB);
+            wait(constants.pollPeriod.getValue());
+            gcDone = false;
+            footprint = getEstimate(); // Estimate may have been refined meanwhile
+        }
+
+        inFlight++;
+        reserved += footprint;
+        publish();
+
+        return footprint;
+    }
+
+    //---------//
+    // release //
+    //---------//
+    /**
+     * Give back the footprint reserved for a sheet, now finished and swapped out.
+     *
+     * @param footprint the footprint returned by {@link #acquire}
+     * @param pixels    sheet image size in pixels, or 0 if unknown
+     */
+    public synchronized void release (long footprint,
+                                      long pixels)
+    {
+        inFlight--;
+        reserved -= footprint;
+        maxPixels = Math.max(maxPixels, pixels);
+        publish();
+        notifyAll();
+    }
+
+    //----------//
+    // canAdmit //
+    //----------//
+    private boolean canAdmit (long footprint)
+    {
+        if (inFlight == 0) {
+            return true;
+        }
+
+        if (inFlight >= maxSheets) {
+            return false;
+        }
+
+        return ((reserved + footprint) <= budget)
+               && ((memory.occupied() + footprint) <= (memory.max() - margin));
+    }
+
+    //-------------//
+    // getEstimate //
+    //-------------//
+    private long getEstimate ()
+    {
+        if (maxPixels == 0) {
+            return constants.defaultFootprint.getValue() * MB;
+        }
+
+        return maxPixels * constants.bytesPerPixel.getValue();
+    }
+
+    //---------//
+    // publish //
+    //---------//
+    /**
+     * Publish admission status as metrics gauges.
+     */
+    private void publish ()
+    {
+        Metrics.setGauge("sheets/inFlight", inFlight);
+        Metrics.setGauge("sheets/reservedMB", reserved / MB);
+    }
+
+    //~ Inner Interfaces ---------------------------------------------------------------------------
+    //-------------//
+    // MemoryProbe //
+    //-------------//
+    /**
+     * Access to memory status, meant to be replaced in tests.
+     */
+    interface MemoryProbe
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        /** Run the garbage collector. */
+        void gc ();
+
+        /**
+         * @return the maximum memory, in bytes
+         */
+        long max ();
+
+        /**
+         * @return the currently occupied memory, in bytes
+         */
+        long occupied ();
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer defaultFootprint = new Constant.Integer(
+                "MB",
+                400,
+                "Estimated sheet footprint before any image size is known");
+
+        private final Constant.Integer bytesPerPixel = new Constant.Integer(
+                "bytes",
+                48,
+                "Estimated sheet footprint per image pixel");
+
+        private final Constant.Ratio memoryMargin = new Constant.Ratio(
+                0.1,
+                "Ratio of max heap never allocated to sheets");
+
+        private final Constant.Integer pollPeriod = new Constant.Integer(
+                "ms",
+                500,
+                "Period for re-checking memory while waiting for admission");
+    }
+}
@@ -0,0 +1,264 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                     S o u r c e C a c h e                                      //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.sheet.Picture.SourceKey;
+import org.audiveris.omr.util.Metrics;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Class {@code SourceCache} is the cache of {@link Picture} sources, with a byte budget.
+ * <p>
+ * Sources are kept via strong references, in least-recently-used order.
+ * When a new source is stored and the budget is exceeded, the least recently used sources are
+ * evicted, except the pinned ones (those needed by the running step).
+ * An evicted source is only weakly referenced, so that it can still be reused if not yet garbage
+ * collected.
+ * <p>
+ * Cache hits and source builds are counted per source key.
+ *
+ * @author Hervé Bitteur
+ */
+@ThreadSafe
+public class SourceCache
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(SourceCache.class);
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Maximum cumulated size of strongly referenced sources, in bytes. */
+    private final long budget;
+
+    /** Strongly referenced sources, in access order. */
+    private final LinkedHashMap<SourceKey, ByteProcessor> strongs = new LinkedHashMap<SourceKey, ByteProcessor>(
+            8,
+            0.75f,
+            true);
+
+    /** Evicted sources, weakly referenced. */
+    private final EnumMap<SourceKey, WeakReference<ByteProcessor>> weaks = new EnumMap<SourceKey, WeakReference<ByteProcessor>>(
+            SourceKey.class);
+
+    /** Cumulated size of strongly referenced sources, in bytes. */
+    private long size;
+
+    /** Number of hits, per key ordinal. */
+    private final int[] hits = new int[SourceKey.values().length];
+
+    /** Number of builds, per key ordinal. */
+    private final int[] builds = new int[SourceKey.values().length];
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code SourceCache} object.
+     *
+     * @param budget maximum cumulated size of strongly referenced sources, in bytes
+     */
+    public SourceCache (long budget)
+    {
+        this.budget = budget;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-----//
+    // get //
+    //-----//
+    /**
+     * Report the cached source, if any.
+     *
+     * @param key    the source key
+     * @param pinned the keys not to be evicted
+     * @return the cached source, or null
+     */
+    public synchronized ByteProcessor get (SourceKey key,
+                                           Set<SourceKey> pinned)
+    {
+        ByteProcessor src = strongs.get(key);
+
+        if (src == null) {
+            // Perhaps an evicted source not yet garbage collected
+            final WeakReference<ByteProcessor> ref = weaks.remove(key);
+
+            if ((ref != null) && ((src = ref.get()) != null)) {
+                strongs.put(key, src);
+                size += sizeOf(src);
+                trim(pinned);
+            }
+        }
+
+        if (src != null) {
+            hits[key.ordinal()]++;
+            Metrics.increment("picture/hits/" + key);
+        }
+
+        return src;
+    }
+
+    //-----------//
+    // getBuilds //
+    //-----------//
+    /**
+     * Report how many times the source has been built.
+     *
+     * @param key the source key
+     * @return the number of builds
+     */
+    public synchronized int getBuilds (SourceKey key)
+    {
+        return builds[key.ordinal()];
+    }
+
+    //---------//
+    // getHits //
+    //---------//
+    /**
+     * Report how many times the source has been found in cache.
+     *
+     * @param key the source key
+     * @return the number of hits
+     */
+    public synchronized int getHits (SourceKey key)
+    {
+        return hits[key.ordinal()];
+    }
+
+    //---------//
+    // getSize //
+    //---------//
+    /**
+     * Report the cumulated size of strongly referenced sources.
+     *
+     * @return size in bytes
+     */
+    public synchronized long getSize ()
+    {
+        return size;
+    }
+
+    //-----//
+    // put //
+    //-----//
+    /**
+     * Store a freshly built source, and evict sources if budget is exceeded.
+     *
+     * @param key    the source key
+     * @param src    the source built
+     * @param pinned the keys not to be evicted
+     */
+    public synchronized void put (SourceKey key,
+                                  ByteProcessor src,
+                                  Set<SourceKey> pinned)
+    {
+        builds[key.ordinal()]++;
+        Metrics.increment("picture/builds/" + key);
+
+        remove(key);
+        strongs.put(key, src);
+        size += sizeOf(src);
+        trim(pinned);
+    }
+
+    //--------//
+    // remove //
+    //--------//
+    /**
+     * Remove the source from cache.
+     *
+     * @param key the source key
+     */
+    public synchronized void remove (SourceKey key)
+    {
+        final ByteProcessor src = strongs.remove(key);
+
+        if (src != null) {
+            size -= sizeOf(src);
+        }
+
+        weaks.remove(key);
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public synchronized String toString ()
+    {
+        StringBuilder sb = new StringBuilder(getClass().getSimpleName());
+        sb.append("{size:").append(size).append('/').append(budget);
+
+        for (SourceKey key : SourceKey.values()) {
+            sb.append(' ').append(key).append(':').append(strongs.containsKey(key) ? "S" : "-")
+                    .append(hits[key.ordinal()]).append('/').append(builds[key.ordinal()]);
+        }
+
+        return sb.append('}').toString();
+    }
+
+    //--------//
+    // sizeOf //
+    //--------//
+    private static long sizeOf (ByteProcessor src)
+    {
+        return (long) src.getWidth() * src.getHeight();
+    }
+
+    //------//
+    // trim //
+    //------//
+    /**
+     * Evict least recently used sources, except pinned ones, until budget is met.
+     *
+     * @param pinned the keys not to be evicted
+     */
+    private void trim (Set<SourceKey> pinned)
+    {
+        for (Iterator<Entry<SourceKey, ByteProcessor>> it = strongs.entrySet().iterator();
+                it.hasNext() && (size > budget);) {
+            final Entry<SourceKey, ByteProcessor> entry = it.next();
+
+            if (!pinned.contains(entry.getKey())) {
+                it.remove();
+                size -= sizeOf(entry.getValue());
+                weaks.put(entry.getKey(), new WeakReference<ByteProcessor>(entry.getValue()));
+                logger.debug("Source {} evicted", entry.getKey());
+            }
+        }
+
+        if (size > budget) {
+            logger.debug("Pinned sources exceed cache budget: {}", this);
+        }
+    }
+}
@@ -30,6 +30,7 @@ import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.GlyphFactory;
 import org.audiveris.omr.glyph.GlyphIndex;
 import org.audiveris.omr.glyph.Symbol.Group;
+import org.audiveris.omr.image.FastMorphoProcessor;
 import org.audiveris.omr.image.ImageUtil;
 import org.audiveris.omr.image.MorphoProcessor;
 import org.audiveris.omr.image.StructureElement;
@@ -174,7 +175,12 @@ public class SpotsBuilder
         final int[] seOffset = {0, 0};
         StructureElement se = new StructureElement(0, 1, radius, seOffset);
         watch.start("close");
-        new MorphoProcessor(se).close(buffer);
+
+        if (constants.useFastMorphology.isSet()) {
+            new FastMorphoProcessor(se).close(buffer);
+        } else {
+            new MorphoProcessor(se).close(buffer);
+        }
 
         // For visual check
         if (cueId == null) {
@@ -213,7 +219,7 @@ public class SpotsBuilder
         watch.start("createTable");
 
         RunTableFactory runFactory = new RunTableFactory(SPOT_ORIENTATION);
-        RunTable spotTable = runFactory.createTable(buffer);
+        RunTable spotTable = runFactory.createParallelTable(buffer);
 
         // Glyphs
         watch.start("buildGlyphs");
@@ -327,6 +333,7 @@ public class SpotsBuilder
             buffer = table.getBuffer();
 
             // Apply median filter
+            // (on this stem-free buffer, not on cached MEDIAN source built from NO_STAFF)
             watch.start("median");
             buffer = picture.medianFiltered(buffer);
 
@@ -405,6 +412,10 @@ public class SpotsBuilder
                 0.8,
                 "Diameter of circle used to close beam spots, as ratio of beam height");
 
+        private final Constant.Boolean useFastMorphology = new Constant.Boolean(
+                true,
+                "Should we close beam spots with segment-based morphology?");
+
         private final Constant.Integer beamBinarizationThreshold = new Constant.Integer(
                 "pixel",
                 140,
@@ -28,6 +28,7 @@ import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.Shape;
 import org.audiveris.omr.image.ImageUtil;
+import org.audiveris.omr.image.Skeletonizer;
 import org.audiveris.omr.sheet.PageCleaner;
 import org.audiveris.omr.sheet.Picture;
 import org.audiveris.omr.sheet.Scale;
@@ -51,6 +52,7 @@ import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.geom.Area;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -208,6 +210,9 @@ public class Skeleton
      * <li>Bar lines, connections and stems can be crossed by a curve.
      * Perhaps another specific background value could be used?</li>
      * </ul>
+     * <p>
+     * With tiled thinning, skeleton buffer and returned image share the same pixels, so that shapes
+     * are erased directly in the skeleton buffer.
      *
      * @return the skeleton image (in parallel of setting the skeleton buffer)
      */
@@ -218,10 +223,25 @@ public class Skeleton
 
         ///ByteProcessor buffer = picture.getSource(Picture.SourceKey.NO_STAFF);
         ByteProcessor buffer = picture.getSource(Picture.SourceKey.BINARY);
-        buffer = (ByteProcessor) buffer.duplicate();
-        buffer.skeletonize();
-
-        BufferedImage img = buffer.getBufferedImage();
+        final boolean tiled = constants.useTiledThinning.isSet();
+        final BufferedImage img;
+
+        if (tiled) {
+            // Skeleton buffer is backed by image raster
+            img = new BufferedImage(
+                    buffer.getWidth(),
+                    buffer.getHeight(),
+                    BufferedImage.TYPE_BYTE_GRAY);
+
+            byte[] data = ((DataBufferByte) img.getRaster().getDataBuffer()).getData();
+            System.arraycopy(buffer.getPixels(), 0, data, 0, data.length);
+            buffer = new ByteProcessor(buffer.getWidth(), buffer.getHeight(), data, null);
+            new Skeletonizer(buffer).skeletonize();
+        } else {
+            buffer = (ByteProcessor) buffer.duplicate();
+            buffer.skeletonize();
+            img = buffer.getBufferedImage();
+        }
 
         // Erase good shapes of each system, both non-crossables and crossables
         Graphics2D g = img.createGraphics();
@@ -258,7 +278,10 @@ public class Skeleton
         cleaner.eraseDistantRegions();
 
         // Build buffer
-        buffer = new ByteProcessor(img);
+        if (!tiled) {
+            buffer = new ByteProcessor(img);
+        }
+
         buffer.threshold(127);
 
         // Keep a copy on disk?
@@ -482,6 +505,10 @@ public class Skeleton
                 false,
                 "Should we store skeleton images on disk?");
 
+        private final Constant.Boolean useTiledThinning = new Constant.Boolean(
+                true,
+                "Should we use tiled parallel thinning (rather than ImageJ skeletonize)?");
+
         private final Constant.Boolean useHeader = new Constant.Boolean(
                 true,
                 "Should we erase the header at staff start");
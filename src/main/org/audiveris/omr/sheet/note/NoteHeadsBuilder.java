@@ -37,7 +37,6 @@ import org.audiveris.omr.image.PixelDistance;
 import org.audiveris.omr.image.ShapeDescriptor;
 import org.audiveris.omr.image.TemplateFactory;
 import org.audiveris.omr.image.TemplateFactory.Catalog;
-import org.audiveris.omr.math.GeoOrder;
 import org.audiveris.omr.math.GeoPath;
 import org.audiveris.omr.math.GeoUtil;
 import org.audiveris.omr.math.LineUtil;
@@ -78,6 +77,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -157,7 +157,7 @@ public class NoteHeadsBuilder
     private Catalog catalog;
 
     /** The competing interpretations for the system. */
-    private List<Inter> systemCompetitors;
+    private Set<Inter> systemCompetitors;
 
     /** The vertical (stem) seeds for the system. */
     private List<Glyph> systemSeeds;
@@ -234,7 +234,6 @@ public class NoteHeadsBuilder
 
             // Consider seed-based heads as special competitors for x-based notes
             systemCompetitors.addAll(ch);
-            Collections.sort(systemCompetitors, Inter.byOrdinate);
 
             // Second, process x-based notes for the staff
             watch.start("Staff #" + staff.getId() + " range");
@@ -430,16 +429,14 @@ public class NoteHeadsBuilder
      */
     private List<Inter> getCompetitorsSlice (Area area)
     {
-        List<Inter> rawComps = SIGraph.intersectedInters(
-                systemCompetitors,
-                GeoOrder.BY_ORDINATE,
-                area);
+        // Use sig spatial index, rather than browsing all system competitors
+        List<Inter> rawComps = sig.intersectedInters(area);
 
         // Keep only the "really good" competitors
         List<Inter> kept = new ArrayList<Inter>();
 
         for (Inter inter : rawComps) {
-            if (inter.isGood()) {
+            if (inter.isGood() && systemCompetitors.contains(inter)) {
                 kept.add(inter);
             }
         }
@@ -525,7 +522,7 @@ public class NoteHeadsBuilder
      *
      * @return the really good competitors
      */
-    private List<Inter> getSystemCompetitors ()
+    private Set<Inter> getSystemCompetitors ()
     {
         List<Inter> comps = sig.inters(
                 new Predicate<Inter>()
@@ -559,9 +556,7 @@ public class NoteHeadsBuilder
             }
         });
 
-        Collections.sort(comps, Inter.byOrdinate);
-
-        return comps;
+        return new HashSet<Inter>(comps);
     }
 
     //---------//
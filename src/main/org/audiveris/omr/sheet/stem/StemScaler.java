@@ -31,7 +31,7 @@ import org.audiveris.omr.math.HiLoPeakFinder;
 import org.audiveris.omr.math.IntegerFunction;
 import org.audiveris.omr.math.Range;
 import org.audiveris.omr.run.Orientation;
-import org.audiveris.omr.run.Run;
+import org.audiveris.omr.run.RunCursor;
 import org.audiveris.omr.run.RunTable;
 import org.audiveris.omr.run.RunTableFactory;
 import org.audiveris.omr.sheet.PageCleaner;
@@ -54,7 +54,6 @@ import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -294,10 +293,11 @@ public class StemScaler
         {
             final int height = horiTable.getHeight();
             final int maxLength = function.getXMax();
+            final RunCursor cursor = new RunCursor(horiTable);
 
             for (int y = 0; y < height; y++) {
-                for (Iterator<Run> it = horiTable.iterator(y); it.hasNext();) {
-                    final int blackLength = it.next().getLength();
+                for (cursor.reset(y); cursor.next();) {
+                    final int blackLength = cursor.getLength();
 
                     if (blackLength <= maxLength) {
                         function.addValue(blackLength, 1);
@@ -98,6 +98,9 @@ public class SymbolsBuilder
     /** Scale-dependent global constants. */
     private final Parameters params;
 
+    /** Counters on glyph clusters decomposition. */
+    private final GlyphCluster.Statistics clusterStats = new GlyphCluster.Statistics();
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new SymbolsBuilder object.
@@ -233,6 +236,19 @@ public class SymbolsBuilder
         }
     }
 
+    //----------------------//
+    // getClusterStatistics //
+    //----------------------//
+    /**
+     * Report the counters cumulated on all glyph clusters decomposed in this system.
+     *
+     * @return the cluster statistics
+     */
+    public GlyphCluster.Statistics getClusterStatistics ()
+    {
+        return clusterStats;
+    }
+
     //------------------//
     // getSymbolsGlyphs //
     //------------------//
@@ -343,7 +359,12 @@ public class SymbolsBuilder
                 // Use just the subgraph for this (sub)set
                 final SimpleGraph<Glyph, GlyphLink> subGraph;
                 subGraph = GlyphCluster.getSubGraph(subSet, systemGraph, true);
-                new GlyphCluster(new SymbolAdapter(subGraph), Group.SYMBOL).decompose();
+
+                final GlyphCluster cluster = new GlyphCluster(
+                        new SymbolAdapter(subGraph),
+                        Group.SYMBOL);
+                cluster.decompose();
+                clusterStats.include(cluster.getStatistics());
             } else {
                 // The set is just an isolated glyph, to be evaluated directly
                 final Glyph glyph = set.iterator().next();
@@ -24,6 +24,7 @@ package org.audiveris.omr.sheet.symbol;
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.glyph.GlyphCluster;
 import org.audiveris.omr.sheet.Sheet;
 import org.audiveris.omr.sheet.SystemInfo;
 import org.audiveris.omr.sheet.note.ChordsBuilder;
@@ -100,7 +101,10 @@ public class SymbolsStep
 
         // Retrieve symbols inters
         watch.start("buildSymbols");
-        new SymbolsBuilder(system, factory).buildSymbols(context.optionalsMap);
+
+        final SymbolsBuilder builder = new SymbolsBuilder(system, factory);
+        builder.buildSymbols(context.optionalsMap);
+        context.clusterStats.include(builder.getClusterStatistics());
 
         // Allocate rest-based chords
         watch.start("buildRestChords");
@@ -115,6 +119,17 @@ public class SymbolsStep
         }
     }
 
+    //----------//
+    // doEpilog //
+    //----------//
+    @Override
+    protected void doEpilog (Sheet sheet,
+                             Context context)
+            throws StepException
+    {
+        logger.info("Symbols clusters {}", context.clusterStats);
+    }
+
     //----------//
     // doProlog //
     //----------//
@@ -142,6 +157,9 @@ public class SymbolsStep
 
         /** Map of optional (weak) glyphs per system. */
         public final Map<SystemInfo, List<Glyph>> optionalsMap = new TreeMap<SystemInfo, List<Glyph>>();
+
+        /** Counters on glyph clusters, cumulated over all systems. */
+        public final GlyphCluster.Statistics clusterStats = new GlyphCluster.Statistics();
     }
 
     //-----------//
@@ -25,7 +25,9 @@ import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Shape;
 import org.audiveris.omr.math.GeoOrder;
+import org.audiveris.omr.math.GridIndex;
 import static org.audiveris.omr.math.GeoOrder.*;
+import org.audiveris.omr.sheet.Scale;
 import org.audiveris.omr.sheet.Staff;
 import org.audiveris.omr.sheet.StaffManager;
 import org.audiveris.omr.sheet.SystemInfo;
@@ -89,6 +91,12 @@ public class SIGraph
     /** Content for differed populating after unmarshalling. */
     private SigValue sigValue;
 
+    /** Spatial index of inters, lazily allocated. */
+    private GridIndex<Inter> interGrid;
+
+    /** Inters whose bounds are not yet (or no longer) up-to-date in spatial index. */
+    private final Set<Inter> pendings = new LinkedHashSet<Inter>();
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new SIGraph object at system level.
@@ -144,6 +152,12 @@ public class SIGraph
         boolean res = super.addVertex(inter);
         inter.setSig(this);
 
+        // Update spatial index (inter bounds may not be known yet)
+        synchronized (pendings) {
+            getInterGrid().insert(inter, null);
+            pendings.add(inter);
+        }
+
         // Update index
         if (inter.getId() == 0) {
             system.getSheet().getInterIndex().register(inter);
@@ -193,6 +207,32 @@ public class SIGraph
         }
     }
 
+    //---------------//
+    // boundsChanged //
+    //---------------//
+    /**
+     * Notify that the bounds of the provided inter have changed, so that the spatial
+     * index gets updated accordingly.
+     * <p>
+     * The containing ensemble, if any, is updated as well, since its bounds depend on its members.
+     *
+     * @param inter the inter whose bounds have changed
+     */
+    public void boundsChanged (Inter inter)
+    {
+        synchronized (pendings) {
+            if ((interGrid != null) && interGrid.contains(inter)) {
+                pendings.add(inter);
+            }
+        }
+
+        final InterEnsemble ensemble = inter.getEnsemble();
+
+        if (ensemble != null) {
+            boundsChanged(ensemble);
+        }
+    }
+
     //------------------------//
     // computeContextualGrade //
     //------------------------//
@@ -220,8 +260,10 @@ public class SIGraph
     {
         List<Inter> found = new ArrayList<Inter>();
 
-        for (Inter inter : vertexSet()) {
-            if (rect.contains(inter.getBounds())) {
+        for (Inter inter : getCandidates(rect)) {
+            Rectangle bounds = inter.getBounds();
+
+            if ((bounds != null) && rect.contains(bounds)) {
                 found.add(inter);
             }
         }
@@ -243,7 +285,7 @@ public class SIGraph
     {
         List<Inter> found = new ArrayList<Inter>();
 
-        for (Inter inter : vertexSet()) {
+        for (Inter inter : getCandidates(new Rectangle(point.x, point.y, 1, 1))) {
             Rectangle bounds = inter.getBounds();
 
             if ((bounds != null) && bounds.contains(point)) {
@@ -781,6 +823,58 @@ public class SIGraph
         return found;
     }
 
+    //-------------------//
+    // intersectedInters //
+    //-------------------//
+    /**
+     * Lookup the sig interpretations for those whose bounds intersect the given box.
+     * <p>
+     * This uses the sig spatial index, and is thus cheaper than a linear browsing.
+     *
+     * @param box the intersecting box
+     * @return the intersected interpretations found
+     */
+    public List<Inter> intersectedInters (Rectangle box)
+    {
+        List<Inter> found = new ArrayList<Inter>();
+
+        for (Inter inter : getCandidates(box)) {
+            Rectangle iBox = inter.getBounds();
+
+            if ((iBox != null) && box.intersects(iBox)) {
+                found.add(inter);
+            }
+        }
+
+        return found;
+    }
+
+    //-------------------//
+    // intersectedInters //
+    //-------------------//
+    /**
+     * Lookup the sig interpretations for those whose bounds intersect the given area.
+     * <p>
+     * This uses the sig spatial index, and is thus cheaper than a linear browsing.
+     *
+     * @param area the intersecting area
+     * @return the intersected interpretations found
+     */
+    public List<Inter> intersectedInters (Area area)
+    {
+        List<Inter> found = new ArrayList<Inter>();
+
+        for (Inter inter : getCandidates(area.getBounds())) {
+            Rectangle iBox = inter.getBounds();
+
+            if ((iBox != null) && area.intersects(iBox)) {
+                found.add(inter);
+            }
+        }
+
+        return found;
+    }
+
     //-------------//
     // hasRelation //
     //-------------//
@@ -1207,6 +1301,15 @@ public class SIGraph
         // Remove from inter index
         system.getSheet().getInterIndex().remove(inter);
 
+        // Remove from spatial index
+        synchronized (pendings) {
+            if (interGrid != null) {
+                interGrid.remove(inter);
+            }
+
+            pendings.remove(inter);
+        }
+
         return super.removeVertex(inter);
     }
 
@@ -1253,6 +1356,28 @@ public class SIGraph
         return sb.toString();
     }
 
+    //-------//
+    // boxOf //
+    //-------//
+    /**
+     * Report the box to register in spatial index for the provided inter.
+     * <p>
+     * Ensembles are registered with their bounds as well.
+     * This relies on {@link #boundsChanged(Inter)} being called whenever the bounds of an inter
+     * are modified or their cached value is cleared, including by a change in ensemble members.
+     *
+     * @param inter the provided inter
+     * @return the box to register, or null if bounds are not known yet
+     */
+    private static Rectangle boxOf (Inter inter)
+    {
+        try {
+            return inter.getBounds();
+        } catch (Exception ex) {
+            return null; // Bounds not yet computable
+        }
+    }
+
     //------------------------//
     // computeContextualGrade //
     //------------------------//
@@ -1318,6 +1443,52 @@ public class SIGraph
         return bestCg;
     }
 
+    //---------------//
+    // getCandidates //
+    //---------------//
+    /**
+     * Report the inters whose registered box in spatial index intersects the provided
+     * rectangle, after pending inters have been (re-)registered.
+     *
+     * @param rect the provided rectangle
+     * @return the candidates, in sig insertion order
+     */
+    private List<Inter> getCandidates (Rectangle rect)
+    {
+        synchronized (pendings) {
+            final GridIndex<Inter> grid = getInterGrid();
+
+            for (Inter inter : pendings) {
+                grid.update(inter, boxOf(inter));
+            }
+
+            pendings.clear();
+
+            return grid.getCandidates(rect);
+        }
+    }
+
+    //--------------//
+    // getInterGrid //
+    //--------------//
+    private GridIndex<Inter> getInterGrid ()
+    {
+        if (interGrid == null) {
+            final Scale scale = (system != null) ? system.getSheet().getScale() : null;
+            final int cellSize = (scale != null) ? scale.toPixels(constants.gridCellSize)
+                    : constants.defaultGridCellSize.getValue();
+            interGrid = new GridIndex<Inter>(Math.max(1, cellSize));
+
+            // Populate with current inters if any
+            for (Inter inter : vertexSet()) {
+                interGrid.insert(inter, null);
+                pendings.add(inter);
+            }
+        }
+
+        return interGrid;
+    }
+
     //----------------//
     // involvedInters //
     //----------------//
@@ -1387,6 +1558,15 @@ public class SIGraph
                 "count",
                 6,
                 "Upper limit on number of supports used for contextual grade");
+
+        private final Scale.Fraction gridCellSize = new Scale.Fraction(
+                4.0,
+                "Side of cells in spatial index of inters");
+
+        private final Constant.Integer defaultGridCellSize = new Constant.Integer(
+                "pixels",
+                80,
+                "Side of cells in spatial index of inters, when scale is not known");
     }
 
     //----------------//
@@ -86,6 +86,7 @@ import java.awt.geom.Line2D;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -1255,6 +1256,13 @@ public class SigReducer
     {
         Collections.sort(inters, Inter.byAbscissa);
 
+        // Rank of each inter in the sorted list
+        final Map<Inter, Integer> ranks = new HashMap<Inter, Integer>();
+
+        for (int i = 0; i < inters.size(); i++) {
+            ranks.put(inters.get(i), i);
+        }
+
         NextLeft:
         for (int i = 0, iBreak = inters.size() - 1; i < iBreak; i++) {
             Inter left = inters.get(i);
@@ -1285,9 +1293,7 @@ public class SigReducer
                 }
             }
 
-            final double xMax = leftBox.getMaxX();
-
-            for (Inter right : inters.subList(i + 1, inters.size())) {
+            for (Inter right : getRightCandidates(i, leftBox, ranks)) {
                 if (right.isDeleted()) {
                     continue;
                 }
@@ -1331,8 +1337,6 @@ public class SigReducer
                             continue NextLeft;
                         }
                     }
-                } else if (rightBox.x > xMax) {
-                    break; // Since inters list is sorted by abscissa
                 }
             }
         }
@@ -1416,6 +1420,47 @@ public class SigReducer
         return inters;
     }
 
+    //--------------------//
+    // getRightCandidates //
+    //--------------------//
+    /**
+     * Retrieve, via sig spatial index, the inters that may overlap the provided left
+     * box and that follow the left inter in the sorted list.
+     *
+     * @param i       rank of left inter in sorted list
+     * @param leftBox bounds of left inter
+     * @param ranks   rank of each inter in sorted list
+     * @return the candidates, in list order
+     */
+    private List<Inter> getRightCandidates (int i,
+                                            Rectangle leftBox,
+                                            final Map<Inter, Integer> ranks)
+    {
+        final List<Inter> candidates = new ArrayList<Inter>();
+
+        for (Inter inter : sig.intersectedInters(leftBox)) {
+            final Integer rank = ranks.get(inter);
+
+            if ((rank != null) && (rank > i)) {
+                candidates.add(inter);
+            }
+        }
+
+        Collections.sort(
+                candidates,
+                new Comparator<Inter>()
+        {
+            @Override
+            public int compare (Inter i1,
+                                Inter i2)
+            {
+                return Integer.compare(ranks.get(i1), ranks.get(i2));
+            }
+        });
+
+        return candidates;
+    }
+
     //-----------------------//
     // ledgerHasHeadOrLedger //
     //-----------------------//
@@ -1249,6 +1249,10 @@ public abstract class AbstractChordInter
         headLocation = null;
         tailLocation = null;
 
+        if (sig != null) {
+            sig.boundsChanged(this);
+        }
+
         // Compute global grade based on contained notes (TODO: +stem as well?)
         if (!notes.isEmpty() && (sig != null)) {
             double gr = 0;
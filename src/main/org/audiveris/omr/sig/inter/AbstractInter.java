@@ -833,6 +833,10 @@ public abstract class AbstractInter
     public void setBounds (Rectangle bounds)
     {
         this.bounds = bounds;
+
+        if (sig != null) {
+            sig.boundsChanged(this);
+        }
     }
 
     //--------------------//
@@ -473,7 +473,7 @@ public class HeadInter
                 new BasicGlyph(descBox.x + foreBox.x, descBox.y + foreBox.y, runTable));
 
         // Use glyph bounds as inter bounds
-        bounds = glyph.getBounds();
+        setBounds(glyph.getBounds());
     }
 
     //--------//
@@ -184,6 +184,10 @@ public class KeyInter
         alters.add(i, alter);
         alter.setEnsemble(this);
         bounds = null;
+
+        if (sig != null) {
+            sig.boundsChanged(this);
+        }
     }
 
     //-------------//
@@ -490,6 +494,7 @@ public class KeyInter
         // Reset cached data
         bounds = null;
         ctxGrade = null;
+        sig.boundsChanged(this);
     }
 
     //-----------//
@@ -354,6 +354,8 @@ public class SentenceInter
             if (words.isEmpty()) {
                 logger.debug("Deleting empty {}", this);
                 delete();
+            } else if (sig != null) {
+                sig.boundsChanged(this); // Bounds are computed from words
             }
         } else {
             throw new IllegalArgumentException("Only WordInter can be removed from Sentence");
@@ -26,6 +26,7 @@ import org.audiveris.omr.OMR;
 import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.sheet.Sheet;
 import org.audiveris.omr.sheet.SystemInfo;
+import org.audiveris.omr.util.Metrics;
 import org.audiveris.omr.util.OmrExecutors;
 
 import org.slf4j.Logger;
@@ -173,6 +174,8 @@ public abstract class AbstractSystemStep<C>
     {
         try {
             final boolean parallel = Main.processSystemsInParallel();
+            final Step step = sheet.getStub().getCurrentStep();
+            final String timer = "systems/" + ((step != null) ? step : getClass().getSimpleName());
             final Collection<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
 
             for (final SystemInfo system : sheet.getSystems()) {
@@ -185,6 +188,8 @@ public abstract class AbstractSystemStep<C>
                     {
                         // If run on a separate thread (case of parallel), we have to set/unset log
                         // If not, let's not unset log (it may be needed in following epilog)
+                        final long start = System.nanoTime();
+
                         try {
                             if (parallel) {
                                 LogUtil.start(sheet.getStub());
@@ -199,6 +204,11 @@ public abstract class AbstractSystemStep<C>
                         } catch (Exception ex) {
                             logger.warn(system.getLogPrefix() + ex, ex);
                         } finally {
+                            Metrics.record(
+                                    timer,
+                                    start,
+                                    sheet.getId() + " system#" + system.getId());
+
                             if (parallel) {
                                 LogUtil.stopStub();
                             }
@@ -212,7 +222,7 @@ public abstract class AbstractSystemStep<C>
             // Process all systems
             if (parallel) {
                 // In parallel
-                OmrExecutors.getLowExecutor().invokeAll(tasks);
+                OmrExecutors.invokeAll(tasks);
             } else {
                 // In sequence
                 for (Callable<Void> task : tasks) {
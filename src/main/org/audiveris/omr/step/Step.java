@@ -21,6 +21,7 @@
 // </editor-fold>
 package org.audiveris.omr.step;
 
+import org.audiveris.omr.sheet.Picture.SourceKey;
 import org.audiveris.omr.sheet.Sheet;
 import org.audiveris.omr.sheet.beam.BeamsStep;
 import org.audiveris.omr.sheet.beam.CueBeamsStep;
@@ -39,6 +40,11 @@ import org.audiveris.omr.sheet.symbol.SymbolsStep;
 import org.audiveris.omr.sheet.ui.SheetTab;
 import org.audiveris.omr.text.TextsStep;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * Enum {@code Step} describes the steps of sheet processing pipeline.
  * <p>
@@ -51,20 +57,29 @@ public enum Step
     LOAD("Load the sheet (gray) picture", new LoadStep()),
     BINARY("Binarize the sheet picture", new BinaryStep()),
     SCALE("Compute sheet line thickness, interline, beam thickness", new ScaleStep()),
-    GRID("Retrieve staff lines, barlines, systems & parts", new GridStep()),
-    HEADERS("Retrieve Clef-Key-Time systems headers", new HeadersStep()),
-    STEM_SEEDS("Retrieve stem thickness & seeds for stems", new StemSeedsStep()),
-    BEAMS("Retrieve beams", new BeamsStep()),
-    LEDGERS("Retrieve ledgers", new LedgersStep()),
-    HEADS("Retrieve note heads & whole notes", new HeadsStep()),
+    GRID(
+            "Retrieve staff lines, barlines, systems & parts",
+            new GridStep(),
+            SourceKey.BINARY,
+            SourceKey.NO_STAFF),
+    HEADERS("Retrieve Clef-Key-Time systems headers", new HeadersStep(), SourceKey.NO_STAFF),
+    STEM_SEEDS(
+            "Retrieve stem thickness & seeds for stems",
+            new StemSeedsStep(),
+            SourceKey.NO_STAFF),
+    // Median & Gaussian filters are applied on a private stem-free copy of NO_STAFF
+    BEAMS("Retrieve beams", new BeamsStep(), SourceKey.NO_STAFF),
+    LEDGERS("Retrieve ledgers", new LedgersStep(), SourceKey.NO_STAFF),
+    HEADS("Retrieve note heads & whole notes", new HeadsStep(), SourceKey.BINARY),
     STEMS("Build stems connected to heads & beams", new StemsStep()),
     REDUCTION("Reduce conflicts in heads, stems & beams", new ReductionStep()),
-    CUE_BEAMS("Retrieve cue beams", new CueBeamsStep()),
-    TEXTS("Call OCR on textual items", new TextsStep()),
+    // Cue spots are closed and thresholded on small copies of BINARY, without filtering
+    CUE_BEAMS("Retrieve cue beams", new CueBeamsStep(), SourceKey.BINARY, SourceKey.NO_STAFF),
+    TEXTS("Call OCR on textual items", new TextsStep(), SourceKey.NO_STAFF),
     MEASURES("Retrieve raw measures from groups of bar lines", new MeasuresStep()),
     CHORDS("Gather notes heads into chords", new ChordsStep()),
-    CURVES("Retrieve slurs, wedges & endings", new CurvesStep()),
-    SYMBOLS("Retrieve fixed-shape symbols", new SymbolsStep()),
+    CURVES("Retrieve slurs, wedges & endings", new CurvesStep(), SourceKey.BINARY),
+    SYMBOLS("Retrieve fixed-shape symbols", new SymbolsStep(), SourceKey.NO_STAFF),
     LINKS("Link and reduce symbols", new LinksStep()),
     RHYTHMS("Handle rhythms within measures", new RhythmsStep()),
     PAGE("Connect systems within page", new PageStep());
@@ -75,17 +90,26 @@ public enum Step
     /** Helper for step implementation. */
     private final AbstractStep helper;
 
+    /** Picture sources needed by the step. */
+    private final Set<SourceKey> neededSources;
+
     /**
      * Create an instance of {@code Step}.
      *
-     * @param description step description
-     * @param helper      step implementation
+     * @param description   step description
+     * @param helper        step implementation
+     * @param neededSources picture sources needed by the step, to be kept in cache
      */
     private Step (String description,
-                  AbstractStep helper)
+                  AbstractStep helper,
+                  SourceKey... neededSources)
     {
         this.description = description;
         this.helper = helper;
+
+        EnumSet<SourceKey> set = EnumSet.noneOf(SourceKey.class);
+        set.addAll(Arrays.asList(neededSources));
+        this.neededSources = Collections.unmodifiableSet(set);
     }
 
     //-------//
@@ -181,6 +205,24 @@ public enum Step
         return description;
     }
 
+    //------------------//
+    // getNeededSources //
+    //------------------//
+    /**
+     * Report the picture sources needed by the step, which should be kept in cache
+     * while the step is running.
+     * <p>
+     * Only the sources read via {@link org.audiveris.omr.sheet.Picture#getSource} are listed.
+     * A buffer that a step derives on its own (such as the filtered spots buffer of BEAMS step)
+     * is not cached and is thus not listed.
+     *
+     * @return the (unmodifiable) set of needed sources, perhaps empty
+     */
+    public Set<SourceKey> getNeededSources ()
+    {
+        return neededSources;
+    }
+
     //-------------//
     // getSheetTab //
     //-------------//
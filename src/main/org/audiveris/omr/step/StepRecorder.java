@@ -0,0 +1,439 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    S t e p R e c o r d e r                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.step;
+
+import org.audiveris.omr.sheet.SheetStub;
+import org.audiveris.omr.util.Metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class {@code StepRecorder} records wall time, CPU time and allocated bytes of each
+ * step performed on each sheet, while it is the active recorder.
+ * <p>
+ * When no other step runs during a step (sheets being processed one at a time), CPU time and
+ * allocated bytes are whole-process deltas, thus including the work delegated by the step to
+ * other threads (typically parallel processing of systems), as well as JVM background activity
+ * such as garbage collection.
+ * Allocated bytes are summed from per-thread deltas, over the threads alive at step end: bytes
+ * allocated by threads terminated meanwhile are missed, hence the figure is a lower bound.
+ * <p>
+ * Otherwise, these whole-process deltas cannot be attributed to one step, and measurements are
+ * taken on the thread that runs the step only: work delegated to other threads is then accounted
+ * for in wall time only.
+ * Each record tells which scope applies.
+ * <p>
+ * This is the single instrumentation point of steps: besides the active recorder if any, it feeds
+ * the "steps/" timers of {@link Metrics} if enabled.
+ * <p>
+ * There is at most one active recorder, and no recording cost at all when there is none and
+ * metrics are disabled.
+ *
+ * @author Hervé Bitteur
+ */
+public class StepRecorder
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** To read thread CPU time and allocated bytes. */
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    /** To read process CPU time. */
+    private static final OperatingSystemMXBean osBean = ManagementFactory
+            .getOperatingSystemMXBean();
+
+    /** Number of probes in progress. */
+    private static final AtomicInteger running = new AtomicInteger();
+
+    /** Number of probes started so far. */
+    private static final AtomicInteger started = new AtomicInteger();
+
+    /** The active recorder, if any. */
+    private static volatile StepRecorder active;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Records so far, in order of step completion. */
+    private final List<Record> records = new ArrayList<Record>();
+
+    /** Current pass number. */
+    private volatile int pass = 1;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-----------//
+    // setActive //
+    //-----------//
+    /**
+     * Set the active recorder.
+     *
+     * @param recorder the recorder to activate, or null to stop any recording
+     */
+    public static void setActive (StepRecorder recorder)
+    {
+        active = recorder;
+    }
+
+    //-------//
+    // start //
+    //-------//
+    /**
+     * Notify the start of a step on a sheet, to be called by the thread that runs the step.
+     *
+     * @param stub the sheet stub
+     * @param step the step starting
+     * @return the probe to be passed to {@link #stop}, or null if there is no active recorder
+     *         and metrics are disabled
+     */
+    public static Probe start (SheetStub stub,
+                               Step step)
+    {
+        final StepRecorder recorder = active;
+
+        if ((recorder == null) && !Metrics.isEnabled()) {
+            return null;
+        }
+
+        return new Probe(recorder, stub, step);
+    }
+
+    //------//
+    // stop //
+    //------//
+    /**
+     * Notify the end of a step, to be called by the same thread as {@link #start}.
+     *
+     * @param probe the probe returned by start, perhaps null
+     * @param ok    true if step completed successfully
+     */
+    public static void stop (Probe probe,
+                             boolean ok)
+    {
+        if (probe != null) {
+            final Record record = probe.stop(ok);
+
+            if (Metrics.isEnabled()) {
+                Metrics.record("steps/" + probe.step, probe.startWall, probe.stub.getId());
+            }
+
+            if (probe.recorder != null) {
+                probe.recorder.add(record);
+            }
+        }
+    }
+
+    //------------//
+    // getRecords //
+    //------------//
+    /**
+     * Report a copy of the records so far.
+     *
+     * @return records, in order of step completion
+     */
+    public List<Record> getRecords ()
+    {
+        synchronized (records) {
+            return new ArrayList<Record>(records);
+        }
+    }
+
+    //---------//
+    // setPass //
+    //---------//
+    /**
+     * Set the current pass number, for the steps to come.
+     *
+     * @param pass the pass number
+     */
+    public void setPass (int pass)
+    {
+        this.pass = pass;
+    }
+
+    //-----//
+    // add //
+    //-----//
+    private void add (Record record)
+    {
+        synchronized (records) {
+            records.add(record);
+        }
+    }
+
+    //----------------//
+    // allocatedBytes //
+    //----------------//
+    /**
+     * Report the bytes allocated so far by current thread, if JVM supports it.
+     *
+     * @return allocated bytes, or -1 if not supported
+     */
+    private static long allocatedBytes ()
+    {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(
+                    Thread.currentThread().getId());
+        }
+
+        return -1;
+    }
+
+    //---------------------------//
+    // processAllocatedBytesSince //
+    //---------------------------//
+    /**
+     * Report the bytes allocated by all live threads since the provided snapshot.
+     * <p>
+     * Each thread contributes its own delta, a thread started after the snapshot contributing all
+     * its allocations. Since per-thread counters only grow and thread IDs are never reused, the
+     * result cannot be negative, but threads terminated since the snapshot are missed.
+     *
+     * @param start snapshot taken at start, perhaps null
+     * @return allocated bytes, or -1 if not supported
+     */
+    private static long processAllocatedBytesSince (Map<Long, Long> start)
+    {
+        final Map<Long, Long> stop = threadAllocatedBytes();
+
+        if ((start == null) || (stop == null)) {
+            return -1;
+        }
+
+        long sum = 0;
+
+        for (Map.Entry<Long, Long> entry : stop.entrySet()) {
+            final Long before = start.get(entry.getKey());
+            sum += Math.max(0, entry.getValue() - ((before != null) ? before : 0));
+        }
+
+        return sum;
+    }
+
+    //----------------//
+    // processCpuTime //
+    //----------------//
+    /**
+     * Report the CPU time used by the whole process so far, if JVM supports it.
+     *
+     * @return CPU time in nanoseconds, or -1 if not supported
+     */
+    public static long processCpuTime ()
+    {
+        if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) osBean).getProcessCpuTime();
+        }
+
+        return -1;
+    }
+
+    //----------------------//
+    // threadAllocatedBytes //
+    //----------------------//
+    /**
+     * Report the bytes allocated so far by each live thread, if JVM supports it.
+     *
+     * @return allocated bytes per thread ID, or null if not supported
+     */
+    private static Map<Long, Long> threadAllocatedBytes ()
+    {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            final long[] ids = threadBean.getAllThreadIds();
+            final long[] bytes = ((com.sun.management.ThreadMXBean) threadBean)
+                    .getThreadAllocatedBytes(ids);
+            final Map<Long, Long> map = new HashMap<Long, Long>(2 * ids.length);
+
+            for (int i = 0; i < ids.length; i++) {
+                if (bytes[i] >= 0) { // -1 for a terminated thread
+                    map.put(ids[i], bytes[i]);
+                }
+            }
+
+            return map;
+        }
+
+        return null;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-------//
+    // Probe //
+    //-------//
+    /**
+     * Measurement in progress for one step on one sheet.
+     */
+    public static class Probe
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Recorder active at probe start, if any. */
+        private final StepRecorder recorder;
+
+        private final SheetStub stub;
+
+        private final Step step;
+
+        private final int pass;
+
+        /** True if another probe was in progress when this one started. */
+        private final boolean overlapped;
+
+        /** Value of started counter, including this probe. */
+        private final int startedIndex;
+
+        private final long startWall;
+
+        private final long startCpu;
+
+        private final long startAllocated;
+
+        private final long startProcessCpu;
+
+        /** Allocated bytes per thread at start, or null. */
+        private final Map<Long, Long> startProcessAllocated;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        private Probe (StepRecorder recorder,
+                       SheetStub stub,
+                       Step step)
+        {
+            this.recorder = recorder;
+            this.stub = stub;
+            this.step = step;
+            pass = (recorder != null) ? recorder.pass : 0;
+            overlapped = running.incrementAndGet() > 1;
+            startedIndex = started.incrementAndGet();
+            startProcessAllocated = threadAllocatedBytes();
+            startProcessCpu = processCpuTime();
+            startAllocated = allocatedBytes();
+            startCpu = threadBean.getCurrentThreadCpuTime();
+            startWall = System.nanoTime();
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        private Record stop (boolean ok)
+        {
+            final long wall = System.nanoTime() - startWall;
+            final long cpu = threadBean.getCurrentThreadCpuTime() - startCpu;
+            final long allocated = allocatedBytes();
+            final long processCpu = processCpuTime();
+            final long processAllocated = processAllocatedBytesSince(startProcessAllocated);
+
+            // Whole-process deltas apply only if no other step ran meanwhile
+            final boolean alone = !overlapped && (started.get() == startedIndex);
+            running.decrementAndGet();
+
+            final String book = stub.getBook().getRadix();
+            final int sheet = stub.getNumber();
+
+            if (alone && (startProcessCpu >= 0) && (processCpu >= 0)) {
+                return new Record(
+                        book,
+                        sheet,
+                        pass,
+                        step,
+                        ok,
+                        true,
+                        wall,
+                        processCpu - startProcessCpu,
+                        processAllocated);
+            }
+
+            return new Record(
+                    book,
+                    sheet,
+                    pass,
+                    step,
+                    ok,
+                    false,
+                    wall,
+                    cpu,
+                    ((startAllocated < 0) || (allocated < 0)) ? -1 : (allocated - startAllocated));
+        }
+    }
+
+    //--------//
+    // Record //
+    //--------//
+    /**
+     * Measurement of one step on one sheet.
+     */
+    public static class Record
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Book radix. */
+        public final String book;
+
+        /** Sheet number in book. */
+        public final int sheet;
+
+        /** Pass number. */
+        public final int pass;
+
+        /** Step performed. */
+        public final Step step;
+
+        /** True if step completed successfully. */
+        public final boolean ok;
+
+        /** True for whole-process CPU and allocations, false for step thread only. */
+        public final boolean processWide;
+
+        /** Elapsed time, in nanoseconds. */
+        public final long wallNanos;
+
+        /** CPU time of process or step thread, in nanoseconds. */
+        public final long cpuNanos;
+
+        /**
+         * Bytes allocated by process (a lower bound) or step thread, or -1 if unknown.
+         */
+        public final long allocatedBytes;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Record (String book,
+                       int sheet,
+                       int pass,
+                       Step step,
+                       boolean ok,
+                       boolean processWide,
+                       long wallNanos,
+                       long cpuNanos,
+                       long allocatedBytes)
+        {
+            this.book = book;
+            this.sheet = sheet;
+            this.pass = pass;
+            this.step = step;
+            this.ok = ok;
+            this.processWide = processWide;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+}
@@ -62,6 +62,13 @@ public interface OCR
      */
     boolean isAvailable ();
 
+    /**
+     * Release all resources (such as initialized engines) held by the OCR service.
+     * This is final: no new engine is created afterwards, and any further call to
+     * {@link #recognize} returns null.
+     */
+    void shutdown ();
+
     /**
      * Return OCR engine identification.
      *
@@ -25,10 +25,12 @@ import org.audiveris.omr.WellKnowns;
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.sheet.Scale;
+import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.text.OCR;
 import org.audiveris.omr.text.TextChar;
 import org.audiveris.omr.text.TextLine;
 import org.audiveris.omr.text.TextWord;
+import org.audiveris.omr.util.Metrics;
 
 import org.bytedeco.javacpp.tesseract;
 import org.bytedeco.javacpp.tesseract.StringGenericVector;
@@ -43,9 +45,14 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -53,6 +60,9 @@ import java.util.concurrent.atomic.AtomicInteger;
  *
  * <p>
  * It relies on <b>tesseract3</b> C++ program, accessed through a <b>JavaCPP</b>-based bridge.</p>
+ * <p>
+ * Since initializing a Tesseract engine (loading language data) is expensive, engines are kept in
+ * a bounded pool per language specification and reused from one order to the other.</p>
  *
  * @author Hervé Bitteur
  */
@@ -76,6 +86,12 @@ public class TesseractOCR
     /** To assign a serial number to each image processing order. */
     private final AtomicInteger serial = new AtomicInteger(0);
 
+    /** Pools of initialized engines, per language specification. */
+    private final Map<String, EnginePool> pools = new HashMap<String, EnginePool>();
+
+    /** Set when service has been shut down. Guarded by pools. */
+    private boolean closed;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates the TesseractOCR singleton.
@@ -170,18 +186,35 @@ public class TesseractOCR
             return null;
         }
 
+        final EnginePool pool = getPool(languageCode);
+
+        if (pool == null) {
+            logger.info("OCR already shut down, {} not processed", label);
+
+            return null;
+        }
+
+        final long start = System.nanoTime();
+
         try {
             // Allocate a processing order
             TesseractOrder order = new TesseractOrder(
                     label,
                     serial.incrementAndGet(),
                     constants.keepImages.isSet(),
-                    languageCode,
+                    pool.lang,
                     getMode(layoutMode),
                     bufferedImage);
 
-            // Process the order
-            List<TextLine> lines = order.process();
+            // Process the order with a pooled engine
+            final List<TextLine> lines;
+            final TessBaseAPI api = pool.acquire();
+
+            try {
+                lines = order.process(api);
+            } finally {
+                pool.release(api);
+            }
 
             // Post-processing
             if (lines != null) {
@@ -219,9 +252,30 @@ public class TesseractOCR
             logger.warn("Could not create OCR order", ex);
 
             return null;
+        } catch (InterruptedException ex) {
+            throw new ProcessingCancellationException(ex);
         } catch (UnsatisfiedLinkError ex) {
             logger.warn("OCR link error", ex);
             throw new UnavailableOcrException();
+        } finally {
+            Metrics.record("ocr/" + pool.lang, start);
+        }
+    }
+
+    //----------//
+    // shutdown //
+    //----------//
+    @Override
+    public void shutdown ()
+    {
+        synchronized (pools) {
+            closed = true;
+
+            for (EnginePool pool : pools.values()) {
+                pool.close();
+            }
+
+            pools.clear();
         }
     }
 
@@ -246,6 +300,34 @@ public class TesseractOCR
         }
     }
 
+    //---------//
+    // getPool //
+    //---------//
+    /**
+     * Report the engine pool for the provided language specification, creating it if needed.
+     *
+     * @param languageCode language specification or null
+     * @return the related pool, or null if service has been shut down
+     */
+    private EnginePool getPool (String languageCode)
+    {
+        final String lang = (languageCode != null) ? languageCode : "eng";
+
+        synchronized (pools) {
+            if (closed) {
+                return null;
+            }
+
+            EnginePool pool = pools.get(lang);
+
+            if (pool == null) {
+                pools.put(lang, pool = new EnginePool(lang));
+            }
+
+            return pool;
+        }
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //-----------//
     // Constants //
@@ -266,5 +348,195 @@ public class TesseractOCR
         private final Scale.Fraction maxDashWidth = new Scale.Fraction(
                 1.0,
                 "Maximum width for a dash character");
+
+        private final Constant.Integer maxEngines = new Constant.Integer(
+                "engines",
+                4,
+                "Maximum number of Tesseract engines kept per language");
+    }
+
+    //------------//
+    // EnginePool //
+    //------------//
+    /**
+     * A bounded pool of Tesseract engines, all initialized for the same language.
+     * <p>
+     * An engine is cleared when returned to the pool, so that no image or adaptive data leaks from
+     * one order to the next.
+     */
+    private static class EnginePool
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Language specification. */
+        private final String lang;
+
+        /** Engines ready for use. */
+        private final BlockingQueue<TessBaseAPI> idle = new LinkedBlockingQueue<TessBaseAPI>();
+
+        /** Number of engines created so far (and not ended). */
+        private int created;
+
+        /** Set when pool is closed. */
+        private volatile boolean closed;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public EnginePool (String lang)
+        {
+            this.lang = lang;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        //---------//
+        // acquire //
+        //---------//
+        /**
+         * Get an initialized engine, creating one if pool limit is not reached, otherwise waiting
+         * for an engine to be released.
+         *
+         * @return the engine, or null if engine could not be initialized or pool is closed
+         * @throws InterruptedException if interrupted while waiting
+         */
+        public TessBaseAPI acquire ()
+                throws InterruptedException
+        {
+            while (true) {
+                final TessBaseAPI api = idle.poll();
+
+                if (api != null) {
+                    return api;
+                }
+
+                if (closed) {
+                    return null;
+                }
+
+                if (reserve()) {
+                    return create();
+                }
+
+                // Wait for an engine to be released (or for a failed creation to free its slot)
+                final TessBaseAPI released = idle.poll(1, TimeUnit.SECONDS);
+
+                if (released != null) {
+                    return released;
+                }
+            }
+        }
+
+        //-------//
+        // close //
+        //-------//
+        /**
+         * End all idle engines, busy ones will be ended when released.
+         */
+        public void close ()
+        {
+            closed = true;
+
+            TessBaseAPI api;
+
+            while ((api = idle.poll()) != null) {
+                end(api);
+            }
+        }
+
+        //---------//
+        // release //
+        //---------//
+        /**
+         * Give back an engine to the pool.
+         *
+         * @param api the engine acquired from this pool (perhaps null)
+         */
+        public void release (TessBaseAPI api)
+        {
+            if (api == null) {
+                return;
+            }
+
+            if (closed) {
+                end(api);
+            } else {
+                api.Clear();
+                api.ClearAdaptiveClassifier();
+                idle.offer(api);
+            }
+        }
+
+        //--------//
+        // create //
+        //--------//
+        /**
+         * Create and initialize a new engine, a slot having been reserved beforehand.
+         *
+         * @return the new engine, or null if initialization failed
+         */
+        private TessBaseAPI create ()
+        {
+            boolean ok = false;
+
+            try {
+                final TessBaseAPI api = new TessBaseAPI();
+
+                if (api.Init(WellKnowns.OCR_FOLDER.toString(), lang) != 0) {
+                    api.End();
+
+                    return null;
+                }
+
+                logger.debug("Tesseract engine created for lang {}", lang);
+                ok = true;
+
+                return api;
+            } finally {
+                if (!ok) {
+                    unreserve();
+                }
+            }
+        }
+
+        //-----//
+        // end //
+        //-----//
+        private void end (TessBaseAPI api)
+        {
+            try {
+                api.End();
+            } finally {
+                unreserve();
+            }
+        }
+
+        //---------//
+        // reserve //
+        //---------//
+        /**
+         * Reserve a slot for a new engine, if pool is still open and pool limit allows.
+         *
+         * @return true if reserved
+         */
+        private synchronized boolean reserve ()
+        {
+            if (closed) {
+                return false;
+            }
+
+            if (created < Math.max(1, constants.maxEngines.getValue())) {
+                created++;
+
+                return true;
+            }
+
+            return false;
+        }
+
+        //-----------//
+        // unreserve //
+        //-----------//
+        private synchronized void unreserve ()
+        {
+            created--;
+        }
     }
 }
@@ -38,10 +38,10 @@ import java.awt.Rectangle;
 import java.awt.geom.Line2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
-import java.io.FileOutputStream;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
 import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -94,7 +94,7 @@ public class TesseractOrder
     /** Desired handling of layout. */
     private final int segMode;
 
-    /** The dedicated API. */
+    /** The API, provided by the engine pool. */
     private TessBaseAPI api;
 
     /** The image being processed. */
@@ -116,7 +116,7 @@ public class TesseractOrder
      * @param bufferedImage The image to process
      *
      * @throws UnsatisfiedLinkError When bridge to C++ could not be loaded
-     * @throws IOException          When temporary Tiff buffer failed
+     * @throws IOException          When the disk copy of image could not be written
      * @throws RuntimeException     When PIX image failed
      */
     public TesseractOrder (String label,
@@ -133,10 +133,13 @@ public class TesseractOrder
         this.lang = lang;
         this.segMode = segMode;
 
-        // Build a PIX from the image provided
-        ByteBuffer buf = toTiffBuffer(bufferedImage);
-        buf.position(0);
-        image = pixReadMemTiff(buf, buf.capacity(), 0);
+        // Should we keep a local copy of this image on disk?
+        if (keepImage) {
+            saveImage(bufferedImage);
+        }
+
+        // Build a PIX directly from the image pixels
+        image = toPix(bufferedImage);
 
         if (image == null) {
             logger.warn("Invalid image {}", label);
@@ -150,18 +153,20 @@ public class TesseractOrder
     // process //
     //---------//
     /**
-     * Actually allocate a Tesseract API and recognize the image.
+     * Recognize the image, using the provided Tesseract API.
+     * <p>
+     * The API is already initialized for the order language, it is left as is for its caller
+     * to clear or end it.
      *
+     * @param api the initialized API to use, or null if no API could be initialized
      * @return the sequence of lines found
      */
-    public List<TextLine> process ()
+    public List<TextLine> process (TessBaseAPI api)
     {
-        try {
-            //api = new TessBaseAPI(WellKnowns.OCR_FOLDER.toString());
-            api = new TessBaseAPI();
+        this.api = api;
 
-            // Init API with proper language
-            if (api.Init(WellKnowns.OCR_FOLDER.toString(), lang) != 0) {
+        try {
+            if (api == null) {
                 logger.warn("Could not initialize Tesseract with lang {}", lang);
 
                 return finish(null);
@@ -232,7 +237,8 @@ public class TesseractOrder
     // finish //
     //--------//
     /**
-     * Convenient way to cleanup Tesseract resources while ending the current processing
+     * Convenient way to cleanup order resources while ending the current processing.
+     * (The API itself is handled by the caller)
      *
      * @param lines the lines found, if any
      * @return the lines found, if nay
@@ -243,10 +249,6 @@ public class TesseractOrder
             pixDestroy(image);
         }
 
-        if (api != null) {
-            api.End();
-        }
-
         return lines;
     }
 
@@ -384,27 +386,30 @@ public class TesseractOrder
         }
     }
 
-    //--------------//
-    // toTiffBuffer //
-    //--------------//
+    //-----------//
+    // saveImage //
+    //-----------//
     /**
-     * Convert the given image into a TIFF-formatted ByteBuffer for
-     * passing it directly to Tesseract.
-     * A copy of the tiff buffer can be saved on disk, if so desired.
+     * Save a TIFF copy of the given image into the TEMP folder, for debugging purpose.
      *
      * @param image the input image
-     * @return a buffer in TIFF format
      */
-    private ByteBuffer toTiffBuffer (BufferedImage image)
+    private void saveImage (BufferedImage image)
             throws IOException
     {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        String name = String.format("%03d-", serial) + ((label != null) ? label : "");
+        Path path = WellKnowns.TEMP_FOLDER.resolve(name + ".tif");
+
+        // Make sure the TEMP directory exists
+        if (!Files.exists(WellKnowns.TEMP_FOLDER)) {
+            Files.createDirectories(WellKnowns.TEMP_FOLDER);
+        }
 
         try {
             ImageOutputStream ios = null;
 
             try {
-                ios = ImageIO.createImageOutputStream(baos);
+                ios = ImageIO.createImageOutputStream(path.toFile());
 
                 ImageWriter writer = ImageIO.getImageWritersByFormatName("tiff").next();
                 writer.setOutput(ios);
@@ -415,40 +420,74 @@ public class TesseractOrder
                 }
             }
         } catch (Exception ex) {
-            logger.warn("Could not write image", ex);
+            logger.warn("Could not write to {}", path, ex);
         }
+    }
 
-        ByteBuffer buf = ByteBuffer.allocate(baos.size());
-        byte[] bytes = baos.toByteArray();
-        buf.put(bytes);
+    //-------//
+    // toPix //
+    //-------//
+    /**
+     * Build an 8-bit gray PIX directly out of the given image pixels.
+     * <p>
+     * This avoids any encoding and decoding of an intermediate image format.
+     * Leptonica packs 4 pixels per 32-bit word, the leftmost pixel in the most significant byte.
+     *
+     * @param image the input image
+     * @return the populated PIX, or null if allocation failed
+     */
+    private static PIX toPix (BufferedImage image)
+    {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final PIX pix = pixCreate(width, height, 8);
 
-        // Should we keep a local copy of this buffer on disk?
-        if (keepImage) {
-            String name = String.format("%03d-", serial) + ((label != null) ? label : "");
-            Path path = WellKnowns.TEMP_FOLDER.resolve(name + ".tif");
+        if (pix == null) {
+            return null;
+        }
 
-            // Make sure the TEMP directory exists
-            if (!Files.exists(WellKnowns.TEMP_FOLDER)) {
-                Files.createDirectories(WellKnowns.TEMP_FOLDER);
+        final int wpl = pixGetWpl(pix);
+        final int[] words = new int[wpl * height];
+
+        if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            // Direct access to gray bytes
+            final Raster raster = image.getRaster();
+            final ComponentSampleModel model = (ComponentSampleModel) raster.getSampleModel();
+            final DataBufferByte dataBuffer = (DataBufferByte) raster.getDataBuffer();
+            final byte[] bytes = dataBuffer.getData();
+            final int scanStride = model.getScanlineStride();
+            final int origin = dataBuffer.getOffset()
+                               + model.getOffset(
+                            -raster.getSampleModelTranslateX(),
+                            -raster.getSampleModelTranslateY());
+
+            for (int y = 0; y < height; y++) {
+                final int line = y * wpl;
+
+                for (int x = 0, p = origin + (y * scanStride); x < width; x++, p++) {
+                    words[line + (x >> 2)] |= ((bytes[p] & 0xFF) << (24 - (8 * (x & 3))));
+                }
             }
-
-            try {
-                FileOutputStream fos = null;
-
-                try {
-                    fos = new FileOutputStream(path.toFile());
-                    fos.write(bytes);
-                } finally {
-                    if (fos != null) {
-                        fos.close();
-                    }
+        } else {
+            // Gray level computed from RGB values
+            final int[] rgbs = new int[width];
+
+            for (int y = 0; y < height; y++) {
+                final int line = y * wpl;
+                image.getRGB(0, y, width, 1, rgbs, 0, width);
+
+                for (int x = 0; x < width; x++) {
+                    final int rgb = rgbs[x];
+                    final int level = ((299 * ((rgb >> 16) & 0xFF)) + (587 * ((rgb >> 8) & 0xFF))
+                                       + (114 * (rgb & 0xFF))) / 1000;
+                    words[line + (x >> 2)] |= (level << (24 - (8 * (x & 3))));
                 }
-            } catch (Exception ex) {
-                logger.warn("Could not write to {}", path, ex);
             }
         }
 
-        return buf;
+        pixGetData(pix).put(words, 0, words.length);
+
+        return pix;
     }
 
     /**
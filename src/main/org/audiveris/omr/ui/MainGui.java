@@ -39,6 +39,7 @@ import org.audiveris.omr.sheet.ui.SheetResultPainter;
 import org.audiveris.omr.sheet.ui.StubsController;
 import org.audiveris.omr.step.ui.StepMenu;
 import org.audiveris.omr.step.ui.StepMonitoring;
+import org.audiveris.omr.text.TextBuilder;
 import org.audiveris.omr.ui.action.ActionManager;
 import org.audiveris.omr.ui.action.Actions;
 import org.audiveris.omr.ui.selection.MouseMovement;
@@ -771,6 +772,9 @@ public class MainGui
             }
 
             logger.debug("{} book(s) closed", count);
+
+            // Release OCR engines
+            TextBuilder.getOcr().shutdown();
         }
     }
 }
@@ -0,0 +1,306 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                      J s o n W r i t e r                                       //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+
+/**
+ * Class {@code JsonWriter} writes a JSON document to a file, one member or element per
+ * line, taking care of quoting, separators and indentation.
+ * <p>
+ * Structures are opened and closed explicitly, a null name being used for an array element or for
+ * the top-level object:
+ * <pre>
+ * JsonWriter json = new JsonWriter(path);
+ * try {
+ *     json.beginObject(null).value("book", "chula").beginArray("passes");
+ *     json.beginObject(null).value("pass", 1).endObject();
+ *     json.endArray().endObject();
+ * } finally {
+ *     json.close();
+ * }
+ * </pre>
+ *
+ * @author Hervé Bitteur
+ */
+public class JsonWriter
+        implements Closeable
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Underlying output. */
+    private final PrintWriter out;
+
+    /** For each open structure, whether it is still empty. */
+    private final Deque<Boolean> empties = new ArrayDeque<Boolean>();
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code JsonWriter} object on the provided file.
+     *
+     * @param path the target file, created or truncated
+     * @throws IOException if file cannot be opened
+     */
+    public JsonWriter (Path path)
+            throws IOException
+    {
+        out = new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8));
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //------------//
+    // beginArray //
+    //------------//
+    /**
+     * Open an array.
+     *
+     * @param name member name, or null for an array element
+     * @return this writer
+     */
+    public JsonWriter beginArray (String name)
+    {
+        return begin(name, '[');
+    }
+
+    //-------------//
+    // beginObject //
+    //-------------//
+    /**
+     * Open an object.
+     *
+     * @param name member name, or null for an array element or the top-level object
+     * @return this writer
+     */
+    public JsonWriter beginObject (String name)
+    {
+        return begin(name, '{');
+    }
+
+    //-------//
+    // close //
+    //-------//
+    @Override
+    public void close ()
+            throws IOException
+    {
+        out.println();
+        out.close();
+
+        if (out.checkError()) {
+            throw new IOException("Error writing JSON output");
+        }
+    }
+
+    //----------//
+    // endArray //
+    //----------//
+    /**
+     * Close the current array.
+     *
+     * @return this writer
+     */
+    public JsonWriter endArray ()
+    {
+        return end(']');
+    }
+
+    //-----------//
+    // endObject //
+    //-----------//
+    /**
+     * Close the current object.
+     *
+     * @return this writer
+     */
+    public JsonWriter endObject ()
+    {
+        return end('}');
+    }
+
+    //--------//
+    // quoted //
+    //--------//
+    /**
+     * Report the JSON string literal for the provided string.
+     *
+     * @param str the string to quote
+     * @return the string literal, with quotes and escapes
+     */
+    public static String quoted (String str)
+    {
+        final StringBuilder sb = new StringBuilder(str.length() + 2).append('"');
+
+        for (int i = 0; i < str.length(); i++) {
+            final char c = str.charAt(i);
+
+            if ((c == '"') || (c == '\\')) {
+                sb.append('\\').append(c);
+            } else if (c < ' ') {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+
+        return sb.append('"').toString();
+    }
+
+    //-------//
+    // value //
+    //-------//
+    /**
+     * Write a string value, or null.
+     *
+     * @param name  member name, or null for an array element
+     * @param value the value, perhaps null
+     * @return this writer
+     */
+    public JsonWriter value (String name,
+                             String value)
+    {
+        return raw(name, (value != null) ? quoted(value) : "null");
+    }
+
+    //-------//
+    // value //
+    //-------//
+    /**
+     * Write an integer value.
+     *
+     * @param name  member name, or null for an array element
+     * @param value the value
+     * @return this writer
+     */
+    public JsonWriter value (String name,
+                             long value)
+    {
+        return raw(name, Long.toString(value));
+    }
+
+    //-------//
+    // value //
+    //-------//
+    /**
+     * Write a decimal value, with 3 decimals.
+     *
+     * @param name  member name, or null for an array element
+     * @param value the value, NaN being written as null
+     * @return this writer
+     */
+    public JsonWriter value (String name,
+                             double value)
+    {
+        return raw(name, Double.isNaN(value) ? "null" : String.format(Locale.US, "%.3f", value));
+    }
+
+    //-------//
+    // value //
+    //-------//
+    /**
+     * Write a boolean value.
+     *
+     * @param name  member name, or null for an array element
+     * @param value the value
+     * @return this writer
+     */
+    public JsonWriter value (String name,
+                             boolean value)
+    {
+        return raw(name, Boolean.toString(value));
+    }
+
+    //-------//
+    // begin //
+    //-------//
+    private JsonWriter begin (String name,
+                              char opening)
+    {
+        raw(name, String.valueOf(opening));
+        empties.push(true);
+
+        return this;
+    }
+
+    //-----//
+    // end //
+    //-----//
+    private JsonWriter end (char closing)
+    {
+        final boolean empty = empties.pop();
+
+        if (!empty) {
+            newLine();
+        }
+
+        out.print(closing);
+
+        return this;
+    }
+
+    //---------//
+    // newLine //
+    //---------//
+    private void newLine ()
+    {
+        out.println();
+
+        for (int i = 0; i < empties.size(); i++) {
+            out.print("  ");
+        }
+    }
+
+    //-----//
+    // raw //
+    //-----//
+    /**
+     * Write the provided member or element, preceded by a separator if needed.
+     */
+    private JsonWriter raw (String name,
+                            String text)
+    {
+        if (!empties.isEmpty()) {
+            if (!empties.pop()) {
+                out.print(',');
+            }
+
+            empties.push(false);
+            newLine();
+        }
+
+        if (name != null) {
+            out.print(quoted(name));
+            out.print(": ");
+        }
+
+        out.print(text);
+
+        return this;
+    }
+}
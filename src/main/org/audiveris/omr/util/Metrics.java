@@ -0,0 +1,519 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                         M e t r i c s                                          //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import org.audiveris.omr.OMR;
+import org.audiveris.omr.WellKnowns;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class {@code Metrics} is a registry of named counters, timers and gauges, meant to
+ * surface runtime telemetry of batch runs.
+ * <p>
+ * Metrics are fed by steps (via {@link org.audiveris.omr.step.StepRecorder}), systems,
+ * classifiers, OCR and sheet load/store.
+ * They are dumped in JSON format at the end of a batch run, and optionally snapshot
+ * periodically during the run, into file metrics.json of the log folder.
+ * <p>
+ * Metrics are collected only in batch mode and when {@code useMetrics} constant is set.
+ * Names are slash-separated paths, such as "steps/GRID" or "systems/SYMBOLS".
+ * They must come from a bounded set, so no sheet or system identifier is used in a name.
+ * Instead, each measure of a timer may name its item, such as "chula#2 system#3", and the timer
+ * keeps the few slowest items besides its aggregate figures.
+ * This tells which sheet or system is slow for a given step, with a bounded footprint.
+ *
+ * @author Hervé Bitteur
+ */
+@ThreadSafe
+public abstract class Metrics
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(Metrics.class);
+
+    /** All counters, sorted by name. */
+    private static final ConcurrentSkipListMap<String, Counter> counters = new ConcurrentSkipListMap<String, Counter>();
+
+    /** All timers, sorted by name. */
+    private static final ConcurrentSkipListMap<String, Timer> timers = new ConcurrentSkipListMap<String, Timer>();
+
+    /** All gauges, sorted by name. */
+    private static final ConcurrentSkipListMap<String, AtomicLong> gauges = new ConcurrentSkipListMap<String, AtomicLong>();
+
+    /** Periodic snapshots, if any. */
+    private static ScheduledExecutorService snapshots;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Not meant to be instantiated.
+     */
+    private Metrics ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //------//
+    // dump //
+    //------//
+    /**
+     * Write the current values of all metrics to the metrics file, if metrics are enabled.
+     */
+    public static void dump ()
+    {
+        if (isEnabled()) {
+            final Path path = getPath();
+
+            try {
+                write(path);
+                logger.info("Metrics written to {}", path);
+            } catch (IOException ex) {
+                logger.warn("Error writing metrics to {} {}", path, ex.toString(), ex);
+            }
+        }
+    }
+
+    //-----------//
+    // increment //
+    //-----------//
+    /**
+     * Increment the named counter by 1.
+     *
+     * @param name counter name
+     */
+    public static void increment (String name)
+    {
+        increment(name, 1);
+    }
+
+    //-----------//
+    // increment //
+    //-----------//
+    /**
+     * Increment the named counter by the provided delta.
+     *
+     * @param name  counter name
+     * @param delta value to add
+     */
+    public static void increment (String name,
+                                  long delta)
+    {
+        if (isEnabled()) {
+            Counter counter = counters.get(name);
+
+            if (counter == null) {
+                final Counter fresh = new Counter();
+                counter = counters.putIfAbsent(name, fresh);
+
+                if (counter == null) {
+                    counter = fresh;
+                }
+            }
+
+            counter.value.addAndGet(delta);
+        }
+    }
+
+    //-----------//
+    // isEnabled //
+    //-----------//
+    /**
+     * Report whether metrics are being collected.
+     *
+     * @return true if so
+     */
+    public static boolean isEnabled ()
+    {
+        return (OMR.gui == null) && constants.useMetrics.isSet();
+    }
+
+    //--------//
+    // record //
+    //--------//
+    /**
+     * Record, in the named timer, the time elapsed since the provided start.
+     *
+     * @param name  timer name
+     * @param start start time, as provided by {@link System#nanoTime()}
+     */
+    public static void record (String name,
+                               long start)
+    {
+        record(name, start, null);
+    }
+
+    //--------//
+    // record //
+    //--------//
+    /**
+     * Record, in the named timer, the time elapsed since the provided start for the
+     * provided item.
+     *
+     * @param name  timer name
+     * @param start start time, as provided by {@link System#nanoTime()}
+     * @param item  the measured item (such as a sheet or a system), or null
+     */
+    public static void record (String name,
+                               long start,
+                               String item)
+    {
+        if (isEnabled()) {
+            getTimer(name).add(System.nanoTime() - start, item);
+        }
+    }
+
+    //----------//
+    // setGauge //
+    //----------//
+    /**
+     * Set the current value of the named gauge.
+     *
+     * @param name  gauge name
+     * @param value current value
+     */
+    public static void setGauge (String name,
+                                 long value)
+    {
+        if (isEnabled()) {
+            AtomicLong gauge = gauges.get(name);
+
+            if (gauge == null) {
+                final AtomicLong fresh = new AtomicLong();
+                gauge = gauges.putIfAbsent(name, fresh);
+
+                if (gauge == null) {
+                    gauge = fresh;
+                }
+            }
+
+            gauge.set(value);
+        }
+    }
+
+    //----------------//
+    // startSnapshots //
+    //----------------//
+    /**
+     * Launch periodic snapshots of metrics, if enabled and a period is defined.
+     */
+    public static synchronized void startSnapshots ()
+    {
+        final int period = constants.snapshotPeriod.getValue();
+
+        if (!isEnabled() || (period <= 0) || (snapshots != null)) {
+            return;
+        }
+
+        snapshots = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactory()
+        {
+            @Override
+            public Thread newThread (Runnable r)
+            {
+                Thread thread = new Thread(r, "metrics-snapshot");
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+        snapshots.scheduleAtFixedRate(
+                new Runnable()
+        {
+            @Override
+            public void run ()
+            {
+                try {
+                    write(getPath());
+                } catch (Throwable ex) {
+                    logger.warn("Error in metrics snapshot {}", ex.toString(), ex);
+                }
+            }
+        },
+                period,
+                period,
+                TimeUnit.SECONDS);
+        logger.info("Metrics snapshot every {} seconds", period);
+    }
+
+    //---------------//
+    // stopSnapshots //
+    //---------------//
+    /**
+     * Stop periodic snapshots, if any.
+     */
+    public static synchronized void stopSnapshots ()
+    {
+        if (snapshots != null) {
+            snapshots.shutdownNow();
+            snapshots = null;
+        }
+    }
+
+    //---------//
+    // getPath //
+    //---------//
+    private static Path getPath ()
+    {
+        return WellKnowns.LOG_FOLDER.resolve("metrics.json");
+    }
+
+    //----------//
+    // getTimer //
+    //----------//
+    private static Timer getTimer (String name)
+    {
+        Timer timer = timers.get(name);
+
+        if (timer == null) {
+            final Timer fresh = new Timer();
+            timer = timers.putIfAbsent(name, fresh);
+
+            if (timer == null) {
+                timer = fresh;
+            }
+        }
+
+        return timer;
+    }
+
+    //-----------//
+    // sampleJvm //
+    //-----------//
+    /**
+     * Refresh the gauges that describe the JVM itself.
+     */
+    private static void sampleJvm ()
+    {
+        final MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        setGauge("jvm/heapUsedMB", heap.getUsed() >> 20);
+        setGauge("jvm/heapMaxMB", heap.getMax() >> 20);
+        setGauge("jvm/threads", ManagementFactory.getThreadMXBean().getThreadCount());
+    }
+
+    //-------//
+    // write //
+    //-------//
+    /**
+     * Write all metrics in JSON format, via a temporary file so that the target file is
+     * always complete.
+     *
+     * @param path target file
+     * @throws IOException if anything goes wrong
+     */
+    private static synchronized void write (Path path)
+            throws IOException
+    {
+        sampleJvm();
+
+        final Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        final JsonWriter json = new JsonWriter(tmp);
+
+        try {
+            json.beginObject(null).value("date", new Date().toString());
+            json.beginObject("gauges");
+
+            for (Map.Entry<String, AtomicLong> entry : gauges.entrySet()) {
+                json.value(entry.getKey(), entry.getValue().get());
+            }
+
+            json.endObject().beginObject("counters");
+
+            for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+                json.value(entry.getKey(), entry.getValue().value.get());
+            }
+
+            json.endObject().beginObject("timers");
+
+            for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+                entry.getValue().write(json, entry.getKey());
+            }
+
+            json.endObject().endObject();
+        } finally {
+            json.close();
+        }
+
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean useMetrics = new Constant.Boolean(
+                false,
+                "Should we collect runtime metrics when running in batch?");
+
+        private final Constant.Integer snapshotPeriod = new Constant.Integer(
+                "Seconds",
+                0,
+                "Period for metrics file snapshots, 0 for no snapshot");
+
+        private final Constant.Integer slowestCount = new Constant.Integer(
+                "Items",
+                10,
+                "Number of slowest items kept per timer");
+    }
+
+    //---------//
+    // Counter //
+    //---------//
+    private static class Counter
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final AtomicLong value = new AtomicLong();
+    }
+
+    //------//
+    // Item //
+    //------//
+    /**
+     * A measured item, with its duration.
+     */
+    private static class Item
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final String name;
+
+        final long nanos;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        Item (String name,
+              long nanos)
+        {
+            this.name = name;
+            this.nanos = nanos;
+        }
+    }
+
+    //-------//
+    // Timer //
+    //-------//
+    /**
+     * Cumulates the count, total and maximum of measured durations, and keeps the slowest
+     * named items.
+     */
+    private static class Timer
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final AtomicLong count = new AtomicLong();
+
+        final AtomicLong total = new AtomicLong();
+
+        final AtomicLong max = new AtomicLong();
+
+        /** Slowest items, by decreasing duration. Also used as lock. */
+        final List<Item> slowest = new ArrayList<Item>();
+
+        //~ Methods --------------------------------------------------------------------------------
+        void add (long nanos,
+                  String item)
+        {
+            count.incrementAndGet();
+            total.addAndGet(nanos);
+
+            long current;
+
+            while ((current = max.get()) < nanos) {
+                if (max.compareAndSet(current, nanos)) {
+                    break;
+                }
+            }
+
+            if (item != null) {
+                final int maxCount = constants.slowestCount.getValue();
+
+                synchronized (slowest) {
+                    int index = slowest.size();
+
+                    while ((index > 0) && (slowest.get(index - 1).nanos < nanos)) {
+                        index--;
+                    }
+
+                    if (index < maxCount) {
+                        slowest.add(index, new Item(item, nanos));
+
+                        while (slowest.size() > maxCount) {
+                            slowest.remove(slowest.size() - 1);
+                        }
+                    }
+                }
+            }
+        }
+
+        void write (JsonWriter json,
+                    String name)
+        {
+            final long n = count.get();
+            final double totalMs = total.get() / 1e6;
+            json.beginObject(name).value("count", n).value("totalMs", totalMs);
+            json.value("meanMs", (n > 0) ? (totalMs / n) : 0.0).value("maxMs", max.get() / 1e6);
+
+            synchronized (slowest) {
+                if (!slowest.isEmpty()) {
+                    json.beginArray("slowest");
+
+                    for (Item item : slowest) {
+                        json.beginObject(null).value("item", item.name);
+                        json.value("ms", item.nanos / 1e6).endObject();
+                    }
+
+                    json.endArray();
+                }
+            }
+
+            json.endObject();
+        }
+    }
+}
@@ -28,12 +28,22 @@ import org.audiveris.omr.step.ProcessingCancellationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -42,7 +52,15 @@ import java.util.concurrent.atomic.AtomicInteger;
  * <li>lowExecutor: a fixed nb (#cpu+1) of threads with low priority</li>
  * <li>highExecutor: a fixed nb (#cpu+1) of threads with high priority</li>
  * <li>cachedLowExecutor: a varying nb of threads with low priority</li>
+ * <li>forkJoinPool: a work-stealing pool of #cpu low priority threads, shared by sheet tasks
+ * and all computing sub-tasks (systems, image bands)</li>
  * </ul>
+ * Tasks run on the fork-join pool must not block, except on sub-tasks launched via
+ * {@link #invokeAll}, which the waiting worker helps to run, or via {@link #await}, which lets
+ * the pool compensate for the blocked worker.
+ * Image computations split by bands of positions use {@link #processBands}, on top of invokeAll.
+ * Sheet tasks are launched via {@link #submit}, and each of their steps is run (under timeout) by
+ * a thread of the cached pool.
  *
  * @author Hervé Bitteur
  */
@@ -76,8 +94,14 @@ public class OmrExecutors
 
     private static final Pool cachedLows = new CachedLows();
 
+    private static final Pool forkJoins = new ForkJoins();
+
     /** To handle all the pools as a whole. */
-    private static final Collection<Pool> allPools = Arrays.asList(cachedLows, lows, highs);
+    private static final Collection<Pool> allPools = Arrays.asList(
+            forkJoins,
+            cachedLows,
+            lows,
+            highs);
 
     /** To prevent parallel creation of pools when closing. */
     private static volatile boolean creationAllowed = true;
@@ -91,6 +115,63 @@ public class OmrExecutors
     }
 
     //~ Methods ------------------------------------------------------------------------------------
+    //-------//
+    // await //
+    //-------//
+    /**
+     * Wait, at most the provided timeout, for the completion of the provided future.
+     * <p>
+     * If called from a worker of the fork-join pool, the wait is a managed block, so that the pool
+     * can activate a spare worker meanwhile.
+     *
+     * @param <T>     result type
+     * @param future  the future to wait for
+     * @param timeout the maximum time to wait
+     * @param unit    the time unit of the timeout argument
+     * @return the future result
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ExecutionException   if the computation threw an exception
+     * @throws TimeoutException     if the wait timed out
+     */
+    public static <T> T await (final Future<T> future,
+                               long timeout,
+                               TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException
+    {
+        if (!(Thread.currentThread() instanceof ForkJoinWorkerThread)) {
+            return future.get(timeout, unit);
+        }
+
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        ForkJoinPool.managedBlock(
+                new ForkJoinPool.ManagedBlocker()
+        {
+            @Override
+            public boolean block ()
+                    throws InterruptedException
+            {
+                try {
+                    future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                } catch (ExecutionException ignored) {
+                    // Reported below
+                } catch (TimeoutException ignored) {
+                    // Reported below
+                }
+
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable ()
+            {
+                return future.isDone() || (System.nanoTime() >= deadline);
+            }
+        });
+
+        return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
     //----------------------//
     // getCachedLowExecutor //
     //----------------------//
@@ -104,6 +185,19 @@ public class OmrExecutors
         return cachedLows.getPool();
     }
 
+    //-----------------//
+    // getForkJoinPool //
+    //-----------------//
+    /**
+     * Return the (single) work-stealing pool, shared by sheet tasks and system sub-tasks.
+     *
+     * @return the fork-join pool, allocated if needed
+     */
+    public static ForkJoinPool getForkJoinPool ()
+    {
+        return (ForkJoinPool) forkJoins.getPool();
+    }
+
     //-----------------//
     // getHighExecutor //
     //-----------------//
@@ -130,6 +224,19 @@ public class OmrExecutors
         return lows.getPool();
     }
 
+    //----------------------//
+    // getMaxInFlightSheets //
+    //----------------------//
+    /**
+     * Report the maximum number of sheets processed at the same time, to cap memory.
+     *
+     * @return the maximum number of in-flight sheets (at least 1)
+     */
+    public static int getMaxInFlightSheets ()
+    {
+        return Math.max(1, constants.maxInFlightSheets.getValue());
+    }
+
     //-----------------//
     // getNumberOfCpus //
     //-----------------//
@@ -143,6 +250,180 @@ public class OmrExecutors
         return cpuCount;
     }
 
+    //-----------//
+    // invokeAll //
+    //-----------//
+    /**
+     * Run all the provided tasks on the fork-join pool and wait for their completion.
+     * <p>
+     * If called from a worker of the pool, the calling worker forks the tasks and helps in running
+     * them.
+     * Otherwise, the calling thread waits in an interruptible manner: if interrupted, the tasks not
+     * yet started are cancelled, the running ones are interrupted, and all are drained before
+     * InterruptedException is thrown. Hence, no task is left running behind.
+     *
+     * @param <T>   result type
+     * @param tasks the tasks to run
+     * @return the futures of the tasks, all completed (normally or exceptionally)
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static <T> List<Future<T>> invokeAll (Collection<? extends Callable<T>> tasks)
+            throws InterruptedException
+    {
+        final ForkJoinPool pool = getForkJoinPool();
+        final List<InterruptibleTask<T>> iTasks = new ArrayList<InterruptibleTask<T>>(
+                tasks.size());
+
+        for (Callable<T> task : tasks) {
+            iTasks.add(new InterruptibleTask<T>(task));
+        }
+
+        if (ForkJoinTask.getPool() == pool) {
+            // Current thread is a worker of the pool, it helps while joining
+            for (InterruptibleTask<T> iTask : iTasks) {
+                iTask.fjTask.fork();
+            }
+
+            for (InterruptibleTask<T> iTask : iTasks) {
+                iTask.fjTask.quietlyJoin();
+            }
+        } else {
+            for (InterruptibleTask<T> iTask : iTasks) {
+                pool.execute(iTask.fjTask);
+            }
+
+            try {
+                for (InterruptibleTask<T> iTask : iTasks) {
+                    try {
+                        iTask.get();
+                    } catch (ExecutionException ignored) {
+                        // Left to the caller, via the future
+                    } catch (CancellationException ignored) {
+                        // Left to the caller, via the future
+                    }
+                }
+            } catch (InterruptedException ex) {
+                for (InterruptibleTask<T> iTask : iTasks) {
+                    iTask.cancel(true);
+                }
+
+                // Drain the tasks, so that none is still running when we return
+                for (InterruptibleTask<T> iTask : iTasks) {
+                    iTask.fjTask.quietlyJoin();
+                }
+
+                throw ex;
+            }
+        }
+
+        return new ArrayList<Future<T>>(iTasks);
+    }
+
+    //--------------//
+    // processBands //
+    //--------------//
+    /**
+     * Split the provided range of positions (rows, columns, tiles...) into bands of default size
+     * and process them, in parallel if so allowed.
+     *
+     * @param <B>       type of buffer used by a task
+     * @param count     the number of positions
+     * @param processor the band processor
+     * @see #processBands(int, int, BandProcessor)
+     */
+    public static <B> void processBands (int count,
+                                         BandProcessor<B> processor)
+    {
+        processBands(count, constants.bandSize.getValue(), processor);
+    }
+
+    //--------------//
+    // processBands //
+    //--------------//
+    /**
+     * Split the provided range of positions (rows, columns, tiles...) into bands and process
+     * them, in parallel if so allowed.
+     * <p>
+     * Positions are split into at most one contiguous range per CPU, each range being processed by
+     * one task on the fork-join pool, band after band in increasing order, with the same buffer.
+     *
+     * @param <B>       type of buffer used by a task
+     * @param count     the number of positions
+     * @param bandSize  the (maximum) number of positions per band
+     * @param processor the band processor
+     * @throws ProcessingCancellationException if interrupted while waiting
+     */
+    public static <B> void processBands (final int count,
+                                         final int bandSize,
+                                         final BandProcessor<B> processor)
+    {
+        final int taskCount = constants.parallelBands.isSet()
+                ? Math.min(cpuCount, ((count + bandSize) - 1) / bandSize) : 1;
+
+        if (taskCount <= 1) {
+            processRange(0, count, bandSize, processor);
+
+            return;
+        }
+
+        final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(taskCount);
+
+        for (int t = 0; t < taskCount; t++) {
+            final int tStart = (t * count) / taskCount;
+            final int tStop = ((t + 1) * count) / taskCount;
+            tasks.add(
+                    new Callable<Void>()
+            {
+                @Override
+                public Void call ()
+                {
+                    processRange(tStart, tStop, bandSize, processor);
+
+                    return null;
+                }
+            });
+        }
+
+        try {
+            for (Future<Void> future : invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            logger.warn("Band processing got interrupted");
+            throw new ProcessingCancellationException(ex);
+        } catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new RuntimeException(cause);
+        }
+    }
+
+    //--------------//
+    // processRange //
+    //--------------//
+    /**
+     * Process a contiguous range of positions, band after band, with the same buffer.
+     */
+    private static <B> void processRange (int rStart,
+                                          int rStop,
+                                          int bandSize,
+                                          BandProcessor<B> processor)
+    {
+        final B buffer = processor.createBuffer(Math.min(bandSize, rStop - rStart));
+
+        for (int start = rStart; start < rStop; start += bandSize) {
+            processor.process(start, Math.min(start + bandSize, rStop), buffer);
+        }
+    }
+
     //---------//
     // restart //
     //---------//
@@ -186,7 +467,65 @@ public class OmrExecutors
         return result;
     }
 
+    //--------//
+    // submit //
+    //--------//
+    /**
+     * Submit a (long) task, such as a sheet task, to the fork-join pool.
+     * <p>
+     * Unlike a plain ForkJoinTask, the returned future can interrupt the task when cancelled.
+     *
+     * @param <T>  result type
+     * @param task the task to run
+     * @return the future of the task
+     */
+    public static <T> Future<T> submit (Callable<T> task)
+    {
+        final InterruptibleTask<T> iTask = new InterruptibleTask<T>(task);
+        getForkJoinPool().execute(iTask.fjTask);
+
+        return iTask;
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
+    //---------------//
+    // BandProcessor //
+    //---------------//
+    /**
+     * Processing of bands of positions, for {@link OmrExecutors#processBands}.
+     * <p>
+     * The same processor instance is used concurrently by all tasks, so any per-task state must be
+     * kept in the buffer.
+     *
+     * @param <B> type of buffer used by a task, Void if none
+     */
+    public abstract static class BandProcessor<B>
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        /**
+         * Allocate the buffer to be used by one task, for all its bands.
+         *
+         * @param bandSize the maximum number of positions in a band of the task
+         * @return the task buffer, null by default
+         */
+        public B createBuffer (int bandSize)
+        {
+            return null;
+        }
+
+        /**
+         * Process the provided band.
+         *
+         * @param start  first position of the band
+         * @param stop   position past the band
+         * @param buffer the task buffer
+         */
+        public abstract void process (int start,
+                                      int stop,
+                                      B buffer);
+    }
+
     //------//
     // Pool //
     //------//
@@ -302,6 +641,20 @@ public class OmrExecutors
                 "seconds",
                 60,
                 "Time to wait for terminating tasks");
+
+        private final Constant.Integer maxInFlightSheets = new Constant.Integer(
+                "sheets",
+                4,
+                "Maximum number of sheets processed in parallel in a book");
+
+        private final Constant.Boolean parallelBands = new Constant.Boolean(
+                true,
+                "Should bands of image positions be processed in parallel?");
+
+        private final Constant.Integer bandSize = new Constant.Integer(
+                "positions",
+                128,
+                "Default number of positions (rows, columns) processed at a time");
     }
 
     //------------//
@@ -407,6 +760,48 @@ public class OmrExecutors
         }
     }
 
+    //-----------//
+    // ForkJoins //
+    //-----------//
+    /** Work-stealing pool with low priority. */
+    private static class ForkJoins
+            extends Pool
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        @Override
+        public String getName ()
+        {
+            return "forkJoin";
+        }
+
+        @Override
+        protected ExecutorService createPool ()
+        {
+            final AtomicInteger threadNumber = new AtomicInteger(0);
+
+            return new ForkJoinPool(
+                    defaultParallelism.getTarget() ? cpuCount : 1,
+                    new ForkJoinPool.ForkJoinWorkerThreadFactory()
+            {
+                @Override
+                public ForkJoinWorkerThread newThread (ForkJoinPool pool)
+                {
+                    ForkJoinWorkerThread t = new ForkJoinWorkerThread(pool)
+                    {
+                    };
+
+                    t.setName(getName() + "-thread-" + threadNumber.incrementAndGet());
+                    t.setPriority(Thread.MIN_PRIORITY);
+
+                    return t;
+                }
+            },
+                    null,
+                    false);
+        }
+    }
+
     //-------//
     // Highs //
     //-------//
@@ -431,6 +826,115 @@ public class OmrExecutors
         }
     }
 
+    //-------------------//
+    // InterruptibleTask //
+    //-------------------//
+    /**
+     * A task run on the fork-join pool, which can be cancelled with interruption.
+     * <p>
+     * ForkJoinTask.cancel(true) does not interrupt a running task, and lets it run while reporting
+     * it as cancelled.
+     * Here, a task not yet started is cancelled, while a running task is interrupted and completes
+     * by itself, so that its completion is really the end of its processing.
+     *
+     * @param <T> result type
+     */
+    private static class InterruptibleTask<T>
+            implements Callable<T>, Future<T>
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** The actual task. */
+        private final Callable<T> task;
+
+        /** The fork-join task to be run by the pool. */
+        final ForkJoinTask<T> fjTask;
+
+        /** Thread running the task, if any. */
+        private Thread runner;
+
+        /** Set when cancellation is requested. */
+        private boolean cancelled;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public InterruptibleTask (Callable<T> task)
+        {
+            this.task = task;
+            fjTask = ForkJoinTask.adapt(this);
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public T call ()
+                throws Exception
+        {
+            synchronized (this) {
+                if (cancelled) {
+                    throw new CancellationException();
+                }
+
+                runner = Thread.currentThread();
+            }
+
+            try {
+                return task.call();
+            } finally {
+                synchronized (this) {
+                    runner = null;
+
+                    if (cancelled) {
+                        Thread.interrupted(); // Not to leak our interrupt to next worker task
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel (boolean mayInterruptIfRunning)
+        {
+            synchronized (this) {
+                cancelled = true;
+
+                if (runner != null) {
+                    if (mayInterruptIfRunning) {
+                        runner.interrupt();
+                    }
+
+                    return mayInterruptIfRunning;
+                }
+            }
+
+            return fjTask.cancel(false);
+        }
+
+        @Override
+        public T get ()
+                throws InterruptedException, ExecutionException
+        {
+            return fjTask.get();
+        }
+
+        @Override
+        public T get (long timeout,
+                      TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException
+        {
+            return fjTask.get(timeout, unit);
+        }
+
+        @Override
+        public boolean isCancelled ()
+        {
+            return fjTask.isCancelled();
+        }
+
+        @Override
+        public boolean isDone ()
+        {
+            return fjTask.isDone();
+        }
+    }
+
     //------//
     // Lows //
     //------//
@@ -0,0 +1,108 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                             B a s i c C l a s s i f i e r T e s t                              //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.classifier;
+
+import org.audiveris.omr.math.NeuralNetwork;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Class {@code BasicClassifierTest} checks {@link BasicClassifier} on real samples.
+ *
+ * @author Hervé Bitteur
+ */
+public class BasicClassifierTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** ND4J computes in float precision. */
+    private static final double TOLERANCE = 1E-5;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //------------------------//
+    // testPlainNormalization //
+    //------------------------//
+    /**
+     * Features normalized with plain double arithmetic must lead to the same grades as
+     * the former normalization through ND4J arrays.
+     */
+    @Test
+    public void testPlainNormalization ()
+            throws Exception
+    {
+        final SampleRepository repository = SampleRepository.getInstance(
+                Paths.get("data/train/samples.zip"),
+                true);
+        assertNotNull(repository);
+
+        final List<Sample> samples = repository.getAllSamples();
+        assertFalse(samples.isEmpty());
+
+        final BasicClassifier classifier = BasicClassifier.getInstance();
+        final NeuralNetwork model = getModel(classifier);
+        final GlyphDescriptor descriptor = classifier.getGlyphDescriptor();
+
+        for (Sample sample : samples) {
+            final int interline = sample.getInterline();
+
+            // Former normalization, via ND4J
+            final INDArray features = Nd4j.create(descriptor.getFeatures(sample, interline));
+            features.subiRowVector(classifier.norms.means);
+            features.diviRowVector(classifier.norms.stds);
+
+            final double[] ins = new double[features.length()];
+
+            for (int i = 0; i < ins.length; i++) {
+                ins[i] = features.getDouble(i);
+            }
+
+            final Evaluation[] evals = classifier.getNaturalEvaluations(sample, interline);
+            final double[] outs = model.run(ins, null, new double[evals.length]);
+
+            for (int s = 0; s < evals.length; s++) {
+                assertEquals(sample + " " + evals[s].shape, outs[s], evals[s].grade, TOLERANCE);
+            }
+        }
+
+        System.out.println("Checked " + samples.size() + " samples");
+    }
+
+    //----------//
+    // getModel //
+    //----------//
+    private static NeuralNetwork getModel (BasicClassifier classifier)
+            throws Exception
+    {
+        final Field field = BasicClassifier.class.getDeclaredField("model");
+        field.setAccessible(true);
+
+        return (NeuralNetwork) field.get(classifier);
+    }
+}
@@ -0,0 +1,200 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                             E v a l u a t i o n C a c h e T e s t                              //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.classifier;
+
+import org.audiveris.omr.glyph.BasicGlyph;
+import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.glyph.GlyphSignature;
+import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.run.Orientation;
+import org.audiveris.omr.run.RunTable;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Class {@code EvaluationCacheTest} checks the behavior of {@link EvaluationCache}.
+ *
+ * @author Hervé Bitteur
+ */
+public class EvaluationCacheTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final int INTERLINE = 20;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------------//
+    // testCopyOnGet //
+    //---------------//
+    @Test
+    public void testCopyOnGet ()
+    {
+        final EvaluationCache cache = new EvaluationCache(10);
+        final EvaluationCache.Key key = createKey(10, 20, 5);
+        final Evaluation[] evals = new Evaluation[]{
+            new Evaluation(Shape.CLUTTER, 0.9),
+            new Evaluation(Shape.DOT_set, 0.1)
+        };
+        cache.put(key, evals);
+
+        // Modifying original evaluations must not impact cache
+        evals[0].shape = Shape.NOISE;
+
+        final Evaluation[] first = cache.get(key);
+        assertEquals(Shape.CLUTTER, first[0].shape);
+        assertEquals(0.9, first[0].grade, 0);
+
+        // Modifying retrieved evaluations must not impact cache
+        first[0].failure = new Evaluation.Failure("test");
+
+        final Evaluation[] second = cache.get(key);
+        assertNotSame(first[0], second[0]);
+        assertNull(second[0].failure);
+    }
+
+    //------------//
+    // testCounts //
+    //------------//
+    @Test
+    public void testCounts ()
+    {
+        final EvaluationCache cache = new EvaluationCache(10);
+        final EvaluationCache.Key key = createKey(10, 20, 5);
+
+        assertNull(cache.get(key));
+        cache.put(key, new Evaluation[]{new Evaluation(Shape.CLUTTER, 0.5)});
+
+        // Same glyph at same location, but another instance
+        assertNotNull(cache.get(createKey(10, 20, 5)));
+
+        // Different glyph
+        assertNull(cache.get(createKey(10, 20, 6)));
+
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    //--------------------//
+    // testEmptySignature //
+    //--------------------//
+    @Test
+    public void testEmptySignature ()
+            throws Exception
+    {
+        final Constructor<GlyphSignature> cons = GlyphSignature.class.getDeclaredConstructor();
+        cons.setAccessible(true);
+
+        final GlyphSignature empty = cons.newInstance();
+        final GlyphSignature other = cons.newInstance();
+        assertEquals(empty, other);
+        assertEquals(empty.hashCode(), other.hashCode());
+        assertFalse(empty.equals(createSignature(10, 20, 5)));
+    }
+
+    //--------------//
+    // testEviction //
+    //--------------//
+    @Test
+    public void testEviction ()
+    {
+        final EvaluationCache cache = new EvaluationCache(2);
+        final EvaluationCache.Key k1 = createKey(10, 10, 3);
+        final EvaluationCache.Key k2 = createKey(10, 10, 4);
+        final EvaluationCache.Key k3 = createKey(10, 10, 5);
+        final Evaluation[] evals = new Evaluation[]{new Evaluation(Shape.CLUTTER, 0.5)};
+
+        cache.put(k1, evals);
+        cache.put(k2, evals);
+        assertNotNull(cache.get(k1)); // k1 is now more recent than k2
+        cache.put(k3, evals); // Evicts k2
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(k1));
+        assertNull(cache.get(k2));
+        assertNotNull(cache.get(k3));
+    }
+
+    //-----------------//
+    // testSortedOnGet //
+    //-----------------//
+    @Test
+    public void testSortedOnGet ()
+    {
+        final EvaluationCache cache = new EvaluationCache(10);
+        final EvaluationCache.Key key = createKey(10, 20, 5);
+        cache.put(
+                key,
+                new Evaluation[]{
+                    new Evaluation(Shape.DOT_set, 0.7),
+                    new Evaluation(Shape.CLUTTER, 0.2),
+                    new Evaluation(Shape.BREVE, 0.2)
+                });
+
+        final Evaluation[] evals = cache.get(key);
+        assertEquals(3, evals.length);
+        assertEquals(Shape.DOT_set, evals[0].shape);
+        assertEquals(0.7, evals[0].grade, 0);
+
+        // Equal grades are kept in shape order, as classifier natural evaluations are
+        assertEquals(Shape.BREVE, evals[1].shape);
+        assertEquals(Shape.CLUTTER, evals[2].shape);
+    }
+
+    //-----------//
+    // createKey //
+    //-----------//
+    /**
+     * Build the key of a rectangular glyph.
+     */
+    private static EvaluationCache.Key createKey (int left,
+                                                  int top,
+                                                  int width)
+    {
+        // Classifier is only used by identity, no need to load any
+        return new EvaluationCache.Key(null, 0, createSignature(left, top, width), INTERLINE);
+    }
+
+    //-----------------//
+    // createSignature //
+    //-----------------//
+    /**
+     * Build the signature of a rectangular glyph.
+     */
+    private static GlyphSignature createSignature (int left,
+                                                   int top,
+                                                   int width)
+    {
+        final int height = 8;
+        final RunTable table = new RunTable(Orientation.VERTICAL, width, height);
+
+        for (int x = 0; x < width; x++) {
+            table.addRun(x, 0, height);
+        }
+
+        final Glyph glyph = new BasicGlyph(left, top, table);
+
+        return new GlyphSignature(glyph, INTERLINE);
+    }
+}
@@ -0,0 +1,176 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                G l y p h C l u s t e r T e s t                                 //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.glyph;
+
+import static org.audiveris.omr.run.Orientation.HORIZONTAL;
+import org.audiveris.omr.run.Run;
+import org.audiveris.omr.run.RunTable;
+
+import org.jgrapht.graph.SimpleGraph;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Unit tests for {@link GlyphCluster}.
+ *
+ * @author Hervé Bitteur
+ */
+public class GlyphClusterTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    /**
+     * In a complete graph of 4 vertices, all 15 non-empty subsets are connected.
+     */
+    @Test
+    public void testCompleteGraph ()
+    {
+        final List<Glyph> glyphs = createGlyphs(4);
+        final SimpleGraph<Glyph, GlyphLink> graph = createGraph(glyphs);
+
+        for (int i = 0; i < glyphs.size(); i++) {
+            for (int j = i + 1; j < glyphs.size(); j++) {
+                graph.addEdge(glyphs.get(i), glyphs.get(j), new GlyphLink.Nearby(1));
+            }
+        }
+
+        checkDecomposition(graph, 15);
+    }
+
+    /**
+     * In a chain of 4 vertices, only the 10 contiguous sub-chains are connected.
+     */
+    @Test
+    public void testChain ()
+    {
+        final List<Glyph> glyphs = createGlyphs(4);
+        final SimpleGraph<Glyph, GlyphLink> graph = createGraph(glyphs);
+
+        for (int i = 1; i < glyphs.size(); i++) {
+            graph.addEdge(glyphs.get(i - 1), glyphs.get(i), new GlyphLink.Nearby(1));
+        }
+
+        checkDecomposition(graph, 10);
+    }
+
+    /**
+     * Too heavy subsets are neither evaluated nor grown.
+     */
+    @Test
+    public void testWeightPruning ()
+    {
+        final List<Glyph> glyphs = createGlyphs(4);
+        final SimpleGraph<Glyph, GlyphLink> graph = createGraph(glyphs);
+
+        for (int i = 0; i < glyphs.size(); i++) {
+            for (int j = i + 1; j < glyphs.size(); j++) {
+                graph.addEdge(glyphs.get(i), glyphs.get(j), new GlyphLink.Nearby(1));
+            }
+        }
+
+        // Each glyph weighs 3, so only singles and pairs are acceptable
+        final RecordingAdapter adapter = new RecordingAdapter(graph, 6);
+        final GlyphCluster cluster = new GlyphCluster(adapter, null);
+        cluster.decompose();
+
+        assertEquals(4 + 6, adapter.evaluated.size());
+        assertEquals(4 + 6, cluster.getStatistics().getEvaluated());
+    }
+
+    private void checkDecomposition (SimpleGraph<Glyph, GlyphLink> graph,
+                                     int expected)
+    {
+        final RecordingAdapter adapter = new RecordingAdapter(graph, Integer.MAX_VALUE);
+        final GlyphCluster cluster = new GlyphCluster(adapter, null);
+        cluster.decompose();
+
+        // Each connected subset must be evaluated exactly once
+        assertEquals(expected, adapter.evaluated.size());
+        assertEquals(expected, new HashSet<Set<Glyph>>(adapter.evaluated).size());
+        assertEquals(expected, cluster.getStatistics().getEvaluated());
+        assertEquals(expected, cluster.getStatistics().getVisited());
+    }
+
+    private List<Glyph> createGlyphs (int count)
+    {
+        final List<Glyph> glyphs = new ArrayList<Glyph>();
+
+        for (int i = 0; i < count; i++) {
+            RunTable table = new RunTable(HORIZONTAL, 3, 1);
+            table.addRun(0, new Run(0, 3));
+            glyphs.add(new BasicGlyph(10 * i, 0, table));
+        }
+
+        return glyphs;
+    }
+
+    private SimpleGraph<Glyph, GlyphLink> createGraph (List<Glyph> glyphs)
+    {
+        final SimpleGraph<Glyph, GlyphLink> graph = new SimpleGraph<Glyph, GlyphLink>(
+                GlyphLink.class);
+
+        for (Glyph glyph : glyphs) {
+            graph.addVertex(glyph);
+        }
+
+        return graph;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    private static class RecordingAdapter
+            extends GlyphCluster.AbstractAdapter
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final List<Set<Glyph>> evaluated = new ArrayList<Set<Glyph>>();
+
+        final int maxWeight;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public RecordingAdapter (SimpleGraph<Glyph, GlyphLink> graph,
+                                 int maxWeight)
+        {
+            super(graph);
+            this.maxWeight = maxWeight;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public void evaluateGlyph (Glyph glyph,
+                                   Set<Glyph> parts)
+        {
+            evaluated.add(new LinkedHashSet<Glyph>(parts));
+        }
+
+        @Override
+        public boolean isTooHeavy (int weight)
+        {
+            return weight > maxWeight;
+        }
+    }
+}
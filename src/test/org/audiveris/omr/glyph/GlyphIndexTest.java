@@ -0,0 +1,263 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                  G l y p h I n d e x T e s t                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.glyph;
+
+import org.audiveris.omr.glyph.Symbol.Group;
+import org.audiveris.omr.run.Orientation;
+import org.audiveris.omr.run.RunTable;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Unit tests for the spatial lookups of {@link GlyphIndex}, checked against a brute-force
+ * scan of all glyphs.
+ *
+ * @author Hervé Bitteur
+ */
+public class GlyphIndexTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final int SIZE = 600; // Side of the image area
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------------//
+    // testCollected //
+    //---------------//
+    /**
+     * A glyph no longer strongly referenced must vanish from all lookups.
+     */
+    @Test
+    public void testCollected ()
+    {
+        final List<Glyph> glyphs = createGlyphs(new Random(7), 200);
+        final GlyphIndex index = createIndex(glyphs);
+
+        // Drop all strong references to the first DROP glyph
+        Glyph victim = null;
+
+        for (Glyph glyph : glyphs) {
+            if (glyph.hasGroup(Group.DROP)) {
+                victim = glyph;
+
+                break;
+            }
+        }
+
+        assertNotNull(victim);
+
+        final int victimId = victim.getId();
+        final Rectangle victimBox = victim.getBounds();
+        final WeakReference<Glyph> ref = new WeakReference<Glyph>(victim);
+        glyphs.remove(victim);
+        victim = null;
+
+        for (int i = 0; (i < 100) && (ref.get() != null); i++) {
+            System.gc();
+        }
+
+        assertNull("Glyph not collected", ref.get());
+        assertNull(index.getEntity(victimId));
+
+        for (Glyph glyph : index.intersectedGlyphs(victimBox, Group.DROP)) {
+            assertTrue(glyph.getId() != victimId);
+        }
+
+        checkLookups(new Random(8), index, glyphs);
+    }
+
+    //-------------//
+    // testLookups //
+    //-------------//
+    /**
+     * Contained, intersected and virtual lookups must match a linear scan.
+     */
+    @Test
+    public void testLookups ()
+    {
+        final List<Glyph> glyphs = createGlyphs(new Random(1), 300);
+        final GlyphIndex index = createIndex(glyphs);
+
+        checkLookups(new Random(2), index, glyphs);
+    }
+
+    //-------------//
+    // testRemoval //
+    //-------------//
+    /**
+     * Removed glyphs must no longer be found, even while still strongly referenced.
+     */
+    @Test
+    public void testRemoval ()
+    {
+        final List<Glyph> glyphs = createGlyphs(new Random(3), 300);
+        final GlyphIndex index = createIndex(glyphs);
+        final List<Glyph> kept = new ArrayList<Glyph>();
+
+        for (int i = 0; i < glyphs.size(); i++) {
+            if ((i % 3) == 0) {
+                index.remove(glyphs.get(i));
+            } else {
+                kept.add(glyphs.get(i));
+            }
+        }
+
+        checkLookups(new Random(4), index, kept);
+    }
+
+    //----------------//
+    // bruteContained //
+    //----------------//
+    private static Set<Glyph> bruteContained (List<Glyph> glyphs,
+                                              Rectangle rect,
+                                              Group group)
+    {
+        final Set<Glyph> set = new LinkedHashSet<Glyph>();
+
+        for (Glyph glyph : glyphs) {
+            if (glyph.hasGroup(group) && rect.contains(glyph.getBounds())) {
+                set.add(glyph);
+            }
+        }
+
+        return set;
+    }
+
+    //------------------//
+    // bruteIntersected //
+    //------------------//
+    private static Set<Glyph> bruteIntersected (List<Glyph> glyphs,
+                                                Rectangle rect,
+                                                Group group)
+    {
+        final Set<Glyph> set = new LinkedHashSet<Glyph>();
+
+        for (Glyph glyph : glyphs) {
+            if (glyph.hasGroup(group) && rect.intersects(glyph.getBounds())) {
+                set.add(glyph);
+            }
+        }
+
+        return set;
+    }
+
+    //--------------//
+    // bruteVirtual //
+    //--------------//
+    private static Glyph bruteVirtual (List<Glyph> glyphs,
+                                       Point point)
+    {
+        for (Glyph glyph : glyphs) {
+            if (glyph.hasGroup(Group.DROP) && glyph.getBounds().contains(point)) {
+                return glyph;
+            }
+        }
+
+        return null;
+    }
+
+    //--------------//
+    // checkLookups //
+    //--------------//
+    private static void checkLookups (Random random,
+                                      GlyphIndex index,
+                                      List<Glyph> glyphs)
+    {
+        for (int i = 0; i < 200; i++) {
+            final Rectangle rect = new Rectangle(
+                    random.nextInt(SIZE),
+                    random.nextInt(SIZE),
+                    1 + random.nextInt(200),
+                    1 + random.nextInt(200));
+
+            for (Group group : new Group[]{Group.DROP, Group.STAFF_LINE}) {
+                assertEquals(
+                        rect.toString(),
+                        bruteContained(glyphs, rect, group),
+                        index.containedGlyphs(rect, group));
+                assertEquals(
+                        rect.toString(),
+                        bruteIntersected(glyphs, rect, group),
+                        index.intersectedGlyphs(rect, group));
+            }
+
+            final Point point = new Point(random.nextInt(SIZE), random.nextInt(SIZE));
+            assertSame(
+                    point.toString(),
+                    bruteVirtual(glyphs, point),
+                    index.lookupVirtualGlyph(point));
+        }
+    }
+
+    //--------------//
+    // createGlyphs //
+    //--------------//
+    /**
+     * Build random rectangular glyphs, sorted by increasing ID.
+     */
+    private static List<Glyph> createGlyphs (Random random,
+                                             int count)
+    {
+        final List<Glyph> glyphs = new ArrayList<Glyph>();
+
+        for (int i = 0; i < count; i++) {
+            final int width = 1 + random.nextInt(150);
+            final int height = 1 + random.nextInt(150);
+            final RunTable table = new RunTable(Orientation.VERTICAL, width, height);
+
+            for (int x = 0; x < width; x++) {
+                table.addRun(x, 0, height);
+            }
+
+            final Glyph glyph = new BasicGlyph(
+                    random.nextInt(SIZE),
+                    random.nextInt(SIZE),
+                    table);
+            glyph.setId(i + 1);
+            glyph.addGroup(random.nextBoolean() ? Group.DROP : Group.STAFF_LINE);
+            glyphs.add(glyph);
+        }
+
+        return glyphs;
+    }
+
+    //-------------//
+    // createIndex //
+    //-------------//
+    private static GlyphIndex createIndex (List<Glyph> glyphs)
+    {
+        final GlyphIndex index = new GlyphIndex();
+        index.setEntities(new ArrayList<Glyph>(glyphs));
+
+        return index;
+    }
+}
@@ -0,0 +1,151 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                           E u c l i d e a n D i s t a n c e T e s t                            //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Class {@code EuclideanDistanceTest} checks {@link EuclideanDistance} against a
+ * brute-force computation of Euclidean distances.
+ *
+ * @author Hervé Bitteur
+ */
+public class EuclideanDistanceTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+
+    @Test
+    public void testEmptyImage ()
+    {
+        System.out.println("\n+++ emptyImage");
+
+        ByteProcessor input = createImage(40, 30, 0);
+        DistanceTable table = new EuclideanDistance.Short().computeToFore(input);
+
+        for (int i = (40 * 30) - 1; i >= 0; i--) {
+            assertEquals(ChamferDistance.VALUE_UNKNOWN, table.getValue(i));
+        }
+    }
+
+    @Test
+    public void testRandomImages ()
+    {
+        System.out.println("\n+++ randomImages");
+
+        // Wide and tall enough for several bands of columns and rows
+        checkExact("sparse", createImage(300, 270, 0.0005));
+        checkExact("dense", createImage(270, 300, 0.05));
+    }
+
+    @Test
+    public void testSmallImages ()
+    {
+        System.out.println("\n+++ smallImages");
+
+        for (int width = 1; width <= 6; width++) {
+            for (int height = 1; height <= 6; height++) {
+                checkExact(width + "x" + height, createImage(width, height, 0.2));
+            }
+        }
+    }
+
+    @Test
+    public void testToBack ()
+    {
+        System.out.println("\n+++ toBack");
+
+        ByteProcessor input = createImage(50, 40, 0.3);
+        ByteProcessor inverted = (ByteProcessor) input.duplicate();
+        inverted.invert();
+
+        DistanceTable toBack = new EuclideanDistance.Integer().computeToBack(input);
+        DistanceTable toFore = new EuclideanDistance.Integer().computeToFore(inverted);
+
+        for (int i = (50 * 40) - 1; i >= 0; i--) {
+            assertEquals(toFore.getValue(i), toBack.getValue(i));
+        }
+    }
+
+    //------------//
+    // checkExact //
+    //------------//
+    private void checkExact (String message,
+                             ByteProcessor input)
+    {
+        final int width = input.getWidth();
+        final int height = input.getHeight();
+        final DistanceTable table = new EuclideanDistance.Short().computeToFore(input);
+        final int normalizer = table.getNormalizer();
+        final List<Point> fores = new ArrayList<Point>();
+
+        for (int i = (width * height) - 1; i >= 0; i--) {
+            if (input.get(i) == 0) {
+                fores.add(new Point(i % width, i / width));
+            }
+        }
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                // Brute force
+                long best = Long.MAX_VALUE;
+
+                for (Point p : fores) {
+                    final long dx = p.x - x;
+                    final long dy = p.y - y;
+                    best = Math.min(best, (dx * dx) + (dy * dy));
+                }
+
+                final int expected = (best == Long.MAX_VALUE) ? ChamferDistance.VALUE_UNKNOWN
+                        : (int) Math.rint(normalizer * Math.sqrt(best));
+                assertEquals(message + " x:" + x + " y:" + y, expected, table.getValue(x, y));
+            }
+        }
+    }
+
+    //-------------//
+    // createImage //
+    //-------------//
+    /**
+     * Create a binary image with random foreground pixels.
+     */
+    private ByteProcessor createImage (int width,
+                                       int height,
+                                       double foreRatio)
+    {
+        ByteProcessor img = new ByteProcessor(width, height);
+        Random random = new Random(width * height);
+
+        for (int i = (width * height) - 1; i >= 0; i--) {
+            img.set(i, (random.nextDouble() < foreRatio) ? 0 : 255);
+        }
+
+        return img;
+    }
+}
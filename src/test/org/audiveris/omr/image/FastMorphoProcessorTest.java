@@ -0,0 +1,159 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                         F a s t M o r p h o P r o c e s s o r T e s t                          //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Class {@code FastMorphoProcessorTest} checks that {@link FastMorphoProcessor} produces
+ * exactly the same pixels as {@link MorphoProcessor}.
+ *
+ * @author Hervé Bitteur
+ */
+public class FastMorphoProcessorTest
+        implements MorphoConstants
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final int[] seOffset = {0, 0};
+
+    //~ Methods ------------------------------------------------------------------------------------
+
+    @Test
+    public void testClose ()
+    {
+        System.out.println("\n+++ close");
+
+        // Tall enough for several bands of rows
+        ByteProcessor source = createNoisyImage(211, 577);
+
+        for (float radius : new float[]{0.5f, 1f, 2.5f, 3.6f, 5f}) {
+            StructureElement se = new StructureElement(CIRCLE, 1, radius, seOffset);
+            ByteProcessor expected = (ByteProcessor) source.duplicate();
+            new MorphoProcessor(se).close(expected);
+
+            ByteProcessor result = (ByteProcessor) source.duplicate();
+            new FastMorphoProcessor(se).close(result);
+
+            assertSame("radius:" + radius, expected, result);
+        }
+    }
+
+    @Test
+    public void testDilateErodeOpen ()
+    {
+        System.out.println("\n+++ dilateErodeOpen");
+
+        ByteProcessor source = createNoisyImage(123, 97);
+
+        for (int type : new int[]{CIRCLE, DIAMOND, SQARE}) {
+            StructureElement se = new StructureElement(type, 1, 3.2f, seOffset);
+            MorphoProcessor morpho = new MorphoProcessor(se);
+            FastMorphoProcessor fast = new FastMorphoProcessor(se);
+
+            ByteProcessor expected = (ByteProcessor) source.duplicate();
+            ByteProcessor result = (ByteProcessor) source.duplicate();
+            morpho.dilate(expected);
+            fast.dilate(result);
+            assertSame("dilate type:" + type, expected, result);
+
+            expected = (ByteProcessor) source.duplicate();
+            result = (ByteProcessor) source.duplicate();
+            morpho.erode(expected);
+            fast.erode(result);
+            assertSame("erode type:" + type, expected, result);
+
+            expected = (ByteProcessor) source.duplicate();
+            result = (ByteProcessor) source.duplicate();
+            morpho.open(expected);
+            fast.open(result);
+            assertSame("open type:" + type, expected, result);
+        }
+    }
+
+    @Test
+    public void testSmallImages ()
+    {
+        System.out.println("\n+++ smallImages");
+
+        // Some smaller than the structure element
+        StructureElement se = new StructureElement(CIRCLE, 1, 2.5f, seOffset);
+
+        for (int width = 1; width <= 9; width++) {
+            for (int height = 1; height <= 9; height++) {
+                ByteProcessor source = createNoisyImage(width, height);
+                ByteProcessor expected = (ByteProcessor) source.duplicate();
+                new MorphoProcessor(se).close(expected);
+
+                ByteProcessor result = (ByteProcessor) source.duplicate();
+                new FastMorphoProcessor(se).close(result);
+
+                assertSame(width + "x" + height, expected, result);
+            }
+        }
+    }
+
+    //------------//
+    // assertSame //
+    //------------//
+    private void assertSame (String message,
+                             ByteProcessor expected,
+                             ByteProcessor result)
+    {
+        assertTrue(
+                message,
+                Arrays.equals((byte[]) expected.getPixels(), (byte[]) result.getPixels()));
+    }
+
+    //------------------//
+    // createNoisyImage //
+    //------------------//
+    /**
+     * Create a gray image with a gradient background, noise and a few dark strokes.
+     */
+    private ByteProcessor createNoisyImage (int width,
+                                            int height)
+    {
+        ByteProcessor ip = new ByteProcessor(width, height);
+        Random random = new Random(789);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int val = 150 + ((80 * y) / height) + random.nextInt(40);
+
+                if (((y % 19) < 4) || ((x % 31) < 3)) {
+                    val -= 130;
+                }
+
+                ip.set(x, y, Math.max(0, Math.min(255, val)));
+            }
+        }
+
+        return ip;
+    }
+}
@@ -0,0 +1,162 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                              I n t e g r a l F i l t e r T e s t                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.run.Orientation;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableFactory;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Class {@code IntegralFilterTest} checks that {@link IntegralFilter} binarizes exactly
+ * as {@link VerticalFilter}.
+ *
+ * @author Hervé Bitteur
+ */
+public class IntegralFilterTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+
+    @Test
+    public void testFilteredImage ()
+    {
+        System.out.println("\n+++ filteredImage");
+
+        // Tall enough for several bands of rows
+        ByteProcessor source = createNoisyImage(345, 601);
+        AdaptiveDescriptor desc = AdaptiveDescriptor.getDefault();
+
+        ByteProcessor expected = new VerticalFilter(source, desc.meanCoeff, desc.stdDevCoeff)
+                .filteredImage();
+        ByteProcessor result = new IntegralFilter(source, desc.meanCoeff, desc.stdDevCoeff)
+                .filteredImage();
+
+        assertTrue(
+                "Images differ",
+                Arrays.equals((byte[]) expected.getPixels(), (byte[]) result.getPixels()));
+    }
+
+    @Test
+    public void testFilteredRuns ()
+    {
+        System.out.println("\n+++ filteredRuns");
+
+        // Wide enough for several bands of columns
+        ByteProcessor source = createNoisyImage(601, 345);
+        RunTableFactory factory = new RunTableFactory(Orientation.VERTICAL);
+
+        // NOTA: A VerticalFilter instance can browse the source only once
+        for (FilterDescriptor desc : new FilterDescriptor[]{
+            new IntegralDescriptor(0.7, 0.9),
+            new AdaptiveDescriptor(0.7, 0.9),
+            new GlobalDescriptor(140)
+        }) {
+            RunTable expected = factory.createTable(desc.getFilter(source).filteredImage());
+            RunTable result = desc.getFilter(source).filteredRuns();
+            assertEquals(desc.toString(), expected, result);
+        }
+
+        // Runs from integral filter are identical to runs from vertical filter
+        assertEquals(
+                new VerticalFilter(source, 0.7, 0.9).filteredRuns(),
+                new IntegralFilter(source, 0.7, 0.9).filteredRuns());
+    }
+
+    @Test
+    public void testIsFore ()
+    {
+        System.out.println("\n+++ isFore");
+
+        ByteProcessor source = createNoisyImage(50, 40);
+        IntegralFilter filter = new IntegralFilter(source, 0.7, 0.9);
+        VerticalFilter expected = new VerticalFilter(source, 0.7, 0.9);
+
+        for (int x = 0; x < source.getWidth(); x++) {
+            for (int y = 0; y < source.getHeight(); y++) {
+                assertEquals(expected.isFore(x, y), filter.isFore(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testSmallImage ()
+    {
+        System.out.println("\n+++ smallImage");
+
+        // Smaller than the filter window
+        ByteProcessor source = createNoisyImage(7, 5);
+        ByteProcessor expected = new VerticalFilter(source, 0.7, 0.9).filteredImage();
+        ByteProcessor result = new IntegralFilter(source, 0.7, 0.9).filteredImage();
+
+        assertTrue(
+                "Images differ",
+                Arrays.equals((byte[]) expected.getPixels(), (byte[]) result.getPixels()));
+    }
+
+    @Test
+    public void testDescriptor ()
+    {
+        System.out.println("\n+++ descriptor");
+
+        FilterDescriptor integral = new IntegralDescriptor(0.7, 0.9);
+        FilterDescriptor adaptive = new AdaptiveDescriptor(0.7, 0.9);
+
+        assertEquals(FilterKind.INTEGRAL, integral.getKind());
+        assertTrue(integral.getFilter(new ByteProcessor(10, 10)) instanceof IntegralFilter);
+        assertFalse(integral.equals(adaptive));
+        assertFalse(adaptive.equals(integral));
+        assertEquals(integral, new IntegralDescriptor(0.7, 0.9));
+    }
+
+    //------------------//
+    // createNoisyImage //
+    //------------------//
+    /**
+     * Create a gray image with a gradient background, noise and a few dark strokes.
+     */
+    private ByteProcessor createNoisyImage (int width,
+                                            int height)
+    {
+        ByteProcessor ip = new ByteProcessor(width, height);
+        Random random = new Random(456);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int val = 160 + ((60 * x) / width) + random.nextInt(30);
+
+                if (((y % 23) < 3) || ((x % 41) < 2)) {
+                    val -= 120;
+                }
+
+                ip.set(x, y, Math.max(0, Math.min(255, val)));
+            }
+        }
+
+        return ip;
+    }
+}
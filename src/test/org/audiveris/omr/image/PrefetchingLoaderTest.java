@@ -0,0 +1,268 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                           P r e f e t c h i n g L o a d e r T e s t                            //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Class {@code PrefetchingLoaderTest} checks {@link PrefetchingLoader}.
+ *
+ * @author Hervé Bitteur
+ */
+public class PrefetchingLoaderTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final int COUNT = 12;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------------//
+    // testDispose //
+    //-------------//
+    @Test
+    public void testDispose ()
+            throws Exception
+    {
+        final FakeLoader fake = new FakeLoader();
+        final PrefetchingLoader loader = new PrefetchingLoader(fake, Arrays.asList(1, 2, 3));
+        assertEquals(1, loader.getImage(1).getWidth());
+
+        loader.dispose();
+        assertEquals(1, fake.disposals.get());
+
+        try {
+            loader.getImage(2);
+            fail("IOException expected on disposed loader");
+        } catch (IOException expected) {
+        }
+    }
+
+    //--------------//
+    // testEviction //
+    //--------------//
+    @Test
+    public void testEviction ()
+            throws Exception
+    {
+        final FakeLoader fake = new FakeLoader();
+        final PrefetchingLoader loader = new PrefetchingLoader(fake, Arrays.asList(1, 2, 3, 4));
+        loader.getImage(1);
+        waitForLoads(fake, 2, 3);
+
+        // Image 2 gets behind the highest requested id, so it is evicted
+        loader.getImage(3);
+        assertEquals(2, loader.getImage(2).getWidth());
+        assertEquals(2, fake.loads.get(2));
+
+        loader.dispose();
+    }
+
+    //-----------------//
+    // testExpectedIds //
+    //-----------------//
+    @Test
+    public void testExpectedIds ()
+            throws Exception
+    {
+        final FakeLoader fake = new FakeLoader();
+        final PrefetchingLoader loader = new PrefetchingLoader(fake, Arrays.asList(1, 2, 3, 4, 5));
+
+        // New run on a subset of images
+        loader.setExpectedIds(Arrays.asList(1, 4, 5));
+        loader.getImage(1);
+        waitForLoads(fake, 4, 5);
+        assertEquals(0, fake.loads.get(2));
+        assertEquals(0, fake.loads.get(3));
+
+        // Another run, from the beginning
+        loader.setExpectedIds(Arrays.asList(1, 2, 3));
+        loader.getImage(1);
+        waitForLoads(fake, 2, 3);
+        assertEquals(2, loader.getImage(2).getWidth());
+        assertEquals(1, fake.loads.get(2));
+
+        loader.dispose();
+    }
+
+    //-----------------//
+    // testParallelGet //
+    //-----------------//
+    @Test
+    public void testParallelGet ()
+            throws Exception
+    {
+        final FakeLoader fake = new FakeLoader();
+        final List<Integer> ids = new ArrayList<Integer>();
+
+        for (int id = 1; id <= COUNT; id++) {
+            ids.add(id);
+        }
+
+        final PrefetchingLoader loader = new PrefetchingLoader(fake, ids);
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try {
+            final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+            for (final int id : ids) {
+                tasks.add(
+                        new Callable<Void>()
+                {
+                    @Override
+                    public Void call ()
+                            throws Exception
+                    {
+                        assertEquals(id, loader.getImage(id).getWidth());
+
+                        return null;
+                    }
+                });
+            }
+
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        loader.dispose();
+        assertTrue(fake.maxConcurrency.get() <= 1);
+    }
+
+    //-------------------//
+    // testSequentialGet //
+    //-------------------//
+    @Test
+    public void testSequentialGet ()
+            throws Exception
+    {
+        final FakeLoader fake = new FakeLoader();
+        final List<Integer> ids = Arrays.asList(1, 2, 4, 6, 7, 8);
+        final PrefetchingLoader loader = new PrefetchingLoader(fake, ids);
+        assertEquals(COUNT, loader.getImageCount());
+
+        for (int id : ids) {
+            assertEquals(id, loader.getImage(id).getWidth());
+        }
+
+        loader.dispose();
+
+        // Each expected image has been loaded once, either prefetched or directly
+        for (int id = 1; id <= COUNT; id++) {
+            assertEquals("image " + id, ids.contains(id) ? 1 : 0, fake.loads.get(id));
+        }
+    }
+
+    //--------------//
+    // waitForLoads //
+    //--------------//
+    /**
+     * Wait until the provided images have been loaded, which here means prefetched.
+     */
+    private static void waitForLoads (FakeLoader fake,
+                                      int... ids)
+            throws InterruptedException
+    {
+        final long deadline = System.currentTimeMillis() + 5000;
+
+        for (int id : ids) {
+            while (fake.loads.get(id) == 0) {
+                assertTrue(
+                        "image " + id + " not prefetched",
+                        System.currentTimeMillis() < deadline);
+                Thread.sleep(5);
+            }
+        }
+
+        Thread.sleep(20); // Let prefetch task store the last image
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //------------//
+    // FakeLoader //
+    //------------//
+    /**
+     * A loader which builds images whose width is their id, and counts its calls.
+     */
+    private static class FakeLoader
+            implements ImageLoading.Loader
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final AtomicIntegerArray loads = new AtomicIntegerArray(COUNT + 1);
+
+        final AtomicInteger disposals = new AtomicInteger();
+
+        final AtomicInteger concurrency = new AtomicInteger();
+
+        final AtomicInteger maxConcurrency = new AtomicInteger();
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public void dispose ()
+        {
+            disposals.incrementAndGet();
+        }
+
+        @Override
+        public BufferedImage getImage (int id)
+                throws IOException
+        {
+            final int current = concurrency.incrementAndGet();
+
+            try {
+                synchronized (maxConcurrency) {
+                    maxConcurrency.set(Math.max(maxConcurrency.get(), current));
+                }
+
+                loads.incrementAndGet(id);
+                Thread.sleep(5);
+
+                return new BufferedImage(id, 10, BufferedImage.TYPE_BYTE_GRAY);
+            } catch (InterruptedException ex) {
+                throw new IOException(ex);
+            } finally {
+                concurrency.decrementAndGet();
+            }
+        }
+
+        @Override
+        public int getImageCount ()
+        {
+            return COUNT;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                S k e l e t o n i z e r T e s t                                 //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Class {@code SkeletonizerTest} checks that {@link Skeletonizer} produces exactly the
+ * same pixels as ImageJ {@code skeletonize()}.
+ *
+ * @author Hervé Bitteur
+ */
+public class SkeletonizerTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+
+    @Test
+    public void testBlobs ()
+    {
+        System.out.println("\n+++ blobs");
+
+        // Large enough for several tiles
+        checkSame("blobs", createBlobImage(411, 517, 123));
+    }
+
+    @Test
+    public void testExamples ()
+            throws Exception
+    {
+        System.out.println("\n+++ examples");
+
+        for (String name : new String[]{"allegretto.png", "chula.png"}) {
+            BufferedImage img = ImageIO.read(new File("data/examples", name));
+            ByteProcessor source = new ByteProcessor(img);
+            source.threshold(140);
+            checkSame(name, source);
+        }
+    }
+
+    @Test
+    public void testSmallImages ()
+    {
+        System.out.println("\n+++ smallImages");
+
+        for (int width = 1; width <= 7; width++) {
+            for (int height = 1; height <= 7; height++) {
+                checkSame(width + "x" + height, createBlobImage(width, height, width * height));
+            }
+        }
+    }
+
+    //-----------//
+    // checkSame //
+    //-----------//
+    private void checkSame (String message,
+                            ByteProcessor source)
+    {
+        ByteProcessor expected = (ByteProcessor) source.duplicate();
+        expected.skeletonize();
+
+        ByteProcessor result = (ByteProcessor) source.duplicate();
+        new Skeletonizer(result).skeletonize();
+
+        assertTrue(
+                message,
+                Arrays.equals((byte[]) expected.getPixels(), (byte[]) result.getPixels()));
+    }
+
+    //-----------------//
+    // createBlobImage //
+    //-----------------//
+    /**
+     * Create a binary image with black thick strokes, disks and random noise.
+     */
+    private ByteProcessor createBlobImage (int width,
+                                           int height,
+                                           long seed)
+    {
+        ByteProcessor ip = new ByteProcessor(width, height);
+        Random random = new Random(seed);
+        ip.setValue(255);
+        ip.fill();
+        ip.setValue(0);
+
+        for (int i = 0; i < ((width * height) / 2000) + 1; i++) {
+            ip.setLineWidth(1 + random.nextInt(9));
+            ip.drawLine(
+                    random.nextInt(width),
+                    random.nextInt(height),
+                    random.nextInt(width),
+                    random.nextInt(height));
+            ip.fillOval(random.nextInt(width), random.nextInt(height), 3 + random.nextInt(30),
+                        3 + random.nextInt(30));
+        }
+
+        for (int i = 0; i < ((width * height) / 20); i++) {
+            ip.set(random.nextInt(width), random.nextInt(height), 0);
+        }
+
+        return ip;
+    }
+}
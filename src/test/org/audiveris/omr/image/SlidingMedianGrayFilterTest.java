@@ -0,0 +1,135 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                     S l i d i n g M e d i a n G r a y F i l t e r T e s t                      //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Class {@code SlidingMedianGrayFilterTest} checks that {@link SlidingMedianGrayFilter}
+ * produces exactly the same pixels as {@link MedianGrayFilter}.
+ *
+ * @author Hervé Bitteur
+ */
+public class SlidingMedianGrayFilterTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+
+    @Test
+    public void testExamples ()
+            throws Exception
+    {
+        System.out.println("\n+++ examples");
+
+        for (String name : new String[]{"allegretto.png", "chula.png"}) {
+            BufferedImage img = ImageIO.read(new File("data/examples", name));
+            assertEquals(BufferedImage.TYPE_BYTE_GRAY, img.getType());
+
+            ByteProcessor source = new ByteProcessor(img);
+
+            for (int radius = 1; radius <= 2; radius++) {
+                checkSame(name + " radius:" + radius, source, radius);
+            }
+        }
+    }
+
+    @Test
+    public void testNoisyImage ()
+    {
+        System.out.println("\n+++ noisyImage");
+
+        // Tall enough for several bands of rows
+        ByteProcessor source = createNoisyImage(301, 613);
+
+        for (int radius = 1; radius <= 5; radius++) {
+            checkSame("radius:" + radius, source, radius);
+        }
+    }
+
+    @Test
+    public void testSmallImages ()
+    {
+        System.out.println("\n+++ smallImages");
+
+        // Some smaller than the filter window
+        for (int width = 1; width <= 9; width++) {
+            for (int height = 1; height <= 9; height++) {
+                ByteProcessor source = createNoisyImage(width, height);
+
+                for (int radius = 1; radius <= 3; radius++) {
+                    checkSame(width + "x" + height + " radius:" + radius, source, radius);
+                }
+            }
+        }
+    }
+
+    //-----------//
+    // checkSame //
+    //-----------//
+    private void checkSame (String message,
+                            ByteProcessor source,
+                            int radius)
+    {
+        ByteProcessor expected = new MedianGrayFilter(radius).filter(source);
+        ByteProcessor result = new SlidingMedianGrayFilter(radius).filter(source);
+
+        assertTrue(
+                message,
+                Arrays.equals((byte[]) expected.getPixels(), (byte[]) result.getPixels()));
+    }
+
+    //------------------//
+    // createNoisyImage //
+    //------------------//
+    /**
+     * Create a gray image with a gradient background, noise and a few dark strokes.
+     */
+    private ByteProcessor createNoisyImage (int width,
+                                            int height)
+    {
+        ByteProcessor ip = new ByteProcessor(width, height);
+        Random random = new Random(123);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int val = 160 + ((60 * x) / width) + random.nextInt(60);
+
+                if (((y % 17) < 3) || ((x % 29) < 2)) {
+                    val -= 140;
+                }
+
+                ip.set(x, y, Math.max(0, Math.min(255, val)));
+            }
+        }
+
+        return ip;
+    }
+}
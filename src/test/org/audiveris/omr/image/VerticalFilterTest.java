@@ -0,0 +1,103 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                              V e r t i c a l F i l t e r T e s t                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.run.Orientation;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableFactory;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Class {@code VerticalFilterTest} checks the parallel runs retrieval of the adaptive
+ * filters.
+ *
+ * @author Hervé Bitteur
+ */
+public class VerticalFilterTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+
+    @Test
+    public void testFilteredRuns ()
+    {
+        System.out.println("\n+++ filteredRuns");
+
+        ByteProcessor source = createNoisyImage(601, 345);
+        RunTable expected = new RunTableFactory(Orientation.VERTICAL).createTable(
+                new VerticalFilter(source, 0.7, 0.9));
+
+        assertEquals(expected, new VerticalFilter(source, 0.7, 0.9).filteredRuns());
+        assertEquals(expected, new RandomFilter(source, 0.7, 0.9).filteredRuns());
+    }
+
+    @Test
+    public void testSkipTo ()
+    {
+        System.out.println("\n+++ skipTo");
+
+        ByteProcessor source = createNoisyImage(400, 120);
+        VerticalFilter expected = new VerticalFilter(source, 0.7, 0.9);
+
+        // Beginning of a band, as processed by a task other than the first one
+        final int xStart = 250;
+        VerticalFilter filter = new VerticalFilter(source, 0.7, 0.9);
+        filter.skipTo(xStart);
+
+        for (int x = xStart; x < source.getWidth(); x++) {
+            for (int y = 0; y < source.getHeight(); y++) {
+                assertEquals("x:" + x + " y:" + y, expected.isFore(x, y), filter.isFore(x, y));
+            }
+        }
+    }
+
+    //------------------//
+    // createNoisyImage //
+    //------------------//
+    /**
+     * Create a gray image with a gradient background, noise and a few dark strokes.
+     */
+    private ByteProcessor createNoisyImage (int width,
+                                            int height)
+    {
+        ByteProcessor ip = new ByteProcessor(width, height);
+        Random random = new Random(789);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int val = 160 + ((60 * x) / width) + random.nextInt(30);
+
+                if (((y % 23) < 3) || ((x % 41) < 2)) {
+                    val -= 120;
+                }
+
+                ip.set(x, y, Math.max(0, Math.min(255, val)));
+            }
+        }
+
+        return ip;
+    }
+}
@@ -0,0 +1,174 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    B a s i c L a g T e s t                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.lag;
+
+import org.audiveris.omr.run.Orientation;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Unit tests for the spatial lookup of {@link BasicLag}, checked against a brute-force scan
+ * of all sections.
+ *
+ * @author Hervé Bitteur
+ */
+public class BasicLagTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final int SIZE = 600; // Side of the image area
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //--------------------//
+    // testGrowingSection //
+    //--------------------//
+    /**
+     * Sections are registered before their runs get appended, as done by SectionFactory.
+     * Once the sections are complete, lookups must see their final bounds.
+     */
+    @Test
+    public void testGrowingSection ()
+    {
+        final Lag lag = new BasicLag("v", Orientation.VERTICAL);
+        final List<Section> sections = createSections(new Random(5), lag, 200);
+
+        checkLookups(new Random(6), lag, sections);
+
+        // Sections created after a first lookup
+        sections.addAll(createSections(new Random(7), lag, 100));
+        checkLookups(new Random(8), lag, sections);
+    }
+
+    //-------------//
+    // testLookups //
+    //-------------//
+    @Test
+    public void testLookups ()
+    {
+        for (Orientation orientation : Orientation.values()) {
+            final Lag lag = new BasicLag("lag", orientation);
+            final List<Section> sections = createSections(new Random(1), lag, 300);
+
+            checkLookups(new Random(2), lag, sections);
+        }
+    }
+
+    //-------------//
+    // testRemoval //
+    //-------------//
+    @Test
+    public void testRemoval ()
+    {
+        final Lag lag = new BasicLag("h", Orientation.HORIZONTAL);
+        final List<Section> sections = createSections(new Random(3), lag, 300);
+        checkLookups(new Random(4), lag, sections); // Make sure sections get indexed
+
+        final List<Section> kept = new ArrayList<Section>();
+
+        for (int i = 0; i < sections.size(); i++) {
+            if ((i % 3) == 0) {
+                lag.remove(sections.get(i));
+            } else {
+                kept.add(sections.get(i));
+            }
+        }
+
+        checkLookups(new Random(5), lag, kept);
+    }
+
+    //------------------//
+    // bruteIntersected //
+    //------------------//
+    private static Set<Section> bruteIntersected (List<Section> sections,
+                                                  Rectangle rect)
+    {
+        final Set<Section> set = new LinkedHashSet<Section>();
+
+        for (Section section : sections) {
+            if (section.intersects(rect)) {
+                set.add(section);
+            }
+        }
+
+        return set;
+    }
+
+    //--------------//
+    // checkLookups //
+    //--------------//
+    private static void checkLookups (Random random,
+                                      Lag lag,
+                                      List<Section> sections)
+    {
+        for (int i = 0; i < 200; i++) {
+            final Rectangle rect = new Rectangle(
+                    random.nextInt(SIZE),
+                    random.nextInt(SIZE),
+                    1 + random.nextInt(100),
+                    1 + random.nextInt(100));
+
+            assertEquals(
+                    rect.toString(),
+                    bruteIntersected(sections, rect),
+                    lag.intersectedSections(rect));
+        }
+    }
+
+    //----------------//
+    // createSections //
+    //----------------//
+    /**
+     * Build random sections of a few contiguous runs each, sorted by increasing ID.
+     */
+    private static List<Section> createSections (Random random,
+                                                 Lag lag,
+                                                 int count)
+    {
+        final List<Section> sections = new ArrayList<Section>();
+
+        for (int i = 0; i < count; i++) {
+            final DynamicSection section = new DynamicSection(lag.getOrientation());
+            lag.register(section); // Section gets an id before any run, as in SectionFactory
+            section.setFirstPos(random.nextInt(SIZE));
+
+            int start = random.nextInt(SIZE);
+
+            for (int r = 1 + random.nextInt(40); r > 0; r--) {
+                final int length = 1 + random.nextInt(60);
+                section.append(start, length);
+                start = Math.max(0, (start + random.nextInt(length)) - random.nextInt(20));
+            }
+
+            sections.add(section);
+        }
+
+        return sections;
+    }
+}
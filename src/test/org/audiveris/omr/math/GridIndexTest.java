@@ -0,0 +1,115 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   G r i d I n d e x T e s t                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.math;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for {@link GridIndex}.
+ *
+ * @author Hervé Bitteur
+ */
+public class GridIndexTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    /**
+     * Compare index lookups with a brute-force scan, on random boxes including negative
+     * coordinates.
+     */
+    @Test
+    public void testRandomLookups ()
+    {
+        final Random random = new Random(123);
+        final GridIndex<Integer> index = new GridIndex<Integer>(16);
+        final List<Rectangle> boxes = new ArrayList<Rectangle>();
+        final List<Integer> items = new ArrayList<Integer>(); // Items are compared by identity
+
+        for (int i = 0; i < 500; i++) {
+            Rectangle box = randomBox(random);
+            boxes.add(box);
+            items.add(new Integer(i));
+            index.insert(items.get(i), box);
+        }
+
+        // Move some items, remove some others
+        for (int i = 0; i < 500; i += 7) {
+            Rectangle box = randomBox(random);
+            boxes.set(i, box);
+            index.update(items.get(i), box);
+        }
+
+        for (int i = 3; i < 500; i += 11) {
+            boxes.set(i, null);
+            assertTrue(index.remove(items.get(i)));
+        }
+
+        for (int q = 0; q < 200; q++) {
+            Rectangle query = randomBox(random);
+            List<Integer> expected = new ArrayList<Integer>();
+
+            for (int i = 0; i < boxes.size(); i++) {
+                if ((boxes.get(i) != null) && boxes.get(i).intersects(query)) {
+                    expected.add(items.get(i));
+                }
+            }
+
+            assertEquals(expected, index.getCandidates(query));
+        }
+    }
+
+    /**
+     * Unbounded items are always reported, in registration order.
+     */
+    @Test
+    public void testUnbounded ()
+    {
+        final GridIndex<String> index = new GridIndex<String>(10);
+        index.insert("a", new Rectangle(0, 0, 5, 5));
+        index.insert("b", null);
+        index.insert("c", new Rectangle(100, 100, 5, 5));
+
+        assertEquals(Arrays.asList("a", "b"), index.getCandidates(new Point(2, 2)));
+        assertEquals(Arrays.asList("b"), index.getCandidates(new Point(50, 50)));
+
+        // Update keeps registration order
+        index.update("a", new Rectangle(50, 50, 5, 5));
+        assertEquals(Arrays.asList("a", "b"), index.getCandidates(new Point(52, 52)));
+        assertEquals(3, index.size());
+    }
+
+    private Rectangle randomBox (Random random)
+    {
+        return new Rectangle(
+                random.nextInt(400) - 100,
+                random.nextInt(400) - 100,
+                1 + random.nextInt(60),
+                1 + random.nextInt(60));
+    }
+}
@@ -0,0 +1,145 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               N e u r a l N e t w o r k T e s t                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.math;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Class {@code NeuralNetworkTest} checks that the thread-confined inference of
+ * {@link NeuralNetwork} computes the same outputs as the original run method.
+ *
+ * @author Hervé Bitteur
+ */
+public class NeuralNetworkTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final int INPUT_SIZE = 109;
+
+    private static final int HIDDEN_SIZE = 40;
+
+    private static final int OUTPUT_SIZE = 40;
+
+    private static final int SAMPLE_COUNT = 200;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    private final NeuralNetwork network = new NeuralNetwork(
+            INPUT_SIZE,
+            HIDDEN_SIZE,
+            OUTPUT_SIZE,
+            0.5,
+            null,
+            null);
+
+    private final double[][] samples = createSamples(new Random(123));
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //----------------------//
+    // testEvaluateParallel //
+    //----------------------//
+    @Test
+    public void testEvaluateParallel ()
+            throws Exception
+    {
+        final double[][] expected = new double[SAMPLE_COUNT][];
+
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            expected[i] = network.run(samples[i], null, null);
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            final List<Callable<double[][]>> tasks = new ArrayList<Callable<double[][]>>();
+
+            for (int t = 0; t < 8; t++) {
+                tasks.add(
+                        new Callable<double[][]>()
+                {
+                    @Override
+                    public double[][] call ()
+                            throws Exception
+                    {
+                        final double[][] results = new double[SAMPLE_COUNT][];
+
+                        for (int i = 0; i < SAMPLE_COUNT; i++) {
+                            results[i] = network.evaluate(samples[i], null);
+                        }
+
+                        return results;
+                    }
+                });
+            }
+
+            for (Future<double[][]> future : executor.invokeAll(tasks)) {
+                final double[][] results = future.get();
+
+                for (int i = 0; i < SAMPLE_COUNT; i++) {
+                    assertArrayEquals(expected[i], results[i], 0);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    //------------------------//
+    // testEvaluateSequential //
+    //------------------------//
+    @Test
+    public void testEvaluateSequential ()
+    {
+        final double[] outputs = new double[OUTPUT_SIZE];
+
+        for (double[] inputs : samples) {
+            final double[] expected = network.run(inputs, null, null);
+            final double[] actual = network.evaluate(inputs, outputs);
+            assertSame(outputs, actual);
+            assertArrayEquals(expected, actual, 0);
+        }
+    }
+
+    //---------------//
+    // createSamples //
+    //---------------//
+    private static double[][] createSamples (Random random)
+    {
+        final double[][] array = new double[SAMPLE_COUNT][INPUT_SIZE];
+
+        for (double[] inputs : array) {
+            for (int i = 0; i < INPUT_SIZE; i++) {
+                inputs[i] = random.nextGaussian();
+            }
+        }
+
+        return array;
+    }
+}
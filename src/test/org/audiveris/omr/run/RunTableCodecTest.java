@@ -0,0 +1,237 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               R u n T a b l e C o d e c T e s t                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.run;
+
+import static org.audiveris.omr.run.Orientation.HORIZONTAL;
+import static org.audiveris.omr.run.Orientation.VERTICAL;
+import org.audiveris.omr.util.Jaxb;
+
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.xml.bind.JAXBContext;
+
+/**
+ * Class {@code RunTableCodecTest} tests the binary (de-)serialization of RunTable,
+ * as well as the transparent reading of former XML tables.
+ *
+ * @author Hervé Bitteur
+ */
+public class RunTableCodecTest
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Folder for files written by tests, deleted afterwards. */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testCorruptCell ()
+            throws Exception
+    {
+        // Magic, version, no flags, orientation, width 10, height 1, then one cell of 2^21 - 1
+        byte[] bytes = new byte[]{
+            'R', 'T', 'B', 'L', 1, 0, 0, 10, 1, 1, (byte) 0xFF, (byte) 0xFF, 0x7F
+        };
+
+        try {
+            RunTableCodec.read(new ByteArrayInputStream(bytes));
+            fail("Corrupt cell not detected");
+        } catch (IOException expected) {
+            System.out.println("Expected: " + expected);
+        }
+    }
+
+    @Test
+    public void testCorruptCount ()
+            throws Exception
+    {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        RunTableCodec.write(createHorizontalInstance(), os, false);
+
+        // Magic (4 bytes), version, flags, orientation, width, height, then first count
+        byte[] bytes = os.toByteArray();
+        bytes[9] = 100; // Way more than 2 * 10 + 1 cells
+
+        try {
+            RunTableCodec.read(new ByteArrayInputStream(bytes));
+            fail("Corrupt count not detected");
+        } catch (IOException expected) {
+            System.out.println("Expected: " + expected);
+        }
+    }
+
+    @Test
+    public void testCorruptOrientation ()
+            throws Exception
+    {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        RunTableCodec.write(createHorizontalInstance(), os, false);
+
+        // Magic (4 bytes), version, flags, then orientation ordinal
+        byte[] bytes = os.toByteArray();
+        bytes[6] = 5;
+
+        try {
+            RunTableCodec.read(new ByteArrayInputStream(bytes));
+            fail("Corrupt orientation not detected");
+        } catch (IOException expected) {
+            System.out.println("Expected: " + expected);
+        }
+    }
+
+    @Test
+    public void testEmptyTable ()
+            throws Exception
+    {
+        RunTable table = new RunTable(VERTICAL, 7, 3);
+        assertEquals(table, roundTrip(table, false));
+        assertEquals(table, roundTrip(table, true));
+    }
+
+    @Test
+    public void testLongRuns ()
+            throws Exception
+    {
+        // Lengths beyond 127 need several varint bytes, beyond 32767 they use the sign bit
+        RunTable table = new RunTable(HORIZONTAL, 40000, 2);
+        table.addRun(0, 0, 200);
+        table.addRun(0, 300, 35000);
+        table.addRun(1, 39999, 1);
+
+        RunTable newTable = roundTrip(table, true);
+        assertEquals(table, newTable);
+        assertEquals(table.getWeight(), newTable.getWeight());
+    }
+
+    @Test
+    public void testRoundTrip ()
+            throws Exception
+    {
+        RunTable table = createHorizontalInstance();
+        RunTable plain = roundTrip(table, false);
+        assertEquals(table.dumpOf(), plain.dumpOf());
+        assertEquals(table, plain);
+
+        RunTable deflated = roundTrip(table, true);
+        assertEquals(table.dumpOf(), deflated.dumpOf());
+        assertEquals(table, deflated);
+    }
+
+    @Test
+    public void testStoreAndLoad ()
+            throws Exception
+    {
+        RunTable table = createHorizontalInstance();
+
+        // Binary
+        Path binPath = pathOf("runtable" + RunTableCodec.BINARY_EXTENSION);
+        RunTableCodec.store(table, binPath);
+        assertEquals(table, RunTableCodec.load(binPath));
+        assertEquals(table, RunTable.unmarshal(binPath));
+
+        // XML, which replaces the binary file
+        Path xmlPath = pathOf("runtable" + RunTableCodec.XML_EXTENSION);
+        RunTableCodec.store(table, xmlPath);
+        assertEquals(table, RunTableCodec.load(xmlPath));
+        assertFalse(Files.exists(binPath));
+
+        // Back to binary, which replaces the XML file
+        RunTableCodec.store(table, binPath);
+        assertFalse(Files.exists(xmlPath));
+        assertEquals(binPath, RunTableCodec.locate(xmlPath));
+    }
+
+    @Test
+    public void testReadFormerXml ()
+            throws Exception
+    {
+        RunTable table = createHorizontalInstance();
+        Path xmlPath = pathOf("former-runtable.xml");
+        Files.deleteIfExists(xmlPath);
+        Jaxb.marshal(table, xmlPath, JAXBContext.newInstance(RunTable.class));
+
+        // Read through codec, which detects XML content
+        assertEquals(table, RunTableCodec.load(xmlPath));
+
+        // Locate from the binary name
+        Path binPath = pathOf("former-runtable" + RunTableCodec.BINARY_EXTENSION);
+        Files.deleteIfExists(binPath);
+        assertEquals(xmlPath, RunTableCodec.locate(binPath));
+    }
+
+    //--------------------------//
+    // createHorizontalInstance //
+    //--------------------------//
+    private RunTable createHorizontalInstance ()
+    {
+        RunTable instance = new RunTable(HORIZONTAL, 10, 5);
+
+        instance.addRun(0, new Run(1, 2));
+        instance.addRun(0, new Run(5, 3));
+
+        instance.addRun(1, new Run(0, 1));
+        instance.addRun(1, new Run(4, 2));
+
+        // Leave sequence empty at index 2
+        //
+        instance.addRun(3, new Run(0, 2));
+        instance.addRun(3, new Run(4, 1));
+        instance.addRun(3, new Run(8, 2));
+
+        instance.addRun(4, new Run(2, 2));
+        instance.addRun(4, new Run(6, 4));
+
+        return instance;
+    }
+
+    //--------//
+    // pathOf //
+    //--------//
+    private Path pathOf (String fileName)
+    {
+        return folder.getRoot().toPath().resolve(fileName);
+    }
+
+    //-----------//
+    // roundTrip //
+    //-----------//
+    private RunTable roundTrip (RunTable table,
+                                boolean deflate)
+            throws Exception
+    {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        RunTableCodec.write(table, os, deflate);
+        System.out.println(table + " deflate:" + deflate + " bytes:" + os.size());
+
+        return RunTableCodec.read(new ByteArrayInputStream(os.toByteArray()));
+    }
+}
@@ -36,6 +36,8 @@ import org.junit.Test;
 
 import java.awt.Dimension;
 import java.awt.Point;
+import java.util.Iterator;
+import java.util.Random;
 
 /**
  *
@@ -157,6 +159,86 @@ public class RunTableTest
         assertEquals(255, instance.get(1, 1));
     }
 
+    /**
+     * Test of RunCursor browsing, compared with iterator browsing.
+     */
+    @Test
+    public void testCursor ()
+    {
+        System.out.println("\n+++ cursor");
+
+        for (RunTable instance : new RunTable[]{createHorizontalInstance(),
+                                                createVerticalInstance(),
+                                                createLargeHorizontalInstance()}) {
+            RunCursor cursor = new RunCursor(instance);
+
+            for (int iSeq = 0; iSeq < instance.getSize(); iSeq++) {
+                cursor.reset(iSeq);
+
+                for (Iterator<Run> it = instance.iterator(iSeq); it.hasNext();) {
+                    Run run = it.next();
+                    assertTrue(cursor.next());
+                    assertEquals(run.getStart(), cursor.getStart());
+                    assertEquals(run.getLength(), cursor.getLength());
+                    assertEquals(run.getStop(), cursor.getStop());
+                }
+
+                assertFalse(cursor.next());
+            }
+        }
+    }
+
+    /**
+     * Test of table creation from a buffer, via direct pixel scan and via runs retriever.
+     */
+    @Test
+    public void testCreateTable ()
+    {
+        System.out.println("\n+++ createTable");
+
+        for (RunTable instance : new RunTable[]{createHorizontalInstance(),
+                                                createVerticalInstance(),
+                                                createLargeHorizontalInstance()}) {
+            final RunTableFactory factory = new RunTableFactory(instance.getOrientation());
+            final ByteProcessor buffer = instance.getBuffer();
+            assertEquals(instance, factory.createTable(buffer));
+
+            // A ByteProcessor subclass goes through the runs retriever
+            final ByteProcessor wrapper = new ByteProcessor(
+                    buffer.getWidth(),
+                    buffer.getHeight(),
+                    (byte[]) buffer.getPixels())
+            {
+            };
+            assertEquals(instance, factory.createTable(wrapper));
+        }
+    }
+
+    /**
+     * Test of parallel table creation, compared with sequential creation.
+     */
+    @Test
+    public void testCreateParallelTable ()
+    {
+        System.out.println("\n+++ createParallelTable");
+
+        final int width = 1200;
+        final int height = 700;
+        final ByteProcessor buffer = new ByteProcessor(width, height);
+        final Random random = new Random(123);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                buffer.set(x, y, random.nextInt(3) == 0 ? 0 : 255);
+            }
+        }
+
+        for (Orientation orientation : Orientation.values()) {
+            final RunTableFactory factory = new RunTableFactory(orientation);
+            assertEquals(factory.createTable(buffer), factory.createParallelTable(buffer));
+        }
+    }
+
     /**
      * Test of getBuffer method, of class RunTable.
      */
@@ -447,6 +529,48 @@ public class RunTableTest
         System.out.println("table after:" + instance.dumpOf());
     }
 
+    /**
+     * Test of setSequence method with a builder, of class RunTable.
+     */
+    @Test
+    public void testSetSequence_Builder ()
+    {
+        System.out.println("\n+++ setSequence_builder");
+
+        RunTable.Builder builder = new RunTable.Builder();
+
+        for (RunTable instance : new RunTable[]{createHorizontalInstance(),
+                                                createVerticalInstance(),
+                                                createLargeHorizontalInstance()}) {
+            RunTable copy = new RunTable(
+                    instance.getOrientation(),
+                    instance.getWidth(),
+                    instance.getHeight());
+            RunCursor cursor = new RunCursor(instance);
+
+            for (int iSeq = 0; iSeq < instance.getSize(); iSeq++) {
+                cursor.reset(iSeq);
+
+                while (cursor.next()) {
+                    builder.append(cursor.getStart(), cursor.getLength());
+                }
+
+                copy.setSequence(iSeq, builder);
+                assertTrue(builder.isEmpty());
+            }
+
+            assertEquals(instance, copy);
+        }
+
+        // Touching runs get merged
+        RunTable table = new RunTable(HORIZONTAL, 10, 1);
+        builder.append(2, 3);
+        builder.append(5, 2);
+        table.setSequence(0, builder);
+        assertEquals(1, table.getTotalRunCount());
+        assertEquals(5, table.getRunAt(2, 0).getLength());
+    }
+
     /**
      * Test of toString method, of class RunTable.
      */
@@ -0,0 +1,348 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               S c o r e E x p o r t e r T e s t                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.score;
+
+import org.audiveris.proxymusic.Direction;
+import org.audiveris.proxymusic.DirectionType;
+import org.audiveris.proxymusic.FormattedText;
+import org.audiveris.proxymusic.Link;
+import org.audiveris.proxymusic.Note;
+import org.audiveris.proxymusic.ObjectFactory;
+import org.audiveris.proxymusic.PartName;
+import org.audiveris.proxymusic.Pitch;
+import org.audiveris.proxymusic.Print;
+import org.audiveris.proxymusic.ScorePart;
+import org.audiveris.proxymusic.ScorePartwise;
+import org.audiveris.proxymusic.Step;
+import org.audiveris.proxymusic.YesNo;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+/**
+ * Class {@code ScoreExporterTest} checks that streamed export, with measures buffered
+ * page after page, produces the same MusicXML content as the plain marshalling of the whole
+ * ScorePartwise.
+ *
+ * @author Hervé Bitteur
+ */
+public class ScoreExporterTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final ObjectFactory factory = new ObjectFactory();
+
+    private static final int PART_COUNT = 3;
+
+    private static final int PAGE_COUNT = 4;
+
+    private static final int MEASURES_PER_PAGE = 5;
+
+    //~ Methods ------------------------------------------------------------------------------------
+
+    @Test
+    public void testCompressed ()
+            throws Exception
+    {
+        System.out.println("\n+++ compressed");
+
+        Map<String, byte[]> expected = unzip(exportWhole(true));
+        Map<String, byte[]> streamed = unzip(exportStreamed(true));
+
+        assertEquals(expected.keySet(), streamed.keySet());
+
+        for (String name : expected.keySet()) {
+            if (name.equals("test.xml")) {
+                assertSameXml(name, expected.get(name), streamed.get(name));
+            } else {
+                assertArrayEquals(name, expected.get(name), streamed.get(name));
+            }
+        }
+    }
+
+    @Test
+    public void testUncompressed ()
+            throws Exception
+    {
+        System.out.println("\n+++ uncompressed");
+
+        assertSameXml("score", exportWhole(false), exportStreamed(false));
+    }
+
+    //---------------//
+    // assertSameXml //
+    //---------------//
+    private void assertSameXml (String message,
+                                byte[] expected,
+                                byte[] actual)
+            throws Exception
+    {
+        // Namespace-aware parsing (without DTD defaults) fails on any undeclared xlink prefix
+        parse(actual, true);
+
+        // Content comparison, regardless of namespace declarations
+        Document expDoc = parse(expected, false);
+        Document actDoc = parse(actual, false);
+        assertTrue(message, expDoc.getDocumentElement().isEqualNode(actDoc.getDocumentElement()));
+    }
+
+    //-------------//
+    // createScore //
+    //-------------//
+    /**
+     * Create a multi-part ScorePartwise, with measures spread over several pages.
+     *
+     * @param withMeasures true to populate measures, false for the mere skeleton
+     */
+    private ScorePartwise createScore (boolean withMeasures)
+    {
+        ScorePartwise scorePartwise = factory.createScorePartwise();
+        scorePartwise.setPartList(factory.createPartList());
+
+        for (int ip = 1; ip <= PART_COUNT; ip++) {
+            ScorePart scorePart = factory.createScorePart();
+            scorePart.setId("P" + ip);
+
+            PartName partName = factory.createPartName();
+            partName.setValue("Part #" + ip);
+            scorePart.setPartName(partName);
+            scorePartwise.getPartList().getPartGroupOrScorePart().add(scorePart);
+
+            ScorePartwise.Part part = factory.createScorePartwisePart();
+            part.setId(scorePart);
+            scorePartwise.getPart().add(part);
+
+            if (withMeasures) {
+                for (int page = 0; page < PAGE_COUNT; page++) {
+                    part.getMeasure().addAll(createMeasures(ip, page));
+                }
+            }
+        }
+
+        return scorePartwise;
+    }
+
+    //----------------//
+    // createMeasures //
+    //----------------//
+    /**
+     * Create the measures of one page for one part.
+     * Page first measure starts a new page, and refers to page image via an xlink attribute.
+     */
+    private List<ScorePartwise.Part.Measure> createMeasures (int ip,
+                                                            int page)
+    {
+        List<ScorePartwise.Part.Measure> measures = new ArrayList<ScorePartwise.Part.Measure>();
+
+        for (int im = 1; im <= MEASURES_PER_PAGE; im++) {
+            ScorePartwise.Part.Measure measure = factory.createScorePartwisePartMeasure();
+            measure.setNumber(Integer.toString((page * MEASURES_PER_PAGE) + im));
+
+            if (im == 1) {
+                if (page > 0) {
+                    Print print = factory.createPrint();
+                    print.setNewPage(YesNo.YES);
+                    measure.getNoteOrBackupOrForward().add(print);
+                }
+
+                Link link = factory.createLink();
+                link.setHref("page-" + (page + 1) + ".png");
+                measure.getNoteOrBackupOrForward().add(link);
+
+                Direction direction = factory.createDirection();
+                DirectionType directionType = factory.createDirectionType();
+                FormattedText words = factory.createFormattedText();
+                words.setValue("Page <" + (page + 1) + "> & \"part\" " + ip);
+                directionType.getWords().add(words);
+                direction.getDirectionType().add(directionType);
+                measure.getNoteOrBackupOrForward().add(direction);
+            }
+
+            for (int in = 0; in < 4; in++) {
+                Note note = factory.createNote();
+                Pitch pitch = factory.createPitch();
+                pitch.setStep(Step.values()[(im + in + ip) % Step.values().length]);
+                pitch.setOctave(4);
+                note.setPitch(pitch);
+                note.setDuration(new BigDecimal(1));
+                note.setVoice("1");
+                measure.getNoteOrBackupOrForward().add(note);
+            }
+
+            measures.add(measure);
+        }
+
+        return measures;
+    }
+
+    //----------------//
+    // exportStreamed //
+    //----------------//
+    private byte[] exportStreamed (boolean compressed)
+            throws Exception
+    {
+        final ScorePartwise skeleton = createScore(false);
+        final ScoreExporter.MeasureStreamer streamer = new ScoreExporter.MeasureStreamer(null);
+
+        try {
+            // Measures are fed page after page, as PartwiseBuilder does stub after stub
+            for (int page = 0; page < PAGE_COUNT; page++) {
+                for (int ip = 1; ip <= PART_COUNT; ip++) {
+                    streamer.measuresBuilt(skeleton.getPart().get(ip - 1), createMeasures(ip, page));
+                }
+            }
+
+            streamer.finish();
+
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            ScoreExporter.write(skeleton, streamer, os, false, "test", compressed);
+
+            return os.toByteArray();
+        } finally {
+            streamer.dispose();
+        }
+    }
+
+    //-------------//
+    // exportWhole //
+    //-------------//
+    private byte[] exportWhole (boolean compressed)
+            throws Exception
+    {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ScoreExporter.write(createScore(true), null, os, false, "test", compressed);
+
+        return os.toByteArray();
+    }
+
+    //-------//
+    // parse //
+    //-------//
+    private Document parse (byte[] bytes,
+                            boolean namespaceAware)
+            throws Exception
+    {
+        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setNamespaceAware(namespaceAware);
+        dbf.setIgnoringComments(true); // ProxyMusic separators are not reproduced
+        dbf.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+
+        DocumentBuilder db = dbf.newDocumentBuilder();
+        Document doc = db.parse(new ByteArrayInputStream(bytes));
+        removeBlanks(doc.getDocumentElement());
+        doc.normalizeDocument();
+
+        return doc;
+    }
+
+    //--------------//
+    // removeBlanks //
+    //--------------//
+    /**
+     * Remove namespace declarations and whitespace-only text nodes, which depend on
+     * formatting only.
+     */
+    private void removeBlanks (Node node)
+    {
+        if (node.getNodeType() == Node.ELEMENT_NODE) {
+            Element element = (Element) node;
+            NamedNodeMap attributes = element.getAttributes();
+
+            for (int i = attributes.getLength() - 1; i >= 0; i--) {
+                String name = attributes.item(i).getNodeName();
+
+                if (name.startsWith("xmlns")) {
+                    element.removeAttribute(name);
+                }
+            }
+        }
+
+        Node child = node.getFirstChild();
+
+        while (child != null) {
+            Node next = child.getNextSibling();
+
+            if ((child.getNodeType() == Node.TEXT_NODE) && child.getTextContent().trim().isEmpty()) {
+                node.removeChild(child);
+            } else {
+                removeBlanks(child);
+            }
+
+            child = next;
+        }
+    }
+
+    //-------//
+    // unzip //
+    //-------//
+    private Map<String, byte[]> unzip (byte[] bytes)
+            throws Exception
+    {
+        Map<String, byte[]> entries = new TreeMap<String, byte[]>();
+        ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(bytes));
+        ZipEntry entry;
+
+        while ((entry = zis.getNextEntry()) != null) {
+            entries.put(entry.getName(), readAll(zis));
+        }
+
+        zis.close();
+
+        return entries;
+    }
+
+    //---------//
+    // readAll //
+    //---------//
+    private byte[] readAll (InputStream is)
+            throws Exception
+    {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int len;
+
+        while ((len = is.read(buffer)) > 0) {
+            os.write(buffer, 0, len);
+        }
+
+        return os.toByteArray();
+    }
+}
@@ -0,0 +1,236 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                              S h e e t A d m i s s i o n T e s t                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Class {@code SheetAdmissionTest} checks {@link SheetAdmission} with a fake memory probe.
+ *
+ * @author Hervé Bitteur
+ */
+public class SheetAdmissionTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final long MB = 1024L * 1024L;
+
+    /** Default footprint, as defined by SheetAdmission constants. */
+    private static final long DEFAULT = 400 * MB;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------------//
+    // testAdmission //
+    //---------------//
+    @Test
+    public void testAdmission ()
+            throws Exception
+    {
+        final FakeProbe probe = new FakeProbe(100000 * MB);
+        final SheetAdmission admission = new SheetAdmission(3, probe);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(DEFAULT, admission.acquire());
+        }
+
+        assertEquals(0, probe.gcCount);
+    }
+
+    //-------------------//
+    // testCountBlocking //
+    //-------------------//
+    @Test
+    public void testCountBlocking ()
+            throws Exception
+    {
+        final SheetAdmission admission = new SheetAdmission(2, new FakeProbe(100000 * MB));
+        final long first = admission.acquire();
+        admission.acquire();
+
+        final Future<Long> third = executor.submit(acquiring(admission));
+        assertBlocked(third);
+
+        admission.release(first, 0);
+        assertEquals(DEFAULT, (long) third.get(5, TimeUnit.SECONDS));
+    }
+
+    //------------------//
+    // testInterruption //
+    //------------------//
+    @Test
+    public void testInterruption ()
+            throws Exception
+    {
+        final SheetAdmission admission = new SheetAdmission(1, new FakeProbe(100000 * MB));
+        admission.acquire();
+
+        final Future<Long> second = executor.submit(acquiring(admission));
+        assertBlocked(second);
+        executor.shutdownNow(); // Interrupts the waiting thread
+
+        try {
+            second.get(5, TimeUnit.SECONDS);
+            fail("InterruptedException expected");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof InterruptedException);
+        }
+    }
+
+    //--------------------//
+    // testMemoryBlocking //
+    //--------------------//
+    @Test
+    public void testMemoryBlocking ()
+            throws Exception
+    {
+        // 1000 MB max, 10% margin: budget is 900 MB, room for 2 default sheets
+        final FakeProbe probe = new FakeProbe(1000 * MB);
+        final SheetAdmission admission = new SheetAdmission(4, probe);
+        final long first = admission.acquire();
+        admission.acquire();
+
+        final Future<Long> third = executor.submit(acquiring(admission));
+        assertBlocked(third);
+        assertEquals("GC tried before waiting", 1, probe.gcCount);
+
+        admission.release(first, 0);
+        assertEquals(DEFAULT, (long) third.get(5, TimeUnit.SECONDS));
+    }
+
+    //----------------------//
+    // testOccupiedBlocking //
+    //----------------------//
+    @Test
+    public void testOccupiedBlocking ()
+            throws Exception
+    {
+        final FakeProbe probe = new FakeProbe(100000 * MB);
+        final SheetAdmission admission = new SheetAdmission(4, probe);
+        admission.acquire();
+
+        // Memory is now almost full, whatever the reservations
+        probe.occupied = 89900 * MB;
+
+        final Future<Long> second = executor.submit(acquiring(admission));
+        assertBlocked(second);
+
+        probe.occupied = 0; // Memory freed, admission re-checks periodically
+        assertEquals(DEFAULT, (long) second.get(5, TimeUnit.SECONDS));
+    }
+
+    //-------------//
+    // testRelease //
+    //-------------//
+    @Test
+    public void testRelease ()
+            throws Exception
+    {
+        final SheetAdmission admission = new SheetAdmission(1, new FakeProbe(100000 * MB));
+        final long first = admission.acquire();
+
+        // Estimate is refined by the actual image size
+        admission.release(first, 1000000);
+        assertEquals(48 * 1000000L, admission.acquire());
+    }
+
+    //-----------//
+    // acquiring //
+    //-----------//
+    private static Callable<Long> acquiring (final SheetAdmission admission)
+    {
+        return new Callable<Long>()
+        {
+            @Override
+            public Long call ()
+                    throws Exception
+            {
+                return admission.acquire();
+            }
+        };
+    }
+
+    //---------------//
+    // assertBlocked //
+    //---------------//
+    private static void assertBlocked (Future<Long> future)
+            throws Exception
+    {
+        try {
+            future.get(300, TimeUnit.MILLISECONDS);
+            fail("acquire should be blocked");
+        } catch (TimeoutException expected) {
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // FakeProbe //
+    //-----------//
+    private static class FakeProbe
+            implements SheetAdmission.MemoryProbe
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final long max;
+
+        volatile long occupied;
+
+        volatile int gcCount;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public FakeProbe (long max)
+        {
+            this.max = max;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public void gc ()
+        {
+            gcCount++;
+        }
+
+        @Override
+        public long max ()
+        {
+            return max;
+        }
+
+        @Override
+        public long occupied ()
+        {
+            return occupied;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 S o u r c e C a c h e T e s t                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.sheet.Picture.SourceKey;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Class {@code SourceCacheTest} checks eviction, pinning and counters of
+ * {@link SourceCache}.
+ *
+ * @author Hervé Bitteur
+ */
+public class SourceCacheTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Set<SourceKey> NONE = EnumSet.noneOf(SourceKey.class);
+
+    //~ Methods ------------------------------------------------------------------------------------
+
+    @Test
+    public void testCounters ()
+    {
+        System.out.println("\n+++ counters");
+
+        SourceCache cache = new SourceCache(1000);
+        assertNull(cache.get(SourceKey.BINARY, NONE));
+
+        ByteProcessor binary = new ByteProcessor(10, 10);
+        cache.put(SourceKey.BINARY, binary, NONE);
+        assertSame(binary, cache.get(SourceKey.BINARY, NONE));
+        assertSame(binary, cache.get(SourceKey.BINARY, NONE));
+
+        assertEquals(1, cache.getBuilds(SourceKey.BINARY));
+        assertEquals(2, cache.getHits(SourceKey.BINARY));
+        assertEquals(0, cache.getHits(SourceKey.NO_STAFF));
+
+        cache.remove(SourceKey.BINARY);
+        assertEquals(0, cache.getSize());
+        assertNull(cache.get(SourceKey.BINARY, NONE));
+    }
+
+    @Test
+    public void testEviction ()
+    {
+        System.out.println("\n+++ eviction");
+
+        // Room for 2 sources of 10x10
+        SourceCache cache = new SourceCache(200);
+        cache.put(SourceKey.BINARY, new ByteProcessor(10, 10), NONE);
+        cache.put(SourceKey.NO_STAFF, new ByteProcessor(10, 10), NONE);
+        assertEquals(200, cache.getSize());
+
+        // BINARY is now the most recently used
+        assertNotNull(cache.get(SourceKey.BINARY, NONE));
+
+        // NO_STAFF is evicted from strong references
+        cache.put(SourceKey.MEDIAN, new ByteProcessor(10, 10), NONE);
+        assertEquals(200, cache.getSize());
+        assertTrue(cache.toString().contains("NO_STAFF:-"));
+        assertTrue(cache.toString().contains("BINARY:S"));
+    }
+
+    @Test
+    public void testPinning ()
+    {
+        System.out.println("\n+++ pinning");
+
+        SourceCache cache = new SourceCache(200);
+        Set<SourceKey> pinned = EnumSet.of(SourceKey.BINARY, SourceKey.NO_STAFF);
+        cache.put(SourceKey.BINARY, new ByteProcessor(10, 10), pinned);
+        cache.put(SourceKey.NO_STAFF, new ByteProcessor(10, 10), pinned);
+
+        // No room for MEDIAN, which is evicted as soon as stored
+        cache.put(SourceKey.MEDIAN, new ByteProcessor(10, 10), pinned);
+        assertTrue(cache.toString().contains("BINARY:S"));
+        assertTrue(cache.toString().contains("NO_STAFF:S"));
+        assertTrue(cache.toString().contains("MEDIAN:-"));
+
+        // Pinned sources alone may exceed the budget
+        cache.put(SourceKey.BINARY, new ByteProcessor(20, 10), pinned);
+        assertEquals(300, cache.getSize());
+    }
+}
@@ -27,6 +27,14 @@ import com.jgraph.layout.hierarchical.JGraphHierarchicalLayout;
 
 import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.math.GeoOrder;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.sheet.BasicBook;
+import org.audiveris.omr.sheet.BasicSheet;
+import org.audiveris.omr.sheet.BasicStub;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.Staff;
+import org.audiveris.omr.sheet.SystemInfo;
 import org.audiveris.omr.sig.inter.AbstractInter;
 import org.audiveris.omr.sig.inter.Inter;
 import org.audiveris.omr.sig.relation.AbstractSupport;
@@ -46,9 +54,20 @@ import org.jgrapht.ext.JGraphModelAdapter;
 import org.jgrapht.graph.DefaultListenableGraph;
 import org.jgrapht.graph.Multigraph;
 
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.awt.Point;
 import java.awt.Rectangle;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
 import java.awt.geom.Rectangle2D;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import javax.swing.JFrame;
 import javax.swing.JScrollPane;
@@ -159,6 +178,138 @@ public class SIGraphTest
         jgraph.getGraphLayoutCache().edit(nested);
     }
 
+    //-------------------//
+    // testIndexedLookup //
+    //-------------------//
+    /**
+     * Spatial lookups must match a linear scan of all inters, including after bounds
+     * have been assigned or modified.
+     */
+    @Test
+    public void testIndexedLookup ()
+    {
+        final Random random = new Random(1);
+        final SIGraph sig = createSystem().getSig();
+        final List<Inter> inters = new ArrayList<Inter>();
+
+        for (int i = 0; i < 300; i++) {
+            // Some inters get their bounds only after insertion
+            final boolean late = (i % 5) == 0;
+            final Inter inter = new TestInter(late ? null : randomBox(random));
+            sig.addVertex(inter);
+            inters.add(inter);
+
+            if (late) {
+                inter.setBounds(randomBox(random));
+            }
+        }
+
+        checkLookups(random, sig);
+
+        // Move some inters
+        for (int i = 0; i < inters.size(); i += 3) {
+            inters.get(i).setBounds(randomBox(random));
+        }
+
+        checkLookups(random, sig);
+    }
+
+    //--------------------//
+    // testIndexedRemoval //
+    //--------------------//
+    /**
+     * Deleted inters must no longer be found.
+     */
+    @Test
+    public void testIndexedRemoval ()
+    {
+        final Random random = new Random(2);
+        final SIGraph sig = createSystem().getSig();
+        final List<Inter> inters = new ArrayList<Inter>();
+
+        for (int i = 0; i < 300; i++) {
+            final Inter inter = new TestInter(randomBox(random));
+            sig.addVertex(inter);
+            inters.add(inter);
+        }
+
+        checkLookups(random, sig);
+
+        for (int i = 0; i < inters.size(); i += 4) {
+            inters.get(i).delete();
+        }
+
+        assertEquals(inters.size() - 75, sig.vertexSet().size());
+        checkLookups(random, sig);
+    }
+
+    //--------------//
+    // checkLookups //
+    //--------------//
+    /**
+     * Check indexed lookups against a linear scan of sig inters.
+     */
+    private static void checkLookups (Random random,
+                                      SIGraph sig)
+    {
+        final List<Inter> all = new ArrayList<Inter>(sig.vertexSet());
+
+        for (int i = 0; i < 200; i++) {
+            final Rectangle rect = randomBox(random);
+            rect.grow(50, 50);
+
+            // Contained
+            final List<Inter> contained = new ArrayList<Inter>();
+
+            for (Inter inter : all) {
+                if (rect.contains(inter.getBounds())) {
+                    contained.add(inter);
+                }
+            }
+
+            assertEquals(rect.toString(), contained, sig.containedInters(rect));
+
+            // Containing
+            final Point point = new Point(rect.x, rect.y);
+            final List<Inter> containing = new ArrayList<Inter>();
+
+            for (Inter inter : all) {
+                if (inter.getBounds().contains(point)) {
+                    containing.add(inter);
+                }
+            }
+
+            assertEquals(point.toString(), containing, sig.containingInters(point));
+
+            // Intersected
+            assertEquals(
+                    rect.toString(),
+                    SIGraph.intersectedInters(all, GeoOrder.NONE, rect),
+                    sig.intersectedInters(rect));
+
+            final Area area = new Area(
+                    new Ellipse2D.Double(rect.x, rect.y, rect.width, rect.height));
+            assertEquals(
+                    rect.toString(),
+                    SIGraph.intersectedInters(all, GeoOrder.NONE, area),
+                    sig.intersectedInters(area));
+        }
+    }
+
+    //--------------//
+    // createSystem //
+    //--------------//
+    /**
+     * Build a system with an empty sig, within a minimal sheet.
+     */
+    private static SystemInfo createSystem ()
+    {
+        final BasicBook book = new BasicBook(Paths.get("test.png"));
+        final Sheet sheet = new BasicSheet(new BasicStub(book, 1), (RunTable) null);
+
+        return new SystemInfo(1, sheet, Collections.<Staff>emptyList());
+    }
+
     @SuppressWarnings("unchecked")
     private static void positionVertexAt (Object vertex,
                                           int x,
@@ -182,6 +333,18 @@ public class SIGraphTest
         jgAdapter.edit(cellAttr, null, null, null);
     }
 
+    //-----------//
+    // randomBox //
+    //-----------//
+    private static Rectangle randomBox (Random random)
+    {
+        return new Rectangle(
+                random.nextInt(1000),
+                random.nextInt(1000),
+                1 + random.nextInt(100),
+                1 + random.nextInt(100));
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //-----------------//
     // ListenableGraph //
@@ -217,5 +380,10 @@ public class SIGraphTest
         {
             super((Glyph) null, (Rectangle) null, shape, grade);
         }
+
+        public TestInter (Rectangle bounds)
+        {
+            super((Glyph) null, bounds, Shape.CLUTTER, 0.5);
+        }
     }
 }
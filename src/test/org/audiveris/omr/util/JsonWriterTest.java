@@ -0,0 +1,81 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                  J s o n W r i t e r T e s t                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Audiveris 2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Class {@code JsonWriterTest} checks the output of {@link JsonWriter}.
+ *
+ * @author Hervé Bitteur
+ */
+public class JsonWriterTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    //------------//
+    // testQuoted //
+    //------------//
+    @Test
+    public void testQuoted ()
+    {
+        assertEquals("\"a\\\"b\\\\c\\u000a\"", JsonWriter.quoted("a\"b\\c\n"));
+    }
+
+    //-------------//
+    // testWriting //
+    //-------------//
+    @Test
+    public void testWriting ()
+            throws Exception
+    {
+        final Path path = Files.createTempFile("json", ".json");
+
+        try {
+            final JsonWriter json = new JsonWriter(path);
+
+            try {
+                json.beginObject(null).value("name", "x").value("none", (String) null);
+                json.beginArray("list").value(null, 1).value(null, true).endArray();
+                json.beginArray("empty").endArray();
+                json.beginObject("sub").value("ratio", 0.5).value("unknown", Double.NaN);
+                json.endObject().endObject();
+            } finally {
+                json.close();
+            }
+
+            final String expected = "{\n" + "  \"name\": \"x\",\n" + "  \"none\": null,\n"
+                                    + "  \"list\": [\n" + "    1,\n" + "    true\n" + "  ],\n"
+                                    + "  \"empty\": [],\n" + "  \"sub\": {\n"
+                                    + "    \"ratio\": 0.500,\n" + "    \"unknown\": null\n"
+                                    + "  }\n" + "}\n";
+            final String actual = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+            assertEquals(expected, actual.replace("\r\n", "\n"));
+        } finally {
+            Files.delete(path);
+        }
+    }
+}